@@ -0,0 +1,140 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.LatencyRecorder;
+import com.walmart.exercise.ticketservice.adapter.service.TicketServiceImpl;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadGenerator drives a {@link TicketServer} over loopback with pipelined requests and reports the throughput and
+ * the latency percentiles per operation. Every connection keeps a fixed number of requests in flight, each one a
+ * chain of an availability query, a hold of 1 to 4 seats and either its release or, one time out of ten, its
+ * reservation then cancellation, so the venue never sells out.
+ * Usage: java -cp target/benchmarks.jar com.walmart.exercise.ticketservice.adapter.network.LoadGenerator
+ * [connections] [requests in flight per connection] [seconds] [server threads] [worker threads]
+ * The ticket service of the benchmark never waits, it is served on the selector threads unless worker threads are
+ * given.
+ */
+public final class LoadGenerator {
+
+    private static final String[] OPERATIONS = {"available", "hold", "reserve", "release", "cancel"};
+
+    private final List<TicketClient> clients = new ArrayList<>();
+    private final LatencyRecorder[] latencies = new LatencyRecorder[OPERATIONS.length];
+    private final AtomicLong failures = new AtomicLong();
+    private volatile boolean running = true;
+
+    private LoadGenerator(){
+        resetLatencies();
+    }
+
+    private void resetLatencies(){
+        for(int i = 0; i < latencies.length; i++){
+            latencies[i] = new LatencyRecorder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception{
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int serverThreads = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int workerThreads = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        TicketServiceImpl ticketService = new TicketServiceImpl(new SeatTracker(1000, 1000), 60);
+        TicketServer server = new TicketServer(ticketService, new TicketServerConfig().setIoThreads(serverThreads)
+                .setWorkerThreads(workerThreads));
+        LoadGenerator generator = new LoadGenerator();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        for(int i = 0; i < connections; i++){
+            generator.clients.add(new TicketClient(address));
+        }
+        System.out.printf("%d connections, %d requests in flight each, %d server threads, %d seconds%n",
+                connections, inFlight, serverThreads, seconds);
+        // a first pass to warm the JIT up, not reported
+        generator.run(inFlight, Math.min(seconds, 2));
+        generator.resetLatencies();
+        generator.running = true;
+        generator.run(inFlight, seconds);
+        generator.report(seconds);
+
+        for(TicketClient client : generator.clients){
+            client.close();
+        }
+        server.close();
+        ticketService.shutdown();
+    }
+
+    private void run(int inFlight, int seconds) throws InterruptedException{
+        CountDownLatch done = new CountDownLatch(clients.size() * inFlight);
+        for(TicketClient client : clients){
+            for(int i = 0; i < inFlight; i++){
+                next(client, done);
+            }
+        }
+        TimeUnit.SECONDS.sleep(seconds);
+        running = false;
+        done.await();
+    }
+
+    private void next(TicketClient client, CountDownLatch done){
+        if(!running){
+            done.countDown();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String email = "customer" + random.nextInt(10_000) + "@load.test";
+        int numSeats = 1 + random.nextInt(4);
+        boolean reserve = random.nextInt(10) == 0;
+        timed(0, client.numSeatsAvailableAsync())
+                .thenCompose(available -> timed(1, client.findAndHoldSeats(numSeats, email)))
+                .thenCompose(seatHold -> seatHold == null ? CompletableFuture.completedFuture(null)
+                        : reserve ? reserveAndCancel(client, seatHold)
+                        : timed(3, client.releaseHold(seatHold.getSeatHoldId(), email)))
+                .whenComplete((result, failure) -> {
+                    if(failure != null){
+                        failures.incrementAndGet();
+                        done.countDown();
+                    } else {
+                        next(client, done);
+                    }
+                });
+    }
+
+    private CompletableFuture<Boolean> reserveAndCancel(TicketClient client, SeatHold seatHold){
+        String email = seatHold.getCustomerEmail();
+        return timed(2, client.reserveSeats(seatHold.getSeatHoldId(), email))
+                .thenCompose(code -> code == null ? CompletableFuture.completedFuture(false)
+                        : timed(4, client.cancelReservation(code, email)));
+    }
+
+    private <T> CompletableFuture<T> timed(int operation, CompletableFuture<T> request){
+        long start = System.nanoTime();
+        return request.whenComplete((result, failure) -> latencies[operation].record(System.nanoTime() - start));
+    }
+
+    private void report(int seconds){
+        long total = 0;
+        for(LatencyRecorder latency : latencies){
+            total += latency.count();
+        }
+        System.out.printf("%.0f requests/s, %d failed chains%n", (double) total / seconds, failures.get());
+        for(int i = 0; i < OPERATIONS.length; i++){
+            LatencyRecorder latency = latencies[i];
+            System.out.printf("  %-10s %10d requests %9.0f/s  p50 %8dns  p99 %9dns  p99.9 %9dns  max %10dns%n",
+                    OPERATIONS[i], latency.count(), (double) latency.count() / seconds,
+                    latency.valueAtPercentile(50), latency.valueAtPercentile(99),
+                    latency.valueAtPercentile(99.9), latency.max());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner runs the benchmarks once per thread count, with the GC and allocation profiler, and writes the
+ * results of each thread count as JSON to jmh-result-threads-N.json.
+ * Usage: java -jar target/benchmarks.jar [benchmark regex] [thread counts, e.g. 1,4,16]
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner(){
+    }
+
+    public static void main(String[] args) throws RunnerException{
+        String include = args.length > 0 ? args[0] : "com.walmart.exercise.ticketservice.*";
+        String threadCounts = args.length > 1 ? args[1] : "1,4,16";
+        for (String threadCount : threadCounts.split(",")) {
+            int threads = Integer.parseInt(threadCount.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-threads-" + threads + ".json");
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+/**
+ * BenchmarkVenues creates the venues the benchmarks run against.
+ */
+final class BenchmarkVenues {
+
+    static final String CUSTOMER_EMAIL = "benchmark@test.com";
+
+    private BenchmarkVenues(){
+    }
+
+    /**
+     * Creates a venue where every other seat of the front half of the rows is reserved, so the allocation has
+     * to skip sold seats and the free seats are fragmented like during a sale.
+     * @param venue venue size as rows x columns, e.g. 100x100
+     * @return the seat tracker of the venue
+     */
+    static SeatTracker halfSoldVenue(String venue){
+        String[] size = venue.split("x");
+        SeatTracker seatTracker = new SeatTracker(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        for(int row = 0; row < seatTracker.getRows() / 2; row++){
+            for(int column = row % 2; column < seatTracker.getColumns(); column += 2){
+                seatTracker.compareAndSetStatus(seatTracker.getSeat(row, column), SeatStatus.AVAILABLE, SeatStatus.RESERVED);
+            }
+        }
+        return seatTracker;
+    }
+
+    static AllocationStrategy allocationStrategy(String name){
+        return "contiguous".equals(name) ? new ContiguousBlockStrategy() : new BestAvailableStrategy();
+    }
+}
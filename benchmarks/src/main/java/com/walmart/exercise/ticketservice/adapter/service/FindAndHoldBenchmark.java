@@ -0,0 +1,67 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Find and hold throughput. Every hold is released right away, through the same path as an expired hold, so the
+ * venue stays half sold for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindAndHoldBenchmark {
+
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String venue;
+
+    @Param({"1", "10", "40"})
+    public int holdSize;
+
+    @Param({"best", "contiguous"})
+    public String strategy;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    private SeatAssignmentManager seatAssignmentManager;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        // holds are due right away, the expiration thread drains what the benchmark releases itself
+        seatAssignmentManager = new SeatAssignmentManager(BenchmarkVenues.halfSoldVenue(venue),
+                new SeatAssignmentConfig().setHoldTime(0).setShards(shards)
+                        .setAllocationStrategy(BenchmarkVenues.allocationStrategy(strategy)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        seatAssignmentManager.shutdown();
+    }
+
+    @Benchmark
+    public SeatHold findAndHoldSeats(){
+        SeatHold seatHold = seatAssignmentManager.findAndHold(holdSize, BenchmarkVenues.CUSTOMER_EMAIL);
+        if(seatHold != null){
+            seatAssignmentManager.expire(seatHold.getSeatHoldId());
+        }
+        return seatHold;
+    }
+}
@@ -0,0 +1,65 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One run of the seat hold expiration with pending holds all due, as the expiration scheduler runs it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoldExpiryBenchmark {
+
+    @Param({"100", "10000"})
+    public int pendingHolds;
+
+    @Param({"1", "10"})
+    public int holdSize;
+
+    private SeatTracker seatTracker;
+    private SeatAssignmentManager seatAssignmentManager;
+
+    @Setup(Level.Trial)
+    public void setUpVenue(){
+        seatTracker = new SeatTracker(1000, 1000);
+        // the benchmark runs the expiration itself, the scheduler is kept out of the way
+        seatAssignmentManager = new SeatAssignmentManager(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(0).setExpiryTickMillis(TimeUnit.HOURS.toMillis(1)));
+    }
+
+    @Setup(Level.Invocation)
+    public void holdSeats(){
+        for(int i = 0; i < pendingHolds; i++){
+            seatAssignmentManager.findAndHold(holdSize, BenchmarkVenues.CUSTOMER_EMAIL);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        seatAssignmentManager.shutdown();
+    }
+
+    @Benchmark
+    public int expireHolds(){
+        seatAssignmentManager.expireHolds(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+        return seatTracker.numAvailableSeat();
+    }
+}
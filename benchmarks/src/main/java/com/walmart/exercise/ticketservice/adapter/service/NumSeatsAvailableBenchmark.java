@@ -0,0 +1,84 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat availability reads, alone and racing with holds. The exact count scan is measured next to the counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumSeatsAvailableBenchmark {
+
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String venue;
+
+    @Param({"1", "10"})
+    public int holdSize;
+
+    private SeatTracker seatTracker;
+    private TicketServiceImpl ticketService;
+    private SeatAssignmentManager seatAssignmentManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws TicketServiceException{
+        seatTracker = BenchmarkVenues.halfSoldVenue(venue);
+        ticketService = new TicketServiceImpl(seatTracker, 0);
+        // the holds go straight to the manager of the ticket service, due right away
+        seatAssignmentManager = ticketService.seatAssignmentManager();
+    }
+
+    @Benchmark
+    public int numSeatsAvailable(){
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Benchmark
+    public Object auditSeatCounts(){
+        return seatTracker.auditSeatCounts();
+    }
+
+    /**
+     * Availability reads while another thread holds seats, the holds being released by the expiration thread.
+     */
+    @Benchmark
+    @Group("whileHolding")
+    @GroupThreads(3)
+    public int numSeatsAvailableWhileHolding(){
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Benchmark
+    @Group("whileHolding")
+    @GroupThreads(1)
+    public SeatHold holdWhileReading(){
+        return seatAssignmentManager.findAndHold(holdSize, BenchmarkVenues.CUSTOMER_EMAIL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        ticketService.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hold then reserve throughput. Every reservation is cancelled through the manager right away, so the venue never
+ * sells out and the reservation table and customer index stay the size of the reservations in flight; every thread
+ * books as a customer of its own. The venue is rebuilt every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReserveSeatsBenchmark {
+
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String venue;
+
+    @Param({"1", "10", "40"})
+    public int holdSize;
+
+    private static final AtomicInteger CUSTOMERS = new AtomicInteger();
+
+    private SeatTracker seatTracker;
+    private SeatAssignmentManager seatAssignmentManager;
+
+    /**
+     * Customer of a benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Customer {
+        String email;
+
+        @Setup(Level.Trial)
+        public void setUp(){
+            email = "customer" + CUSTOMERS.incrementAndGet() + "@test.com";
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        seatTracker = BenchmarkVenues.halfSoldVenue(venue);
+        seatAssignmentManager = new SeatAssignmentManager(seatTracker, new SeatAssignmentConfig().setHoldTime(600));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(){
+        seatAssignmentManager.shutdown();
+    }
+
+    @Benchmark
+    public String holdAndReserveSeats(Customer customer){
+        SeatHold seatHold = seatAssignmentManager.findAndHold(holdSize, customer.email);
+        if(seatHold == null){
+            return null;
+        }
+        String reservationId = seatAssignmentManager.reserveSeat(seatHold.getSeatHoldId(), customer.email);
+        if(reservationId != null){
+            // the seats back on sale, the reservation dropped from the table and the customer index
+            seatAssignmentManager.cancelReservation(reservationId, customer.email);
+        }
+        return reservationId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Venue construction time and allocation for each seat state store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatTrackerBenchmark {
+
+    @Param({"10x10", "100x100", "1000x1000"})
+    public String venue;
+
+    @Param({"packed", "heap", "direct"})
+    public String store;
+
+    private int rows;
+    private int columns;
+
+    @Setup
+    public void setUp(){
+        String[] size = venue.split("x");
+        rows = Integer.parseInt(size[0]);
+        columns = Integer.parseInt(size[1]);
+    }
+
+    @Benchmark
+    public SeatTracker newSeatTracker(){
+        return new SeatTracker(rows, columns, newStore(rows * columns));
+    }
+
+    private SeatStateStore newStore(int size){
+        switch (store){
+            case "heap":
+                return new HeapSeatStateStore(size);
+            case "direct":
+                return new DirectSeatStateStore(size);
+            default:
+                return new PackedSeatStateStore(size);
+        }
+    }
+}
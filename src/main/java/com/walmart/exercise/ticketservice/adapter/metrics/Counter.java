@@ -0,0 +1,28 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+/**
+ * Counter counts events, e.g. contended locks or lost races.
+ */
+public interface Counter {
+
+    /**
+     * Counter which drops every event.
+     */
+    Counter NOOP = new Counter() {
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public long count() {
+            return 0;
+        }
+    };
+
+    void increment();
+
+    /**
+     * @return number of events counted
+     */
+    long count();
+}
@@ -0,0 +1,138 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * JmxMetricsRegistry publishes every metric as an MXBean named domain:type=Latency|Counter|Gauge,name=metric name,
+ * as soon as it is created. The values are only computed when read through JMX.
+ */
+public class JmxMetricsRegistry extends SimpleMetricsRegistry {
+
+    private final MBeanServer mBeanServer;
+    private final String domain;
+
+    public JmxMetricsRegistry(){
+        this("com.walmart.exercise.ticketservice");
+    }
+
+    /**
+     * @param domain JMX domain of the metrics, distinct per ticket service when several run in the same JVM
+     */
+    public JmxMetricsRegistry(String domain){
+        this.mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        this.domain = domain;
+    }
+
+    @Override
+    public LatencyRecorder latencyRecorder(String name) {
+        boolean created = !getLatencyRecorders().containsKey(name);
+        LatencyRecorder latencyRecorder = super.latencyRecorder(name);
+        if(created){
+            register("Latency", name, new Latency(latencyRecorder));
+        }
+        return latencyRecorder;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        boolean created = !getCounters().containsKey(name);
+        Counter counter = super.counter(name);
+        if(created){
+            register("Counter", name, new Value(counter::count));
+        }
+        return counter;
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        super.gauge(name, value);
+        register("Gauge", name, new Value(value));
+    }
+
+    private synchronized void register(String type, String name, Object mBean){
+        try {
+            ObjectName objectName = new ObjectName(domain + ":type=" + type + ",name=" + ObjectName.quote(name));
+            // a metric registered again, e.g. by a ticket service created for the same venue, replaces the previous one
+            if(mBeanServer.isRegistered(objectName)){
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(mBean, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Metric " + name + " can't be published through JMX", e);
+        }
+    }
+
+    /**
+     * A counter or gauge value.
+     */
+    public interface ValueMXBean {
+        long getValue();
+    }
+
+    /**
+     * Summary of a latency recorder, in nanoseconds.
+     */
+    public interface LatencyMXBean {
+        long getCount();
+        long getMean();
+        long getMax();
+        long getP50();
+        long getP99();
+        long getP999();
+    }
+
+    private static final class Value implements ValueMXBean {
+        private final LongSupplier value;
+
+        private Value(LongSupplier value){
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+
+    private static final class Latency implements LatencyMXBean {
+        private final LatencyRecorder latencyRecorder;
+
+        private Latency(LatencyRecorder latencyRecorder){
+            this.latencyRecorder = latencyRecorder;
+        }
+
+        @Override
+        public long getCount() {
+            return latencyRecorder.count();
+        }
+
+        @Override
+        public long getMean() {
+            return latencyRecorder.mean();
+        }
+
+        @Override
+        public long getMax() {
+            return latencyRecorder.max();
+        }
+
+        @Override
+        public long getP50() {
+            return latencyRecorder.valueAtPercentile(50);
+        }
+
+        @Override
+        public long getP99() {
+            return latencyRecorder.valueAtPercentile(99);
+        }
+
+        @Override
+        public long getP999() {
+            return latencyRecorder.valueAtPercentile(99.9);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyRecorder records durations in log-linear buckets, HdrHistogram style: every power of two range is split
+ * in 32 buckets, so a recorded value is reported within about 3% of its actual value whatever its magnitude.
+ * Recording is a few atomic increments with no allocation and no lock; readers see a consistent enough view for
+ * monitoring, values recorded while reading may or may not be part of it.
+ */
+public class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration, negative durations are recorded as 0.
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos){
+        long value = Math.max(0, nanos);
+        buckets.getAndIncrement(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while(value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)){
+            // another thread raised the max meanwhile, compare again
+        }
+    }
+
+    /**
+     * @return number of durations recorded
+     */
+    public long count(){
+        return count.sum();
+    }
+
+    /**
+     * @return mean duration in nanoseconds, 0 if none was recorded
+     */
+    public long mean(){
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : sum.sum() / recorded;
+    }
+
+    /**
+     * @return longest duration recorded in nanoseconds
+     */
+    public long max(){
+        return max.get();
+    }
+
+    /**
+     * Duration below which a percentage of the durations recorded fall, reported as the upper bound of its bucket.
+     * @param percentile percentage between 0 and 100, e.g. 99.9
+     * @return duration in nanoseconds, 0 if none was recorded
+     */
+    public long valueAtPercentile(double percentile){
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = buckets.get(bucket);
+            total += counts[bucket];
+        }
+        long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if(seen >= rank && seen > 0){
+                return Math.min(highestValueOf(bucket), max.get());
+            }
+        }
+        return 0;
+    }
+
+    static int bucketOf(long value){
+        if(value < SUB_BUCKETS){
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValueOf(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,41 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsRegistry hands out the latency recorders and counters of the ticket service and takes its gauges,
+ * each under a dotted name such as hold.latency. Asking twice for the same name returns the same metric.
+ * {@link #NOOP}, the default, drops everything; instrumented code checks {@link #isEnabled()} once and skips the
+ * timing altogether when disabled.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Registry dropping every metric.
+     */
+    MetricsRegistry NOOP = new NoopMetricsRegistry();
+
+    /**
+     * @return false if the metrics are dropped, instrumented code doesn't need to measure anything then
+     */
+    boolean isEnabled();
+
+    /**
+     * @param name metric name
+     * @return latency recorder of the name
+     */
+    LatencyRecorder latencyRecorder(String name);
+
+    /**
+     * @param name metric name
+     * @return counter of the name
+     */
+    Counter counter(String name);
+
+    /**
+     * Registers a value read on demand, e.g. the number of live seat holds.
+     * @param name metric name
+     * @param value supplier of the current value, called from the reading thread
+     */
+    void gauge(String name, LongSupplier value);
+}
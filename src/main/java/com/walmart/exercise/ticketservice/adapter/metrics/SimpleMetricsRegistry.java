@@ -0,0 +1,63 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * SimpleMetricsRegistry keeps the metrics in memory, to be read by the application or exported by an adapter.
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, LatencyRecorder> latencyRecorders = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public LatencyRecorder latencyRecorder(String name) {
+        return latencyRecorders.computeIfAbsent(name, key -> new LatencyRecorder());
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new AdderCounter());
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public Map<String, LatencyRecorder> getLatencyRecorders() {
+        return Collections.unmodifiableMap(latencyRecorders);
+    }
+
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public Map<String, LongSupplier> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private static final class AdderCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public long count() {
+            return count.sum();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import com.walmart.exercise.ticketservice.domain.AsyncTicketService;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.walmart.exercise.ticketservice.adapter.network.TicketProtocol.*;
+
+/**
+ * TicketClient is an {@link AsyncTicketService} talking to a {@link TicketServer} over a single connection.
+ * Requests are pipelined: a request is queued in a send buffer and its future completed when the response comes,
+ * without waiting for the responses of the requests before it. A writer thread sends the buffer out while the
+ * requests queued in the meantime gather in a second buffer sent right after, so a burst of requests from many
+ * threads goes out in a few writes.
+ *
+ * The futures are completed on the reader thread of the client; they complete exceptionally once the connection is
+ * lost.
+ */
+public class TicketClient implements AsyncTicketService, Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final Thread reader;
+    private final Thread writer;
+    private final ByteBuffer in;
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private ByteBuffer filling;
+    private ByteBuffer sending;
+    private boolean writerWaiting;
+    private int nextRequestId;
+    private IOException failure;
+
+    /**
+     * Connects to a ticket server.
+     * @param server address of the server
+     * @throws IOException if the server can't be reached
+     */
+    public TicketClient(InetSocketAddress server) throws IOException{
+        this(server, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Connects to a ticket server.
+     * @param server address of the server
+     * @param bufferSize size of the send and receive buffers, at least the buffer size of the server
+     * @throws IOException if the server can't be reached
+     */
+    public TicketClient(InetSocketAddress server, int bufferSize) throws IOException{
+        channel = SocketChannel.open(server);
+        channel.socket().setTcpNoDelay(true);
+        in = ByteBuffer.allocateDirect(bufferSize);
+        filling = ByteBuffer.allocateDirect(bufferSize);
+        sending = ByteBuffer.allocateDirect(bufferSize);
+        reader = new Thread(this::read, "ticket-client-" + server.getPort());
+        reader.setDaemon(true);
+        reader.start();
+        writer = new Thread(this::write, "ticket-client-writer-" + server.getPort());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Asks the server for the number of seats available and waits for the answer.
+     * @return the number of seats available
+     * @throws CompletionException if the connection is lost
+     */
+    @Override
+    public int numSeatsAvailable() {
+        return numSeatsAvailableAsync().join();
+    }
+
+    /**
+     * @return a future number of seats available
+     */
+    public CompletableFuture<Integer> numSeatsAvailableAsync() {
+        return send(AVAILABLE, 0, null, null);
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+        if(numSeats <= 0 || customerEmail == null){
+            return CompletableFuture.completedFuture(null);
+        }
+        return send(HOLD, numSeats, null, customerEmail);
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+        if(customerEmail == null){
+            return CompletableFuture.completedFuture(null);
+        }
+        return send(RESERVE, seatHoldId, null, customerEmail);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> releaseHold(int seatHoldId, String customerEmail) {
+        if(customerEmail == null){
+            return CompletableFuture.completedFuture(false);
+        }
+        return send(RELEASE, seatHoldId, null, customerEmail);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelReservation(String reservationId, String customerEmail) {
+        if(reservationId == null || customerEmail == null){
+            return CompletableFuture.completedFuture(false);
+        }
+        return send(CANCEL, 0, reservationId, customerEmail);
+    }
+
+    /**
+     * Closes the connection, failing the requests still waiting for a response.
+     */
+    @Override
+    public void close(){
+        fail(new IOException("Client closed"));
+        try {
+            if(Thread.currentThread() != reader){
+                reader.join();
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> send(byte op, int value, String code, String customerEmail){
+        byte[] codeBytes = code != null ? utf8(code) : null;
+        byte[] emailBytes = customerEmail != null ? utf8(customerEmail) : null;
+        int length = HEADER_SIZE - Integer.BYTES
+                + (op == HOLD || op == RESERVE || op == RELEASE ? Integer.BYTES : 0)
+                + (codeBytes != null ? 2 + codeBytes.length : 0)
+                + (emailBytes != null ? 2 + emailBytes.length : 0);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if(Integer.BYTES + length > in.capacity()){
+            future.completeExceptionally(new IllegalArgumentException("Request of " + length + " bytes too large"));
+            return future;
+        }
+        synchronized (lock){
+            // the writer swaps the buffer out as soon as it is written to
+            while(failure == null && filling.remaining() < Integer.BYTES + length){
+                if(Thread.currentThread() == reader){
+                    // a request sent from a completion can't wait: the responses unblocking the writer wouldn't be read
+                    ByteBuffer larger = ByteBuffer.allocateDirect(2 * filling.capacity());
+                    filling.flip();
+                    filling = larger.put(filling);
+                    continue;
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return future;
+                }
+            }
+            if(failure != null){
+                future.completeExceptionally(failure);
+                return future;
+            }
+            int requestId = nextRequestId++;
+            filling.putInt(length).putInt(requestId).put(op);
+            if(op == HOLD || op == RESERVE || op == RELEASE){
+                filling.putInt(value);
+            }
+            if(codeBytes != null){
+                putString(filling, codeBytes);
+            }
+            if(emailBytes != null){
+                putString(filling, emailBytes);
+            }
+            pending.add(new Pending(requestId, op, customerEmail, future));
+            if(writerWaiting){
+                lock.notifyAll();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Writes the requests out as they are queued, swapping the buffers so requests keep being queued meanwhile: the
+     * requests queued during a write all go out in the next one.
+     */
+    private void write(){
+        try {
+            while(true){
+                ByteBuffer out;
+                synchronized (lock){
+                    while(failure == null && filling.position() == 0){
+                        writerWaiting = true;
+                        lock.wait();
+                        writerWaiting = false;
+                    }
+                    if(failure != null){
+                        return;
+                    }
+                    out = filling;
+                    filling = sending;
+                    sending = out;
+                    // callers waiting for room
+                    lock.notifyAll();
+                }
+                out.flip();
+                while(out.hasRemaining()){
+                    channel.write(out);
+                }
+                out.clear();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Writer interrupted"));
+        }
+    }
+
+    private void read(){
+        try {
+            while(true){
+                if(channel.read(in) < 0){
+                    throw new EOFException("Server closed the connection");
+                }
+                in.flip();
+                while(in.remaining() >= Integer.BYTES){
+                    int length = in.getInt(in.position());
+                    if(length < HEADER_SIZE - Integer.BYTES || length > in.capacity() - Integer.BYTES){
+                        throw new IOException("Malformed response of " + length + " bytes");
+                    }
+                    if(in.remaining() < Integer.BYTES + length){
+                        break;
+                    }
+                    int next = in.position() + Integer.BYTES + length;
+                    in.getInt();
+                    complete(in.getInt(), in.get());
+                    in.position(next);
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(int requestId, byte status) throws IOException{
+        Pending request;
+        synchronized (lock){
+            request = pending.poll();
+        }
+        if(request == null || request.requestId != requestId){
+            throw new IOException("Response to request " + requestId + " out of order");
+        }
+        CompletableFuture<Object> future = (CompletableFuture<Object>) request.future;
+        if(status == MALFORMED || status == FAILED){
+            future.completeExceptionally(new IOException("Request " + requestId + (status == MALFORMED
+                    ? " rejected as malformed" : " failed") + " on the server"));
+            return;
+        }
+        boolean ok = status == OK;
+        switch (request.op){
+            case AVAILABLE:
+                future.complete(in.getInt());
+                break;
+            case HOLD:
+                future.complete(ok ? seatHold(request.customerEmail) : null);
+                break;
+            case RESERVE:
+                future.complete(ok ? getString(in) : null);
+                break;
+            default:
+                future.complete(ok);
+        }
+    }
+
+    private SeatHold seatHold(String customerEmail){
+        int seatHoldId = in.getInt();
+        long deadlineNanos = System.nanoTime() + in.getLong();
+        int venueColumns = in.getInt();
+        int numSeats = in.getInt();
+        int[] seatIndexes = new int[numSeats];
+        for(int i = 0; i < numSeats; i++){
+            seatIndexes[i] = in.getInt() * venueColumns + in.getInt();
+        }
+        // detached from the venue, its seats are reported as held
+        return new SeatHold(seatHoldId, customerEmail, seatIndexes, venueColumns, deadlineNanos);
+    }
+
+    private void fail(IOException e){
+        ArrayDeque<Pending> failed;
+        IOException cause;
+        synchronized (lock){
+            if(failure == null){
+                failure = e;
+            }
+            cause = failure;
+            failed = new ArrayDeque<>(pending);
+            pending.clear();
+            lock.notifyAll();
+        }
+        try {
+            channel.close();
+        } catch (IOException closeFailure) {
+            // the connection is gone either way
+        }
+        for(Pending request : failed){
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class Pending {
+        private final int requestId;
+        private final byte op;
+        private final String customerEmail;
+        private final CompletableFuture<?> future;
+
+        private Pending(int requestId, byte op, String customerEmail, CompletableFuture<?> future){
+            this.requestId = requestId;
+            this.op = op;
+            this.customerEmail = customerEmail;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TicketProtocol is the binary protocol spoken between a {@link TicketClient} and a {@link TicketServer}.
+ * Every message is length prefixed, the length counting the bytes after it; integers are big endian and strings
+ * are a short byte length followed by the UTF-8 bytes.
+ *
+ * A request is [int length][int request ID][byte operation][payload], the payload being
+ * AVAILABLE: nothing; HOLD: int number of seats, string email; RESERVE and RELEASE: int seat hold ID, string email;
+ * CANCEL: string reservation code, string email.
+ *
+ * A response is [int length][int request ID][byte status][payload], answered in the order of the requests of the
+ * connection, so a client can pipeline as many requests as it likes. The payload of an OK response is
+ * AVAILABLE: int seats available; HOLD: int seat hold ID, long nanoseconds left before the hold expires, int number
+ * of columns of the venue, int seat count, then an int row and an int column per seat; RESERVE: string reservation code; RELEASE and CANCEL: nothing.
+ * A REJECTED response, with no payload, is a null or false answer of the ticket service; MALFORMED answers a request
+ * that couldn't be decoded, FAILED a request the ticket service threw on.
+ */
+final class TicketProtocol {
+
+    static final byte AVAILABLE = 1;
+    static final byte HOLD = 2;
+    static final byte RESERVE = 3;
+    static final byte RELEASE = 4;
+    static final byte CANCEL = 5;
+
+    static final byte OK = 0;
+    static final byte REJECTED = 1;
+    static final byte MALFORMED = 2;
+    static final byte FAILED = 3;
+
+    /**
+     * Size of a request or response without payload: length, request ID and operation or status.
+     */
+    static final int HEADER_SIZE = 4 + 4 + 1;
+
+    /**
+     * Size of an OK response to a hold, without its seats.
+     */
+    static final int HOLD_RESPONSE_SIZE = HEADER_SIZE + 4 + 8 + 4 + 4;
+
+    /**
+     * Room left in a response for a reservation code.
+     */
+    static final int MAX_CODE_SIZE = 2 + 256;
+
+    private TicketProtocol(){
+    }
+
+    static void putString(ByteBuffer buffer, byte[] utf8){
+        buffer.putShort((short) utf8.length).put(utf8);
+    }
+
+    static String getString(ByteBuffer buffer){
+        byte[] utf8 = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static byte[] utf8(String text){
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
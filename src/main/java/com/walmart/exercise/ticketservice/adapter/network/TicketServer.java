@@ -0,0 +1,511 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.Counter;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.walmart.exercise.ticketservice.adapter.network.TicketProtocol.*;
+
+/**
+ * TicketServer serves a {@link TicketService} over the {@link TicketProtocol}, from a few selector threads each
+ * owning the connections handed to it. The responses of all the requests of a read go out in a single write, so
+ * pipelined requests cost one system call per batch rather than per request. The read and write buffers of the
+ * connections are direct buffers taken from a pool per selector thread.
+ *
+ * The requests are served on a pool of worker threads, since a ticket service may wait, e.g. for a follower to
+ * acknowledge its changes, for a batch of holds or on an admission queue. The requests of a connection are served
+ * one after the other by a single worker at a time, so they are answered in order, and the responses are handed
+ * back to the selector thread to be written. Without workers, the requests are served right away on the selector
+ * thread: the fastest, for a ticket service that never waits only.
+ *
+ * A connection is not read while its responses can't be written, or while it has too many requests waiting for a
+ * worker, so a client that doesn't read its responses only stalls itself.
+ */
+public class TicketServer implements Closeable {
+
+    // requests of a connection waiting for or served by a worker, past which the connection is not read
+    private static final int MAX_QUEUED_REQUESTS = 256;
+
+    private final TicketService ticketService;
+    private final TicketServerConfig config;
+    private final ServerSocketChannel serverChannel;
+    private final IoThread[] ioThreads;
+    private final ExecutorService workers;
+    private final Counter served;
+    private final Counter malformedRequests;
+    private final AtomicLong connections = new AtomicLong();
+    private volatile boolean running = true;
+    private int nextIoThread;
+
+    /**
+     * Starts serving a ticket service.
+     * @param ticketService ticket service to serve, called on the selector threads if the server has no workers
+     * @param config settings of the server
+     * @throws IOException if the server can't listen on its address
+     */
+    public TicketServer(TicketService ticketService, TicketServerConfig config) throws IOException{
+        this.ticketService = ticketService;
+        this.config = config;
+        this.served = config.getMetricsRegistry().counter("server.requests");
+        this.malformedRequests = config.getMetricsRegistry().counter("server.requests.malformed");
+        config.getMetricsRegistry().gauge("server.connections", connections::get);
+        workers = config.getWorkerThreads() > 0 ? Executors.newFixedThreadPool(config.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "ticket-server-worker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(config.getBindAddress());
+        serverChannel.configureBlocking(false);
+        ioThreads = new IoThread[Math.max(1, config.getIoThreads())];
+        for(int i = 0; i < ioThreads.length; i++){
+            ioThreads[i] = new IoThread("ticket-server-" + i);
+        }
+        serverChannel.register(ioThreads[0].selector, SelectionKey.OP_ACCEPT);
+        for(IoThread ioThread : ioThreads){
+            ioThread.thread.start();
+        }
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort(){
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return number of open connections
+     */
+    public long numConnections(){
+        return connections.get();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones, waiting for the selector threads to stop. The requests
+     * being served are not answered.
+     */
+    @Override
+    public void close(){
+        running = false;
+        for(IoThread ioThread : ioThreads){
+            ioThread.selector.wakeup();
+        }
+        for(IoThread ioThread : ioThreads){
+            try {
+                ioThread.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(workers != null){
+            // a request waiting in the ticket service is interrupted
+            workers.shutdownNow();
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // nothing left to serve
+        }
+    }
+
+    private void accept(){
+        SocketChannel channel;
+        try {
+            while((channel = serverChannel.accept()) != null){
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    continue;
+                }
+                IoThread ioThread = ioThreads[nextIoThread++ % ioThreads.length];
+                ioThread.accepted.add(channel);
+                ioThread.selector.wakeup();
+            }
+        } catch (IOException e) {
+            // e.g. out of file descriptors, the pending connections are accepted on the next select
+        }
+    }
+
+    /**
+     * Selector thread serving its connections; the connections and the buffer pool are confined to it.
+     */
+    private final class IoThread implements Runnable {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        // connections with responses from the workers to write
+        private final Queue<Connection> answered = new ConcurrentLinkedQueue<>();
+        private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+
+        private IoThread(String name) throws IOException{
+            selector = Selector.open();
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run(){
+            try {
+                while(running){
+                    selector.select();
+                    SocketChannel channel;
+                    while((channel = accepted.poll()) != null){
+                        register(channel);
+                    }
+                    Connection answeredConnection;
+                    while((answeredConnection = answered.poll()) != null){
+                        answeredConnection.onAnswered();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while(keys.hasNext()){
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if(!key.isValid()){
+                            continue;
+                        }
+                        if(key.isAcceptable()){
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        if(key.isWritable()){
+                            connection.onWritable();
+                        }
+                        if(key.isValid() && key.isReadable()){
+                            connection.onReadable();
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                // the server is going down
+            } finally {
+                for(SelectionKey key : selector.keys()){
+                    if(key.attachment() instanceof Connection){
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                SocketChannel channel;
+                while((channel = accepted.poll()) != null){
+                    closeQuietly(channel);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // nothing left to select
+                }
+            }
+        }
+
+        private void register(SocketChannel channel){
+            try {
+                Connection connection = new Connection(this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.incrementAndGet();
+            } catch (IOException e) {
+                closeQuietly(channel);
+            }
+        }
+
+        private ByteBuffer acquire(){
+            ByteBuffer buffer = buffers.poll();
+            return buffer != null ? buffer : ByteBuffer.allocateDirect(config.getBufferSize());
+        }
+
+        private void release(ByteBuffer buffer){
+            if(buffers.size() < config.getPooledBuffers()){
+                buffer.clear();
+                buffers.push(buffer);
+            }
+        }
+    }
+
+    /**
+     * Connection of a client, served by a single selector thread.
+     */
+    private final class Connection {
+
+        private final IoThread ioThread;
+        private final SocketChannel channel;
+        private final ByteBuffer in;
+        private final ByteBuffer out;
+        private SelectionKey key;
+        private volatile boolean closed;
+        // requests handed to the workers and their responses, in the order of the requests
+        private final Queue<ByteBuffer> requests = new ConcurrentLinkedQueue<>();
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private int queuedRequests;
+
+        private Connection(IoThread ioThread, SocketChannel channel){
+            this.ioThread = ioThread;
+            this.channel = channel;
+            this.in = ioThread.acquire();
+            this.out = ioThread.acquire();
+        }
+
+        private void onReadable(){
+            try {
+                if(channel.read(in) < 0){
+                    close();
+                    return;
+                }
+                serve();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void onWritable(){
+            try {
+                flush();
+                // responses and requests left over for want of room in the write buffer
+                serve();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void onAnswered(){
+            if(closed){
+                return;
+            }
+            try {
+                serve();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Writes the responses of the workers, then serves the requests read, and flushes the responses.
+         */
+        private void serve() throws IOException{
+            ByteBuffer response;
+            while((response = responses.peek()) != null){
+                if(out.remaining() < response.remaining()){
+                    flush();
+                    if(out.remaining() < response.remaining()){
+                        break;
+                    }
+                }
+                out.put(responses.poll());
+                queuedRequests--;
+            }
+            boolean handedOut = false;
+            in.flip();
+            while(in.remaining() >= Integer.BYTES){
+                int start = in.position();
+                int length = in.getInt(start);
+                if(length < HEADER_SIZE - Integer.BYTES || length > in.capacity() - Integer.BYTES){
+                    // can't be framed, nor answered
+                    malformedRequests.increment();
+                    close();
+                    return;
+                }
+                if(in.remaining() < Integer.BYTES + length){
+                    break;
+                }
+                if(workers != null){
+                    if(queuedRequests >= MAX_QUEUED_REQUESTS){
+                        break;
+                    }
+                    ByteBuffer request = ByteBuffer.allocate(length);
+                    int limit = in.limit();
+                    in.position(start + Integer.BYTES);
+                    in.limit(start + Integer.BYTES + length);
+                    request.put(in).flip();
+                    in.limit(limit);
+                    requests.add(request);
+                    queuedRequests++;
+                    handedOut = true;
+                } else {
+                    if(!hasRoomFor(start, length)){
+                        break;
+                    }
+                    int limit = in.limit();
+                    in.limit(start + Integer.BYTES + length);
+                    in.position(start + Integer.BYTES);
+                    respond(in, out);
+                    in.limit(limit);
+                }
+                in.position(start + Integer.BYTES + length);
+            }
+            in.compact();
+            if(handedOut && scheduled.compareAndSet(false, true)){
+                workers.execute(this::work);
+            }
+            flush();
+        }
+
+        /**
+         * Serves the requests handed to the workers, on a worker, one after the other.
+         */
+        private void work(){
+            do {
+                ByteBuffer request;
+                while(!closed && (request = requests.poll()) != null){
+                    responses.add(respond(request));
+                }
+                ioThread.answered.add(this);
+                ioThread.selector.wakeup();
+                scheduled.set(false);
+                // a request handed out after the queue was found empty and before the flag was cleared
+            } while(!requests.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+
+        private ByteBuffer respond(ByteBuffer request){
+            int numSeats = request.remaining() >= 4 + 1 + 4 && request.get(4) == HOLD ? request.getInt(5) : 0;
+            long size = HOLD_RESPONSE_SIZE + 8L * Math.max(0, numSeats);
+            ByteBuffer response = ByteBuffer.allocate((int) Math.min(config.getBufferSize(),
+                    Math.max(HEADER_SIZE + MAX_CODE_SIZE, size)));
+            respond(request, response);
+            response.flip();
+            return response;
+        }
+
+        /**
+         * Makes room in the write buffer for the largest response to a request, flushing it if need be.
+         */
+        private boolean hasRoomFor(int start, int length) throws IOException{
+            int needed = HEADER_SIZE + MAX_CODE_SIZE;
+            // request ID, operation and number of seats of a hold
+            if(length >= 4 + 1 + 4 && in.get(start + 8) == HOLD){
+                long holdResponseSize = HOLD_RESPONSE_SIZE + 8L * Math.max(0, in.getInt(start + HEADER_SIZE));
+                if(holdResponseSize <= out.capacity()){
+                    needed = Math.max(needed, (int) holdResponseSize);
+                }
+            }
+            if(out.remaining() < needed){
+                flush();
+            }
+            return out.remaining() >= needed;
+        }
+
+        /**
+         * Serves a request, from its request ID to its end, and writes its response, room being made for it.
+         */
+        private void respond(ByteBuffer request, ByteBuffer response){
+            int requestId = request.getInt();
+            byte op = request.get();
+            served.increment();
+            int start = response.position();
+            response.position(start + HEADER_SIZE);
+            byte status;
+            try {
+                status = serve(op, request, response);
+            } catch (BufferUnderflowException e) {
+                status = MALFORMED;
+            } catch (RuntimeException e) {
+                status = FAILED;
+            }
+            if(status != OK){
+                response.position(start + HEADER_SIZE);
+            }
+            if(status == MALFORMED){
+                malformedRequests.increment();
+            }
+            response.putInt(start, response.position() - start - Integer.BYTES);
+            response.putInt(start + 4, requestId);
+            response.put(start + 8, status);
+        }
+
+        private byte serve(byte op, ByteBuffer request, ByteBuffer response){
+            switch (op){
+                case AVAILABLE:
+                    response.putInt(ticketService.numSeatsAvailable());
+                    return OK;
+                case HOLD:
+                    int numSeats = request.getInt();
+                    String email = getString(request);
+                    if(HOLD_RESPONSE_SIZE + 8L * numSeats > response.capacity()){
+                        // the response wouldn't fit the buffer
+                        return MALFORMED;
+                    }
+                    SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, email);
+                    if(seatHold == null){
+                        return REJECTED;
+                    }
+                    response.putInt(seatHold.getSeatHoldId());
+                    response.putLong(Math.max(0, seatHold.getDeadlineNanos() - System.nanoTime()));
+                    response.putInt(seatHold.getColumns());
+                    response.putInt(seatHold.getNumSeats());
+                    for(int i = 0; i < seatHold.getNumSeats(); i++){
+                        response.putInt(seatHold.getSeatRow(i)).putInt(seatHold.getSeatColumn(i));
+                    }
+                    return OK;
+                case RESERVE:
+                    int holdId = request.getInt();
+                    String code = ticketService.reserveSeats(holdId, getString(request));
+                    if(code == null){
+                        return REJECTED;
+                    }
+                    putString(response, utf8(code));
+                    return OK;
+                case RELEASE:
+                    int releasedId = request.getInt();
+                    return ticketService.releaseHold(releasedId, getString(request)) ? OK : REJECTED;
+                case CANCEL:
+                    String reservationId = getString(request);
+                    return ticketService.cancelReservation(reservationId, getString(request)) ? OK : REJECTED;
+                default:
+                    return MALFORMED;
+            }
+        }
+
+        private void flush() throws IOException{
+            if(closed){
+                return;
+            }
+            if(out.position() > 0){
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+            // stop reading until the responses are written, or until the workers caught up
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE
+                    : queuedRequests >= MAX_QUEUED_REQUESTS ? 0 : SelectionKey.OP_READ);
+        }
+
+        private void close(){
+            if(closed){
+                return;
+            }
+            closed = true;
+            key.cancel();
+            closeQuietly(channel);
+            ioThread.release(in);
+            ioThread.release(out);
+            connections.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel){
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the connection is gone either way
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * TicketServerConfig holds the tunables of a {@link TicketServer}.
+ * The setters return the configuration itself so the settings can be chained.
+ */
+public class TicketServerConfig {
+
+    private InetSocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    private int ioThreads = 2;
+    private int workerThreads = 16;
+    private int bufferSize = 32 * 1024;
+    private int pooledBuffers = 256;
+    private MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
+
+    /**
+     * @return address the server listens on
+     */
+    public InetSocketAddress getBindAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * Sets the address the server listens on. Defaults to the loopback address on a free port.
+     * @param bindAddress listening address
+     * @return this configuration
+     */
+    public TicketServerConfig setBindAddress(InetSocketAddress bindAddress) {
+        this.bindAddress = bindAddress;
+        return this;
+    }
+
+    /**
+     * @return number of selector threads serving the connections
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * Sets the number of selector threads the connections are spread over. Defaults to 2.
+     * @param ioThreads number of selector threads
+     * @return this configuration
+     */
+    public TicketServerConfig setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * @return number of worker threads the ticket service is called on, 0 to call it on the selector threads
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Sets the number of worker threads the ticket service is called on. A ticket service may wait, e.g. for a
+     * follower to acknowledge its changes with semi-synchronous replication, for its batch of holds to be served or
+     * on the queue of an {@code AdmissionControlledTicketService}; the selector threads keep reading and writing
+     * meanwhile. Set it to 0 to call the ticket service right away on the selector threads,
+     * saving a handoff per request, for a ticket service that never waits only. Defaults to 16, whatever the number
+     * of processors, as a worker mostly waits when the ticket service does.
+     * @param workerThreads number of worker threads, 0 for none
+     * @return this configuration
+     */
+    public TicketServerConfig setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    /**
+     * @return size in bytes of the read and write buffers of a connection
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the size in bytes of the direct read and write buffers of a connection. It bounds the size of a request
+     * and of a response, so the number of seats of a hold. Defaults to 32 KB, holds of up to 4000 seats.
+     * @param bufferSize buffer size in bytes
+     * @return this configuration
+     */
+    public TicketServerConfig setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * @return number of buffers of closed connections kept per selector thread for the next connections
+     */
+    public int getPooledBuffers() {
+        return pooledBuffers;
+    }
+
+    /**
+     * Sets the number of buffers of closed connections each selector thread keeps for the next connections, instead
+     * of allocating direct memory per connection. Defaults to 256.
+     * @param pooledBuffers number of pooled buffers per selector thread
+     * @return this configuration
+     */
+    public TicketServerConfig setPooledBuffers(int pooledBuffers) {
+        this.pooledBuffers = pooledBuffers;
+        return this;
+    }
+
+    /**
+     * @return registry the request counters are kept in
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Sets the registry the request, connection and malformed request counters are kept in.
+     * Defaults to {@link MetricsRegistry#NOOP}.
+     * @param metricsRegistry metrics registry
+     * @return this configuration
+     */
+    public TicketServerConfig setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        return this;
+    }
+}
@@ -0,0 +1,142 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+
+/**
+ * AdmissionConfig holds the tunables of an {@link AdmissionControlledTicketService}.
+ * The setters return the configuration itself so the settings can be chained.
+ */
+public class AdmissionConfig {
+
+    private int maxConcurrentHolds = Runtime.getRuntime().availableProcessors();
+    private int maxQueueLength = 1024;
+    private long maxWaitMillis = 1000;
+    private double holdsPerSecond = 0;
+    private int holdBurst = 1;
+    private long customerIntervalMillis = 0;
+    private MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
+
+    /**
+     * @return number of find and hold requests served at once
+     */
+    public int getMaxConcurrentHolds() {
+        return maxConcurrentHolds;
+    }
+
+    /**
+     * Sets the number of find and hold requests served at once, the others wait their turn in arrival order.
+     * Defaults to the number of processors.
+     * @param maxConcurrentHolds number of requests served at once
+     * @return this configuration
+     */
+    public AdmissionConfig setMaxConcurrentHolds(int maxConcurrentHolds) {
+        this.maxConcurrentHolds = maxConcurrentHolds;
+        return this;
+    }
+
+    /**
+     * @return number of find and hold requests which can wait their turn
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Sets the number of find and hold requests which can wait their turn, the requests arriving when the queue is
+     * full are turned away. Defaults to 1024.
+     * @param maxQueueLength queue length
+     * @return this configuration
+     */
+    public AdmissionConfig setMaxQueueLength(int maxQueueLength) {
+        this.maxQueueLength = maxQueueLength;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds a find and hold request waits its turn at most
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds a find and hold request waits its turn at most before being turned away.
+     * Defaults to a second.
+     * @param maxWaitMillis maximum wait in milliseconds
+     * @return this configuration
+     */
+    public AdmissionConfig setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * @return number of find and hold requests admitted per second
+     */
+    public double getHoldsPerSecond() {
+        return holdsPerSecond;
+    }
+
+    /**
+     * Sets the number of find and hold requests admitted per second, the requests over the rate are turned away.
+     * Defaults to 0, no rate limit.
+     * @param holdsPerSecond admission rate
+     * @return this configuration
+     */
+    public AdmissionConfig setHoldsPerSecond(double holdsPerSecond) {
+        this.holdsPerSecond = holdsPerSecond;
+        return this;
+    }
+
+    /**
+     * @return number of find and hold requests admitted at once over the rate
+     */
+    public int getHoldBurst() {
+        return holdBurst;
+    }
+
+    /**
+     * Sets the number of find and hold requests admitted back to back after a quiet period. Defaults to 1.
+     * @param holdBurst burst size
+     * @return this configuration
+     */
+    public AdmissionConfig setHoldBurst(int holdBurst) {
+        this.holdBurst = holdBurst;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds between two find and hold requests of a customer
+     */
+    public long getCustomerIntervalMillis() {
+        return customerIntervalMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds a customer has to wait between two find and hold requests, the requests made
+     * sooner are turned away. Defaults to 0, customers are not throttled.
+     * @param customerIntervalMillis interval in milliseconds
+     * @return this configuration
+     */
+    public AdmissionConfig setCustomerIntervalMillis(long customerIntervalMillis) {
+        this.customerIntervalMillis = customerIntervalMillis;
+        return this;
+    }
+
+    /**
+     * @return registry the queue depth, wait time and rejections go to
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Sets the registry the queue depth, wait time and rejections go to. Defaults to {@link MetricsRegistry#NOOP}.
+     * @param metricsRegistry metrics registry
+     * @return this configuration
+     */
+    public AdmissionConfig setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        return this;
+    }
+}
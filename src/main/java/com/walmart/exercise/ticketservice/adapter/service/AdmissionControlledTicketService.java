@@ -0,0 +1,239 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.Counter;
+import com.walmart.exercise.ticketservice.adapter.metrics.LatencyRecorder;
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+import com.walmart.exercise.ticketservice.domain.HoldRequest;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * AdmissionControlledTicketService is a waiting room in front of a ticket service: only so many find and hold
+ * requests are served at once, the others wait their turn in arrival order in a bounded queue, for a bounded time.
+ * Requests are turned away, with null, rather than queued when they can't succeed or would only add to the
+ * overload: more seats asked than available, queue full, over the admission rate, or a customer asking again too
+ * soon. Reservations, releases and cancellations free seats and are never held back.
+ *
+ * Customers are throttled through a fixed table of last admission times indexed by a hash of their email, so the
+ * throttle takes no memory per customer; two customers sharing a slot throttle each other. A request is checked
+ * against the rate and its customer on arrival, but only counted against them once it gets its turn: a request
+ * turned away by a full queue or a timeout takes neither a rate token nor the turn of its customer.
+ */
+public class AdmissionControlledTicketService implements TicketService {
+
+    private static final int CUSTOMER_SLOTS = 1 << 16;
+
+    private final TicketService ticketService;
+    private final Semaphore holdPermits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final int maxQueueLength;
+    private final long maxWaitNanos;
+    private final RateLimiter rateLimiter;
+    private final long customerIntervalNanos;
+    private final AtomicLongArray customerAdmissions;
+
+    private final boolean timed;
+    private final LatencyRecorder waitLatency;
+    private final Counter soldOut;
+    private final Counter queueFull;
+    private final Counter timedOut;
+    private final Counter customerThrottled;
+    private final Counter rateLimited;
+
+    /**
+     * @param ticketService ticket service the admitted requests go to
+     * @param config concurrency, queue, rate and customer limits
+     */
+    public AdmissionControlledTicketService(TicketService ticketService, AdmissionConfig config){
+        this.ticketService = ticketService;
+        this.holdPermits = new Semaphore(config.getMaxConcurrentHolds(), true);
+        this.maxQueueLength = config.getMaxQueueLength();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMillis());
+        this.rateLimiter = config.getHoldsPerSecond() > 0
+                ? new RateLimiter(config.getHoldsPerSecond(), config.getHoldBurst()) : null;
+        this.customerIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getCustomerIntervalMillis());
+        this.customerAdmissions = customerIntervalNanos > 0 ? new AtomicLongArray(CUSTOMER_SLOTS) : null;
+
+        MetricsRegistry metrics = config.getMetricsRegistry();
+        timed = metrics.isEnabled();
+        waitLatency = metrics.latencyRecorder("admission.wait");
+        soldOut = metrics.counter("admission.rejected.soldOut");
+        queueFull = metrics.counter("admission.rejected.queueFull");
+        timedOut = metrics.counter("admission.rejected.timedOut");
+        customerThrottled = metrics.counter("admission.rejected.customerInterval");
+        rateLimited = metrics.counter("admission.rejected.overRate");
+        metrics.gauge("admission.queueDepth", this::getQueueDepth);
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        if(customerEmail == null || numSeats <= 0){
+            return null;
+        }
+        if(numSeats > ticketService.numSeatsAvailable()){
+            soldOut.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        int slot = customerSlot(customerEmail);
+        if(!customerReady(slot, now)){
+            customerThrottled.increment();
+            return null;
+        }
+        if(rateLimiter != null && !rateLimiter.wouldAcquire(now)){
+            rateLimited.increment();
+            return null;
+        }
+        if(!enter(now)){
+            return null;
+        }
+        try {
+            // counted once in, a request of the same customer or over the rate may have got in while this one waited
+            long admission = System.nanoTime();
+            long lastAdmission = customerAdmissions == null ? 0 : customerAdmissions.get(slot);
+            if(!admitCustomer(slot, lastAdmission, admission)){
+                customerThrottled.increment();
+                return null;
+            }
+            if(rateLimiter != null && !rateLimiter.tryAcquire(admission)){
+                // not admitted after all, the customer keeps its turn
+                if(customerAdmissions != null){
+                    customerAdmissions.compareAndSet(slot, stamp(admission), lastAdmission);
+                }
+                rateLimited.increment();
+                return null;
+            }
+            // the venue may have sold out while the request waited
+            if(numSeats > ticketService.numSeatsAvailable()){
+                soldOut.increment();
+                return null;
+            }
+            return ticketService.findAndHoldSeats(numSeats, customerEmail);
+        } finally {
+            holdPermits.release();
+        }
+    }
+
+    /**
+     * Serves a batch as a single request of the waiting room, the batch is not throttled.
+     */
+    @Override
+    public List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+        if(!enter(System.nanoTime())){
+            return new ArrayList<>(Collections.nCopies(holdRequests.size(), null));
+        }
+        try {
+            return ticketService.findAndHoldSeatsBatch(holdRequests);
+        } finally {
+            holdPermits.release();
+        }
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail) {
+        return ticketService.reserveSeats(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public boolean releaseHold(int seatHoldId, String customerEmail) {
+        return ticketService.releaseHold(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId, String customerEmail) {
+        return ticketService.cancelReservation(reservationId, customerEmail);
+    }
+
+    /**
+     * @return number of find and hold requests waiting their turn
+     */
+    public int getQueueDepth(){
+        return waiting.get();
+    }
+
+    /**
+     * Waits a turn to serve a request, unless the queue is full or the wait too long.
+     * @return true if a permit was taken, to be released once the request is served
+     */
+    private boolean enter(long arrival){
+        try {
+            // unlike tryAcquire(), honors the fairness: a free permit is only taken straight away when nobody waits
+            if(holdPermits.tryAcquire(0, TimeUnit.NANOSECONDS)){
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if(waiting.incrementAndGet() > maxQueueLength){
+            waiting.decrementAndGet();
+            queueFull.increment();
+            return false;
+        }
+        boolean admitted = false;
+        try {
+            admitted = holdPermits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if(timed){
+            waitLatency.record(System.nanoTime() - arrival);
+        }
+        if(!admitted){
+            timedOut.increment();
+        }
+        return admitted;
+    }
+
+    private static int customerSlot(String customerEmail){
+        return spread(customerEmail.toLowerCase(Locale.ROOT).hashCode()) & (CUSTOMER_SLOTS - 1);
+    }
+
+    /**
+     * @return true if the customer of a slot may be admitted now
+     */
+    private boolean customerReady(int slot, long now){
+        if(customerAdmissions == null){
+            return true;
+        }
+        long lastAdmission = customerAdmissions.get(slot);
+        // 0 marks a slot never used
+        return lastAdmission == 0 || now - lastAdmission >= customerIntervalNanos;
+    }
+
+    /**
+     * Records the admission of the customer of a slot, unless it was admitted too recently or since its last
+     * admission was read.
+     */
+    private boolean admitCustomer(int slot, long lastAdmission, long now){
+        if(customerAdmissions == null){
+            return true;
+        }
+        return (lastAdmission == 0 || now - lastAdmission >= customerIntervalNanos)
+                && customerAdmissions.compareAndSet(slot, lastAdmission, stamp(now));
+    }
+
+    private static long stamp(long now){
+        return now == 0 ? 1 : now;
+    }
+
+    private static int spread(int hash){
+        return hash ^ (hash >>> 16);
+    }
+}
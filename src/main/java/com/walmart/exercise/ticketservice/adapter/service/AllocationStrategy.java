@@ -0,0 +1,74 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+import java.util.List;
+
+/**
+ * AllocationStrategy decides which available seats a seat hold gets.
+ * The seat assignment manager calls it while holding the lock of the partition(s) searched, so the seats picked
+ * stay available until they are put on hold.
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Picks the seats to hold for a request.
+     *
+     * @param seatTracker seat tracker of the venue
+     * @param numSeats the number of seats to find
+     * @return the seats to hold, or null if the request can't be satisfied
+     */
+    List<Seat> selectSeats(SeatTracker seatTracker, int numSeats);
+
+    /**
+     * Picks the seats to hold for a request within a single partition of the venue.
+     *
+     * @param seatTracker seat tracker of the venue
+     * @param partition partition number
+     * @param numSeats the number of seats to find
+     * @return the seats to hold, or null if the partition can't satisfy the request
+     */
+    List<Seat> selectSeats(SeatTracker seatTracker, int partition, int numSeats);
+
+    /**
+     * Picks the seats to hold for a request as seat indexes, row * columns + column. Defaults to the indexes of
+     * the seats of {@link #selectSeats(SeatTracker, int)}, a strategy picking indexes in the first place saves a
+     * seat view per seat.
+     *
+     * @param seatTracker seat tracker of the venue
+     * @param numSeats the number of seats to find
+     * @return the seat indexes to hold, or null if the request can't be satisfied
+     */
+    default int[] selectSeatIndexes(SeatTracker seatTracker, int numSeats) {
+        List<Seat> seats = selectSeats(seatTracker, numSeats);
+        return seats == null ? null : seatTracker.indexesOf(seats);
+    }
+
+    /**
+     * Picks the seats to hold for a request within a single partition of the venue as seat indexes.
+     *
+     * @param seatTracker seat tracker of the venue
+     * @param partition partition number
+     * @param numSeats the number of seats to find
+     * @return the seat indexes to hold, or null if the partition can't satisfy the request
+     */
+    default int[] selectSeatIndexes(SeatTracker seatTracker, int partition, int numSeats) {
+        List<Seat> seats = selectSeats(seatTracker, partition, numSeats);
+        return seats == null ? null : seatTracker.indexesOf(seats);
+    }
+
+    /**
+     * Picks the seats of a batch of requests in a single pass over the venue, called with the whole venue locked.
+     * The seats picked for different requests never overlap.
+     *
+     * @param seatTracker seat tracker of the venue
+     * @param numSeats the number of seats of each request
+     * @return the seats of each request in order, null for a request that can't be satisfied; or null if the
+     * strategy has no single pass for a batch, the requests are then picked and held one after the other
+     */
+    default List<List<Seat>> selectSeats(SeatTracker seatTracker, int[] numSeats) {
+        return null;
+    }
+
+}
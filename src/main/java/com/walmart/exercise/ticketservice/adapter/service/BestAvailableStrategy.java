@@ -0,0 +1,59 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BestAvailableStrategy picks the best available seats in row and column order, from best(row 0, column 0)
+ * to worst (rowMax, columnMax). The seats of a group may be spread over several rows.
+ * A batch of requests is served from a single walk over the best available seats, handed out in request order.
+ */
+public class BestAvailableStrategy implements AllocationStrategy {
+
+    @Override
+    public List<Seat> selectSeats(SeatTracker seatTracker, int numSeats) {
+        List<Seat> seats = seatTracker.bestAvailableSeats(numSeats);
+        return seats.size() < numSeats ? null : seats;
+    }
+
+    @Override
+    public List<Seat> selectSeats(SeatTracker seatTracker, int partition, int numSeats) {
+        List<Seat> seats = seatTracker.bestAvailableSeats(partition, numSeats);
+        return seats.size() < numSeats ? null : seats;
+    }
+
+    @Override
+    public int[] selectSeatIndexes(SeatTracker seatTracker, int numSeats) {
+        int[] seatIndexes = seatTracker.bestAvailableSeatIndexes(numSeats);
+        return seatIndexes.length < numSeats ? null : seatIndexes;
+    }
+
+    @Override
+    public int[] selectSeatIndexes(SeatTracker seatTracker, int partition, int numSeats) {
+        int[] seatIndexes = seatTracker.bestAvailableSeatIndexes(partition, numSeats);
+        return seatIndexes.length < numSeats ? null : seatIndexes;
+    }
+
+    @Override
+    public List<List<Seat>> selectSeats(SeatTracker seatTracker, int[] numSeats) {
+        long totalSeats = 0;
+        for (int requestSeats : numSeats) {
+            totalSeats += requestSeats;
+        }
+        List<Seat> seats = seatTracker.bestAvailableSeats((int)Math.min(totalSeats, seatTracker.numAvailableSeat()));
+        List<List<Seat>> selections = new ArrayList<>(numSeats.length);
+        int next = 0;
+        for (int requestSeats : numSeats) {
+            if(requestSeats <= seats.size() - next){
+                selections.add(new ArrayList<>(seats.subList(next, next + requestSeats)));
+                next += requestSeats;
+            }else{
+                selections.add(null); // a later, smaller request may still fit in what is left
+            }
+        }
+        return selections;
+    }
+}
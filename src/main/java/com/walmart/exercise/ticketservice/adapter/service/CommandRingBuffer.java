@@ -0,0 +1,94 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CommandRingBuffer is a bounded lock-free queue of many producers and a single consumer.
+ * Producers claim a sequence with a compare and set of the tail, fill the slot of the sequence then publish it
+ * through the slot sequence; the consumer reads the slots in sequence order. A slot is free for the sequence of the
+ * next lap once the consumer moved past it, producers spin while the buffer is full.
+ *
+ * @param <T> type of the commands
+ */
+final class CommandRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    // sequence of a slot: equal to the index of the slot when free, the index plus one once published
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // only read and written by the consumer
+
+    /**
+     * @param capacity number of commands the buffer holds, rounded up to a power of two
+     */
+    CommandRingBuffer(int capacity){
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a command, waiting for a free slot when the buffer is full.
+     * @param command command to add
+     */
+    void put(T command){
+        int spins = 0;
+        while(true){
+            long sequence = tail.get();
+            int slot = (int) sequence & mask;
+            long slotSequence = sequences.get(slot);
+            if(slotSequence == sequence){
+                if(tail.compareAndSet(sequence, sequence + 1)){
+                    slots.lazySet(slot, command);
+                    sequences.set(slot, sequence + 1);
+                    return;
+                }
+            } else if(slotSequence < sequence){
+                // the slot of the previous lap is not consumed yet, the buffer is full
+                backOff(spins++);
+            }
+        }
+    }
+
+    /**
+     * Takes the next command, only called by the consumer thread.
+     * @return the next command, null if none is published
+     */
+    T poll(){
+        int slot = (int) head & mask;
+        if(sequences.get(slot) != head + 1){
+            return null;
+        }
+        T command = slots.get(slot);
+        slots.lazySet(slot, null);
+        sequences.set(slot, head + mask + 1);
+        head++;
+        return command;
+    }
+
+    /**
+     * @return true if no command is published, only meaningful for the consumer thread
+     */
+    boolean isEmpty(){
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    private static void backOff(int spins){
+        if(spins < 64){
+            return; // busy spin first, a slot is usually freed in a few hundred nanoseconds
+        }
+        if(spins < 128){
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatBlock;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ContiguousBlockStrategy seats a group side by side.
+ * The best block is the leftmost run of free seats long enough for the group in the lowest row having one.
+ * When no row has room for the whole group, the group is split into the fewest free runs the venue allows,
+ * picked within the narrowest window of adjacent rows that still needs no more runs, longest runs first.
+ * Within a single partition only a whole block is picked, so a group split over rows is the last resort.
+ */
+public class ContiguousBlockStrategy implements AllocationStrategy {
+
+    private static final Comparator<SeatBlock> LONGEST_FIRST = Comparator.comparingInt(SeatBlock::getLength).reversed();
+
+    @Override
+    public List<Seat> selectSeats(SeatTracker seatTracker, int numSeats) {
+        if(seatTracker.numAvailableSeat() < numSeats){
+            return null;
+        }
+        List<Seat> seats = new ArrayList<>(numSeats);
+        SeatBlock block = seatTracker.firstFreeBlock(numSeats);
+        if(block != null){
+            addSeats(seatTracker, block, numSeats, seats);
+            return seats;
+        }
+
+        List<List<SeatBlock>> rowBlocks = new ArrayList<>(seatTracker.getRows());
+        int[] runLengths = new int[seatTracker.getColumns() + 1];
+        for(int rowNum = 0; rowNum < seatTracker.getRows(); rowNum++){
+            rowBlocks.add(seatTracker.freeBlocks(rowNum));
+            countRuns(rowBlocks.get(rowNum), runLengths, 1);
+        }
+        int fewestBlocks = blocksNeeded(runLengths, numSeats);
+        if(fewestBlocks == Integer.MAX_VALUE){
+            return null; // seats were taken while picking, the venue can't seat the group anymore
+        }
+
+        // narrowest window of adjacent rows still seating the group in the fewest blocks, the lowest one on a tie
+        Arrays.fill(runLengths, 0);
+        int firstRow = -1;
+        int lastRow = -1;
+        int windowEnd = -1;
+        for(int windowStart = 0; windowStart < seatTracker.getRows(); windowStart++){
+            while(windowEnd + 1 < seatTracker.getRows() && blocksNeeded(runLengths, numSeats) > fewestBlocks){
+                countRuns(rowBlocks.get(++windowEnd), runLengths, 1);
+            }
+            if(blocksNeeded(runLengths, numSeats) > fewestBlocks){
+                break;
+            }
+            if(firstRow < 0 || windowEnd - windowStart < lastRow - firstRow){
+                firstRow = windowStart;
+                lastRow = windowEnd;
+            }
+            countRuns(rowBlocks.get(windowStart), runLengths, -1);
+        }
+
+        List<SeatBlock> blocks = new ArrayList<>();
+        for(int rowNum = firstRow; rowNum <= lastRow; rowNum++){
+            blocks.addAll(rowBlocks.get(rowNum));
+        }
+        blocks.sort(LONGEST_FIRST);
+        for(SeatBlock free : blocks){
+            if(seats.size() == numSeats){
+                break;
+            }
+            addSeats(seatTracker, free, numSeats - seats.size(), seats);
+        }
+        return seats;
+    }
+
+    @Override
+    public List<Seat> selectSeats(SeatTracker seatTracker, int partition, int numSeats) {
+        SeatBlock block = seatTracker.firstFreeBlock(partition, numSeats);
+        if(block == null){
+            return null;
+        }
+        List<Seat> seats = new ArrayList<>(numSeats);
+        addSeats(seatTracker, block, numSeats, seats);
+        return seats;
+    }
+
+    private static void countRuns(List<SeatBlock> blocks, int[] runLengths, int delta){
+        for(SeatBlock block : blocks){
+            runLengths[block.getLength()] += delta;
+        }
+    }
+
+    /**
+     * Counts the free runs needed to seat a group, taking the longest runs first.
+     * @param runLengths number of free runs of each length
+     * @param numSeats size of the group
+     * @return number of runs, Integer.MAX_VALUE when all the runs together are too short
+     */
+    private static int blocksNeeded(int[] runLengths, int numSeats){
+        int blocks = 0;
+        for(int length = runLengths.length - 1; length > 0 && numSeats > 0; length--){
+            int runs = Math.min(runLengths[length], (numSeats + length - 1) / length);
+            blocks += runs;
+            numSeats -= runs * length;
+        }
+        return numSeats > 0 ? Integer.MAX_VALUE : blocks;
+    }
+
+    private void addSeats(SeatTracker seatTracker, SeatBlock block, int numSeats, List<Seat> seats){
+        int count = Math.min(numSeats, block.getLength());
+        for(int i = 0; i < count; i++){
+            seats.add(seatTracker.getSeat(block.getRowNum(), block.getFirstColumnNum() + i));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CustomerIndex indexes the seat hold and reservation IDs of every customer by email, case insensitive as the
+ * reservations are. Every customer has a concurrent set of each, changed in place in constant time whatever the
+ * number of IDs of the customer; the change of an entry is atomic with its creation and removal, customers without
+ * seat hold nor reservation being dropped from the index. A lookup is weakly consistent: it doesn't see the IDs of a
+ * customer as of one point in time, a hold being reserved meanwhile may be seen as both or as the reservation only.
+ */
+final class CustomerIndex {
+
+    private final Map<String, Entry> customers = new ConcurrentHashMap<>();
+
+    /**
+     * @param customerEmail email of the customer
+     * @return the seat hold and reservation IDs of the customer, null if there's none
+     */
+    Entry get(String customerEmail){
+        return customers.get(normalize(customerEmail));
+    }
+
+    void hold(String customerEmail, int seatHoldId){
+        customers.compute(normalize(customerEmail), (email, entry) -> {
+            Entry changed = entry == null ? new Entry() : entry;
+            changed.seatHoldIds.add(seatHoldId);
+            return changed;
+        });
+    }
+
+    void reserve(String customerEmail, int seatHoldId, int reservationId){
+        customers.compute(normalize(customerEmail), (email, entry) -> {
+            Entry changed = entry == null ? new Entry() : entry;
+            // added first, a lookup never misses the seats altogether
+            changed.reservationIds.add(reservationId);
+            changed.seatHoldIds.remove(seatHoldId);
+            return changed;
+        });
+    }
+
+    void release(String customerEmail, int seatHoldId){
+        customers.computeIfPresent(normalize(customerEmail), (email, entry) -> {
+            entry.seatHoldIds.remove(seatHoldId);
+            return entry.isEmpty() ? null : entry;
+        });
+    }
+
+    void cancel(String customerEmail, int reservationId){
+        customers.computeIfPresent(normalize(customerEmail), (email, entry) -> {
+            entry.reservationIds.remove(reservationId);
+            return entry.isEmpty() ? null : entry;
+        });
+    }
+
+    private static String normalize(String customerEmail){
+        return customerEmail.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Seat hold and reservation IDs of a customer, only changed by the index; read concurrently with the changes.
+     */
+    static final class Entry {
+        final Set<Integer> seatHoldIds = ConcurrentHashMap.newKeySet();
+        final Set<Integer> reservationIds = ConcurrentHashMap.newKeySet();
+
+        private boolean isEmpty(){
+            return seatHoldIds.isEmpty() && reservationIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * EventRegistry hosts the venues of many events in one process, the ticket service requests being keyed by event ID.
+ * The seat holds of all the events expire on a shared pool of expiration threads, on a single tick visiting only the
+ * events with seat holds to expire, and their journal syncs, snapshots and evictions run on a shared pool of
+ * workers, so neither the number of threads nor the work per tick grows with the number of events.
+ * A hot event can be pinned, its seat holds then expire on a thread of its own and it is never evicted.
+ *
+ * With a storage directory, an event left unused is evicted: its last snapshot is taken and its venue dropped from
+ * the memory. The next request loads it back from its snapshot and journal, seat holds and reservations included.
+ * Requests to an event share its read lock, only loading and evicting it take the write lock.
+ */
+public class EventRegistry implements AutoCloseable {
+
+    private static final Pattern EVENT_ID = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final long ACCESS_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventRegistryConfig config;
+    private final ExpiryTicker expiryTicker;
+    private final ScheduledExecutorService workers;
+    private final Map<String, Event> events = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates the registry and starts its expiration and worker threads.
+     * @param config thread pool sizes, storage and eviction settings, and the configuration of the events
+     */
+    public EventRegistry(EventRegistryConfig config){
+        this.config = config;
+        expiryTicker = new ExpiryTicker(Executors.newScheduledThreadPool(config.getExpiryThreads(),
+                daemonThreads("event-expiry")), config.getEventConfig().getExpiryTickMillis(), true);
+        workers = Executors.newScheduledThreadPool(config.getWorkerThreads(), daemonThreads("event-worker"));
+        long idleEvictionMillis = config.getIdleEvictionMillis();
+        if(config.getStorageDirectory() != null && idleEvictionMillis > 0){
+            workers.scheduleWithFixedDelay(() -> evictIdle(idleEvictionMillis), idleEvictionMillis,
+                    idleEvictionMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Registers an event, its venue is created or loaded on the first request.
+     * @param eventId event identifier, letters, digits, dots, dashes and underscores as it names the stored files
+     * @param rows number of rows of the venue
+     * @param columns number of columns of the venue
+     * @return false if the event is already registered
+     */
+    public boolean register(String eventId, int rows, int columns){
+        if(eventId == null || !EVENT_ID.matcher(eventId).matches()){
+            throw new IllegalArgumentException("Invalid event ID " + eventId);
+        }
+        return events.putIfAbsent(eventId, new Event(eventId, rows, columns, null)) == null;
+    }
+
+    /**
+     * Registers an event held in a venue of sections of jagged rows, its venue is created or loaded on the first
+     * request.
+     * @param eventId event identifier, letters, digits, dots, dashes and underscores as it names the stored files
+     * @param layout layout of the venue, not to change once registered
+     * @return false if the event is already registered
+     */
+    public boolean register(String eventId, VenueLayout layout){
+        if(eventId == null || !EVENT_ID.matcher(eventId).matches()){
+            throw new IllegalArgumentException("Invalid event ID " + eventId);
+        }
+        return events.putIfAbsent(eventId, new Event(eventId, layout.getRows(), layout.getColumns(), layout)) == null;
+    }
+
+    /**
+     * @param eventId event identifier
+     * @return the number of seats of the event neither held nor reserved, 0 for an unknown event
+     */
+    public int numSeatsAvailable(String eventId){
+        return call(eventId, TicketServiceImpl::numSeatsAvailable, 0);
+    }
+
+    /**
+     * Find and hold the best available seats of an event for a customer
+     * @param eventId event identifier
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats, null if they couldn't be held or the event is unknown
+     */
+    public SeatHold findAndHoldSeats(String eventId, int numSeats, String customerEmail){
+        return call(eventId, ticketService -> ticketService.findAndHoldSeats(numSeats, customerEmail), null);
+    }
+
+    /**
+     * Commit seats of an event held for a specific customer
+     * @param eventId event identifier
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code, null if the seats couldn't be reserved or the event is unknown
+     */
+    public String reserveSeats(String eventId, int seatHoldId, String customerEmail){
+        return call(eventId, ticketService -> ticketService.reserveSeats(seatHoldId, customerEmail), null);
+    }
+
+    /**
+     * Release the seats of an event held for a customer before the hold expires
+     * @param eventId event identifier
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return true if the seats are available again, false if the hold is gone or the event is unknown
+     */
+    public boolean releaseHold(String eventId, int seatHoldId, String customerEmail){
+        return call(eventId, ticketService -> ticketService.releaseHold(seatHoldId, customerEmail), false);
+    }
+
+    /**
+     * Cancel a reservation of an event
+     * @param eventId event identifier
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer who made the reservation
+     * @return true if the seats are available again, false if there's no such reservation or the event is unknown
+     */
+    public boolean cancelReservation(String eventId, String reservationId, String customerEmail){
+        return call(eventId, ticketService -> ticketService.cancelReservation(reservationId, customerEmail), false);
+    }
+
+    /**
+     * Pins an event: it is loaded if evicted, its seat holds expire on a thread of its own and it is no longer
+     * evicted.
+     * @param eventId event identifier
+     * @return false for an unknown event
+     */
+    public boolean pin(String eventId){
+        Event event = events.get(eventId);
+        if(event == null){
+            return false;
+        }
+        event.lock.writeLock().lock();
+        try {
+            if(event.dedicatedTicker == null){
+                event.dedicatedTicker = new ExpiryTicker(Executors.newSingleThreadScheduledExecutor(
+                        daemonThreads("event-" + eventId + "-expiry")), config.getEventConfig().getExpiryTickMillis(),
+                        true);
+                if(event.ticketService == null){
+                    load(event);
+                } else {
+                    event.ticketService.seatAssignmentManager().runExpiryOn(event.dedicatedTicker);
+                }
+            }
+            return true;
+        } finally {
+            event.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unpins an event, its seat holds go back to expiring on the shared threads.
+     * @param eventId event identifier
+     * @return false for an unknown event
+     */
+    public boolean unpin(String eventId){
+        Event event = events.get(eventId);
+        if(event == null){
+            return false;
+        }
+        event.lock.writeLock().lock();
+        try {
+            if(event.dedicatedTicker != null){
+                if(event.ticketService != null){
+                    event.ticketService.seatAssignmentManager().runExpiryOn(expiryTicker);
+                }
+                event.dedicatedTicker.close();
+                event.dedicatedTicker = null;
+            }
+            return true;
+        } finally {
+            event.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evicts an event now, unless it is pinned, in use, or not stored.
+     * @param eventId event identifier
+     * @return true if the event was evicted
+     */
+    public boolean evict(String eventId){
+        Event event = events.get(eventId);
+        return event != null && evict(event, 0);
+    }
+
+    /**
+     * Evicts the events left unused for some time, but the pinned ones and the ones in use.
+     * @param idleMillis time in milliseconds an event has to be unused for
+     * @return number of events evicted
+     */
+    public int evictIdle(long idleMillis){
+        int evicted = 0;
+        for (Event event : events.values()) {
+            if(evict(event, TimeUnit.MILLISECONDS.toNanos(idleMillis))){
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return number of events whose venue is in memory
+     */
+    public int numLiveEvents(){
+        int live = 0;
+        for (Event event : events.values()) {
+            if(event.ticketService != null){
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Shuts down every event, taking their last snapshot, and stops the shared threads.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        for (Event event : events.values()) {
+            event.lock.writeLock().lock();
+            try {
+                if(event.ticketService != null){
+                    event.ticketService.shutdown();
+                    event.ticketService = null;
+                }
+                if(event.dedicatedTicker != null){
+                    event.dedicatedTicker.close();
+                }
+            } finally {
+                event.lock.writeLock().unlock();
+            }
+        }
+        expiryTicker.close();
+        workers.shutdownNow();
+    }
+
+    private <T> T call(String eventId, Function<TicketServiceImpl, T> request, T unknownEvent){
+        Event event = events.get(eventId);
+        if(event == null){
+            return unknownEvent;
+        }
+        Lock readLock = event.lock.readLock();
+        readLock.lock();
+        if(event.ticketService == null){
+            // evicted or never used, loaded under the write lock then downgraded to the read lock
+            readLock.unlock();
+            event.lock.writeLock().lock();
+            try {
+                if(event.ticketService == null){
+                    load(event);
+                }
+                readLock.lock();
+            } finally {
+                event.lock.writeLock().unlock();
+            }
+        }
+        try {
+            long now = System.nanoTime();
+            // a hot event is written once in a while only, its callers don't fight over the cache line
+            if(now - event.lastAccessNanos > ACCESS_RESOLUTION_NANOS){
+                event.lastAccessNanos = now;
+            }
+            return request.apply(event.ticketService);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Creates the venue of an event, from its snapshot and journal if stored. Called under the write lock.
+     */
+    private void load(Event event){
+        if(closed){
+            throw new IllegalStateException("Event registry is closed");
+        }
+        SeatAssignmentConfig eventConfig = config.getEventConfig().copy()
+                .setExpiryTicker(event.dedicatedTicker == null ? expiryTicker : event.dedicatedTicker)
+                .setIoScheduler(workers);
+        SeatTracker seatTracker;
+        Path storageDirectory = config.getStorageDirectory();
+        if(storageDirectory != null){
+            Path snapshot = storageDirectory.resolve(event.eventId + ".snapshot");
+            eventConfig.setJournalPath(storageDirectory.resolve(event.eventId + ".journal")).setSnapshotPath(snapshot);
+            seatTracker = event.layout == null
+                    ? VenueSnapshot.loadSeatTracker(snapshot, event.rows, event.columns, config.getSeatScorer())
+                    : VenueSnapshot.loadSeatTracker(snapshot, event.layout, config.getSeatScorer());
+        } else {
+            eventConfig.setJournalPath(null).setSnapshotPath(null);
+            seatTracker = event.layout == null ? new SeatTracker(event.rows, event.columns, config.getSeatScorer())
+                    : new SeatTracker(event.layout, config.getSeatScorer());
+        }
+        try {
+            event.ticketService = new TicketServiceImpl(seatTracker, eventConfig);
+        } catch (TicketServiceException e) {
+            throw new IllegalStateException(e);
+        }
+        event.lastAccessNanos = System.nanoTime();
+    }
+
+    private boolean evict(Event event, long idleNanos){
+        if(config.getStorageDirectory() == null){
+            return false;
+        }
+        Lock writeLock = event.lock.writeLock();
+        // an event in use is not idle, it is left alone
+        if(!writeLock.tryLock()){
+            return false;
+        }
+        try {
+            if(event.ticketService == null || event.dedicatedTicker != null
+                    || System.nanoTime() - event.lastAccessNanos < idleNanos){
+                return false;
+            }
+            event.ticketService.shutdown();
+            event.ticketService = null;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name){
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Event {
+        private final String eventId;
+        private final int rows;
+        private final int columns;
+        private final VenueLayout layout; // null for a rectangular venue
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // guarded by the lock, written under the write lock
+        private volatile TicketServiceImpl ticketService;
+        private ExpiryTicker dedicatedTicker;
+        private volatile long lastAccessNanos;
+
+        private Event(String eventId, int rows, int columns, VenueLayout layout){
+            this.eventId = eventId;
+            this.rows = rows;
+            this.columns = columns;
+            this.layout = layout;
+        }
+    }
+}
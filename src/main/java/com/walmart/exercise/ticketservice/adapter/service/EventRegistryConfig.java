@@ -0,0 +1,125 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatScorer;
+
+import java.nio.file.Path;
+
+/**
+ * EventRegistryConfig holds the tunables of an {@link EventRegistry}.
+ * The setters return the configuration itself so the settings can be chained.
+ */
+public class EventRegistryConfig {
+
+    private int expiryThreads = 2;
+    private int workerThreads = 2;
+    private Path storageDirectory;
+    private long idleEvictionMillis = 0;
+    private SeatAssignmentConfig eventConfig = new SeatAssignmentConfig();
+    private SeatScorer seatScorer = SeatScorer.ROW_MAJOR;
+
+    /**
+     * @return number of threads the seat holds of all the events expire on
+     */
+    public int getExpiryThreads() {
+        return expiryThreads;
+    }
+
+    /**
+     * Sets the number of threads the seat holds of all the events but the pinned ones expire on. Defaults to 2.
+     * @param expiryThreads number of expiration threads
+     * @return this configuration
+     */
+    public EventRegistryConfig setExpiryThreads(int expiryThreads) {
+        this.expiryThreads = expiryThreads;
+        return this;
+    }
+
+    /**
+     * @return number of threads the journal syncs, snapshots and evictions of all the events run on
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Sets the number of threads the journal syncs, snapshots and evictions of all the events run on. Defaults to 2.
+     * @param workerThreads number of worker threads
+     * @return this configuration
+     */
+    public EventRegistryConfig setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    /**
+     * @return directory the journals and snapshots of the events are kept in, null if the events are not stored
+     */
+    public Path getStorageDirectory() {
+        return storageDirectory;
+    }
+
+    /**
+     * Sets the directory the journal and snapshot of every event are kept in, named after the event ID. Events
+     * are only evicted when stored. Defaults to null, the events are kept in memory only.
+     * @param storageDirectory storage directory
+     * @return this configuration
+     */
+    public EventRegistryConfig setStorageDirectory(Path storageDirectory) {
+        this.storageDirectory = storageDirectory;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds an event is left unused before it is evicted
+     */
+    public long getIdleEvictionMillis() {
+        return idleEvictionMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds a stored event, not pinned, is left unused before it is evicted to its
+     * snapshot. Defaults to 0, events are only evicted on demand.
+     * @param idleEvictionMillis idle time in milliseconds
+     * @return this configuration
+     */
+    public EventRegistryConfig setIdleEvictionMillis(long idleEvictionMillis) {
+        this.idleEvictionMillis = idleEvictionMillis;
+        return this;
+    }
+
+    /**
+     * @return configuration every event is created after
+     */
+    public SeatAssignmentConfig getEventConfig() {
+        return eventConfig;
+    }
+
+    /**
+     * Sets the configuration every event is created after, e.g. its hold time and allocation strategy. The
+     * schedulers, journal and snapshot files are set by the registry. Defaults to the default configuration.
+     * @param eventConfig event configuration template
+     * @return this configuration
+     */
+    public EventRegistryConfig setEventConfig(SeatAssignmentConfig eventConfig) {
+        this.eventConfig = eventConfig;
+        return this;
+    }
+
+    /**
+     * @return scorer the seats of every event are ranked by
+     */
+    public SeatScorer getSeatScorer() {
+        return seatScorer;
+    }
+
+    /**
+     * Sets the scorer the seats of every event are ranked by, when its venue is created or loaded back from its
+     * snapshot. Defaults to {@link SeatScorer#ROW_MAJOR}, row and column order.
+     * @param seatScorer seat scorer
+     * @return this configuration
+     */
+    public EventRegistryConfig setSeatScorer(SeatScorer seatScorer) {
+        this.seatScorer = seatScorer;
+        return this;
+    }
+}
@@ -0,0 +1,79 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExpiryTicker drives the seat hold expiration of many venues with a single scheduled task. Every tick it visits
+ * only the venues having seat holds yet to expire, and hands the expiration of each one to the threads of its
+ * scheduler, so venues expire in parallel but a venue never on two threads at once. A venue is armed by its first
+ * seat hold and dropped once its holds are all gone, an idle venue costs nothing per tick.
+ */
+final class ExpiryTicker implements AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final Set<SeatAssignmentManager> armed = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> tickTask;
+
+    /**
+     * Starts ticking.
+     * @param scheduler scheduler the ticks and the expirations run on
+     * @param tickMillis time between two ticks in milliseconds
+     * @param ownsScheduler whether the scheduler is shut down on close, false if it is shared
+     */
+    ExpiryTicker(ScheduledExecutorService scheduler, long tickMillis, boolean ownsScheduler){
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        tickTask = scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Has a venue visited on every tick from now on.
+     */
+    void arm(SeatAssignmentManager venue){
+        armed.add(venue);
+    }
+
+    /**
+     * Stops visiting a venue.
+     */
+    void disarm(SeatAssignmentManager venue){
+        armed.remove(venue);
+    }
+
+    /**
+     * @return number of venues visited on every tick
+     */
+    int numArmed(){
+        return armed.size();
+    }
+
+    /**
+     * Stops ticking, an expiration already handed out still runs.
+     */
+    @Override
+    public void close(){
+        tickTask.cancel(false);
+        if(ownsScheduler){
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void tick(){
+        for (SeatAssignmentManager venue : armed) {
+            // a venue whose last expiration hasn't run yet isn't handed out again
+            if(venue.queueExpiry()){
+                try {
+                    scheduler.execute(() -> venue.expireHolds(this));
+                } catch (RejectedExecutionException e) {
+                    return; // shut down
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.HoldRequest;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HoldBatcher coalesces single find and hold requests into batches.
+ * Callers queue their request and wait; a batching thread takes the first queued request, gathers the requests
+ * arriving within the batching window, up to the maximum batch size, and serves them with a single
+ * {@link SeatAssignmentManager#findAndHoldBatch(List)}.
+ */
+final class HoldBatcher {
+
+    private final SeatAssignmentManager seatAssignmentManager;
+    private final BlockingQueue<PendingHold> queue;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final Thread batchingThread;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a batcher and starts its batching thread.
+     * @param seatAssignmentManager manager serving the batches
+     * @param batchWindowMicros time in microseconds requests are gathered for after the first one of a batch
+     * @param maxBatchSize maximum number of requests of a batch, also the number of requests that can be queued
+     */
+    HoldBatcher(SeatAssignmentManager seatAssignmentManager, long batchWindowMicros, int maxBatchSize){
+        this.seatAssignmentManager = seatAssignmentManager;
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(batchWindowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(maxBatchSize);
+        batchingThread = new Thread(this::run, "seat-hold-batcher");
+        batchingThread.setDaemon(true);
+        batchingThread.start();
+    }
+
+    /**
+     * Queues a request and waits for the batch it went in to be served.
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats, or null if the request couldn't be served or the
+     * batcher is shut down
+     */
+    SeatHold findAndHold(int numSeats, String customerEmail){
+        if(stopped){
+            return null;
+        }
+        PendingHold pendingHold = new PendingHold(new HoldRequest(numSeats, customerEmail));
+        try {
+            queue.put(pendingHold);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        // queued after the batching thread drained the queue for the last time
+        if(stopped && queue.remove(pendingHold)){
+            return null;
+        }
+        return pendingHold.seatHold.join();
+    }
+
+    /**
+     * Stops the batching thread once the batch being gathered is served, the requests still queued are answered
+     * with null.
+     */
+    void shutdown(){
+        stopped = true;
+        batchingThread.interrupt();
+    }
+
+    private void run(){
+        List<PendingHold> batch = new ArrayList<>(maxBatchSize);
+        List<HoldRequest> holdRequests = new ArrayList<>(maxBatchSize);
+        while(!stopped){
+            try {
+                batch.add(queue.take());
+                long windowEnd = System.nanoTime() + batchWindowNanos;
+                while(batch.size() < maxBatchSize){
+                    PendingHold pendingHold = queue.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if(pendingHold == null){
+                        break;
+                    }
+                    batch.add(pendingHold);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            serve(batch, holdRequests);
+        }
+        PendingHold pendingHold;
+        while((pendingHold = queue.poll()) != null){
+            pendingHold.seatHold.complete(null);
+        }
+    }
+
+    private void serve(List<PendingHold> batch, List<HoldRequest> holdRequests){
+        if(batch.isEmpty()){
+            return;
+        }
+        try {
+            for (PendingHold pendingHold : batch) {
+                holdRequests.add(pendingHold.holdRequest);
+            }
+            List<SeatHold> seatHolds = seatAssignmentManager.findAndHoldBatch(holdRequests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).seatHold.complete(seatHolds.get(i));
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pendingHold -> pendingHold.seatHold.completeExceptionally(e));
+        } finally {
+            batch.clear();
+            holdRequests.clear();
+        }
+    }
+
+    private static final class PendingHold {
+        private final HoldRequest holdRequest;
+        private final CompletableFuture<SeatHold> seatHold = new CompletableFuture<>();
+
+        private PendingHold(HoldRequest holdRequest){
+            this.holdRequest = holdRequest;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * HoldExpiryWheel is a hashed timing wheel of seat hold deadlines.
+ * A deadline goes to the bucket of the tick it falls in, the wheel wraps around every wheelSize ticks.
+ * Advancing the wheel only visits the buckets of the ticks that went by, i.e. the holds due by now and the few
+ * holds hashed to the same buckets for a later round, instead of every live hold.
+ * Deadlines can be scheduled from any thread, the wheel is advanced by a single expiry thread.
+ */
+final class HoldExpiryWheel {
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Deadline>[] buckets;
+    private final long startNanos;
+    private final LongAdder pending = new LongAdder();
+
+    private volatile long currentTick; // last tick visited, visited again on the next advance
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+
+    /**
+     * Creates a timing wheel.
+     * @param tickNanos tick resolution in nanoseconds
+     * @param wheelSize number of buckets, rounded up to a power of two
+     * @param startNanos {@link System#nanoTime()} the ticks count from
+     */
+    HoldExpiryWheel(long tickNanos, int wheelSize, long startNanos){
+        if(tickNanos <= 0 || wheelSize <= 0){
+            throw new IllegalArgumentException("Tick and wheel size have to be positive");
+        }
+        int size = 1;
+        while(size < wheelSize){
+            size <<= 1;
+        }
+        this.tickNanos = tickNanos;
+        this.mask = size - 1;
+        this.startNanos = startNanos;
+        this.buckets = newBuckets(size);
+        for(int i = 0; i < size; i++){
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Schedules a seat hold to expire at a deadline.
+     * @param seatHoldId seat hold identifier
+     * @param deadlineNanos {@link System#nanoTime()} at which the hold expires
+     */
+    void schedule(int seatHoldId, long deadlineNanos){
+        Deadline deadline = new Deadline(seatHoldId, deadlineNanos);
+        long tick = Math.max(tickOf(deadlineNanos), currentTick);
+        // counted before it is added, the wheel never looks empty with a deadline in it
+        pending.increment();
+        buckets[(int)(tick & mask)].add(deadline);
+        long visitedTick = currentTick;
+        if(tick < visitedTick){
+            // the expiry thread went past the bucket meanwhile, make sure the deadline isn't left for a full round.
+            // expiring a hold twice is harmless, the hold is only released by whoever removes it first.
+            pending.increment();
+            buckets[(int)(visitedTick & mask)].add(deadline);
+        }
+    }
+
+    /**
+     * Advances the wheel to a point in time and hands out every seat hold due by then.
+     * @param nowNanos current {@link System#nanoTime()}
+     * @param expiredHolds consumer of the expired seat hold identifiers
+     */
+    void advance(long nowNanos, IntConsumer expiredHolds){
+        long nowTick = tickOf(nowNanos);
+        // a full round visits every bucket, going further round would only visit them again
+        for(long tick = Math.max(currentTick, nowTick - mask); tick <= nowTick; tick++){
+            Iterator<Deadline> deadlines = buckets[(int)(tick & mask)].iterator();
+            while(deadlines.hasNext()){
+                Deadline deadline = deadlines.next();
+                if(deadline.deadlineNanos - nowNanos <= 0){
+                    deadlines.remove();
+                    pending.decrement();
+                    recordLag(nowNanos - deadline.deadlineNanos);
+                    expiredHolds.accept(deadline.seatHoldId);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    /**
+     * @return true if no deadline is left to expire
+     */
+    boolean isEmpty(){
+        return pending.sum() == 0;
+    }
+
+    /**
+     * @return how late, in nanoseconds, the last expired hold was released after its deadline
+     */
+    long lastLagNanos(){
+        return lastLagNanos;
+    }
+
+    /**
+     * @return the worst lag, in nanoseconds, seen between a hold deadline and its release
+     */
+    long maxLagNanos(){
+        return maxLagNanos;
+    }
+
+    private void recordLag(long lagNanos){
+        lastLagNanos = lagNanos;
+        if(lagNanos > maxLagNanos){
+            maxLagNanos = lagNanos;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Queue<T>[] newBuckets(int size){
+        // no generic array creation, every bucket is filled with a queue of T right away
+        return (Queue<T>[]) new Queue<?>[size];
+    }
+
+    private long tickOf(long nanos){
+        // round up, a hold is never let go before its deadline
+        return Math.max(0, (nanos - startNanos + tickNanos - 1) / tickNanos);
+    }
+
+    private static final class Deadline {
+        private final int seatHoldId;
+        private final long deadlineNanos;
+
+        private Deadline(int seatHoldId, long deadlineNanos){
+            this.seatHoldId = seatHoldId;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JournalRecovery folds the replayed journal records into the seat holds and reservations alive when the journal
+ * was last written, to be restored by the seat assignment manager.
+ */
+final class JournalRecovery {
+
+    private final Map<Integer, RecoveredHold> seatHolds = new LinkedHashMap<>();
+    private final Map<String, RecoveredHold> reservations = new LinkedHashMap<>();
+    private int maxSeatHoldId;
+    private int maxReservationId;
+
+    void hold(RecoveredHold seatHold){
+        seatHolds.put(seatHold.seatHoldId, seatHold);
+        maxSeatHoldId = Math.max(maxSeatHoldId, seatHold.seatHoldId);
+    }
+
+    void reserve(int seatHoldId, String reservationId){
+        RecoveredHold seatHold = seatHolds.remove(seatHoldId);
+        if(seatHold != null){
+            reservations.put(reservationId, seatHold);
+        }
+        // -1 for a code that isn't a reservation ID, nothing to skip
+        maxReservationId = Math.max(maxReservationId, ReservationCodes.decodeInt(reservationId));
+    }
+
+    void expire(int seatHoldId){
+        seatHolds.remove(seatHoldId);
+    }
+
+    void cancel(String reservationId){
+        reservations.remove(reservationId);
+    }
+
+    /**
+     * Makes sure the IDs generated after recovery are past given IDs, e.g. the highest IDs of a snapshot.
+     */
+    void advancePast(int seatHoldId, int reservationId){
+        maxSeatHoldId = Math.max(maxSeatHoldId, seatHoldId);
+        maxReservationId = Math.max(maxReservationId, reservationId);
+    }
+
+    /**
+     * @return seat indexes of the seat holds and reservations
+     */
+    BitSet seats(){
+        BitSet seats = new BitSet();
+        for (RecoveredHold seatHold : seatHolds.values()) {
+            seatHold.addSeatsTo(seats);
+        }
+        for (RecoveredHold seatHold : reservations.values()) {
+            seatHold.addSeatsTo(seats);
+        }
+        return seats;
+    }
+
+    /**
+     * Hands out the bodies of journal records rebuilding this state from scratch: a HOLD record per seat hold, a HOLD
+     * and a RESERVE record per reservation. The highest IDs are not part of the records.
+     */
+    void forEachRecord(Consumer<byte[]> records){
+        for (RecoveredHold seatHold : seatHolds.values()) {
+            records.accept(SeatJournal.holdRecord(seatHold));
+        }
+        for (Map.Entry<String, RecoveredHold> reservation : reservations.entrySet()) {
+            records.accept(SeatJournal.holdRecord(reservation.getValue()));
+            records.accept(SeatJournal.reserveRecord(reservation.getValue().seatHoldId, reservation.getKey()));
+        }
+    }
+
+    Collection<RecoveredHold> seatHolds(){
+        return seatHolds.values();
+    }
+
+    Map<String, RecoveredHold> reservations(){
+        return reservations;
+    }
+
+    int maxSeatHoldId(){
+        return maxSeatHoldId;
+    }
+
+    int maxReservationId(){
+        return maxReservationId;
+    }
+
+    /**
+     * A seat hold as journaled, the seats being the seat tracker indexes (row * columns + column).
+     */
+    static final class RecoveredHold {
+        final int seatHoldId;
+        final String customerEmail;
+        final int[] seatIndexes;
+        final long expiresAtMillis;
+
+        RecoveredHold(int seatHoldId, String customerEmail, int[] seatIndexes, long expiresAtMillis){
+            this.seatHoldId = seatHoldId;
+            this.customerEmail = customerEmail;
+            this.seatIndexes = seatIndexes;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        /**
+         * Reads a seat hold written by {@link #writeTo(ByteBuffer)}.
+         */
+        static RecoveredHold readFrom(ByteBuffer buffer){
+            int seatHoldId = buffer.getInt();
+            long expiresAtMillis = buffer.getLong();
+            byte[] email = new byte[buffer.getShort()];
+            buffer.get(email);
+            int[] seatIndexes = new int[buffer.getInt()];
+            for (int i = 0; i < seatIndexes.length; i++) {
+                seatIndexes[i] = buffer.getInt();
+            }
+            return new RecoveredHold(seatHoldId, new String(email, StandardCharsets.UTF_8), seatIndexes, expiresAtMillis);
+        }
+
+        /**
+         * Writes the seat hold as int ID, long expiry epoch millis, short email length, email UTF-8, int seat count,
+         * int seat indexes.
+         */
+        void writeTo(ByteBuffer buffer){
+            byte[] email = customerEmail.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(seatHoldId).putLong(expiresAtMillis).putShort((short) email.length).put(email)
+                    .putInt(seatIndexes.length);
+            for (int seatIndex : seatIndexes) {
+                buffer.putInt(seatIndex);
+            }
+        }
+
+        int encodedSize(){
+            return 4 + 8 + 2 + customerEmail.getBytes(StandardCharsets.UTF_8).length + 4 + 4 * seatIndexes.length;
+        }
+
+        private void addSeatsTo(BitSet seats){
+            for (int seatIndex : seatIndexes) {
+                seats.set(seatIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * LeasedIdGenerator generates unique 64-bit IDs without a shared counter: every thread leases a block of consecutive
+ * IDs and hands them out on its own, coming back to the shared high-water mark once per block. With a lease file the
+ * high-water mark is written, and synced, before a block is handed out, so the IDs stay unique across restarts; the
+ * IDs left in the blocks of the previous run are skipped.
+ * IDs are unique but not handed out in order across threads.
+ */
+public class LeasedIdGenerator implements UniqueIdGenerator {
+
+    static final int MAGIC = 0x1D1E_A5E0;
+    private static final int FILE_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final int blockSize;
+    private final FileChannel leaseFile;
+    private final ByteBuffer record = ByteBuffer.allocate(FILE_SIZE);
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    // bumped when IDs are skipped, the blocks leased before are dropped
+    private volatile long generation;
+
+    // guarded by this
+    private long highWater;
+
+    /**
+     * Creates a generator kept in memory, starting again from the first ID after a restart.
+     * @param first first ID
+     * @param blockSize number of IDs leased by a thread at once
+     */
+    public LeasedIdGenerator(long first, int blockSize){
+        if(blockSize < 1){
+            throw new IllegalArgumentException("Blocks of " + blockSize + " IDs");
+        }
+        this.blockSize = blockSize;
+        this.leaseFile = null;
+        this.highWater = first;
+    }
+
+    /**
+     * Creates a generator starting after the IDs leased by the previous run, as written to its lease file, or from 1
+     * with a new file.
+     * @param leaseFile file the high-water mark is written to, created if need be
+     * @param blockSize number of IDs leased by a thread at once
+     * @throws IOException if the lease file can't be read or isn't a lease file
+     */
+    public LeasedIdGenerator(Path leaseFile, int blockSize) throws IOException{
+        if(blockSize < 1){
+            throw new IllegalArgumentException("Blocks of " + blockSize + " IDs");
+        }
+        this.blockSize = blockSize;
+        this.leaseFile = FileChannel.open(leaseFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if(this.leaseFile.size() == 0){
+            highWater = 1;
+            return;
+        }
+        while(record.hasRemaining() && this.leaseFile.read(record, record.position()) > 0){
+            // a lease file is a single small record
+        }
+        record.flip();
+        if(record.remaining() < FILE_SIZE || record.getInt() != MAGIC){
+            this.leaseFile.close();
+            throw new IOException(leaseFile + " is not an ID lease file");
+        }
+        highWater = record.getLong();
+    }
+
+    /**
+     * @return a unique ID, within the int range
+     * @throws IllegalStateException once the IDs went past the int range
+     */
+    @Override
+    public int generate(){
+        long id = generateLong();
+        if(id > Integer.MAX_VALUE){
+            throw new IllegalStateException("ID " + id + " past the int range");
+        }
+        return (int) id;
+    }
+
+    /**
+     * @return a unique ID, from the block of the calling thread
+     * @throws UncheckedIOException if a new block is needed and the lease file can't be written
+     */
+    @Override
+    public long generateLong(){
+        Block block = blocks.get();
+        if(block.next == block.end || block.generation != generation){
+            lease(block);
+        }
+        return block.next++;
+    }
+
+    @Override
+    public void advancePast(int id){
+        advancePast((long) id);
+    }
+
+    /**
+     * Makes sure the IDs generated from now on are greater than a given ID, dropping the blocks already leased.
+     * @param id ID already handed out
+     */
+    public synchronized void advancePast(long id){
+        highWater = Math.max(highWater, id + 1);
+        generation++;
+    }
+
+    /**
+     * @return the lowest ID not leased yet
+     */
+    public synchronized long getHighWater(){
+        return highWater;
+    }
+
+    /**
+     * Closes the lease file, the IDs left in the leased blocks are not handed out by the next run.
+     */
+    public synchronized void close() throws IOException{
+        if(leaseFile != null){
+            leaseFile.close();
+        }
+    }
+
+    private synchronized void lease(Block block){
+        long start = highWater;
+        long end = start + blockSize;
+        if(leaseFile != null){
+            try {
+                record.clear();
+                record.putInt(MAGIC).putLong(end).flip();
+                while(record.hasRemaining()){
+                    leaseFile.write(record, record.position());
+                }
+                leaseFile.force(false);
+            } catch (IOException e) {
+                // no ID of the block is handed out unless it is known to the next run
+                throw new UncheckedIOException(e);
+            }
+        }
+        highWater = end;
+        block.next = start;
+        block.end = end;
+        block.generation = generation;
+    }
+
+    /**
+     * IDs leased by a thread, from next to end excluded.
+     */
+    private static final class Block {
+        private long next;
+        private long end;
+        private long generation = -1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RateLimiter admits requests at a steady rate with bursts, as a token bucket would, keeping a single theoretical
+ * arrival time updated by compare-and-set: no lock, no refill thread.
+ */
+final class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong nextArrival;
+
+    /**
+     * @param permitsPerSecond requests admitted per second
+     * @param burst requests admitted back to back after a quiet period
+     */
+    RateLimiter(double permitsPerSecond, int burst){
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.nextArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Tells if a request would be admitted now, without admitting it.
+     * @param now current {@link System#nanoTime()}
+     * @return false if a request coming now would be over the rate
+     */
+    boolean wouldAcquire(long now){
+        return Math.max(nextArrival.get() - now, 0) + intervalNanos <= burstNanos;
+    }
+
+    /**
+     * @param now current {@link System#nanoTime()}
+     * @return true if the request is admitted, false if it comes over the rate
+     */
+    boolean tryAcquire(long now){
+        while(true){
+            long arrival = nextArrival.get();
+            long next = Math.max(arrival - now, 0) + now + intervalNanos;
+            if(next - now > burstNanos){
+                return false;
+            }
+            if(nextArrival.compareAndSet(arrival, next)){
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * ReplicationConfig holds the tunables of the replication of a venue to its followers.
+ * The setters return the configuration itself so the settings can be chained.
+ */
+public class ReplicationConfig {
+
+    /**
+     * How long a request waits for its changes to reach a follower.
+     */
+    public enum Acknowledgement {
+        /**
+         * The request returns as soon as its changes are queued for the followers.
+         */
+        ASYNC,
+        /**
+         * The request returns once a follower acknowledged its changes, or the acknowledgement timed out.
+         */
+        SEMI_SYNC
+    }
+
+    private InetSocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    private Acknowledgement acknowledgement = Acknowledgement.ASYNC;
+    private long ackTimeoutMillis = 100;
+    private int maxBufferedBytes = 64 * 1024 * 1024;
+    private int maxPendingBytes = 64 * 1024 * 1024;
+
+    /**
+     * @return address the followers connect to
+     */
+    public InetSocketAddress getBindAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * Sets the address the venue listens for its followers on. Defaults to the loopback address on a free port.
+     * @param bindAddress listening address
+     * @return this configuration
+     */
+    public ReplicationConfig setBindAddress(InetSocketAddress bindAddress) {
+        this.bindAddress = bindAddress;
+        return this;
+    }
+
+    /**
+     * @return how long a request waits for its changes to reach a follower
+     */
+    public Acknowledgement getAcknowledgement() {
+        return acknowledgement;
+    }
+
+    /**
+     * Sets how long a request waits for its changes to reach a follower. Defaults to {@link Acknowledgement#ASYNC}.
+     * @param acknowledgement acknowledgement mode
+     * @return this configuration
+     */
+    public ReplicationConfig setAcknowledgement(Acknowledgement acknowledgement) {
+        this.acknowledgement = acknowledgement;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds a semi-synchronous request waits for an acknowledgement
+     */
+    public long getAckTimeoutMillis() {
+        return ackTimeoutMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds a semi-synchronous request waits for a follower to acknowledge its changes
+     * before returning anyway. Defaults to 100 milliseconds.
+     * @param ackTimeoutMillis acknowledgement timeout in milliseconds
+     * @return this configuration
+     */
+    public ReplicationConfig setAckTimeoutMillis(long ackTimeoutMillis) {
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @return number of bytes queued for a follower before it is dropped
+     */
+    public int getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * Sets the number of bytes queued for a follower too slow to keep up before it is disconnected, to catch up
+     * from the state of the venue when it connects again. Defaults to 64 MB.
+     * @param maxBufferedBytes bytes queued per follower
+     * @return this configuration
+     */
+    public ReplicationConfig setMaxBufferedBytes(int maxBufferedBytes) {
+        this.maxBufferedBytes = maxBufferedBytes;
+        return this;
+    }
+
+    /**
+     * @return number of bytes of changes waiting for the replication thread before the replication stops
+     */
+    public int getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /**
+     * Sets the number of bytes of changes left waiting for the replication thread, e.g. stalled, before the
+     * replication stops: the followers are disconnected and no more followers are accepted, the requests then go on
+     * unreplicated. Defaults to 64 MB.
+     * @param maxPendingBytes bytes of changes waiting to be sent
+     * @return this configuration
+     */
+    public ReplicationConfig setMaxPendingBytes(int maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+        return this;
+    }
+}
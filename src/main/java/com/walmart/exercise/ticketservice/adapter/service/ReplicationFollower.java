@@ -0,0 +1,229 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatScorer;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * ReplicationFollower keeps a hot standby copy of the seat holds and reservations of a venue replicated by a
+ * {@link ReplicationLeader}, folding the records streamed by the leader as they come and acknowledging every frame
+ * once applied. When the leader is lost the follower is promoted to a ticket service of its own, starting from the
+ * last state received; holds keep their original deadlines.
+ *
+ * Run as a program to follow a leader from another process: ReplicationFollower host port [holdTime]. The follower
+ * is promoted once the leader goes away and prints the state of the promoted venue.
+ */
+public class ReplicationFollower implements Closeable {
+
+    private final SocketChannel channel;
+    private final int rows;
+    private final int columns;
+    private final VenueLayout layout;
+    private final Thread thread;
+    private final ByteBuffer ack = ByteBuffer.allocate(Long.BYTES);
+    private volatile boolean connected = true;
+
+    // guarded by this
+    private JournalRecovery state = new JournalRecovery();
+    private long appliedSequence;
+
+    /**
+     * Connects to a leader and starts following it.
+     * @param leader address of the leader
+     * @throws IOException if the leader can't be reached or isn't a replication leader
+     */
+    public ReplicationFollower(InetSocketAddress leader) throws IOException{
+        channel = SocketChannel.open(leader);
+        channel.socket().setTcpNoDelay(true);
+        ByteBuffer header = read(ReplicationLeader.HEADER_SIZE);
+        if(header.getInt() != ReplicationLeader.MAGIC || header.getInt() != ReplicationLeader.VERSION){
+            channel.close();
+            throw new IOException(leader + " is not a replication leader");
+        }
+        rows = header.getInt();
+        columns = header.getInt();
+        int layoutLength = header.getInt();
+        layout = layoutLength == 0 ? null : VenueLayout.parse(new StringReader(
+                new String(read(layoutLength).array(), StandardCharsets.UTF_8)));
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return layout of the venue of the leader, null for a rectangular venue
+     */
+    public VenueLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return true while the leader is followed
+     */
+    public boolean isConnected(){
+        return connected;
+    }
+
+    /**
+     * @return sequence of the last record of the leader applied
+     */
+    public synchronized long getAppliedSequence(){
+        return appliedSequence;
+    }
+
+    /**
+     * @return number of seat holds neither reserved nor expired as of the last record applied
+     */
+    public synchronized int numSeatHolds(){
+        return state.seatHolds().size();
+    }
+
+    /**
+     * @return number of reservations as of the last record applied
+     */
+    public synchronized int numReservations(){
+        return state.reservations().size();
+    }
+
+    /**
+     * Waits for the leader to go away, e.g. before promoting the follower.
+     * @param timeoutMillis time to wait in milliseconds, 0 to wait for ever
+     * @return true if the leader is gone
+     */
+    public boolean awaitDisconnect(long timeoutMillis) throws InterruptedException{
+        thread.join(timeoutMillis);
+        return !connected;
+    }
+
+    /**
+     * Stops following the leader and starts a ticket service from the last state received, on a venue of the size
+     * and layout of the leader's. The scores of the seats aren't replicated, the venue is to be promoted with the
+     * scorer of the leader for the seats to be handed out in the same order.
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     * @param config settings of the promoted venue, without a journal; a replication configuration makes the
+     *               promoted venue a leader in turn
+     * @return the promoted ticket service
+     */
+    public TicketServiceImpl promote(SeatScorer seatScorer, SeatAssignmentConfig config) throws TicketServiceException{
+        return promote(layout == null ? new SeatTracker(rows, columns, seatScorer) : new SeatTracker(layout, seatScorer),
+                config);
+    }
+
+    /**
+     * Stops following the leader and starts a ticket service from the last state received.
+     * @param seatTracker venue of the same size and layout as the leader's, all seats available
+     * @param config settings of the promoted venue, without a journal; a replication configuration makes the
+     *               promoted venue a leader in turn
+     * @return the promoted ticket service
+     * @throws TicketServiceException if the venue doesn't have the size or the layout of the leader's
+     */
+    public TicketServiceImpl promote(SeatTracker seatTracker, SeatAssignmentConfig config) throws TicketServiceException{
+        if(seatTracker == null || seatTracker.getRows() != rows || seatTracker.getColumns() != columns){
+            throw new TicketServiceException("The venue of the leader has " + rows + " rows of " + columns + " seats");
+        }
+        if(!Objects.equals(seatTracker.getLayout(), layout)){
+            throw new TicketServiceException("The venue of the leader has another layout");
+        }
+        close();
+        synchronized (this){
+            return new TicketServiceImpl(seatTracker, config, state);
+        }
+    }
+
+    /**
+     * Stops following the leader.
+     */
+    @Override
+    public void close(){
+        connected = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the connection is dropped either way
+        }
+        if(Thread.currentThread() != thread){
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(){
+        try {
+            while(connected){
+                ByteBuffer frame = read(read(Integer.BYTES).getInt());
+                byte type = frame.get();
+                long sequence = frame.getLong();
+                synchronized (this){
+                    if(type == ReplicationLeader.STATE){
+                        // the state of the venue when the follower connected, the frames after it are applied on top
+                        state = new JournalRecovery();
+                        state.advancePast(frame.getInt(), frame.getInt());
+                    }
+                    while(frame.hasRemaining()){
+                        int length = frame.getInt();
+                        ByteBuffer body = frame.slice();
+                        body.limit(length);
+                        SeatJournal.decode(body, state);
+                        frame.position(frame.position() + length);
+                    }
+                    appliedSequence = sequence;
+                }
+                ack.clear();
+                ack.putLong(sequence).flip();
+                while(ack.hasRemaining()){
+                    channel.write(ack);
+                }
+            }
+        } catch (IOException e) {
+            // leader gone, or the follower closed
+        } finally {
+            connected = false;
+        }
+    }
+
+    private ByteBuffer read(int size) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer) < 0){
+                throw new EOFException("Leader closed the connection");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static void main(String[] args) throws Exception{
+        ReplicationFollower follower = new ReplicationFollower(new InetSocketAddress(args[0], Integer.parseInt(args[1])));
+        System.out.println("following " + args[0] + ":" + args[1] + ", venue of " + follower.getRows() + " rows of "
+                + follower.getColumns() + " seats");
+        follower.awaitDisconnect(0);
+        TicketServiceImpl promoted = follower.promote(SeatScorer.ROW_MAJOR,
+                new SeatAssignmentConfig().setHoldTime(args.length > 2 ? Integer.parseInt(args[2]) : 120));
+        System.out.println("promoted at record " + follower.getAppliedSequence() + ": "
+                + promoted.numSeatsAvailable() + " seats available, " + follower.numSeatHolds() + " seat holds, "
+                + follower.numReservations() + " reservations");
+        promoted.shutdown();
+    }
+}
@@ -0,0 +1,535 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.Counter;
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReplicationLeader streams the seat holds, reservations, expirations, releases and cancellations of a venue to its
+ * followers over non-blocking sockets, encoded as the records of the {@link SeatJournal}.
+ *
+ * A change only adds its record to a lock-free queue and wakes the replication thread up, so a request holding the
+ * lock of a shard never waits on another. The thread numbers the records queued since its last round and sends them
+ * as a single frame to every follower, so the records of a burst of requests go out in one write, and folds them
+ * into the state of the venue as the followers see it. Should the records queued outgrow a bound, e.g. the thread
+ * being stalled, the replication stops: the followers are disconnected and no more followers are accepted. A follower connecting
+ * gets that state first, then the frames sent after it. Followers acknowledge the last record applied; with
+ * semi-synchronous acknowledgement a request waits, after its locks are released, until a follower acknowledged its
+ * changes, the ack timeout went by or no follower is left.
+ *
+ * The leader sends a header, [int magic][int version][int rows][int columns][int layout length][layout], the layout
+ * of a venue of jagged rows as a UTF-8 {@link VenueLayout} file and of length 0 for a rectangular venue, then frames of
+ * [int length][byte type][long sequence of the last record][payload]. The payload of a RECORDS frame is
+ * [int length][record body] records, the one of a STATE frame the highest seat hold ID and reservation ID as ints
+ * followed by the records of the state. Followers send back the sequence of the last record applied as a long.
+ */
+final class ReplicationLeader implements SeatAssignmentListener, Closeable {
+
+    static final int MAGIC = 0x5EA7_4E71;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 20;
+    static final byte RECORDS = 1;
+    static final byte STATE = 2;
+
+    private final int rows;
+    private final int columns;
+    private final byte[] layout;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    private final boolean semiSync;
+    private final long ackTimeoutNanos;
+    private final int maxBufferedBytes;
+    private final int maxPendingBytes;
+    private final ThreadLocal<Record[]> lastRecord = ThreadLocal.withInitial(() -> new Record[1]);
+    private final Object acknowledged = new Object();
+    private final AtomicInteger waitingForAck = new AtomicInteger();
+    private volatile long ackedSequence;
+    private volatile int numFollowers;
+    private final Counter ackTimeouts;
+    private final Counter droppedFollowers;
+    private final Counter overflows;
+
+    private final Queue<Record> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private volatile boolean overflowed;
+
+    // owned by the replication thread
+    private ByteBuffer records = ByteBuffer.allocate(64 * 1024);
+    private long sequence;
+    private final List<Follower> followers = new ArrayList<>();
+    private final JournalRecovery state = new JournalRecovery();
+    private long sentSequence;
+
+    /**
+     * Starts listening for followers.
+     * @param rows number of rows of the venue
+     * @param columns number of columns of the venue, the seat indexes are row * columns + column
+     * @param layout layout of the venue, null for a rectangular venue
+     * @param seed seat holds and reservations of the venue before the first change, e.g. restored from its journal
+     * @param config listening address and acknowledgement settings
+     * @param metrics registry of the acknowledgement timeouts and followers dropped
+     */
+    ReplicationLeader(int rows, int columns, VenueLayout layout, JournalRecovery seed, ReplicationConfig config,
+                      MetricsRegistry metrics){
+        this.rows = rows;
+        this.columns = columns;
+        this.layout = encode(layout);
+        this.semiSync = config.getAcknowledgement() == ReplicationConfig.Acknowledgement.SEMI_SYNC;
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getAckTimeoutMillis());
+        this.maxBufferedBytes = config.getMaxBufferedBytes();
+        this.maxPendingBytes = config.getMaxPendingBytes();
+        if(seed != null){
+            seed.forEachRecord(body -> SeatJournal.decode(ByteBuffer.wrap(body), state));
+            state.advancePast(seed.maxSeatHoldId(), seed.maxReservationId());
+        }
+        try {
+            selector = Selector.open();
+            server = ServerSocketChannel.open();
+            server.bind(config.getBindAddress());
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ackTimeouts = metrics.counter("replication.ackTimeouts");
+        droppedFollowers = metrics.counter("replication.droppedFollowers");
+        overflows = metrics.counter("replication.overflows");
+        metrics.gauge("replication.followers", () -> numFollowers);
+        thread = new Thread(this::run, "replication-leader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return port the followers connect to
+     */
+    int getPort(){
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return number of followers connected
+     */
+    int numFollowers(){
+        return numFollowers;
+    }
+
+    /**
+     * @return sequence of the last record acknowledged by a follower
+     */
+    long ackedSequence(){
+        return ackedSequence;
+    }
+
+    @Override
+    public void onHold(SeatHold seatHold, long expiresAtMillis) {
+        append(SeatJournal.holdRecord(seatHold, columns, expiresAtMillis));
+    }
+
+    @Override
+    public void onReserve(SeatHold seatHold, String reservationId) {
+        append(SeatJournal.reserveRecord(seatHold.getSeatHoldId(), reservationId));
+    }
+
+    @Override
+    public void onExpire(SeatHold seatHold) {
+        append(SeatJournal.expireRecord(seatHold.getSeatHoldId()));
+    }
+
+    @Override
+    public void onRelease(SeatHold seatHold) {
+        onExpire(seatHold);
+    }
+
+    @Override
+    public void onCancel(SeatHold seatHold, String reservationId) {
+        append(SeatJournal.cancelRecord(reservationId));
+    }
+
+    /**
+     * With semi-synchronous acknowledgement, waits until a follower acknowledged the last change made by the calling
+     * thread, the ack timeout went by or no follower is left. Returns right away otherwise.
+     */
+    void awaitReplicated(){
+        if(!semiSync){
+            return;
+        }
+        Record[] last = lastRecord.get();
+        Record awaited = last[0];
+        if(awaited == null || awaited.isAcked() || numFollowers == 0){
+            return;
+        }
+        last[0] = null;
+        long deadline = System.nanoTime() + ackTimeoutNanos;
+        waitingForAck.incrementAndGet();
+        try {
+            synchronized (acknowledged){
+                long remaining;
+                while(!awaited.isAcked() && numFollowers > 0 && (remaining = deadline - System.nanoTime()) > 0){
+                    TimeUnit.NANOSECONDS.timedWait(acknowledged, remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waitingForAck.decrementAndGet();
+        }
+        if(!awaited.isAcked() && numFollowers > 0){
+            ackTimeouts.increment();
+        }
+    }
+
+    /**
+     * Stops the replication and disconnects the followers, the records not sent yet are lost.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Follower follower : followers) {
+            follower.channel.close();
+        }
+        server.close();
+        selector.close();
+        numFollowers = 0;
+        notifyWaiters();
+    }
+
+    private void append(byte[] body){
+        if(overflowed){
+            return; // the replication stopped
+        }
+        if(pendingBytes.addAndGet(Integer.BYTES + body.length) > maxPendingBytes){
+            overflowed = true;
+            selector.wakeup();
+            return;
+        }
+        Record record = new Record(body);
+        pending.add(record);
+        if(semiSync){
+            lastRecord.get()[0] = record;
+        }
+        // one wake up per round of the replication thread, however many records are appended meanwhile
+        if(!wakeupPending.get() && wakeupPending.compareAndSet(false, true)){
+            selector.wakeup();
+        }
+    }
+
+    private void run(){
+        while(running){
+            try {
+                selector.select();
+            } catch (IOException e) {
+                // the selector is still usable, the next round selects again
+                continue;
+            } catch (ClosedSelectorException e) {
+                return;
+            }
+            wakeupPending.set(false);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while(keys.hasNext()){
+                SelectionKey key = keys.next();
+                keys.remove();
+                if(!key.isValid()){
+                    continue;
+                }
+                if(key.isAcceptable()){
+                    accept();
+                } else {
+                    Follower follower = (Follower) key.attachment();
+                    if(key.isReadable()){
+                        readAcks(follower);
+                    }
+                    if(key.isValid() && key.isWritable()){
+                        write(follower);
+                    }
+                }
+            }
+            sendPending();
+        }
+    }
+
+    /**
+     * Numbers and sends the records queued since the last round to every follower and folds them into the state.
+     */
+    private void sendPending(){
+        if(overflowed){
+            stopReplicating();
+            return;
+        }
+        records.clear();
+        Record record;
+        while((record = pending.poll()) != null){
+            int size = Integer.BYTES + record.body.length;
+            pendingBytes.addAndGet(-size);
+            if(records.remaining() < size){
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(records.capacity() * 2, records.position() + size));
+                records.flip();
+                records = grown.put(records);
+            }
+            records.putInt(record.body.length).put(record.body);
+            record.sequence = ++sequence;
+        }
+        if(records.position() == 0){
+            return;
+        }
+        records.flip();
+        fold(records.duplicate());
+        sentSequence = sequence;
+        if(followers.isEmpty()){
+            return;
+        }
+        ByteBuffer frame = frame(RECORDS, sequence, records);
+        for (Follower follower : new ArrayList<>(followers)) {
+            follower.send(frame.duplicate());
+        }
+    }
+
+    /**
+     * Disconnects the followers and stops accepting new ones, the state they would start from misses the records
+     * dropped. Runs once, on the replication thread.
+     */
+    private void stopReplicating(){
+        pending.clear();
+        if(!server.isOpen()){
+            return;
+        }
+        overflows.increment();
+        for (Follower follower : new ArrayList<>(followers)) {
+            droppedFollowers.increment();
+            drop(follower);
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // no follower is accepted either way
+        }
+    }
+
+    private void fold(ByteBuffer records){
+        while(records.hasRemaining()){
+            int length = records.getInt();
+            ByteBuffer body = records.slice();
+            body.limit(length);
+            SeatJournal.decode(body, state);
+            records.position(records.position() + length);
+        }
+    }
+
+    private void accept(){
+        SocketChannel channel;
+        Follower follower;
+        try {
+            channel = server.accept();
+        } catch (IOException e) {
+            // e.g. out of file descriptors, the connection is accepted on the next round
+            return;
+        }
+        if(channel == null){
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            follower = new Follower(channel);
+            follower.key = channel.register(selector, SelectionKey.OP_READ, follower);
+        } catch (IOException e) {
+            // e.g. reset by the follower already, only that follower is lost
+            try {
+                channel.close();
+            } catch (IOException closed) {
+                // gone either way
+            }
+            return;
+        }
+
+        // the state as of the last frame sent, the frames sent from now on follow it
+        sendPending();
+        followers.add(follower);
+        numFollowers = followers.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + layout.length).putInt(MAGIC).putInt(VERSION).putInt(rows)
+                .putInt(columns).putInt(layout.length).put(layout);
+        header.flip();
+        follower.send(header);
+        List<byte[]> bodies = new ArrayList<>();
+        state.forEachRecord(bodies::add);
+        int size = 0;
+        for (byte[] body : bodies) {
+            size += Integer.BYTES + body.length;
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (byte[] body : bodies) {
+            records.putInt(body.length).put(body);
+        }
+        records.flip();
+        follower.send(frame(STATE, sentSequence, records, state.maxSeatHoldId(), state.maxReservationId()));
+    }
+
+    private static byte[] encode(VenueLayout layout){
+        if(layout == null){
+            return new byte[0];
+        }
+        StringWriter writer = new StringWriter();
+        try {
+            layout.write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a frame of records, the payload starting with the given ints.
+     */
+    private static ByteBuffer frame(byte type, long lastRecord, ByteBuffer records, int... fields){
+        int length = 1 + Long.BYTES + fields.length * Integer.BYTES + records.remaining();
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + length);
+        frame.putInt(length).put(type).putLong(lastRecord);
+        for (int field : fields) {
+            frame.putInt(field);
+        }
+        frame.put(records.duplicate());
+        frame.flip();
+        return frame;
+    }
+
+    private void readAcks(Follower follower){
+        try {
+            if(follower.channel.read(follower.acks) < 0){
+                drop(follower);
+                return;
+            }
+        } catch (IOException e) {
+            drop(follower);
+            return;
+        }
+        follower.acks.flip();
+        long acked = -1;
+        while(follower.acks.remaining() >= Long.BYTES){
+            acked = follower.acks.getLong();
+        }
+        follower.acks.compact();
+        if(acked > ackedSequence){
+            ackedSequence = acked;
+            notifyWaiters();
+        }
+    }
+
+    private void write(Follower follower){
+        try {
+            follower.flush();
+        } catch (IOException e) {
+            drop(follower);
+        }
+    }
+
+    private void drop(Follower follower){
+        follower.key.cancel();
+        try {
+            follower.channel.close();
+        } catch (IOException e) {
+            // the follower is gone either way
+        }
+        followers.remove(follower);
+        numFollowers = followers.size();
+        notifyWaiters();
+    }
+
+    private void notifyWaiters(){
+        if(waitingForAck.get() > 0){
+            synchronized (acknowledged){
+                acknowledged.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A change queued for the replication thread, numbered once taken.
+     */
+    private final class Record {
+        private final byte[] body;
+        private volatile long sequence;
+
+        private Record(byte[] body){
+            this.body = body;
+        }
+
+        private boolean isAcked(){
+            long recordSequence = sequence;
+            return recordSequence > 0 && ackedSequence >= recordSequence;
+        }
+    }
+
+    /**
+     * A follower connection and the frames queued for it.
+     */
+    private final class Follower {
+        private final SocketChannel channel;
+        private final ArrayDeque<ByteBuffer> queued = new ArrayDeque<>();
+        private final ByteBuffer acks = ByteBuffer.allocate(64 * Long.BYTES);
+        private SelectionKey key;
+        private long queuedBytes;
+
+        private Follower(SocketChannel channel){
+            this.channel = channel;
+        }
+
+        private void send(ByteBuffer frame){
+            if(queuedBytes + frame.remaining() > maxBufferedBytes){
+                // too far behind, it catches up from the state when it connects again
+                droppedFollowers.increment();
+                drop(this);
+                return;
+            }
+            queued.add(frame);
+            queuedBytes += frame.remaining();
+            write(this);
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer frame;
+            while((frame = queued.peek()) != null){
+                int written = channel.write(frame);
+                queuedBytes -= written;
+                if(frame.hasRemaining()){
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                queued.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+/**
+ * ReservationCodes turns reservation IDs into confirmation codes and back: the decimal digits of the ID, so codes of
+ * the IDs handed out before stay valid. Decoding tells a code that isn't one of a reservation ID by returning -1,
+ * rather than by throwing, since a confirmation code comes from the customer.
+ */
+final class ReservationCodes {
+
+    private static final int MAX_DIGITS = 19;
+
+    private ReservationCodes(){
+    }
+
+    /**
+     * @param reservationId reservation ID, not negative
+     * @return confirmation code of the reservation
+     */
+    static String encode(long reservationId){
+        char[] digits = new char[MAX_DIGITS];
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + reservationId % 10);
+            reservationId /= 10;
+        } while(reservationId > 0);
+        return new String(digits, position, digits.length - position);
+    }
+
+    /**
+     * @param code confirmation code
+     * @return the reservation ID of the code, -1 if it isn't the code of a reservation ID
+     */
+    static long decode(String code){
+        if(code == null || code.isEmpty() || code.length() > MAX_DIGITS){
+            return -1;
+        }
+        if(code.length() > 1 && code.charAt(0) == '0'){
+            return -1; // zero padded, "017" is not the code of reservation 17
+        }
+        long reservationId = 0;
+        for(int i = 0; i < code.length(); i++){
+            int digit = code.charAt(i) - '0';
+            if(digit < 0 || digit > 9 || reservationId > (Long.MAX_VALUE - digit) / 10){
+                return -1; // not a digit, or past the long range
+            }
+            reservationId = reservationId * 10 + digit;
+        }
+        return reservationId;
+    }
+
+    /**
+     * @param code confirmation code
+     * @return the reservation ID of the code, -1 if it isn't the code of a reservation ID within the int range
+     */
+    static int decodeInt(String code){
+        long reservationId = decode(code);
+        return reservationId >= 0 && reservationId <= Integer.MAX_VALUE ? (int) reservationId : -1;
+    }
+}
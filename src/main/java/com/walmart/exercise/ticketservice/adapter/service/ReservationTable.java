@@ -0,0 +1,92 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReservationTable maps the reservation IDs to their seat hold without boxing them: the IDs are handed out in
+ * sequence, so the seat holds are kept in chunks of an array indexed by reservation ID. Chunks are added as the IDs
+ * grow, lookups take no lock.
+ */
+final class ReservationTable {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<SeatHold>> chunks = new AtomicReferenceArray<>(16);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * @param reservationId reservation ID
+     * @return the reserved seat hold, null if there's no such reservation
+     */
+    SeatHold get(int reservationId){
+        if(reservationId < 0){
+            return null;
+        }
+        AtomicReferenceArray<AtomicReferenceArray<SeatHold>> directory = chunks;
+        int chunkIndex = reservationId >>> CHUNK_BITS;
+        AtomicReferenceArray<SeatHold> chunk = chunkIndex < directory.length() ? directory.get(chunkIndex) : null;
+        return chunk == null ? null : chunk.get(reservationId & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * @param reservationId reservation ID, not negative
+     * @param seatHold the reserved seat hold
+     */
+    void put(int reservationId, SeatHold seatHold){
+        if(chunk(reservationId).getAndSet(reservationId & (CHUNK_SIZE - 1), seatHold) == null){
+            size.increment();
+        }
+    }
+
+    /**
+     * Removes a reservation if it is still of the given seat hold, only one of concurrent removals gets it.
+     * @param reservationId reservation ID
+     * @param seatHold the reserved seat hold
+     * @return true if the reservation was removed
+     */
+    boolean remove(int reservationId, SeatHold seatHold){
+        if(get(reservationId) != seatHold
+                || !chunks.get(reservationId >>> CHUNK_BITS).compareAndSet(reservationId & (CHUNK_SIZE - 1), seatHold, null)){
+            return false;
+        }
+        size.decrement();
+        return true;
+    }
+
+    /**
+     * @return number of reservations
+     */
+    int size(){
+        return size.intValue();
+    }
+
+    private AtomicReferenceArray<SeatHold> chunk(int reservationId){
+        int chunkIndex = reservationId >>> CHUNK_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<SeatHold>> directory = chunks;
+        AtomicReferenceArray<SeatHold> chunk = chunkIndex < directory.length() ? directory.get(chunkIndex) : null;
+        if(chunk != null){
+            return chunk;
+        }
+        synchronized (this){
+            directory = chunks;
+            if(chunkIndex >= directory.length()){
+                AtomicReferenceArray<AtomicReferenceArray<SeatHold>> grown =
+                        new AtomicReferenceArray<>(Math.max(chunkIndex + 1, directory.length() * 2));
+                for(int i = 0; i < directory.length(); i++){
+                    grown.set(i, directory.get(i));
+                }
+                chunks = directory = grown;
+            }
+            chunk = directory.get(chunkIndex);
+            if(chunk == null){
+                chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+                directory.set(chunkIndex, chunk);
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * SeatAssignmentConfig holds the tunables of a {@link SeatAssignmentManager}.
+ * The setters return the configuration itself so the settings can be chained.
+ */
+public class SeatAssignmentConfig {
+
+    private int holdTime = 120;
+    private long expiryTickMillis = 10;
+    private int expiryWheelSize = 512;
+    private AllocationStrategy allocationStrategy = new BestAvailableStrategy();
+    private int shards = 1;
+    private long batchWindowMicros = 0;
+    private int maxBatchSize = 256;
+    private int commandBufferSize = 1024;
+    private MetricsRegistry metricsRegistry = MetricsRegistry.NOOP;
+    private Path journalPath;
+    private long journalSyncMillis = 10;
+    private Path snapshotPath;
+    private long snapshotIntervalMillis = 60_000;
+    private ScheduledExecutorService expiryScheduler;
+    private ExpiryTicker expiryTicker;
+    private ScheduledExecutorService ioScheduler;
+    private ReplicationConfig replicationConfig;
+    private Path idLeasePath;
+    private int idLeaseBlockSize = 1024;
+
+    /**
+     * @return time in seconds a seat hold will be alive for reservation
+     */
+    public int getHoldTime() {
+        return holdTime;
+    }
+
+    /**
+     * Sets the time in seconds a seat hold will be alive for reservation, defaults to 120 seconds.
+     * @param holdTime hold time in seconds
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setHoldTime(int holdTime) {
+        this.holdTime = holdTime;
+        return this;
+    }
+
+    /**
+     * @return resolution of the seat hold expiration in milliseconds
+     */
+    public long getExpiryTickMillis() {
+        return expiryTickMillis;
+    }
+
+    /**
+     * Sets how often, in milliseconds, the expired seat holds are released. Defaults to 10 milliseconds.
+     * @param expiryTickMillis expiration tick in milliseconds
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setExpiryTickMillis(long expiryTickMillis) {
+        this.expiryTickMillis = expiryTickMillis;
+        return this;
+    }
+
+    /**
+     * @return number of buckets of the seat hold expiration wheel
+     */
+    public int getExpiryWheelSize() {
+        return expiryWheelSize;
+    }
+
+    /**
+     * Sets the number of buckets of the seat hold expiration wheel, rounded up to a power of two. Defaults to 512.
+     * Holds expiring more than wheel size ticks ahead share buckets with earlier holds, a wheel covering the hold
+     * time keeps every expiration sweep down to the holds actually due.
+     * @param expiryWheelSize number of buckets
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setExpiryWheelSize(int expiryWheelSize) {
+        this.expiryWheelSize = expiryWheelSize;
+        return this;
+    }
+
+    /**
+     * @return strategy picking the seats of a seat hold
+     */
+    public AllocationStrategy getAllocationStrategy() {
+        return allocationStrategy;
+    }
+
+    /**
+     * Sets the strategy picking the seats of a seat hold. Defaults to the best available seats in row and column
+     * order, {@link ContiguousBlockStrategy} keeps groups side by side.
+     * @param allocationStrategy allocation strategy
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setAllocationStrategy(AllocationStrategy allocationStrategy) {
+        this.allocationStrategy = allocationStrategy;
+        return this;
+    }
+
+    /**
+     * @return number of independently locked shards the venue is split in
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Sets the number of shards the venue rows are split in. Each shard is locked on its own, so holds in
+     * different shards run in parallel. Defaults to 1, a single lock for the whole venue; capped at the number
+     * of rows.
+     * @param shards number of shards
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setShards(int shards) {
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * @return time in microseconds single find and hold requests are gathered for into a batch, 0 if disabled
+     */
+    public long getBatchWindowMicros() {
+        return batchWindowMicros;
+    }
+
+    /**
+     * Sets the time in microseconds single find and hold requests are gathered for, after the first one, to be
+     * served as a batch. Defaults to 0, each request is served on its own.
+     * @param batchWindowMicros batching window in microseconds
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setBatchWindowMicros(long batchWindowMicros) {
+        this.batchWindowMicros = batchWindowMicros;
+        return this;
+    }
+
+    /**
+     * @return maximum number of single find and hold requests gathered into a batch
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of single find and hold requests gathered into a batch, also the number of requests
+     * which can wait for a batch. Defaults to 256.
+     * @param maxBatchSize maximum batch size
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * @return number of commands the single writer ticket service can have queued
+     */
+    public int getCommandBufferSize() {
+        return commandBufferSize;
+    }
+
+    /**
+     * Sets the number of commands the {@link SingleWriterTicketService} can have queued, rounded up to a power of
+     * two. Callers wait for room when it is full. Defaults to 1024.
+     * @param commandBufferSize command ring buffer size
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setCommandBufferSize(int commandBufferSize) {
+        this.commandBufferSize = commandBufferSize;
+        return this;
+    }
+
+    /**
+     * @return registry the latencies, counters and gauges of the ticket service go to
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Sets the registry the latencies, counters and gauges of the ticket service go to, e.g. a
+     * {@link com.walmart.exercise.ticketservice.adapter.metrics.JmxMetricsRegistry}. Defaults to
+     * {@link MetricsRegistry#NOOP}, nothing is measured.
+     * @param metricsRegistry metrics registry
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        return this;
+    }
+
+    /**
+     * @return file the seat holds, reservations and expirations are journaled to, null if not journaled
+     */
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    /**
+     * Sets the file the seat holds, reservations and expirations are journaled to. An existing journal is replayed
+     * when the seat assignment manager starts, restoring the seat holds, reservations and IDs of the previous run.
+     * Defaults to null, nothing is journaled.
+     * @param journalPath journal file
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setJournalPath(Path journalPath) {
+        this.journalPath = journalPath;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds between two syncs of the journal to the disk
+     */
+    public long getJournalSyncMillis() {
+        return journalSyncMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds between two syncs of the journal to the disk, the records of the interval are
+     * written together. A crashed process loses nothing, a crashed machine at most the last interval. Defaults to
+     * 10 milliseconds, 0 leaves the syncs to the operating system.
+     * @param journalSyncMillis sync interval in milliseconds
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setJournalSyncMillis(long journalSyncMillis) {
+        this.journalSyncMillis = journalSyncMillis;
+        return this;
+    }
+
+    /**
+     * @return file the venue snapshots are written to, null if no snapshot is taken
+     */
+    public Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Sets the file the venue snapshots are written to, every snapshot interval and on shutdown. On start, the
+     * seat holds and reservations are restored from the snapshot and only the journal records appended since are
+     * replayed; {@link VenueSnapshot#loadSeatTracker} maps the seat states of the snapshot in place.
+     * Requires a journal, snapshots are built from it. Defaults to null, no snapshot is taken.
+     * @param snapshotPath snapshot file
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setSnapshotPath(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        return this;
+    }
+
+    /**
+     * @return time in milliseconds between two venue snapshots
+     */
+    public long getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds between two venue snapshots, defaults to a minute. 0 only takes a snapshot on
+     * shutdown.
+     * @param snapshotIntervalMillis snapshot interval in milliseconds
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setSnapshotIntervalMillis(long snapshotIntervalMillis) {
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        return this;
+    }
+
+    /**
+     * @return scheduler the seat hold expiration runs on, null if the seat assignment manager has its own
+     */
+    public ScheduledExecutorService getExpiryScheduler() {
+        return expiryScheduler;
+    }
+
+    /**
+     * Sets a scheduler the seat hold expiration runs on, shared with other venues so that many venues don't take a
+     * thread each; every venue still ticks on it on its own, an {@link EventRegistry} has its venues share a single
+     * tick. The scheduler is left running on shutdown. Defaults to null, the seat assignment manager starts a thread
+     * of its own.
+     * @param expiryScheduler shared expiration scheduler
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setExpiryScheduler(ScheduledExecutorService expiryScheduler) {
+        this.expiryScheduler = expiryScheduler;
+        return this;
+    }
+
+    /**
+     * @return ticker the seat hold expiration runs on, shared with other venues, null if not shared
+     */
+    ExpiryTicker getExpiryTicker() {
+        return expiryTicker;
+    }
+
+    /**
+     * Sets a ticker the seat hold expiration runs on, visiting only the venues with seat holds to expire on each of
+     * its ticks. It takes precedence over the expiration scheduler, and is left running on shutdown.
+     * @param expiryTicker shared expiration ticker
+     * @return this configuration
+     */
+    SeatAssignmentConfig setExpiryTicker(ExpiryTicker expiryTicker) {
+        this.expiryTicker = expiryTicker;
+        return this;
+    }
+
+    /**
+     * @return scheduler the journal syncs and venue snapshots run on, null if the seat assignment manager has its own
+     */
+    public ScheduledExecutorService getIoScheduler() {
+        return ioScheduler;
+    }
+
+    /**
+     * Sets a scheduler the journal syncs and venue snapshots run on, shared with other venues. The scheduler is left
+     * running on shutdown. Defaults to null, the journal and the snapshots start a thread of their own.
+     * @param ioScheduler shared scheduler of the disk writes
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setIoScheduler(ScheduledExecutorService ioScheduler) {
+        this.ioScheduler = ioScheduler;
+        return this;
+    }
+
+    /**
+     * @return replication settings of the venue, null if the venue is not replicated
+     */
+    public ReplicationConfig getReplicationConfig() {
+        return replicationConfig;
+    }
+
+    /**
+     * Replicates the holds, reservations, expirations, releases and cancellations of the venue to the followers
+     * connecting to it. Defaults to null, the venue is not replicated. Not copied by {@link #copy()}, a replication
+     * address serves a single venue.
+     * @param replicationConfig replication settings
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setReplicationConfig(ReplicationConfig replicationConfig) {
+        this.replicationConfig = replicationConfig;
+        return this;
+    }
+
+    /**
+     * @return file the high-water mark of the reservation IDs is leased from, null if the IDs are kept in memory
+     */
+    public Path getIdLeasePath() {
+        return idLeasePath;
+    }
+
+    /**
+     * Sets the file the reservation IDs are leased from, in blocks per thread, see {@link LeasedIdGenerator}. The
+     * reservation codes then stay unique across restarts, with or without a journal, and no counter is shared by the
+     * threads reserving seats. Defaults to null, the reservation IDs are counted in memory from 1. Not copied by
+     * {@link #copy()}, a lease file serves a single venue.
+     * @param idLeasePath lease file
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setIdLeasePath(Path idLeasePath) {
+        this.idLeasePath = idLeasePath;
+        return this;
+    }
+
+    /**
+     * @return number of reservation IDs leased by a thread at once
+     */
+    public int getIdLeaseBlockSize() {
+        return idLeaseBlockSize;
+    }
+
+    /**
+     * Sets the number of reservation IDs leased by a thread at once, the lease file is written once per block; the
+     * IDs left in the blocks are skipped after a restart. Defaults to 1024.
+     * @param idLeaseBlockSize IDs per block
+     * @return this configuration
+     */
+    public SeatAssignmentConfig setIdLeaseBlockSize(int idLeaseBlockSize) {
+        this.idLeaseBlockSize = idLeaseBlockSize;
+        return this;
+    }
+
+    /**
+     * @return a copy of this configuration, e.g. to configure a venue after a template
+     */
+    public SeatAssignmentConfig copy() {
+        return new SeatAssignmentConfig().setHoldTime(holdTime).setExpiryTickMillis(expiryTickMillis)
+                .setExpiryWheelSize(expiryWheelSize).setAllocationStrategy(allocationStrategy).setShards(shards)
+                .setBatchWindowMicros(batchWindowMicros).setMaxBatchSize(maxBatchSize)
+                .setCommandBufferSize(commandBufferSize).setMetricsRegistry(metricsRegistry)
+                .setJournalPath(journalPath).setJournalSyncMillis(journalSyncMillis).setSnapshotPath(snapshotPath)
+                .setSnapshotIntervalMillis(snapshotIntervalMillis).setExpiryScheduler(expiryScheduler)
+                .setExpiryTicker(expiryTicker).setIoScheduler(ioScheduler).setIdLeaseBlockSize(idLeaseBlockSize);
+    }
+}
@@ -0,0 +1,90 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+/**
+ * SeatAssignmentListener is told about every seat hold, reservation, expiration, release and cancellation once the
+ * seat status changed,
+ * e.g. to journal or replicate them. The calls are made on the request or expiration thread, a hold is always
+ * told before its reservation or expiration.
+ */
+public interface SeatAssignmentListener {
+
+    /**
+     * Listener ignoring every event.
+     */
+    SeatAssignmentListener NOOP = new SeatAssignmentListener() {
+    };
+
+    /**
+     * @param seatHold seats held
+     * @param expiresAtMillis wall clock time, in epoch milliseconds, the hold expires at
+     */
+    default void onHold(SeatHold seatHold, long expiresAtMillis){
+    }
+
+    /**
+     * @param seatHold seats reserved
+     * @param reservationId reservation confirmation code
+     */
+    default void onReserve(SeatHold seatHold, String reservationId){
+    }
+
+    /**
+     * @param seatHold seats released
+     */
+    default void onExpire(SeatHold seatHold){
+    }
+
+    /**
+     * @param seatHold seats released by the customer before the hold expired
+     */
+    default void onRelease(SeatHold seatHold){
+    }
+
+    /**
+     * @param seatHold seats of the reservation, available again
+     * @param reservationId confirmation code of the cancelled reservation
+     */
+    default void onCancel(SeatHold seatHold, String reservationId){
+    }
+
+    /**
+     * @param next listener told after this one
+     * @return a listener telling this listener then the next one about every event
+     */
+    default SeatAssignmentListener andThen(SeatAssignmentListener next){
+        SeatAssignmentListener first = this;
+        return new SeatAssignmentListener() {
+            @Override
+            public void onHold(SeatHold seatHold, long expiresAtMillis) {
+                first.onHold(seatHold, expiresAtMillis);
+                next.onHold(seatHold, expiresAtMillis);
+            }
+
+            @Override
+            public void onReserve(SeatHold seatHold, String reservationId) {
+                first.onReserve(seatHold, reservationId);
+                next.onReserve(seatHold, reservationId);
+            }
+
+            @Override
+            public void onExpire(SeatHold seatHold) {
+                first.onExpire(seatHold);
+                next.onExpire(seatHold);
+            }
+
+            @Override
+            public void onRelease(SeatHold seatHold) {
+                first.onRelease(seatHold);
+                next.onRelease(seatHold);
+            }
+
+            @Override
+            public void onCancel(SeatHold seatHold, String reservationId) {
+                first.onCancel(seatHold, reservationId);
+                next.onCancel(seatHold, reservationId);
+            }
+        };
+    }
+}
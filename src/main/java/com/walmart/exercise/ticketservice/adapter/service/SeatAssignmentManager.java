@@ -1,148 +1,781 @@
-package com.walmart.exercise.ticketservice.adapter.service;
-
-import com.walmart.exercise.ticketservice.domain.Seat;
-import com.walmart.exercise.ticketservice.domain.SeatHold;
-import com.walmart.exercise.ticketservice.domain.SeatStatus;
-import com.walmart.exercise.ticketservice.domain.SeatTracker;
-
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-
-import static java.util.stream.Collectors.toList;
-
-/**
- * SeatAssignmentManager manages seating arrangements for a venue.
- */
-public class SeatAssignmentManager {
-
-    private int holdTime;
-    private SeatTracker seatTracker;
-
-    private Map<Integer, SeatHold> seatHoldMap;
-
-    private Map<String,SeatHold> reservedSeatMap;
-    private ScheduledExecutorService expireService;
-    private final Object expirationLock = new Object();
-
-    private UniqueIdGenerator seatHoldIdGenerator;
-    private UniqueIdGenerator reservationIdGenerator;
-
-    /**
-     * Identifies expired seat holds and clears the hold map and update the seat status to be available for hold again.
-     * The method would run as executor service on it's own with fixed time delays(configurable).
-     */
-    private Runnable runnable = () -> {
-        Map<Integer,SeatHold> expiredSeatsMap = seatHoldMap.entrySet()
-                .stream()
-                .filter(seatHoldEntry -> seatHoldEntry.getValue().getCreatedDateTime().isBefore(LocalDateTime.now().minusSeconds(holdTime)))
-                .collect(Collectors.toMap(seatHoldEntry -> seatHoldEntry.getKey(),seatHoldEntry -> seatHoldEntry.getValue()));
-
-        expiredSeatsMap.entrySet().stream().forEach(expiredSeatHold ->
-            {
-                SeatHold removedSeatHold;
-                // Acquire expiration lock before expiring the entries from the seat hold map
-                synchronized (expirationLock) {
-                    removedSeatHold = seatHoldMap.remove(expiredSeatHold.getKey());
-                }
-                // execute it on condition if the key was removed as it may have been reserved by another thread.
-                if(null != removedSeatHold) {
-                    expiredSeatHold.getValue().getHoldSeats()
-                            .forEach(seat -> seatTracker.updateSeatStatus(seat, SeatStatus.AVAILABLE));
-                }
-            });
-    };
-
-    /**
-     * Seat assignment manager maintains the seat hold map and reserved seats map.
-     * The executor service will spun a single threaded scheduler to clear the expired seats in seat hold map.
-     * @param seatTracker
-     * @param holdTime  time a seat hold will be alive for reservation.
-     */
-    public SeatAssignmentManager(SeatTracker seatTracker, int holdTime) {
-        this.seatTracker = seatTracker;
-        // Default the hold time to 120 seconds in case the hold time is not legitimate.
-        this.holdTime = (holdTime >= 0) ? holdTime : 120;
-        expireService = Executors
-                .newSingleThreadScheduledExecutor();
-        expireService.scheduleWithFixedDelay(runnable,10,10, TimeUnit.MILLISECONDS);
-        seatHoldMap = new ConcurrentHashMap<>();
-        reservedSeatMap = new ConcurrentHashMap<>();
-
-        seatHoldIdGenerator = new SeatHoldIdGenerator();
-        reservationIdGenerator = new ReservationIdGenerator();
-    }
-
-    /**
-     * Reserves the seats for a customer and mark the seats for a seat hold as reserved.
-     *
-     * @param seatHoldId the seat hold identifier
-     * @param customerEmail the email address of the customer to which the
-    seat hold is assigned
-     * @return a reservation confirmation code
-     */
-
-    String reserveSeat(int seatHoldId,String customerEmail){
-        SeatHold seatHold;
-        synchronized (expirationLock) {
-             seatHold = seatHoldMap.get(seatHoldId);
-             if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)) {
-                 return null;
-             }
-             seatHoldMap.remove(seatHoldId);
-        }
-
-        seatHold.getHoldSeats().stream().forEach(seat -> seatTracker.updateSeatStatus(seat, SeatStatus.RESERVED));
-        String reservationId = String.valueOf(reservationIdGenerator.generate());
-        reservedSeatMap.put(reservationId, seatHold); // Store the reservation Id and seat hold to the reservation seat map
-        return reservationId;
-    }
-
-    /**
-     * Check for the available seat, sort them by rows and columns.
-     * Select the first @numSeats requested by the customer and mark the status as HOLD.
-     * The operation is synchronized to avoid multiple threads holding the same seats.
-     *
-     * @param numSeats the number of seats to find and hold
-     * @param customerEmail unique identifier for the customer
-     * @return a SeatHold object identifying the specific seats and related
-    information
-     */
-     synchronized SeatHold findAndHold(int numSeats, String customerEmail){
-        // clear the expired seat holds if the seat availability is critical or should reflect the real time state.
-        List<Seat> availableSeats = seatTracker.availableSeats();
-
-        if(numSeats > availableSeats.size()){
-            return null;
-        }
-
-        List<Seat> seats = new ArrayList<>();
-        Iterator<Seat> seatIterator = sortByRowAndColumn(availableSeats).iterator();
-
-        for (int i = 0; i < numSeats; i++) {
-            Seat seat = seatIterator.next();
-            seatTracker.updateSeatStatus(seat, SeatStatus.HOLD);
-            // create a defensive copy for the caller
-            seats.add(new Seat(seat));
-        }
-
-        SeatHold seatHold = new SeatHold(seatHoldIdGenerator.generate(),customerEmail,seats);
-        seatHoldMap.put(seatHold.getSeatHoldId(),seatHold); // add the seat hold to the seat hold map.
-        return seatHold;
-    }
-
-    /**
-     * Sort the seats from best(row 0, column 0) to worst (rowMax, columnMax).
-     * @return list of sorted seats
-     */
-    private List<Seat> sortByRowAndColumn(List<Seat> availableSeats){
-        return availableSeats.stream()
-                .sorted(Comparator.comparing(Seat::getRowNum).thenComparing(Seat::getColumnNum))
-                .collect(toList());
-    }
-
-}
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.Counter;
+import com.walmart.exercise.ticketservice.adapter.metrics.LatencyRecorder;
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+import com.walmart.exercise.ticketservice.domain.HoldRequest;
+import com.walmart.exercise.ticketservice.domain.Reservation;
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SeatAssignmentManager manages seating arrangements for a venue.
+ * The venue rows are split in shards, each locked on its own and owning its slice of the seat hold map, so holds
+ * landing in different shards run in parallel. A request goes to the best shard able to satisfy it which no other
+ * thread is holding from, and only locks the whole venue when no single shard can satisfy it.
+ * With a journal configured, every hold, reservation and expiration is journaled and the previous run is restored
+ * from the journal on start. With replication configured, every change is streamed to the followers as well.
+ */
+public class SeatAssignmentManager {
+
+    private static final int MAX_HOLD_ATTEMPTS = 3;
+
+    private int holdTime;
+    private SeatTracker seatTracker;
+
+    private SeatShard[] shards;
+
+    private ReservationTable reservationTable;
+    private CustomerIndex customerIndex;
+    private volatile ExpiryTicker expiryTicker;
+    private boolean ownsExpiryTicker;
+    private HoldExpiryWheel expiryWheel;
+    private final AtomicBoolean expiryArmed = new AtomicBoolean();
+    private final AtomicBoolean expiryQueued = new AtomicBoolean();
+    // held by a run of the expiration, stopping or moving the expiration waits for it
+    private final ReentrantLock expiryLock = new ReentrantLock();
+    private boolean expiryStopped;
+    private AllocationStrategy allocationStrategy;
+
+    private UniqueIdGenerator reservationIdGenerator;
+
+    private SeatJournal journal;
+    private VenueSnapshot snapshot;
+    private Path snapshotPath;
+    private ScheduledExecutorService snapshotService;
+    private boolean ownsSnapshotService;
+    private ScheduledFuture<?> snapshotTask;
+    private SeatAssignmentListener listener = SeatAssignmentListener.NOOP;
+    private ReplicationLeader replication;
+
+    private boolean timed;
+    private LatencyRecorder expirySweepLatency;
+    private Counter contendedShards;
+    private Counter lostSeatRaces;
+    private Counter idFailures;
+
+    /**
+     * Seat assignment manager maintains the seat hold map and reserved seats map.
+     * The executor service will spun a single threaded scheduler to clear the expired seats in seat hold map.
+     * @param seatTracker
+     * @param holdTime  time a seat hold will be alive for reservation.
+     */
+    public SeatAssignmentManager(SeatTracker seatTracker, int holdTime) {
+        this(seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime));
+    }
+
+    /**
+     * Seat assignment manager maintains the seat hold map and reserved seats map.
+     * The executor service will spun a single threaded scheduler to clear the expired seats in seat hold map,
+     * every expiry tick.
+     * @param seatTracker
+     * @param config hold time and expiration settings
+     */
+    public SeatAssignmentManager(SeatTracker seatTracker, SeatAssignmentConfig config) {
+        this(seatTracker, config, null);
+    }
+
+    /**
+     * Seat assignment manager starting from the seat holds and reservations of another venue, e.g. replicated from
+     * a leader by a follower being promoted. The seats of the venue are expected to be available.
+     * @param seatTracker
+     * @param config hold time and expiration settings, without a journal
+     * @param replicated seat holds and reservations to start from, null to start from the journal if any
+     */
+    SeatAssignmentManager(SeatTracker seatTracker, SeatAssignmentConfig config, JournalRecovery replicated) {
+        this.seatTracker = seatTracker;
+        // Default the hold time to 120 seconds in case the hold time is not legitimate.
+        this.holdTime = (config.getHoldTime() >= 0) ? config.getHoldTime() : 120;
+        this.allocationStrategy = config.getAllocationStrategy();
+        int numShards = Math.max(1, Math.min(config.getShards(), seatTracker.getRows()));
+        seatTracker.partition(numShards);
+        shards = new SeatShard[numShards];
+        for(int partition = 0; partition < numShards; partition++){
+            shards[partition] = new SeatShard(partition, numShards);
+        }
+        reservationTable = new ReservationTable();
+        customerIndex = new CustomerIndex();
+
+        if(config.getIdLeasePath() == null){
+            reservationIdGenerator = new ReservationIdGenerator();
+        } else {
+            try {
+                reservationIdGenerator = new LeasedIdGenerator(config.getIdLeasePath(), config.getIdLeaseBlockSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        expiryWheel = new HoldExpiryWheel(TimeUnit.MILLISECONDS.toNanos(config.getExpiryTickMillis()),
+                config.getExpiryWheelSize(), System.nanoTime());
+        if(config.getJournalPath() != null){
+            journal = new SeatJournal(config.getJournalPath(), seatTracker.getColumns(),
+                    config.getJournalSyncMillis(), SeatJournal.DEFAULT_CHUNK_SIZE, config.getIoScheduler());
+            snapshotPath = config.getSnapshotPath();
+            snapshot = snapshotPath == null ? VenueSnapshot.empty()
+                    : VenueSnapshot.read(snapshotPath, seatTracker);
+            BitSet snapshotSeats = snapshot.state().seats();
+            snapshot.replay(journal);
+            restore(snapshot.state(), snapshotSeats);
+            listener = journal;
+            if(snapshotPath != null && config.getSnapshotIntervalMillis() > 0){
+                ownsSnapshotService = config.getIoScheduler() == null;
+                snapshotService = ownsSnapshotService ? Executors.newSingleThreadScheduledExecutor()
+                        : config.getIoScheduler();
+                snapshotTask = snapshotService.scheduleWithFixedDelay(this::takeSnapshot,
+                        config.getSnapshotIntervalMillis(), config.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+            }
+        } else if(config.getSnapshotPath() != null){
+            throw new IllegalArgumentException("Venue snapshots are built from the journal, a journal is required");
+        }
+        if(replicated != null){
+            if(journal != null){
+                throw new IllegalArgumentException("A venue starts either from its journal or from a replicated state");
+            }
+            restore(replicated, new BitSet());
+        }
+        if(config.getReplicationConfig() != null){
+            replication = new ReplicationLeader(seatTracker.getRows(), seatTracker.getColumns(),
+                    seatTracker.getLayout(), journal != null ? snapshot.state() : replicated,
+                    config.getReplicationConfig(), config.getMetricsRegistry());
+            listener = listener == SeatAssignmentListener.NOOP ? replication : listener.andThen(replication);
+        }
+        if(config.getExpiryTicker() != null){
+            expiryTicker = config.getExpiryTicker();
+        } else {
+            boolean ownsScheduler = config.getExpiryScheduler() == null;
+            expiryTicker = new ExpiryTicker(ownsScheduler ? Executors.newSingleThreadScheduledExecutor()
+                    : config.getExpiryScheduler(), config.getExpiryTickMillis(), ownsScheduler);
+            ownsExpiryTicker = true;
+        }
+        if(!expiryWheel.isEmpty()){
+            armExpiry(); // restored holds
+        }
+
+        MetricsRegistry metrics = config.getMetricsRegistry();
+        timed = metrics.isEnabled();
+        expirySweepLatency = metrics.latencyRecorder("expiry.sweep");
+        contendedShards = metrics.counter("hold.contendedShards");
+        lostSeatRaces = metrics.counter("hold.lostSeatRaces");
+        idFailures = metrics.counter("reserve.idFailures");
+        metrics.gauge("expiry.lagNanos", this::getExpiryLagNanos);
+        metrics.gauge("expiry.maxLagNanos", this::getMaxExpiryLagNanos);
+        metrics.gauge("seatHolds.live", this::numSeatHolds);
+        metrics.gauge("reservations", reservationTable::size);
+        metrics.gauge("seats.raceFailures", seatTracker::numRaceFailures);
+    }
+
+    /**
+     * Stops the seat hold expiration, the seat holds left are not released anymore. The followers are disconnected,
+     * a last venue snapshot is taken and the journal is closed.
+     */
+    public void shutdown(){
+        stopExpiry();
+        if(replication != null){
+            try {
+                replication.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if(snapshotTask != null){
+            snapshotTask.cancel(false);
+            if(ownsSnapshotService){
+                snapshotService.shutdownNow();
+            }
+        }
+        if(journal != null){
+            try {
+                takeSnapshot();
+                journal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if(reservationIdGenerator instanceof LeasedIdGenerator){
+            try {
+                ((LeasedIdGenerator) reservationIdGenerator).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Moves the seat hold expiration to another ticker, e.g. to give a busy venue a thread of its own. A run of the
+     * expiration in progress on the previous ticker completes first.
+     * @param ticker ticker the expiration runs on from now on, left running on shutdown
+     */
+    void runExpiryOn(ExpiryTicker ticker){
+        expiryLock.lock();
+        try {
+            if(expiryStopped){
+                return;
+            }
+            ExpiryTicker previous = expiryTicker;
+            previous.disarm(this);
+            if(ownsExpiryTicker){
+                previous.close();
+                ownsExpiryTicker = false;
+            }
+            expiryTicker = ticker;
+            if(expiryArmed.get()){
+                ticker.arm(this);
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the expiration, waiting for a run in progress, the seat holds left are not released anymore.
+     */
+    private void stopExpiry(){
+        expiryLock.lock();
+        try {
+            expiryStopped = true;
+            // never armed again
+            expiryArmed.set(true);
+            expiryTicker.disarm(this);
+            if(ownsExpiryTicker){
+                expiryTicker.close();
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Has the ticker visit this venue, once it has seat holds to expire.
+     */
+    private void armExpiry(){
+        if(!expiryArmed.get() && expiryArmed.compareAndSet(false, true)){
+            expiryTicker.arm(this);
+        }
+    }
+
+    /**
+     * Called by the ticker visiting this venue.
+     * @return false if a run of the expiration is already queued
+     */
+    boolean queueExpiry(){
+        return expiryQueued.compareAndSet(false, true);
+    }
+
+    /**
+     * @return number of seat holds neither reserved nor expired yet
+     */
+    public long numSeatHolds(){
+        long seatHolds = 0;
+        for (SeatShard shard : shards) {
+            seatHolds += shard.seatHoldMap.size();
+        }
+        return seatHolds;
+    }
+
+    /**
+     * How late the last expired seat hold was released after its deadline.
+     * @return expiration lag in nanoseconds
+     */
+    public long getExpiryLagNanos(){
+        return expiryWheel.lastLagNanos();
+    }
+
+    /**
+     * Worst delay seen between a seat hold deadline and the seats going back to available.
+     * @return maximum expiration lag in nanoseconds
+     */
+    public long getMaxExpiryLagNanos(){
+        return expiryWheel.maxLagNanos();
+    }
+
+    /**
+     * Reserves the seats for a customer and mark the seats for a seat hold as reserved.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+    seat hold is assigned
+     * @return a reservation confirmation code
+     */
+
+    String reserveSeat(int seatHoldId,String customerEmail){
+        return replicated(reserve(seatHoldId, customerEmail));
+    }
+
+    private String reserve(int seatHoldId, String customerEmail){
+        Map<Integer, SeatHold> seatHoldMap = shardOf(seatHoldId).seatHoldMap;
+        SeatHold seatHold = seatHoldMap.get(seatHoldId);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)){
+            return null;
+        }
+        // the ID is taken before the hold is, a hold is never consumed by a reservation which can't be recorded;
+        // the ID is lost if the hold goes in between
+        int reservationId;
+        try {
+            reservationId = reservationIdGenerator.generate();
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // the lease file can't be written or the IDs ran out, the hold stays until it expires
+            idFailures.increment();
+            return null;
+        }
+        // the reservation is published before the hold goes, a lookup of the customer sees one or the other; it is
+        // taken back if the hold is gone meanwhile, so may show for that long
+        reservationTable.put(reservationId, seatHold);
+        customerIndex.reserve(seatHold.getCustomerEmail(), seatHoldId, reservationId);
+        // removing the exact hold is atomic, only one of the reservation and the expiration gets it
+        if(!seatHoldMap.remove(seatHoldId, seatHold)) {
+            unpublish(reservationId, seatHold);
+            return null;
+        }
+
+        if(!seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.RESERVED)){
+            unpublish(reservationId, seatHold);
+            return null; // the seats are no longer held, they were changed outside of the seat assignment manager
+        }
+        String reservationCode = ReservationCodes.encode(reservationId);
+        listener.onReserve(seatHold, reservationCode);
+        return reservationCode;
+    }
+
+    private void unpublish(int reservationId, SeatHold seatHold){
+        reservationTable.remove(reservationId, seatHold);
+        customerIndex.cancel(seatHold.getCustomerEmail(), reservationId);
+    }
+
+    /**
+     * Releases a seat hold before it expires, its seats are available again right away. Only one of the release,
+     * the reservation and the expiration of a seat hold gets it.
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return true if the seat hold was released, false if it doesn't exist anymore or is of another customer
+     */
+    boolean releaseHold(int seatHoldId, String customerEmail){
+        return replicated(release(seatHoldId, customerEmail));
+    }
+
+    private boolean release(int seatHoldId, String customerEmail){
+        Map<Integer, SeatHold> seatHoldMap = shardOf(seatHoldId).seatHoldMap;
+        SeatHold seatHold = seatHoldMap.get(seatHoldId);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)
+                || !seatHoldMap.remove(seatHoldId, seatHold)) {
+            return false;
+        }
+        customerIndex.release(seatHold.getCustomerEmail(), seatHoldId);
+        // its expiration finds it gone and does nothing
+        if(seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.AVAILABLE)){
+            listener.onRelease(seatHold);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels a reservation, its seats are available again right away.
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer the reservation is of
+     * @return true if the reservation was cancelled, false if there's no such reservation or it is of another customer
+     */
+    boolean cancelReservation(String reservationId, String customerEmail){
+        return replicated(cancel(reservationId, customerEmail));
+    }
+
+    private boolean cancel(String reservationId, String customerEmail){
+        int id = ReservationCodes.decodeInt(reservationId);
+        SeatHold seatHold = reservationTable.get(id);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)
+                || !reservationTable.remove(id, seatHold)){
+            return false;
+        }
+        customerIndex.cancel(seatHold.getCustomerEmail(), id);
+        if(seatTracker.compareAndSetStatus(seatHold, SeatStatus.RESERVED, SeatStatus.AVAILABLE)){
+            listener.onCancel(seatHold, reservationId);
+        }
+        return true;
+    }
+
+    /**
+     * Looks a reservation up by its confirmation code.
+     * @param reservationId the reservation confirmation code
+     * @return the reservation, null if there's no such reservation
+     */
+    Reservation getReservation(String reservationId){
+        int id = ReservationCodes.decodeInt(reservationId);
+        SeatHold seatHold = reservationTable.get(id);
+        return seatHold == null ? null : new Reservation(reservationId, seatHold);
+    }
+
+    /**
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the seat holds of the customer neither reserved nor expired yet
+     */
+    List<SeatHold> findSeatHolds(String customerEmail){
+        CustomerIndex.Entry customer = customerIndex.get(customerEmail);
+        if(customer == null){
+            return Collections.emptyList();
+        }
+        List<SeatHold> seatHolds = new ArrayList<>(customer.seatHoldIds.size());
+        for (int seatHoldId : customer.seatHoldIds) {
+            SeatHold seatHold = shardOf(seatHoldId).seatHoldMap.get(seatHoldId);
+            // reserved or expired since the index was read
+            if(seatHold != null){
+                seatHolds.add(seatHold);
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the reservations of the customer
+     */
+    List<Reservation> findReservations(String customerEmail){
+        CustomerIndex.Entry customer = customerIndex.get(customerEmail);
+        if(customer == null){
+            return Collections.emptyList();
+        }
+        List<Reservation> reservations = new ArrayList<>(customer.reservationIds.size());
+        for (int reservationId : customer.reservationIds) {
+            SeatHold seatHold = reservationTable.get(reservationId);
+            if(seatHold != null){
+                reservations.add(new Reservation(ReservationCodes.encode(reservationId), seatHold));
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Take @numSeats available seats picked by the allocation strategy, the best seats in row and column order
+     * by default, and mark the status as HOLD.
+     * The shards having enough available seats are tried best first, skipping the ones locked by other threads,
+     * then waiting on them in the same order. When no single shard can satisfy the request, every shard is locked
+     * and the seats are picked from the whole venue.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+    information
+     */
+    SeatHold findAndHold(int numSeats, String customerEmail){
+        return replicated(hold(numSeats, customerEmail));
+    }
+
+    private SeatHold hold(int numSeats, String customerEmail){
+        // clear the expired seat holds if the seat availability is critical or should reflect the real time state.
+        if(numSeats > seatTracker.numAvailableSeat()){
+            return null;
+        }
+        for (SeatShard shard : shards) {
+            if(seatTracker.numAvailableSeat(shard.partition) < numSeats){
+                continue;
+            }
+            if(!shard.lock.tryLock()){
+                contendedShards.increment();
+                continue;
+            }
+            try {
+                SeatHold seatHold = holdInShard(shard, numSeats, customerEmail);
+                if(seatHold != null){
+                    return seatHold;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        for (SeatShard shard : shards) {
+            if(seatTracker.numAvailableSeat(shard.partition) >= numSeats){
+                shard.lock.lock();
+                try {
+                    SeatHold seatHold = holdInShard(shard, numSeats, customerEmail);
+                    if(seatHold != null){
+                        return seatHold;
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+        }
+        return holdAcrossShards(numSeats, customerEmail);
+    }
+
+    private SeatHold holdInShard(SeatShard shard, int numSeats, String customerEmail){
+        int[] seatIndexes = null;
+        for (int attempt = 0; attempt < MAX_HOLD_ATTEMPTS && seatIndexes == null; attempt++) {
+            seatIndexes = allocationStrategy.selectSeatIndexes(seatTracker, shard.partition, numSeats);
+            if(seatIndexes == null){
+                return null;
+            }
+            if(!seatTracker.compareAndSetStatus(seatIndexes, SeatStatus.AVAILABLE, SeatStatus.HOLD)){
+                seatIndexes = null; // lost a seat to another thread, nothing was held
+                lostSeatRaces.increment();
+            }
+        }
+        return seatIndexes == null ? null : createSeatHold(shard, seatIndexes, customerEmail);
+    }
+
+    private SeatHold holdAcrossShards(int numSeats, String customerEmail){
+        lockAllShards();
+        try {
+            return holdInVenue(numSeats, customerEmail);
+        } finally {
+            unlockAllShards();
+        }
+    }
+
+    /**
+     * Holds seats picked from the whole venue, the caller holds the lock of every shard.
+     */
+    private SeatHold holdInVenue(int numSeats, String customerEmail){
+        int[] seatIndexes = null;
+        for (int attempt = 0; attempt < MAX_HOLD_ATTEMPTS && seatIndexes == null; attempt++) {
+            seatIndexes = allocationStrategy.selectSeatIndexes(seatTracker, numSeats);
+            if(seatIndexes == null){
+                return null;
+            }
+            if(!seatTracker.compareAndSetStatus(seatIndexes, SeatStatus.AVAILABLE, SeatStatus.HOLD)){
+                seatIndexes = null; // lost a seat to another thread, nothing was held
+                lostSeatRaces.increment();
+            }
+        }
+        return seatIndexes == null ? null : createSeatHold(shards[0], seatIndexes, customerEmail);
+    }
+
+    /**
+     * Find and hold seats for a batch of requests, served in order while the whole venue is locked once.
+     * The allocation strategy picks the seats of the whole batch in a single pass when it can, the picked seats
+     * are then held together; otherwise, or if a seat was lost to another thread, requests are served one by one.
+     *
+     * @param holdRequests the number of seats and the customer of each request
+     * @return a SeatHold per request, in the order of the requests, null for a request that couldn't be served
+     */
+    List<SeatHold> findAndHoldBatch(List<HoldRequest> holdRequests){
+        return replicated(holdBatch(holdRequests));
+    }
+
+    private List<SeatHold> holdBatch(List<HoldRequest> holdRequests){
+        List<SeatHold> seatHolds = new ArrayList<>(holdRequests.size());
+        int[] numSeats = new int[holdRequests.size()];
+        for (int i = 0; i < numSeats.length; i++) {
+            numSeats[i] = holdRequests.get(i).getNumSeats();
+        }
+        lockAllShards();
+        try {
+            List<List<Seat>> selections = allocationStrategy.selectSeats(seatTracker, numSeats);
+            if(selections != null){
+                List<Seat> batchSeats = new ArrayList<>();
+                selections.stream().filter(Objects::nonNull).forEach(batchSeats::addAll);
+                if(seatTracker.compareAndSetStatus(batchSeats, SeatStatus.AVAILABLE, SeatStatus.HOLD)){
+                    for (int i = 0; i < numSeats.length; i++) {
+                        List<Seat> seats = selections.get(i);
+                        seatHolds.add(seats == null ? null
+                                : createSeatHold(shards[0], seatTracker.indexesOf(seats), holdRequests.get(i).getCustomerEmail()));
+                    }
+                    return seatHolds;
+                }
+            }
+            for (HoldRequest holdRequest : holdRequests) {
+                seatHolds.add(holdRequest.getNumSeats() > seatTracker.numAvailableSeat() ? null
+                        : holdInVenue(holdRequest.getNumSeats(), holdRequest.getCustomerEmail()));
+            }
+            return seatHolds;
+        } finally {
+            unlockAllShards();
+        }
+    }
+
+    /**
+     * Waits for the changes of the calling thread to reach a follower when replicating semi-synchronously, once
+     * the locks of the request are released.
+     */
+    private <T> T replicated(T result){
+        if(replication != null){
+            replication.awaitReplicated();
+        }
+        return result;
+    }
+
+    private void lockAllShards(){
+        // shards are always locked in the same order, two threads locking several shards can't deadlock
+        for (SeatShard shard : shards) {
+            shard.lock.lock();
+        }
+    }
+
+    private void unlockAllShards(){
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    private SeatHold createSeatHold(SeatShard shard, int[] seatIndexes, String customerEmail){
+        SeatHold seatHold = new SeatHold(shard.seatHoldIdGenerator.generate(), customerEmail, seatIndexes,
+                seatTracker, System.nanoTime() + TimeUnit.SECONDS.toNanos(holdTime));
+        // told before the hold can be reserved or expired, the listener sees the hold first
+        listener.onHold(seatHold, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(holdTime));
+        customerIndex.hold(customerEmail, seatHold.getSeatHoldId());
+        shard.seatHoldMap.put(seatHold.getSeatHoldId(),seatHold); // add the seat hold to the seat hold map.
+        expiryWheel.schedule(seatHold.getSeatHoldId(), seatHold.getDeadlineNanos());
+        armExpiry();
+        return seatHold;
+    }
+
+    /**
+     * Restores the seat holds and reservations of a previous run, the seat holds keep their original deadline.
+     * The seats of the snapshot the venue may have been loaded from which are neither held nor reserved anymore are
+     * released; seats taken outside of the seat assignment manager are left alone.
+     * @param recovery seat holds and reservations to restore
+     * @param snapshotSeats seats held or reserved in the snapshot
+     */
+    private void restore(JournalRecovery recovery, BitSet snapshotSeats){
+        BitSet releasedSeats = (BitSet) snapshotSeats.clone();
+        releasedSeats.andNot(recovery.seats());
+        for (int seatIndex = releasedSeats.nextSetBit(0); seatIndex >= 0; seatIndex = releasedSeats.nextSetBit(seatIndex + 1)) {
+            Seat seat = seatAt(seatIndex);
+            if(seat.getStatus() != SeatStatus.AVAILABLE){
+                seatTracker.compareAndSetStatus(seat, seat.getStatus(), SeatStatus.AVAILABLE);
+            }
+        }
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        for (JournalRecovery.RecoveredHold recoveredHold : recovery.seatHolds()) {
+            SeatHold seatHold = restoreSeats(recoveredHold, SeatStatus.HOLD, snapshotSeats,
+                    nowNanos + TimeUnit.MILLISECONDS.toNanos(recoveredHold.expiresAtMillis - nowMillis));
+            if(seatHold != null){
+                customerIndex.hold(seatHold.getCustomerEmail(), seatHold.getSeatHoldId());
+                shardOf(seatHold.getSeatHoldId()).seatHoldMap.put(seatHold.getSeatHoldId(), seatHold);
+                expiryWheel.schedule(seatHold.getSeatHoldId(), seatHold.getDeadlineNanos());
+            }
+        }
+        for (Map.Entry<String, JournalRecovery.RecoveredHold> reservation : recovery.reservations().entrySet()) {
+            SeatHold seatHold = restoreSeats(reservation.getValue(), SeatStatus.RESERVED, snapshotSeats, nowNanos);
+            if(seatHold != null){
+                int reservationId = ReservationCodes.decodeInt(reservation.getKey());
+                if(reservationId < 0){
+                    continue; // not a code this venue hands out
+                }
+                reservationTable.put(reservationId, seatHold);
+                customerIndex.reserve(seatHold.getCustomerEmail(), seatHold.getSeatHoldId(), reservationId);
+            }
+        }
+        for (SeatShard shard : shards) {
+            shard.seatHoldIdGenerator.advancePast(recovery.maxSeatHoldId());
+        }
+        reservationIdGenerator.advancePast(recovery.maxReservationId());
+    }
+
+    private SeatHold restoreSeats(JournalRecovery.RecoveredHold recoveredHold, SeatStatus status, BitSet snapshotSeats,
+                                  long deadlineNanos){
+        for (int seatIndex : recoveredHold.seatIndexes) {
+            // a seat is either available or already has its status from the snapshot
+            if(seatAt(seatIndex).getStatus() != SeatStatus.AVAILABLE && !snapshotSeats.get(seatIndex)){
+                return null;
+            }
+        }
+        for (int seatIndex : recoveredHold.seatIndexes) {
+            Seat seat = seatAt(seatIndex);
+            if(seat.getStatus() != status){
+                seatTracker.compareAndSetStatus(seat, seat.getStatus(), status);
+            }
+        }
+        return new SeatHold(recoveredHold.seatHoldId, recoveredHold.customerEmail, recoveredHold.seatIndexes,
+                seatTracker, deadlineNanos);
+    }
+
+    private Seat seatAt(int seatIndex){
+        return seatTracker.getSeat(seatIndex / seatTracker.getColumns(), seatIndex % seatTracker.getColumns());
+    }
+
+    /**
+     * @return replication to the followers, null if the venue is not replicated
+     */
+    ReplicationLeader replication(){
+        return replication;
+    }
+
+    /**
+     * Writes a snapshot of the venue, built from the journal while the sales go on.
+     * Does nothing if no snapshot file is configured.
+     */
+    public void takeSnapshot(){
+        if(snapshotPath != null){
+            snapshot.update(snapshotPath, journal, seatTracker);
+        }
+    }
+
+    /**
+     * Shard owning a seat hold, the seat hold IDs of the shards are interleaved.
+     */
+    private SeatShard shardOf(int seatHoldId){
+        return shards[Math.floorMod(seatHoldId - 1, shards.length)];
+    }
+
+    /**
+     * Releases the seat holds due by now, as one run of the expiration queued by a ticker, and leaves the ticker
+     * once there's no seat hold left to expire.
+     * @param ticker ticker the run was queued by
+     */
+    void expireHolds(ExpiryTicker ticker){
+        expiryQueued.set(false);
+        expiryLock.lock();
+        try {
+            if(expiryStopped || ticker != expiryTicker){
+                ticker.disarm(this); // armed on a ticker the venue moved from
+                return;
+            }
+            expireHolds(System.nanoTime());
+            if(expiryWheel.isEmpty()){
+                ticker.disarm(this);
+                expiryArmed.set(false);
+                // a hold scheduled meanwhile may have found the venue still armed
+                if(!expiryWheel.isEmpty()){
+                    armExpiry();
+                }
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the seat holds due at the given time, as one run of the expiration.
+     * @param now current {@link System#nanoTime()}
+     */
+    void expireHolds(long now){
+        expiryWheel.advance(now, this::expire);
+        if(timed){
+            expirySweepLatency.record(System.nanoTime() - now);
+        }
+    }
+
+    /**
+     * Clears an expired seat hold from the hold map and update the seat status to be available for hold again.
+     * @param seatHoldId the expired seat hold identifier
+     */
+    void expire(int seatHoldId){
+        SeatHold removedSeatHold = shardOf(seatHoldId).seatHoldMap.remove(seatHoldId);
+        // execute it on condition if the key was removed as it may have been reserved by another thread.
+        if(null != removedSeatHold) {
+            customerIndex.release(removedSeatHold.getCustomerEmail(), seatHoldId);
+            if(seatTracker.compareAndSetStatus(removedSeatHold, SeatStatus.HOLD, SeatStatus.AVAILABLE)){
+                listener.onExpire(removedSeatHold);
+            }
+        }
+    }
+
+}
@@ -1,23 +1,47 @@
-package com.walmart.exercise.ticketservice.adapter.service;
-
-import java.util.concurrent.atomic.AtomicInteger;
-
-/**
- * SeatHoldIdGenerator generates unique seat hold ID.
- */
-public class SeatHoldIdGenerator implements UniqueIdGenerator{
-
-    private AtomicInteger seatHoldCounter = new AtomicInteger(1); // Start the reservation ID with an initial number 1
-
-    /**
-     * The function generates seat hold Id for ticketing service.
-     * Program restart will not maintain the uniqueness of the reservation ID.
-     * The number start with positive integer value of 1 and limit to a maximum value of 2,147,483,647 (inclusive).
-     *
-     * @return A unique number sequentially.
-     */
-    public int generate(){
-        return seatHoldCounter.getAndIncrement();
-    }
-
-}
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SeatHoldIdGenerator generates unique seat hold ID.
+ */
+public class SeatHoldIdGenerator implements UniqueIdGenerator{
+
+    private final AtomicInteger seatHoldCounter;
+    private final int stride;
+
+    public SeatHoldIdGenerator(){
+        this(1, 1); // Start the reservation ID with an initial number 1
+    }
+
+    /**
+     * Creates a generator handing out every stride-th number from a first number, so that several generators
+     * can hand out unique IDs without sharing a counter.
+     * @param first first ID
+     * @param stride gap between two IDs
+     */
+    public SeatHoldIdGenerator(int first, int stride){
+        this.seatHoldCounter = new AtomicInteger(first);
+        this.stride = stride;
+    }
+
+    /**
+     * The function generates seat hold Id for ticketing service.
+     * Program restart will not maintain the uniqueness of the reservation ID.
+     * The number start with positive integer value of 1 and limit to a maximum value of 2,147,483,647 (inclusive).
+     *
+     * @return A unique number sequentially.
+     */
+    public int generate(){
+        return seatHoldCounter.getAndAdd(stride);
+    }
+
+    /**
+     * Skips the IDs up to a given ID, the IDs handed out from now on keep the same first number and stride.
+     * @param id ID already handed out
+     */
+    public void advancePast(int id){
+        seatHoldCounter.updateAndGet(next -> next > id ? next : next + ((id - next) / stride + 1) * stride);
+    }
+
+}
@@ -0,0 +1,558 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * SeatJournal is an append-only write-ahead journal of the seat holds, reservations and expirations, written
+ * through memory-mapped chunks of the journal file.
+ * An append is a copy into the mapped memory, it survives a crash of the process as soon as it returns. The pages
+ * are forced to the disk by a background thread every sync interval, grouping the records of the interval in one
+ * write, so no request ever waits on the disk; an operating system crash loses at most the last interval.
+ * Appends take no lock: each one claims the bytes of its record by moving the offset of the chunk forward, copies
+ * the record in, then waits for the records claimed before it to be copied, so the records are complete up to the
+ * published offset. The sync thread maps the next chunk once the current one is half full, so an append doesn't
+ * map the file either, unless there is no sync thread.
+ *
+ * The file starts with a header (magic, version, venue columns, generation), followed by the records:
+ * [int length][byte type][payload][int CRC32 of type and payload]. A length of 0 ends the journal, -1 moves on to
+ * the next chunk. Payloads are
+ * HOLD: int seat hold ID, long expiry epoch millis, short email length, email UTF-8, int seat count, int seat indexes;
+ * RESERVE: int seat hold ID, short reservation ID length, reservation ID UTF-8;
+ * EXPIRE: int seat hold ID, also written for a released seat hold;
+ * CANCEL: short reservation ID length, reservation ID UTF-8.
+ * Replay stops at the first torn or corrupted record, which is overwritten by the next append. Positions in the
+ * journal are file offsets, a venue snapshot records the generation and position it was taken at so that only the
+ * records appended since are replayed.
+ *
+ * A snapshot truncates the journal by rotating it: the appends move on to a new file of the next generation, the
+ * current one being kept aside as the previous journal until the snapshot folding it in is written, then deleted.
+ * A previous journal found on open, left by a crash in between, is replayed before the current one.
+ */
+final class SeatJournal implements SeatAssignmentListener, Closeable {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAGIC = 0x5EA7_10A1;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int END_OF_CHUNK = -1;
+    private static final byte HOLD = 1;
+    private static final byte RESERVE = 2;
+    private static final byte EXPIRE = 3;
+    private static final byte CANCEL = 4;
+
+    private final Path file;
+    private final Path previousFile;
+    private final int columns;
+    private final int chunkSize;
+    private final ScheduledExecutorService syncService;
+    private final boolean ownsSyncService;
+    private final ScheduledFuture<?> syncTask;
+
+    private volatile Chunk chunk;
+    // filled chunks the sync thread has yet to force
+    private final Queue<Chunk> filled = new ConcurrentLinkedQueue<>();
+
+    // guarded by this
+    private FileChannel channel;
+    private int generation;
+    private FileChannel previous;
+    private int previousGeneration;
+
+    /**
+     * Opens or creates a journal, records are appended after the last valid record once replayed.
+     * @param file journal file
+     * @param columns number of columns of the venue, the seat indexes are row * columns + column
+     * @param syncIntervalMillis time between two syncs to the disk, 0 to leave it to the operating system
+     * @param chunkSize size of the mapped chunks of the file
+     */
+    SeatJournal(Path file, int columns, long syncIntervalMillis, int chunkSize){
+        this(file, columns, syncIntervalMillis, chunkSize, null);
+    }
+
+    /**
+     * Opens or creates a journal synced by a shared scheduler, records are appended after the last valid record
+     * once replayed.
+     * @param file journal file
+     * @param columns number of columns of the venue, the seat indexes are row * columns + column
+     * @param syncIntervalMillis time between two syncs to the disk, 0 to leave it to the operating system
+     * @param chunkSize size of the mapped chunks of the file
+     * @param syncScheduler scheduler the syncs run on, left running on close, null to start a thread of its own
+     */
+    SeatJournal(Path file, int columns, long syncIntervalMillis, int chunkSize, ScheduledExecutorService syncScheduler){
+        this.file = file;
+        this.previousFile = file.resolveSibling(file.getFileName() + ".prev");
+        this.columns = columns;
+        this.chunkSize = chunkSize;
+        try {
+            if(Files.exists(previousFile)){
+                previous = FileChannel.open(previousFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                previousGeneration = checkHeader(previousFile, map(previous, 0));
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+            MappedByteBuffer header = map(channel, 0);
+            if(created){
+                // the crash of a rotation may have left the previous journal only
+                generation = previous == null ? 0 : previousGeneration + 1;
+                header.putInt(MAGIC).putInt(VERSION).putInt(columns).putInt(generation);
+                header.force();
+            } else {
+                generation = checkHeader(file, header);
+            }
+            chunk = new Chunk(channel, header, 0, HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ownsSyncService = syncIntervalMillis > 0 && syncScheduler == null;
+        if(ownsSyncService){
+            syncService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seat-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            syncService = syncScheduler;
+        }
+        syncTask = syncIntervalMillis > 0 ? syncService.scheduleWithFixedDelay(this::sync, syncIntervalMillis,
+                syncIntervalMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Replays the journal from a position, the previous journal first if the position is in it, and positions the
+     * next append after the last valid record.
+     * @param recovery state the records are folded into, e.g. the state of a snapshot
+     * @param fromGeneration generation of the journal the position is in, 0 for the first journal
+     * @param fromPosition journal position to replay from, 0 for the start
+     * @throws IllegalStateException if the journal of that generation is gone
+     */
+    synchronized void replay(JournalRecovery recovery, int fromGeneration, long fromPosition){
+        long from = fromPosition;
+        if(previous != null && fromGeneration == previousGeneration){
+            read(previous, fromPosition, Long.MAX_VALUE, recovery);
+            from = 0;
+        } else if(fromGeneration != generation){
+            throw new IllegalStateException(file + " is journal " + generation + ", journal " + fromGeneration
+                    + " is gone");
+        }
+        long end = read(channel, from, Long.MAX_VALUE, recovery);
+        long start = end / chunkSize * chunkSize;
+        MappedByteBuffer records = map(channel, start);
+        // wipe whatever a torn record left so that it can't be taken for a record later on
+        for(int i = (int) (end - start); i < records.limit(); i++){
+            records.put(i, (byte) 0);
+        }
+        chunk = new Chunk(channel, records, start, (int) (end - start));
+    }
+
+    /**
+     * @return generation of the journal appended to
+     */
+    synchronized int generation(){
+        return generation;
+    }
+
+    /**
+     * @return true if the previous journal is still kept
+     */
+    synchronized boolean hasPrevious(){
+        return previous != null;
+    }
+
+    /**
+     * Moves the appends on to a new journal file, of the next generation, once the records appended to the current
+     * one are complete. The current file is kept as the previous journal until {@link #dropPrevious()}.
+     * @return generation of the new journal
+     * @throws IllegalStateException if the previous journal is still kept
+     */
+    synchronized int rotate(){
+        if(previous != null){
+            throw new IllegalStateException("The previous journal of " + file + " is still kept");
+        }
+        Chunk current = chunk;
+        int recordStart;
+        do {
+            recordStart = current.claimed.get();
+        } while(recordStart < chunkSize && !seal(current, recordStart));
+        // the appends which found the chunk full wait for the new journal on the lock
+        while(current.published != chunkSize){
+            Thread.yield();
+        }
+        filled.add(current);
+        try {
+            Files.move(file, previousFile, StandardCopyOption.ATOMIC_MOVE);
+            FileChannel next;
+            try {
+                next = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                Files.move(previousFile, file, StandardCopyOption.ATOMIC_MOVE);
+                throw e;
+            }
+            MappedByteBuffer header = map(next, 0);
+            header.putInt(MAGIC).putInt(VERSION).putInt(columns).putInt(generation + 1);
+            header.force();
+            previous = channel;
+            previousGeneration = generation;
+            channel = next;
+            generation++;
+            chunk = new Chunk(next, header, 0, HEADER_SIZE);
+        } catch (IOException e) {
+            // the appends roll on in the current journal
+            throw new UncheckedIOException(e);
+        }
+        return generation;
+    }
+
+    /**
+     * Folds the records of the previous journal from a position.
+     * @param fromPosition position of the first record, 0 for the start
+     * @param recovery state the records are folded into
+     */
+    synchronized void readPrevious(long fromPosition, JournalRecovery recovery){
+        if(previous != null){
+            read(previous, fromPosition, Long.MAX_VALUE, recovery);
+        }
+    }
+
+    /**
+     * Deletes the previous journal, once its records are all in a snapshot written to the disk.
+     */
+    synchronized void dropPrevious(){
+        if(previous == null){
+            return;
+        }
+        // its chunks still to be forced stay mapped, the sync forces them for nothing
+        try {
+            previous.close();
+            Files.deleteIfExists(previousFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        previous = null;
+    }
+
+    /**
+     * @return position the next record is appended at, every record before it is complete
+     */
+    long position(){
+        Chunk current = chunk;
+        return current.start + current.published;
+    }
+
+    /**
+     * Folds the records between two positions, appends may go on meanwhile.
+     * @param fromPosition position of the first record, 0 for the start
+     * @param toPosition position to stop at, e.g. the {@link #position()} of the journal when the read started
+     * @param recovery state the records are folded into
+     * @return position after the last record read
+     */
+    long read(long fromPosition, long toPosition, JournalRecovery recovery){
+        FileChannel current;
+        synchronized (this){
+            current = channel;
+        }
+        return read(current, fromPosition, toPosition, recovery);
+    }
+
+    private long read(FileChannel journal, long fromPosition, long toPosition, JournalRecovery recovery){
+        long position = Math.max(fromPosition, HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while(position < toPosition){
+            long start = position / chunkSize * chunkSize;
+            if(start >= size(journal)){
+                return position;
+            }
+            MappedByteBuffer records = map(journal, start);
+            records.position((int) (position - start));
+            while(position < toPosition){
+                int length = records.remaining() >= Integer.BYTES ? records.getInt() : END_OF_CHUNK;
+                if(length == END_OF_CHUNK){
+                    position = start + chunkSize;
+                    break;
+                }
+                if(length <= 0 || length + Integer.BYTES > records.remaining()){
+                    return position;
+                }
+                byte[] body = new byte[length];
+                records.get(body);
+                crc.reset();
+                crc.update(body, 0, length);
+                if(records.getInt() != (int) crc.getValue()){
+                    return position; // torn write
+                }
+                decode(ByteBuffer.wrap(body), recovery);
+                position = start + records.position();
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public void onHold(SeatHold seatHold, long expiresAtMillis) {
+        append(holdRecord(seatHold, columns, expiresAtMillis));
+    }
+
+    @Override
+    public void onReserve(SeatHold seatHold, String reservationId) {
+        append(reserveRecord(seatHold.getSeatHoldId(), reservationId));
+    }
+
+    @Override
+    public void onExpire(SeatHold seatHold) {
+        append(expireRecord(seatHold.getSeatHoldId()));
+    }
+
+    @Override
+    public void onRelease(SeatHold seatHold) {
+        onExpire(seatHold);
+    }
+
+    @Override
+    public void onCancel(SeatHold seatHold, String reservationId) {
+        append(cancelRecord(reservationId));
+    }
+
+    /**
+     * Encodes the body of a HOLD record, type and payload.
+     * @param columns number of columns of the venue the seat indexes are computed with
+     */
+    static byte[] holdRecord(SeatHold seatHold, int columns, long expiresAtMillis){
+        int[] seatIndexes = new int[seatHold.getNumSeats()];
+        for (int i = 0; i < seatIndexes.length; i++) {
+            seatIndexes[i] = seatHold.getSeatIndex(i, columns);
+        }
+        return holdRecord(new JournalRecovery.RecoveredHold(seatHold.getSeatHoldId(), seatHold.getCustomerEmail(),
+                seatIndexes, expiresAtMillis));
+    }
+
+    static byte[] holdRecord(JournalRecovery.RecoveredHold hold){
+        ByteBuffer body = ByteBuffer.allocate(1 + hold.encodedSize()).put(HOLD);
+        hold.writeTo(body);
+        return body.array();
+    }
+
+    static byte[] reserveRecord(int seatHoldId, String reservationId){
+        byte[] id = reservationId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 4 + 2 + id.length)
+                .put(RESERVE).putInt(seatHoldId).putShort((short) id.length).put(id).array();
+    }
+
+    static byte[] expireRecord(int seatHoldId){
+        return ByteBuffer.allocate(1 + 4).put(EXPIRE).putInt(seatHoldId).array();
+    }
+
+    static byte[] cancelRecord(String reservationId){
+        byte[] id = reservationId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 2 + id.length).put(CANCEL).putShort((short) id.length).put(id).array();
+    }
+
+    /**
+     * Forces the journal to the disk, then maps the next chunk if the current one is half full.
+     */
+    void sync(){
+        Chunk full;
+        while((full = filled.poll()) != null){
+            full.records.force();
+        }
+        Chunk current = chunk;
+        int published = current.published;
+        if(published != current.synced){
+            current.records.force();
+            current.synced = published;
+        }
+        if(current.next == null && current.claimed.get() >= chunkSize / 2){
+            try {
+                current.next = new Chunk(current.channel, map(current.channel, current.start + chunkSize),
+                        current.start + chunkSize, 0);
+            } catch (UncheckedIOException e) {
+                // left to the append that fills the chunk, which fails if the file still can't be mapped
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(syncTask != null){
+            syncTask.cancel(false);
+        }
+        if(ownsSyncService){
+            syncService.shutdown();
+        }
+        sync();
+        synchronized (this){
+            channel.close();
+            if(previous != null){
+                previous.close();
+            }
+        }
+    }
+
+    private void append(byte[] body){
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        int recordSize = Integer.BYTES + body.length + Integer.BYTES;
+        if(recordSize > chunkSize - HEADER_SIZE){
+            throw new IllegalArgumentException("Journal record of " + recordSize + " bytes exceeds the chunk size");
+        }
+        while(true){
+            Chunk current = chunk;
+            int recordStart = current.claimed.get();
+            if(recordStart + recordSize <= chunkSize){
+                if(current.claimed.compareAndSet(recordStart, recordStart + recordSize)){
+                    // the length goes last, a reader never sees a record before its body
+                    ByteBuffer records = current.records.duplicate();
+                    records.position(recordStart + Integer.BYTES);
+                    records.put(body).putInt((int) crc.getValue());
+                    records.putInt(recordStart, body.length);
+                    current.publish(recordStart, recordStart + recordSize);
+                    return;
+                }
+            } else if(recordStart == chunkSize){
+                roll(current);
+            } else if(seal(current, recordStart)){
+                // the rest of the chunk is too small for the record
+                roll(current);
+            }
+        }
+    }
+
+    /**
+     * Closes a chunk to the appends from a position on, by an end of chunk if it fits one.
+     * @return false if a record was claimed from the position meanwhile
+     */
+    private boolean seal(Chunk current, int recordStart){
+        if(!current.claimed.compareAndSet(recordStart, chunkSize)){
+            return false;
+        }
+        if(chunkSize - recordStart >= Integer.BYTES){
+            current.records.putInt(recordStart, END_OF_CHUNK);
+        }
+        current.publish(recordStart, chunkSize);
+        return true;
+    }
+
+    /**
+     * Moves the appends on to the chunk after a full one, once its records are all complete.
+     */
+    private void roll(Chunk full){
+        while(full.published != chunkSize){
+            Thread.yield();
+        }
+        synchronized (this){
+            if(chunk == full){
+                // mapped here only if the sync thread didn't map it ahead
+                chunk = full.next != null ? full.next : new Chunk(full.channel, map(full.channel,
+                        full.start + chunkSize), full.start + chunkSize, 0);
+                filled.add(full);
+            }
+        }
+    }
+
+    /**
+     * Folds the body of a record, type and payload, into a recovery.
+     */
+    static void decode(ByteBuffer body, JournalRecovery recovery){
+        byte type = body.get();
+        if(type == HOLD){
+            recovery.hold(JournalRecovery.RecoveredHold.readFrom(body));
+        } else if(type == RESERVE){
+            int seatHoldId = body.getInt();
+            byte[] reservationId = new byte[body.getShort()];
+            body.get(reservationId);
+            recovery.reserve(seatHoldId, new String(reservationId, StandardCharsets.UTF_8));
+        } else if(type == EXPIRE){
+            recovery.expire(body.getInt());
+        } else if(type == CANCEL){
+            byte[] reservationId = new byte[body.getShort()];
+            body.get(reservationId);
+            recovery.cancel(new String(reservationId, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Checks the header of a journal file.
+     * @return generation of the journal
+     */
+    private int checkHeader(Path journalFile, MappedByteBuffer header){
+        if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION){
+            throw new IllegalStateException(journalFile + " is not a seat journal");
+        } else if(header.getInt(8) != columns){
+            throw new IllegalStateException(journalFile + " journals a venue of " + header.getInt(8) + " columns");
+        }
+        return header.getInt(12);
+    }
+
+    private MappedByteBuffer map(FileChannel journal, long position){
+        try {
+            // mapping past the end of the file grows it, the new chunk reads as zeros
+            return journal.map(FileChannel.MapMode.READ_WRITE, position, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A mapped chunk of the journal file and the offsets of its records.
+     */
+    private static final class Chunk {
+        private final FileChannel channel;
+        private final MappedByteBuffer records;
+        private final long start;
+        // end of the records claimed by the appends
+        private final AtomicInteger claimed;
+        // end of the complete records, every record before it is copied in
+        private volatile int published;
+        // end of the records forced to the disk, written by the sync only
+        private volatile int synced;
+        // the chunk after this one, mapped ahead by the sync
+        private volatile Chunk next;
+
+        private Chunk(FileChannel channel, MappedByteBuffer records, long start, int end){
+            this.channel = channel;
+            this.records = records;
+            this.start = start;
+            this.claimed = new AtomicInteger(end);
+            this.published = end;
+            this.synced = end;
+        }
+
+        /**
+         * Publishes a record once the records claimed before it are published, in the order they were claimed.
+         */
+        private void publish(int recordStart, int recordEnd){
+            while(published != recordStart){
+                Thread.yield();
+            }
+            published = recordEnd;
+        }
+    }
+
+    private static long size(FileChannel journal){
+        try {
+            return journal.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SeatShard is a range of rows of the venue, one partition of the seat tracker, with its own lock, its own slice
+ * of the seat hold map and its own seat hold IDs.
+ */
+final class SeatShard {
+
+    final int partition;
+    final ReentrantLock lock = new ReentrantLock();
+    final Map<Integer, SeatHold> seatHoldMap = new ConcurrentHashMap<>();
+    final UniqueIdGenerator seatHoldIdGenerator;
+
+    /**
+     * @param partition seat tracker partition of the shard
+     * @param numShards number of shards of the venue, the seat hold IDs of shard n are n+1 modulo numShards
+     */
+    SeatShard(int partition, int numShards){
+        this.partition = partition;
+        this.seatHoldIdGenerator = new SeatHoldIdGenerator(partition + 1, numShards);
+    }
+}
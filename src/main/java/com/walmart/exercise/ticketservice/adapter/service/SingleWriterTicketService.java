@@ -0,0 +1,299 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.AsyncTicketService;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SingleWriterTicketService provides a lock-free implementation of AsyncTicketService.
+ * A single writer thread owns the seat holds and reservations and is the only one changing the seat status; callers
+ * queue their requests in a lock-free ring buffer and get a future completed by the writer. Seat holds expire in the
+ * writer loop between two requests, no lock is taken on the way. A caller only waits when the ring buffer is full,
+ * until the writer catches up.
+ */
+public class SingleWriterTicketService implements AsyncTicketService, AutoCloseable {
+
+    private static final int MAX_COMMANDS_BETWEEN_EXPIRATIONS = 256;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SeatTracker seatTracker;
+    private final long holdTimeNanos;
+    private final AllocationStrategy allocationStrategy;
+    private final CommandRingBuffer<Command> commands;
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean running = true;
+    // set once the writer thread is done, the commands queued afterwards are failed by their callers
+    private volatile boolean stopped;
+
+    // owned by the writer thread
+    private final Map<Integer, SeatHold> seatHoldMap = new HashMap<>();
+    private final Map<String, SeatHold> reservedSeatMap = new HashMap<>();
+    // holds all live for the same time, so they expire in the order they were created
+    private final ArrayDeque<SeatHold> expirations = new ArrayDeque<>();
+    private final UniqueIdGenerator seatHoldIdGenerator = new SeatHoldIdGenerator();
+    private final UniqueIdGenerator reservationIdGenerator = new ReservationIdGenerator();
+
+    public SingleWriterTicketService(SeatTracker seatTracker, int holdTime) throws TicketServiceException{
+        this(seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime));
+    }
+
+    /**
+     * Creates the ticket service and starts its writer thread.
+     * @param seatTracker
+     * @param config hold time, allocation strategy and command buffer size
+     * @throws TicketServiceException if the venue is null
+     */
+    public SingleWriterTicketService(SeatTracker seatTracker, SeatAssignmentConfig config) throws TicketServiceException{
+        if(seatTracker == null){
+            throw new TicketServiceException("Venue can't be null");
+        }
+        this.seatTracker = seatTracker;
+        // Default the hold time to 120 seconds in case the hold time is not legitimate.
+        this.holdTimeNanos = TimeUnit.SECONDS.toNanos((config.getHoldTime() >= 0) ? config.getHoldTime() : 120);
+        this.allocationStrategy = config.getAllocationStrategy();
+        this.commands = new CommandRingBuffer<>(config.getCommandBufferSize());
+        writer = new Thread(this::run, "ticket-service-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public int numSeatsAvailable() {
+        return seatTracker.numAvailableSeat();
+    }
+
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail) {
+        if(numSeats > seatTracker.numTotalSeats() || numSeats <= 0 || customerEmail == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<SeatHold> seatHold = new CompletableFuture<>();
+        submit(new Command(Command.HOLD, numSeats, null, customerEmail, seatHold));
+        return seatHold;
+    }
+
+    @Override
+    public CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail) {
+        if(customerEmail == null){
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<String> reservationId = new CompletableFuture<>();
+        submit(new Command(Command.RESERVE, seatHoldId, null, customerEmail, reservationId));
+        return reservationId;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> releaseHold(int seatHoldId, String customerEmail) {
+        if(customerEmail == null){
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> released = new CompletableFuture<>();
+        submit(new Command(Command.RELEASE, seatHoldId, null, customerEmail, released));
+        return released;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> cancelReservation(String reservationId, String customerEmail) {
+        if(reservationId == null || customerEmail == null){
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> cancelled = new CompletableFuture<>();
+        submit(new Command(Command.CANCEL, 0, reservationId, customerEmail, cancelled));
+        return cancelled;
+    }
+
+    /**
+     * Stops the writer thread once the queued requests are served, requests made afterwards fail.
+     * Waits for the writer thread to stop, unless interrupted.
+     */
+    @Override
+    public void close(){
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Command command){
+        if(!running){
+            command.future.completeExceptionally(closed());
+            return;
+        }
+        commands.put(command);
+        if(stopped){
+            // queued while the writer was on its way out, it may never see it
+            failQueued();
+        } else if(writerParked){
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Fails the commands left in the ring buffer once the writer is done, the only time the buffer has several
+     * consumers, taking turns under the lock.
+     */
+    private synchronized void failQueued(){
+        Command command;
+        while((command = commands.poll()) != null){
+            command.future.completeExceptionally(closed());
+        }
+    }
+
+    private static IllegalStateException closed(){
+        return new IllegalStateException("Ticket service is closed");
+    }
+
+    private void run(){
+        while(running || !commands.isEmpty()){
+            int served = 0;
+            Command command;
+            while(served < MAX_COMMANDS_BETWEEN_EXPIRATIONS && (command = commands.poll()) != null){
+                execute(command);
+                served++;
+            }
+            long now = System.nanoTime();
+            expire(now);
+            if(served == 0){
+                park(now);
+            }
+        }
+        stopped = true;
+        failQueued();
+    }
+
+    /**
+     * Parks the writer until a request is queued or the next seat hold is due.
+     */
+    private void park(long now){
+        writerParked = true;
+        // a request queued before the flag was raised is seen here, a later one unparks the writer
+        if(running && commands.isEmpty()){
+            SeatHold next = expirations.peek();
+            LockSupport.parkNanos(next == null ? MAX_PARK_NANOS : Math.min(MAX_PARK_NANOS, next.getDeadlineNanos() - now));
+        }
+        writerParked = false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void execute(Command command){
+        try {
+            switch (command.type){
+                case Command.HOLD:
+                    ((CompletableFuture<SeatHold>) command.future).complete(hold(command.value, command.customerEmail));
+                    break;
+                case Command.RESERVE:
+                    ((CompletableFuture<String>) command.future).complete(reserve(command.value, command.customerEmail));
+                    break;
+                case Command.RELEASE:
+                    ((CompletableFuture<Boolean>) command.future).complete(release(command.value, command.customerEmail));
+                    break;
+                default:
+                    ((CompletableFuture<Boolean>) command.future).complete(cancel(command.reservationId, command.customerEmail));
+            }
+        } catch (RuntimeException e) {
+            command.future.completeExceptionally(e);
+        }
+    }
+
+    private SeatHold hold(int numSeats, String customerEmail){
+        if(numSeats > seatTracker.numAvailableSeat()){
+            return null;
+        }
+        int[] seatIndexes = allocationStrategy.selectSeatIndexes(seatTracker, numSeats);
+        // only the writer holds seats, the exchange fails if the seats were changed outside of the ticket service
+        if(seatIndexes == null || !seatTracker.compareAndSetStatus(seatIndexes, SeatStatus.AVAILABLE, SeatStatus.HOLD)){
+            return null;
+        }
+        SeatHold seatHold = new SeatHold(seatHoldIdGenerator.generate(), customerEmail, seatIndexes,
+                seatTracker, System.nanoTime() + holdTimeNanos);
+        seatHoldMap.put(seatHold.getSeatHoldId(), seatHold);
+        expirations.add(seatHold);
+        return seatHold;
+    }
+
+    private String reserve(int seatHoldId, String customerEmail){
+        SeatHold seatHold = seatHoldMap.get(seatHoldId);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)){
+            return null;
+        }
+        seatHoldMap.remove(seatHoldId);
+        if(!seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.RESERVED)){
+            return null;
+        }
+        String reservationId = ReservationCodes.encode(reservationIdGenerator.generate());
+        reservedSeatMap.put(reservationId, seatHold);
+        return reservationId;
+    }
+
+    private boolean release(int seatHoldId, String customerEmail){
+        SeatHold seatHold = seatHoldMap.get(seatHoldId);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)){
+            return false;
+        }
+        // its expiration entry finds it gone and is dropped
+        seatHoldMap.remove(seatHoldId);
+        seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.AVAILABLE);
+        return true;
+    }
+
+    private boolean cancel(String reservationId, String customerEmail){
+        SeatHold seatHold = reservedSeatMap.get(reservationId);
+        if(seatHold == null || !seatHold.getCustomerEmail().equalsIgnoreCase(customerEmail)){
+            return false;
+        }
+        reservedSeatMap.remove(reservationId);
+        seatTracker.compareAndSetStatus(seatHold, SeatStatus.RESERVED, SeatStatus.AVAILABLE);
+        return true;
+    }
+
+    /**
+     * Releases the seat holds due, the expiration entries of reserved holds are dropped on the way.
+     */
+    private void expire(long now){
+        SeatHold next;
+        while((next = expirations.peek()) != null && next.getDeadlineNanos() - now <= 0){
+            expirations.poll();
+            if(seatHoldMap.remove(next.getSeatHoldId(), next)){
+                seatTracker.compareAndSetStatus(next, SeatStatus.HOLD, SeatStatus.AVAILABLE);
+            }
+        }
+    }
+
+    /**
+     * A find and hold request, the value being the number of seats, a reserve or release request, the value being
+     * the seat hold ID, or a cancel request.
+     */
+    private static final class Command {
+        private static final int HOLD = 0;
+        private static final int RESERVE = 1;
+        private static final int RELEASE = 2;
+        private static final int CANCEL = 3;
+
+        private final int type;
+        private final int value;
+        private final String reservationId;
+        private final String customerEmail;
+        private final CompletableFuture<?> future;
+
+        private Command(int type, int value, String reservationId, String customerEmail, CompletableFuture<?> future){
+            this.type = type;
+            this.value = value;
+            this.reservationId = reservationId;
+            this.customerEmail = customerEmail;
+            this.future = future;
+        }
+    }
+}
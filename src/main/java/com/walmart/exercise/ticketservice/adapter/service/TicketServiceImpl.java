@@ -1,46 +1,184 @@
-package com.walmart.exercise.ticketservice.adapter.service;
-
-import com.walmart.exercise.ticketservice.domain.SeatHold;
-import com.walmart.exercise.ticketservice.domain.SeatTracker;
-import com.walmart.exercise.ticketservice.domain.TicketService;
-import com.walmart.exercise.ticketservice.domain.TicketServiceException;
-
-/**
- * TicketServiceImpl provides implementation for TicketService.
- */
-public class TicketServiceImpl implements TicketService{
-
-    private final SeatTracker seatTracker;
-    private SeatAssignmentManager seatAssignmentManager;
-
-    public TicketServiceImpl(SeatTracker seatTracker, int holdTime) throws TicketServiceException{
-        if(seatTracker == null){
-            throw new TicketServiceException("Venue can't be null");
-        }
-        this.seatTracker = seatTracker;
-        seatAssignmentManager = new SeatAssignmentManager(seatTracker,holdTime);
-    }
-
-    @Override
-    public int numSeatsAvailable()
-    { // clear the expired seat holds if the seat availability is critical or should reflect the real time state.
-        return seatTracker.numAvailableSeat();
-    }
-
-    @Override
-    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
-        if(numSeats > seatTracker.numTotalSeats() || numSeats <= 0 || customerEmail == null) {
-            return null;
-        }
-        return seatAssignmentManager.findAndHold(numSeats,customerEmail);
-    }
-
-    @Override
-    public String reserveSeats(int seatHoldId, String customerEmail){
-        if(customerEmail == null){
-            return null;
-        }
-        return seatAssignmentManager.reserveSeat(seatHoldId,customerEmail);
-    }
-
-}
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.LatencyRecorder;
+import com.walmart.exercise.ticketservice.adapter.metrics.MetricsRegistry;
+import com.walmart.exercise.ticketservice.domain.HoldRequest;
+import com.walmart.exercise.ticketservice.domain.Reservation;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TicketServiceImpl provides implementation for TicketService.
+ * With a batching window configured, single find and hold requests are coalesced into batches.
+ * With a metrics registry configured, the latency of every call is recorded.
+ */
+public class TicketServiceImpl implements TicketService{
+
+    private final SeatTracker seatTracker;
+    private SeatAssignmentManager seatAssignmentManager;
+    private HoldBatcher holdBatcher;
+
+    private final boolean timed;
+    private final LatencyRecorder holdLatency;
+    private final LatencyRecorder reserveLatency;
+    private final LatencyRecorder availabilityLatency;
+
+    public TicketServiceImpl(SeatTracker seatTracker, int holdTime) throws TicketServiceException{
+        this(seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime));
+    }
+
+    public TicketServiceImpl(SeatTracker seatTracker, SeatAssignmentConfig config) throws TicketServiceException{
+        this(seatTracker, config, null);
+    }
+
+    /**
+     * Ticket service starting from the seat holds and reservations replicated from another venue.
+     */
+    TicketServiceImpl(SeatTracker seatTracker, SeatAssignmentConfig config, JournalRecovery replicated) throws TicketServiceException{
+        if(seatTracker == null){
+            throw new TicketServiceException("Venue can't be null");
+        }
+        this.seatTracker = seatTracker;
+        MetricsRegistry metrics = config.getMetricsRegistry();
+        timed = metrics.isEnabled();
+        holdLatency = metrics.latencyRecorder("hold.latency");
+        reserveLatency = metrics.latencyRecorder("reserve.latency");
+        availabilityLatency = metrics.latencyRecorder("availability.latency");
+        seatAssignmentManager = new SeatAssignmentManager(seatTracker, config, replicated);
+        if(config.getBatchWindowMicros() > 0){
+            holdBatcher = new HoldBatcher(seatAssignmentManager, config.getBatchWindowMicros(), config.getMaxBatchSize());
+        }
+    }
+
+    @Override
+    public int numSeatsAvailable()
+    { // clear the expired seat holds if the seat availability is critical or should reflect the real time state.
+        if(!timed){
+            return seatTracker.numAvailableSeat();
+        }
+        long start = System.nanoTime();
+        int numAvailableSeat = seatTracker.numAvailableSeat();
+        availabilityLatency.record(System.nanoTime() - start);
+        return numAvailableSeat;
+    }
+
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+        if(!timed){
+            return holdSeats(numSeats, customerEmail);
+        }
+        long start = System.nanoTime();
+        SeatHold seatHold = holdSeats(numSeats, customerEmail);
+        holdLatency.record(System.nanoTime() - start);
+        return seatHold;
+    }
+
+    private SeatHold holdSeats(int numSeats, String customerEmail) {
+        if(!isValid(numSeats, customerEmail)) {
+            return null;
+        }
+        if(holdBatcher != null){
+            return holdBatcher.findAndHold(numSeats,customerEmail);
+        }
+        return seatAssignmentManager.findAndHold(numSeats,customerEmail);
+    }
+
+    @Override
+    public List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+        // invalid requests get null and are not sent to the seat assignment manager
+        SeatHold[] seatHolds = new SeatHold[holdRequests.size()];
+        List<HoldRequest> validRequests = new ArrayList<>(holdRequests.size());
+        for (HoldRequest holdRequest : holdRequests) {
+            if(isValid(holdRequest.getNumSeats(), holdRequest.getCustomerEmail())){
+                validRequests.add(holdRequest);
+            }
+        }
+        List<SeatHold> validSeatHolds = seatAssignmentManager.findAndHoldBatch(validRequests);
+        for (int i = 0, valid = 0; i < seatHolds.length; i++) {
+            HoldRequest holdRequest = holdRequests.get(i);
+            if(isValid(holdRequest.getNumSeats(), holdRequest.getCustomerEmail())){
+                seatHolds[i] = validSeatHolds.get(valid++);
+            }
+        }
+        return Arrays.asList(seatHolds);
+    }
+
+    @Override
+    public String reserveSeats(int seatHoldId, String customerEmail){
+        if(customerEmail == null){
+            return null;
+        }
+        if(!timed){
+            return seatAssignmentManager.reserveSeat(seatHoldId,customerEmail);
+        }
+        long start = System.nanoTime();
+        String reservationId = seatAssignmentManager.reserveSeat(seatHoldId,customerEmail);
+        reserveLatency.record(System.nanoTime() - start);
+        return reservationId;
+    }
+
+    @Override
+    public boolean releaseHold(int seatHoldId, String customerEmail){
+        return customerEmail != null && seatAssignmentManager.releaseHold(seatHoldId, customerEmail);
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId, String customerEmail){
+        return reservationId != null && customerEmail != null
+                && seatAssignmentManager.cancelReservation(reservationId, customerEmail);
+    }
+
+    /**
+     * Looks a reservation up by its confirmation code.
+     * @param reservationId the reservation confirmation code
+     * @return the reservation, null if there's no such reservation
+     */
+    public Reservation getReservation(String reservationId){
+        return reservationId == null ? null : seatAssignmentManager.getReservation(reservationId);
+    }
+
+    /**
+     * Lists the seat holds of a customer, in time proportional to the number of seat holds of the customer.
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the seat holds of the customer neither reserved nor expired yet
+     */
+    public List<SeatHold> findSeatHolds(String customerEmail){
+        return customerEmail == null ? Collections.emptyList() : seatAssignmentManager.findSeatHolds(customerEmail);
+    }
+
+    /**
+     * Lists the reservations of a customer, in time proportional to the number of reservations of the customer.
+     * @param customerEmail the email address of the customer, case insensitive
+     * @return the reservations of the customer
+     */
+    public List<Reservation> findReservations(String customerEmail){
+        return customerEmail == null ? Collections.emptyList() : seatAssignmentManager.findReservations(customerEmail);
+    }
+
+    /**
+     * Stops the seat hold expiration and batching, and closes the journal, see
+     * {@link SeatAssignmentManager#shutdown()}.
+     */
+    public void shutdown(){
+        if(holdBatcher != null){
+            holdBatcher.shutdown();
+        }
+        seatAssignmentManager.shutdown();
+    }
+
+    SeatAssignmentManager seatAssignmentManager(){
+        return seatAssignmentManager;
+    }
+
+    private boolean isValid(int numSeats, String customerEmail){
+        return numSeats <= seatTracker.numTotalSeats() && numSeats > 0 && customerEmail != null;
+    }
+
+}
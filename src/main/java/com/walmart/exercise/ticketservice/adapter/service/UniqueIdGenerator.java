@@ -1,13 +1,27 @@
-package com.walmart.exercise.ticketservice.adapter.service;
-
-/**
- * UniqueIdGenerator generate a unique ID.
- */
-public interface UniqueIdGenerator {
-
-    /**
-     * Generates unique id
-     * @return unique number with integer limits
-     */
-    int generate();
-}
+package com.walmart.exercise.ticketservice.adapter.service;
+
+/**
+ * UniqueIdGenerator generate a unique ID.
+ */
+public interface UniqueIdGenerator {
+
+    /**
+     * Generates unique id
+     * @return unique number with integer limits
+     */
+    int generate();
+
+    /**
+     * Generates a unique 64-bit ID, for generators going past the int range.
+     * @return unique number
+     */
+    default long generateLong(){
+        return generate();
+    }
+
+    /**
+     * Makes sure the IDs generated from now on are greater than a given ID, e.g. one handed out before a restart.
+     * @param id ID already handed out
+     */
+    void advancePast(int id);
+}
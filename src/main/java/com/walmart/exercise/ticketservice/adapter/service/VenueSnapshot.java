@@ -0,0 +1,292 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.DirectSeatStateStore;
+import com.walmart.exercise.ticketservice.domain.SeatScorer;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * VenueSnapshot is the state of a venue at a position of its journal, in a compact binary file:
+ * a 64 bytes header (magic, version, rows, columns, journal position, highest seat hold and reservation IDs, seat
+ * hold and reservation counts, number of seats, a hash of the row lengths and journal generation), one status code
+ * byte per grid cell,
+ * then the seat holds and the reservations as journaled. The seat states are laid out for the seat tracker to be
+ * mapped on them in place; the cells past the end of the rows of a {@link VenueLayout} are written as reserved.
+ *
+ * Snapshots are built from the journal rather than from the live venue, so taking one never stops the sales: the
+ * journal is rotated, the records of the journal rotated out are folded into the state of the previous snapshot,
+ * which is then written to a temporary file moved over the previous one, and the journal rotated out is deleted.
+ */
+public final class VenueSnapshot {
+
+    private static final int MAGIC = 0x5EA7_5A45;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+
+    private int journalGeneration;
+    private long journalPosition;
+    private final JournalRecovery state;
+
+    private VenueSnapshot(int journalGeneration, long journalPosition, JournalRecovery state){
+        this.journalGeneration = journalGeneration;
+        this.journalPosition = journalPosition;
+        this.state = state;
+    }
+
+    /**
+     * Creates the seat tracker of a venue with the seat states of its snapshot, mapped in place and copied on
+     * write, so the seat states of a venue of any size are never copied to the heap; the seat tracker still visits
+     * them once, to count them and index the available ones. Without a snapshot all the seats are available.
+     * @param snapshot snapshot file
+     * @param rows number of rows of the venue
+     * @param columns number of columns of the venue
+     * @return seat tracker of the venue
+     * @throws IllegalStateException if the snapshot is of a venue of another size, as {@link #read} does
+     */
+    public static SeatTracker loadSeatTracker(Path snapshot, int rows, int columns){
+        return loadSeatTracker(snapshot, rows, columns, null, SeatScorer.ROW_MAJOR);
+    }
+
+    /**
+     * Creates the seat tracker of a venue handing out the best available seats by score, with the seat states of its
+     * snapshot, as {@link #loadSeatTracker(Path, int, int)} does. The scores aren't part of the snapshot, the venue
+     * is to be loaded with the scorer it was created with.
+     * @param snapshot snapshot file
+     * @param rows number of rows of the venue
+     * @param columns number of columns of the venue
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     * @return seat tracker of the venue
+     * @throws IllegalStateException if the snapshot is of a venue of another size
+     */
+    public static SeatTracker loadSeatTracker(Path snapshot, int rows, int columns, SeatScorer seatScorer){
+        return loadSeatTracker(snapshot, rows, columns, null, seatScorer);
+    }
+
+    /**
+     * Creates the seat tracker of a venue of sections of jagged rows with the seat states of its snapshot, as
+     * {@link #loadSeatTracker(Path, int, int)} does. Without a snapshot all the seats are available.
+     * @param snapshot snapshot file
+     * @param layout layout of the venue
+     * @return seat tracker of the venue
+     * @throws IllegalStateException if the snapshot is of a venue whose rows have other lengths
+     */
+    public static SeatTracker loadSeatTracker(Path snapshot, VenueLayout layout){
+        return loadSeatTracker(snapshot, layout.getRows(), layout.getColumns(), layout, SeatScorer.ROW_MAJOR);
+    }
+
+    /**
+     * Creates the seat tracker of a venue of sections of jagged rows handing out the best available seats by score,
+     * with the seat states of its snapshot, as {@link #loadSeatTracker(Path, int, int, SeatScorer)} does.
+     * @param snapshot snapshot file
+     * @param layout layout of the venue
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     * @return seat tracker of the venue
+     * @throws IllegalStateException if the snapshot is of a venue whose rows have other lengths
+     */
+    public static SeatTracker loadSeatTracker(Path snapshot, VenueLayout layout, SeatScorer seatScorer){
+        return loadSeatTracker(snapshot, layout.getRows(), layout.getColumns(), layout, seatScorer);
+    }
+
+    private static SeatTracker loadSeatTracker(Path snapshot, int rows, int columns, VenueLayout layout,
+                                               SeatScorer seatScorer){
+        if(!Files.exists(snapshot)){
+            return layout == null ? new SeatTracker(rows, columns, seatScorer) : new SeatTracker(layout, seatScorer);
+        }
+        // mapped copy on write, the channel has to be writable though the file is never written
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            checkVenue(snapshot, readHeader(channel), rows, columns, layout);
+            // a private mapping stays readable once the channel is closed and the snapshot file replaced
+            MappedByteBuffer seatStates = channel.map(FileChannel.MapMode.PRIVATE, HEADER_SIZE, (long) rows * columns);
+            return layout == null ? new SeatTracker(rows, columns, new DirectSeatStateStore(seatStates), seatScorer)
+                    : new SeatTracker(layout, new DirectSeatStateStore(seatStates), seatScorer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return a snapshot of an empty venue, at the start of the journal
+     */
+    static VenueSnapshot empty(){
+        return new VenueSnapshot(0, 0, new JournalRecovery());
+    }
+
+    /**
+     * Reads the seat holds and reservations of a snapshot.
+     * @param snapshot snapshot file
+     * @param venue seat tracker of the venue, of the size and layout the snapshot is expected to have
+     * @return the snapshot, an empty one at the start of the journal if there's no snapshot file
+     */
+    static VenueSnapshot read(Path snapshot, SeatTracker venue){
+        if(!Files.exists(snapshot)){
+            return empty();
+        }
+        int rows = venue.getRows();
+        int columns = venue.getColumns();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            checkVenue(snapshot, header, rows, columns, venue.getLayout());
+            long seatsEnd = HEADER_SIZE + (long) rows * columns;
+            ByteBuffer seatHolds = channel.map(FileChannel.MapMode.READ_ONLY, seatsEnd, channel.size() - seatsEnd);
+            JournalRecovery state = new JournalRecovery();
+            for(int i = header.getInt(32); i > 0; i--){
+                state.hold(JournalRecovery.RecoveredHold.readFrom(seatHolds));
+            }
+            for(int i = header.getInt(36); i > 0; i--){
+                byte[] reservationId = new byte[seatHolds.getShort()];
+                seatHolds.get(reservationId);
+                JournalRecovery.RecoveredHold seatHold = JournalRecovery.RecoveredHold.readFrom(seatHolds);
+                state.hold(seatHold);
+                state.reserve(seatHold.seatHoldId, new String(reservationId, StandardCharsets.UTF_8));
+            }
+            state.advancePast(header.getInt(24), header.getInt(28));
+            return new VenueSnapshot(header.getInt(52), header.getLong(16), state);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replays the journal records appended since the snapshot, on start, the journal appending after them.
+     * @param journal journal of the venue
+     */
+    synchronized void replay(SeatJournal journal){
+        journal.replay(state, journalGeneration, journalPosition);
+        journalGeneration = journal.generation();
+        journalPosition = journal.position();
+    }
+
+    /**
+     * Folds the journal records appended since the snapshot, rotating the journal, writes the new snapshot over the
+     * previous one, then deletes the journal rotated out.
+     * @param snapshot snapshot file
+     * @param journal journal of the venue
+     * @param venue seat tracker of the venue, for its size and layout
+     */
+    synchronized void update(Path snapshot, SeatJournal journal, SeatTracker venue){
+        if(journal.hasPrevious()){
+            // left by a crash, the snapshot on the disk may still be of the previous journal until this one is written
+            journalPosition = journal.read(journalPosition, journal.position(), state);
+        } else {
+            int generation = journal.rotate();
+            journal.readPrevious(journalPosition, state);
+            journalGeneration = generation;
+            journalPosition = 0;
+        }
+        write(snapshot, venue.getRows(), venue.getColumns(), venue.getLayout(), this);
+        journal.dropPrevious();
+    }
+
+    /**
+     * @return the seat holds and reservations of the snapshot, as of the last replay or update
+     */
+    JournalRecovery state(){
+        return state;
+    }
+
+    private static void write(Path snapshot, int rows, int columns, VenueLayout layout, VenueSnapshot venueSnapshot){
+        JournalRecovery state = venueSnapshot.state;
+        byte[] seatStates = new byte[rows * columns];
+        if(layout != null){
+            // no seat past the end of a row, as the seat tracker has it
+            for(int rowNum = 0; rowNum < rows; rowNum++){
+                Arrays.fill(seatStates, rowNum * columns + layout.getRowLength(rowNum), (rowNum + 1) * columns,
+                        SeatStatus.RESERVED.code());
+            }
+        }
+        int size = 0;
+        for (JournalRecovery.RecoveredHold seatHold : state.seatHolds()) {
+            for (int seatIndex : seatHold.seatIndexes) {
+                seatStates[seatIndex] = SeatStatus.HOLD.code();
+            }
+            size += seatHold.encodedSize();
+        }
+        for (Map.Entry<String, JournalRecovery.RecoveredHold> reservation : state.reservations().entrySet()) {
+            for (int seatIndex : reservation.getValue().seatIndexes) {
+                seatStates[seatIndex] = SeatStatus.RESERVED.code();
+            }
+            size += 2 + reservation.getKey().getBytes(StandardCharsets.UTF_8).length + reservation.getValue().encodedSize();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putLong(venueSnapshot.journalPosition)
+                .putInt(state.maxSeatHoldId()).putInt(state.maxReservationId())
+                .putInt(state.seatHolds().size()).putInt(state.reservations().size())
+                .putLong(layout == null ? (long) rows * columns : layout.getNumSeats())
+                .putInt(rowLengthsHash(rows, columns, layout)).putInt(venueSnapshot.journalGeneration);
+        header.clear();
+        ByteBuffer seatHolds = ByteBuffer.allocate(size);
+        for (JournalRecovery.RecoveredHold seatHold : state.seatHolds()) {
+            seatHold.writeTo(seatHolds);
+        }
+        for (Map.Entry<String, JournalRecovery.RecoveredHold> reservation : state.reservations().entrySet()) {
+            byte[] reservationId = reservation.getKey().getBytes(StandardCharsets.UTF_8);
+            seatHolds.putShort((short) reservationId.length).put(reservationId);
+            reservation.getValue().writeTo(seatHolds);
+        }
+        seatHolds.flip();
+
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(seatStates), seatHolds};
+            long remaining = HEADER_SIZE + seatStates.length + size;
+            while(remaining > 0){
+                remaining -= channel.write(buffers);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that a snapshot header is of a venue of the given rows, each row having the same seats, whatever the
+     * sections and tiers they are in.
+     */
+    private static void checkVenue(Path snapshot, ByteBuffer header, int rows, int columns, VenueLayout layout){
+        if(header.getInt(8) != rows || header.getInt(12) != columns
+                || header.getLong(40) != (layout == null ? (long) rows * columns : layout.getNumSeats())
+                || header.getInt(48) != rowLengthsHash(rows, columns, layout)){
+            throw new IllegalStateException(snapshot + " is a snapshot of a venue of " + header.getLong(40)
+                    + " seats in " + header.getInt(8) + " rows of up to " + header.getInt(12) + " seats");
+        }
+    }
+
+    private static int rowLengthsHash(int rows, int columns, VenueLayout layout){
+        int hash = 1;
+        for(int rowNum = 0; rowNum < rows; rowNum++){
+            hash = 31 * hash + (layout == null ? columns : layout.getRowLength(rowNum));
+        }
+        return hash;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException{
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while(header.hasRemaining() && channel.read(header) >= 0){
+            // read the whole header
+        }
+        if(header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION){
+            throw new IllegalStateException("Not a venue snapshot");
+        }
+        return header;
+    }
+}
@@ -0,0 +1,53 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncTicketService is the non blocking variant of {@link TicketService}, the requests are completed later on
+ * and never block the calling thread.
+ */
+public interface AsyncTicketService {
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved
+     *
+     * @return the number of tickets available in the venue
+     */
+    int numSeatsAvailable();
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a future SeatHold object identifying the specific seats and related information, completed with null
+    if the seats couldn't be held
+     */
+    CompletableFuture<SeatHold> findAndHoldSeats(int numSeats, String customerEmail);
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+    seat hold is assigned
+     * @return a future reservation confirmation code, completed with null if the seats couldn't be reserved
+     */
+    CompletableFuture<String> reserveSeats(int seatHoldId, String customerEmail);
+    /**
+     * Release the seats held for a customer before the hold expires
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+    seat hold is assigned
+     * @return a future completed with true if the seats are available again
+     */
+    CompletableFuture<Boolean> releaseHold(int seatHoldId, String customerEmail);
+    /**
+     * Cancel the reservation of a customer
+     *
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer who made the
+    reservation
+     * @return a future completed with true if the seats are available again
+     */
+    CompletableFuture<Boolean> cancelReservation(String reservationId, String customerEmail);
+}
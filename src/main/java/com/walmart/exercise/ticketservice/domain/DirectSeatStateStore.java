@@ -0,0 +1,58 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Seat state store backed by an off-heap direct buffer, one byte per seat.
+ * Keeps the seat states of very large venues out of the java heap and away from the garbage collector.
+ * Bytes can't be compared-and-set, seats are guarded by a fixed set of striped locks instead.
+ */
+public final class DirectSeatStateStore implements SeatStateStore {
+
+    private final ByteBuffer states;
+    private final SeatLocks locks = new SeatLocks();
+
+    public DirectSeatStateStore(int size){
+        // Direct buffers are zeroed on allocation, i.e. every seat starts AVAILABLE.
+        this.states = ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Creates a store over an existing buffer, e.g. a memory mapped venue snapshot, one byte per seat from index 0
+     * up to the buffer capacity.
+     * @param states seat states, holding status codes
+     */
+    public DirectSeatStateStore(ByteBuffer states){
+        this.states = states;
+    }
+
+    @Override
+    public int size() {
+        return states.capacity();
+    }
+
+    @Override
+    public SeatStatus get(int index) {
+        synchronized (locks.of(index)) {
+            return SeatStatus.fromCode(states.get(index));
+        }
+    }
+
+    @Override
+    public void set(int index, SeatStatus status) {
+        synchronized (locks.of(index)) {
+            states.put(index, status.code());
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(int index, SeatStatus expectedStatus, SeatStatus newStatus) {
+        synchronized (locks.of(index)) {
+            if(states.get(index) != expectedStatus.code()){
+                return false;
+            }
+            states.put(index, newStatus.code());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FreeRunIndex tracks the runs of side by side free seats in every row.
+ * Each row keeps a bitmap of its free seats and the length of its longest free run, a segment tree over the rows
+ * keeps the longest run of every range of rows. Finding the first row able to seat a group side by side is a walk
+ * down the tree, O(log rows), and a seat change only recomputes its own row and the tree path above it.
+ * Updates and queries are serialized on the index itself, a query only looks at the rows it needs.
+ */
+final class FreeRunIndex {
+
+    private static final int WORD_BITS = 6;
+
+    private final int rows;
+    private final int columns;
+    private final int wordsPerRow;
+    private final long[] freeBits;
+    private final int leaves;
+    private final int[] longestRun; // segment tree, leaf of row r at leaves + r
+
+    /**
+     * Creates an index with no free seat.
+     * @param rows number of rows
+     * @param columns number of seats per row
+     */
+    FreeRunIndex(int rows, int columns){
+        this.rows = rows;
+        this.columns = columns;
+        this.wordsPerRow = (columns + 63) >>> WORD_BITS;
+        this.freeBits = new long[rows * wordsPerRow];
+        int size = 1;
+        while(size < rows){
+            size <<= 1;
+        }
+        this.leaves = size;
+        this.longestRun = new int[2 * size];
+    }
+
+    /**
+     * Marks a seat free or taken and refreshes the longest run of its row.
+     * @param rowNum row number
+     * @param columnNum column number
+     * @param free true if the seat is free
+     */
+    synchronized void setFree(int rowNum, int columnNum, boolean free){
+        int word = rowNum * wordsPerRow + (columnNum >>> WORD_BITS);
+        if(free){
+            freeBits[word] |= 1L << columnNum;
+        }else{
+            freeBits[word] &= ~(1L << columnNum);
+        }
+        refresh(rowNum);
+    }
+
+    /**
+     * Loads the free seats of the venue in one go, cheaper than setting them one by one.
+     * @param seatStates seat states of the venue, indexed by row * columns + column
+     */
+    synchronized void load(SeatStateStore seatStates){
+        for(int index = 0; index < rows * columns; index++){
+            if(SeatStatus.AVAILABLE.equals(seatStates.get(index))){
+                int columnNum = index % columns;
+                freeBits[(index / columns) * wordsPerRow + (columnNum >>> WORD_BITS)] |= 1L << columnNum;
+            }
+        }
+        for(int rowNum = 0; rowNum < rows; rowNum++){
+            refresh(rowNum);
+        }
+    }
+
+    /**
+     * @return the longest free run of the venue
+     */
+    synchronized int longestRun(){
+        return longestRun[1];
+    }
+
+    /**
+     * @param rowNum row number
+     * @return the longest free run of a row
+     */
+    synchronized int longestRun(int rowNum){
+        return longestRun[leaves + rowNum];
+    }
+
+    /**
+     * Finds the lowest row having a free run of at least a given length.
+     * @param length run length
+     * @return row number or -1 if no row has such a run
+     */
+    synchronized int firstRowWithRun(int length){
+        if(length <= 0 || longestRun[1] < length){
+            return -1;
+        }
+        int node = 1;
+        while(node < leaves){
+            node = longestRun[2 * node] >= length ? 2 * node : 2 * node + 1;
+        }
+        return node - leaves;
+    }
+
+    /**
+     * Finds the lowest row of a range of rows having a free run of at least a given length.
+     * @param length run length
+     * @param fromRow first row of the range
+     * @param toRow row after the last row of the range
+     * @return row number or -1 if no row of the range has such a run
+     */
+    synchronized int firstRowWithRun(int length, int fromRow, int toRow){
+        if(length <= 0){
+            return -1;
+        }
+        return firstRowWithRun(1, 0, leaves, length, fromRow, toRow);
+    }
+
+    private int firstRowWithRun(int node, int low, int high, int length, int fromRow, int toRow){
+        if(high <= fromRow || low >= toRow || longestRun[node] < length){
+            return -1;
+        }
+        if(node >= leaves){
+            return low;
+        }
+        int mid = (low + high) >>> 1;
+        int rowNum = firstRowWithRun(2 * node, low, mid, length, fromRow, toRow);
+        return rowNum >= 0 ? rowNum : firstRowWithRun(2 * node + 1, mid, high, length, fromRow, toRow);
+    }
+
+    /**
+     * Lists the free runs of a row from the lowest column to the highest.
+     * @param rowNum row number
+     * @return free runs of the row
+     */
+    synchronized List<SeatBlock> runs(int rowNum){
+        List<SeatBlock> runs = new ArrayList<>();
+        for(int start = nextFree(rowNum, 0); start >= 0; ){
+            int end = nextTaken(rowNum, start);
+            runs.add(new SeatBlock(rowNum, start, end - start));
+            start = nextFree(rowNum, end);
+        }
+        return runs;
+    }
+
+    private void refresh(int rowNum){
+        int longest = 0;
+        for(int start = nextFree(rowNum, 0); start >= 0; ){
+            int end = nextTaken(rowNum, start);
+            longest = Math.max(longest, end - start);
+            start = nextFree(rowNum, end);
+        }
+        int node = leaves + rowNum;
+        longestRun[node] = longest;
+        for(node >>>= 1; node >= 1; node >>>= 1){
+            longestRun[node] = Math.max(longestRun[2 * node], longestRun[2 * node + 1]);
+        }
+    }
+
+    private int nextFree(int rowNum, int fromColumn){
+        if(fromColumn >= columns){
+            return -1;
+        }
+        int base = rowNum * wordsPerRow;
+        int wordIndex = fromColumn >>> WORD_BITS;
+        long word = freeBits[base + wordIndex] & (-1L << fromColumn);
+        while(word == 0){
+            if(++wordIndex == wordsPerRow){
+                return -1;
+            }
+            word = freeBits[base + wordIndex];
+        }
+        return (wordIndex << WORD_BITS) + Long.numberOfTrailingZeros(word);
+    }
+
+    private int nextTaken(int rowNum, int fromColumn){
+        int base = rowNum * wordsPerRow;
+        int wordIndex = fromColumn >>> WORD_BITS;
+        long word = ~freeBits[base + wordIndex] & (-1L << fromColumn);
+        while(word == 0){
+            if(++wordIndex == wordsPerRow){
+                return columns;
+            }
+            word = ~freeBits[base + wordIndex];
+        }
+        // bits past the last column are never free, a run always ends by the end of its row
+        return Math.min(columns, (wordIndex << WORD_BITS) + Long.numberOfTrailingZeros(word));
+    }
+}
@@ -0,0 +1,121 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * FreeSeatIndex is an ordered set of free seat positions kept as a hierarchical bitmap.
+ * The bottom level has a bit per seat, every upper level has a bit per word of the level below telling whether
+ * that word may have a free seat, up to a single summary word. Finding the next free seat from a position walks up
+ * and down the levels, so the next k free seats are found in O(k + log N) instead of scanning the venue.
+ *
+ * The index is lock free. Words are updated with atomic bit operations and a summary bit is never left clear
+ * while its word has a free seat; it may be left set for an empty word for a while, which searches skip.
+ * The seat state store stays the source of truth, the index tells where to look for free seats.
+ */
+final class FreeSeatIndex {
+
+    private static final int WORD_BITS = 6;
+
+    private final int size;
+    private final AtomicLongArray[] levels;
+
+    /**
+     * Creates an empty index.
+     * @param size number of seat positions
+     */
+    FreeSeatIndex(int size){
+        this.size = size;
+        int depth = 1;
+        for(int words = wordCount(size); words > 1; words = wordCount(words)){
+            depth++;
+        }
+        levels = new AtomicLongArray[depth];
+        int bits = size;
+        for(int level = 0; level < depth; level++){
+            levels[level] = new AtomicLongArray(wordCount(bits));
+            bits = levels[level].length();
+        }
+    }
+
+    /**
+     * Marks a seat position as free.
+     * @param position seat position
+     */
+    void add(int position){
+        add(0, position);
+    }
+
+    /**
+     * Marks a seat position as taken.
+     * @param position seat position
+     */
+    void remove(int position){
+        remove(0, position);
+    }
+
+    private void add(int level, int position){
+        int wordIndex = position >>> WORD_BITS;
+        long before = levels[level].getAndAccumulate(wordIndex, 1L << position, (word, bit) -> word | bit);
+        if(before == 0 && level + 1 < levels.length){
+            add(level + 1, wordIndex); // the word just got its first free seat, tell the level above
+        }
+    }
+
+    private void remove(int level, int position){
+        AtomicLongArray words = levels[level];
+        int wordIndex = position >>> WORD_BITS;
+        long after = words.accumulateAndGet(wordIndex, ~(1L << position), (word, mask) -> word & mask);
+        if(after == 0 && level + 1 < levels.length){
+            remove(level + 1, wordIndex);
+            // a seat freed meanwhile may have found the summary bit still set and left it alone, check again
+            if(words.get(wordIndex) != 0){
+                add(level + 1, wordIndex);
+            }
+        }
+    }
+
+    /**
+     * @param position seat position
+     * @return true if the seat position is marked free
+     */
+    boolean contains(int position){
+        return (levels[0].get(position >>> WORD_BITS) & (1L << position)) != 0;
+    }
+
+    /**
+     * Finds the first free seat position at or after a given position.
+     * @param from position to search from (inclusive)
+     * @return free seat position or -1 if there is none
+     */
+    int next(int from){
+        if(from < 0 || from >= size){
+            return -1;
+        }
+        return next(0, from);
+    }
+
+    private int next(int level, int from){
+        AtomicLongArray words = levels[level];
+        int wordIndex = from >>> WORD_BITS;
+        if(wordIndex >= words.length()){
+            return -1;
+        }
+        long word = words.get(wordIndex) & (-1L << from);
+        while(word == 0){
+            if(level + 1 == levels.length){
+                return -1;
+            }
+            // ask the level above for the next word which may have a free seat
+            wordIndex = next(level + 1, wordIndex + 1);
+            if(wordIndex < 0){
+                return -1;
+            }
+            word = words.get(wordIndex);
+        }
+        return (wordIndex << WORD_BITS) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int wordCount(int bits){
+        return (bits + 63) >>> WORD_BITS;
+    }
+}
@@ -0,0 +1,47 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * Seat state store backed by a byte array, one byte per seat.
+ * Bytes can't be compared-and-set, seats are guarded by a fixed set of striped locks instead.
+ * {@link PackedSeatStateStore} is the lock free alternative.
+ */
+public final class HeapSeatStateStore implements SeatStateStore {
+
+    private final byte[] states;
+    private final SeatLocks locks = new SeatLocks();
+
+    public HeapSeatStateStore(int size){
+        // A new array is zeroed, i.e. every seat starts AVAILABLE.
+        this.states = new byte[size];
+    }
+
+    @Override
+    public int size() {
+        return states.length;
+    }
+
+    @Override
+    public SeatStatus get(int index) {
+        synchronized (locks.of(index)) {
+            return SeatStatus.fromCode(states[index]);
+        }
+    }
+
+    @Override
+    public void set(int index, SeatStatus status) {
+        synchronized (locks.of(index)) {
+            states[index] = status.code();
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(int index, SeatStatus expectedStatus, SeatStatus newStatus) {
+        synchronized (locks.of(index)) {
+            if(states[index] != expectedStatus.code()){
+                return false;
+            }
+            states[index] = newStatus.code();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * HoldRequest is a request to find and hold seats for a customer, as sent in a batch.
+ */
+public final class HoldRequest {
+
+    private final int numSeats;
+    private final String customerEmail;
+
+    public HoldRequest(int numSeats, String customerEmail){
+        this.numSeats = numSeats;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getNumSeats() {
+        return numSeats;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+}
@@ -0,0 +1,69 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Seat state store packing 2 bits per seat, 16 seats per int, in an atomic int array.
+ * A status change is a compare-and-set on the word holding the seat, no lock is ever taken.
+ */
+public final class PackedSeatStateStore implements SeatStateStore {
+
+    private static final int SEATS_PER_WORD_SHIFT = 4;
+    private static final int SEAT_MASK = 0b11;
+
+    private final int size;
+    private final AtomicIntegerArray words;
+
+    public PackedSeatStateStore(int size){
+        this.size = size;
+        // A new array is zeroed, i.e. every seat starts AVAILABLE.
+        this.words = new AtomicIntegerArray((size + 15) >>> SEATS_PER_WORD_SHIFT);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SeatStatus get(int index) {
+        return SeatStatus.fromCode((words.get(wordOf(index)) >>> shiftOf(index)) & SEAT_MASK);
+    }
+
+    @Override
+    public void set(int index, SeatStatus status) {
+        int word = wordOf(index);
+        int shift = shiftOf(index);
+        int current;
+        do {
+            current = words.get(word);
+        } while(!words.compareAndSet(word, current, (current & ~(SEAT_MASK << shift)) | (status.code() << shift)));
+    }
+
+    @Override
+    public boolean compareAndSet(int index, SeatStatus expectedStatus, SeatStatus newStatus) {
+        int word = wordOf(index);
+        int shift = shiftOf(index);
+        while(true){
+            int current = words.get(word);
+            if(((current >>> shift) & SEAT_MASK) != expectedStatus.code()){
+                return false;
+            }
+            // a failed compare-and-set here means a neighbour seat of the same word changed, try again
+            if(words.compareAndSet(word, current, (current & ~(SEAT_MASK << shift)) | (newStatus.code() << shift))){
+                return true;
+            }
+        }
+    }
+
+    private int wordOf(int index){
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Seat index "+index+" out of "+size);
+        }
+        return index >>> SEATS_PER_WORD_SHIFT;
+    }
+
+    private static int shiftOf(int index){
+        return (index & 15) << 1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * Reservation is a seat hold committed for its customer, with its confirmation code.
+ */
+public final class Reservation {
+
+    private final String reservationId;
+    private final SeatHold seatHold;
+
+    public Reservation(String reservationId, SeatHold seatHold){
+        this.reservationId = reservationId;
+        this.seatHold = seatHold;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public SeatHold getSeatHold() {
+        return seatHold;
+    }
+}
@@ -0,0 +1,23 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * ReserveRequest is a request to commit the seats held for a customer, as sent in a batch.
+ */
+public final class ReserveRequest {
+
+    private final int seatHoldId;
+    private final String customerEmail;
+
+    public ReserveRequest(int seatHoldId, String customerEmail){
+        this.seatHoldId = seatHoldId;
+        this.customerEmail = customerEmail;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+}
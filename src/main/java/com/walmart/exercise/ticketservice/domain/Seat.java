@@ -1,48 +1,75 @@
-package com.walmart.exercise.ticketservice.domain;
-
-/**
- * Seat has a location row number and column number which uniquely identifies a seat.
- * At a given time, the seat will have one status.
- */
-public final class Seat {
-
-    private final String id;
-    private final int rowNum;
-    private final int columnNum;
-    private SeatStatus status;
-
-    public Seat(int rowNum,int columnNum){
-        this.rowNum = rowNum;
-        this.columnNum = columnNum;
-        // The seat ID can be used to uniquely identify a seat on multiple floors without a breaking change.
-        this.id = this.rowNum + "-" + this.columnNum;
-        // Mark the seat as available on seat creation.
-        status = SeatStatus.AVAILABLE;
-    }
-
-    public Seat(Seat seat){
-        this.rowNum = seat.rowNum;
-        this.columnNum = seat.columnNum;
-        this.id = seat.id;
-        this.status = seat.status;
-    }
-
-    public String getId(){return this.id;}
-
-    public int getRowNum() {
-        return rowNum;
-    }
-
-    public int getColumnNum() {
-        return columnNum;
-    }
-
-    public SeatStatus getStatus() {
-        return status;
-    }
-
-    public void setStatus(SeatStatus status) {
-        this.status = status;
-    }
-
-}
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * Seat has a location row number and column number which uniquely identifies a seat.
+ * At a given time, the seat will have one status.
+ */
+public final class Seat {
+
+    private final String id;
+    private final int rowNum;
+    private final int columnNum;
+    private SeatStatus status;
+
+    public Seat(int rowNum,int columnNum){
+        this.rowNum = rowNum;
+        this.columnNum = columnNum;
+        // The seat ID can be used to uniquely identify a seat on multiple floors without a breaking change.
+        this.id = this.rowNum + "-" + this.columnNum;
+        // Mark the seat as available on seat creation.
+        status = SeatStatus.AVAILABLE;
+    }
+
+    /**
+     * Creates a seat view for a seat location with a known status.
+     * @param rowNum row number
+     * @param columnNum column number
+     * @param status current seat status
+     */
+    public Seat(int rowNum,int columnNum,SeatStatus status){
+        this(rowNum,columnNum);
+        this.status = status;
+    }
+
+    public Seat(Seat seat){
+        this.rowNum = seat.rowNum;
+        this.columnNum = seat.columnNum;
+        this.id = seat.id;
+        this.status = seat.status;
+    }
+
+    public String getId(){return this.id;}
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public int getColumnNum() {
+        return columnNum;
+    }
+
+    public SeatStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SeatStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Seats are equal when at the same location, whatever their status.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Seat)) return false;
+        Seat seat = (Seat) o;
+        return rowNum == seat.rowNum && columnNum == seat.columnNum;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * rowNum + columnNum;
+    }
+
+}
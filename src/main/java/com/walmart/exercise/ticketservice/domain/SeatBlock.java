@@ -0,0 +1,34 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * SeatBlock is a run of side by side seats in a row.
+ */
+public final class SeatBlock {
+
+    private final int rowNum;
+    private final int firstColumnNum;
+    private final int length;
+
+    public SeatBlock(int rowNum, int firstColumnNum, int length){
+        this.rowNum = rowNum;
+        this.firstColumnNum = firstColumnNum;
+        this.length = length;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public int getFirstColumnNum() {
+        return firstColumnNum;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "SeatBlock{" + rowNum + "-" + firstColumnNum + " x" + length + '}';
+    }
+}
@@ -0,0 +1,51 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * SeatCounts is a snapshot of the number of seats in each status.
+ */
+public final class SeatCounts {
+
+    private final long available;
+    private final long held;
+    private final long reserved;
+
+    public SeatCounts(long available, long held, long reserved){
+        this.available = available;
+        this.held = held;
+        this.reserved = reserved;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public long getHeld() {
+        return held;
+    }
+
+    public long getReserved() {
+        return reserved;
+    }
+
+    public long getTotal(){
+        return available + held + reserved;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SeatCounts)) return false;
+        SeatCounts that = (SeatCounts) o;
+        return available == that.available && held == that.held && reserved == that.reserved;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(available) * 31 * 31 + Long.hashCode(held) * 31 + Long.hashCode(reserved);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatCounts{available=" + available + ", held=" + held + ", reserved=" + reserved + '}';
+    }
+}
@@ -1,48 +1,209 @@
-package com.walmart.exercise.ticketservice.domain;
-
-import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-
-/**
- * SeatHold is a list of seat(s), seat hold ID and the customer information for which a customer has a hold or reservation.
- */
-public class SeatHold {
-
-    private final int seatHoldId;
-    private final List<Seat> holdSeats;
-    private final String customerEmail;
-    private final LocalDateTime createdDateTime;
-
-    /**
-     * Creates a SeatHold object. Set the seat hold create date time to current date time.
-     *
-     * @param id
-     * @param customerEmail
-     * @param seats
-     */
-    public SeatHold(int id, String customerEmail, List<Seat> seats){
-        this.seatHoldId = id;
-        this.customerEmail = customerEmail;
-        this.holdSeats = seats;
-        this.createdDateTime = LocalDateTime.now();
-    }
-
-    public int getSeatHoldId() {
-        return seatHoldId;
-    }
-
-    public Collection<Seat> getHoldSeats() {
-        return Collections.unmodifiableCollection(holdSeats);
-    }
-
-    public String getCustomerEmail() {
-        return customerEmail;
-    }
-
-    public LocalDateTime getCreatedDateTime(){
-        return LocalDateTime.from(createdDateTime);
-    }
-
-}
+package com.walmart.exercise.ticketservice.domain;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SeatHold is a list of seat(s), seat hold ID and the customer information for which a customer has a hold or reservation.
+ * The seats are kept as seat indexes, row * columns + column, and handed out as seat views built on demand, so a
+ * seat hold is three small objects whatever the number of seats. The seat views of a hold made on a venue read the
+ * current status of their seat from it; those of a hold detached from its venue, e.g. received by a client, report
+ * the seats as held.
+ */
+public class SeatHold {
+
+    private final int seatHoldId;
+    private final String customerEmail;
+    private final int[] seatIndexes;
+    private final int columns;
+    private final SeatTracker seatTracker; // null for a hold detached from its venue
+    private final long createdMillis;
+    private final long deadlineNanos;
+    private Collection<Seat> holdSeats; // view created on first use, racing threads create equal views
+
+    /**
+     * Creates a SeatHold object. Set the seat hold create date time to current date time.
+     * Without the venue at hand, the seats are laid out on the narrowest grid holding them and the hold has no
+     * deadline of its own, its deadline is its creation time; see
+     * {@link #SeatHold(int, String, List, int, long)} for a hold of a known venue.
+     *
+     * @param id
+     * @param customerEmail
+     * @param seats
+     */
+    public SeatHold(int id, String customerEmail, List<Seat> seats){
+        this(id, customerEmail, seats, columnsOf(seats), System.nanoTime());
+    }
+
+    /**
+     * Creates a SeatHold of seats listed by location, detached from their venue.
+     *
+     * @param id seat hold identifier
+     * @param customerEmail the email address of the customer the seats are held for
+     * @param seats seats held
+     * @param columns number of columns of the venue, greater than the column of every seat
+     * @param deadlineNanos {@link System#nanoTime()} at which the hold expires
+     */
+    public SeatHold(int id, String customerEmail, List<Seat> seats, int columns, long deadlineNanos){
+        this(id, customerEmail, seatIndexes(seats, columns), columns, null, deadlineNanos);
+    }
+
+    /**
+     * Creates a SeatHold of the seats at the given indexes, detached from their venue. The array is kept as is and
+     * is not to be changed anymore.
+     *
+     * @param id seat hold identifier
+     * @param customerEmail the email address of the customer the seats are held for
+     * @param seatIndexes seat indexes, row * columns + column
+     * @param columns number of columns the seat indexes are computed with
+     * @param deadlineNanos {@link System#nanoTime()} at which the hold expires
+     */
+    public SeatHold(int id, String customerEmail, int[] seatIndexes, int columns, long deadlineNanos){
+        this(id, customerEmail, seatIndexes, columns, null, deadlineNanos);
+    }
+
+    /**
+     * Creates a SeatHold of the seats of a venue at the given indexes, its seat views reading the current status of
+     * their seat from the venue. The array is kept as is and is not to be changed anymore.
+     *
+     * @param id seat hold identifier
+     * @param customerEmail the email address of the customer the seats are held for
+     * @param seatIndexes seat indexes in the venue
+     * @param seatTracker venue of the seats
+     * @param deadlineNanos {@link System#nanoTime()} at which the hold expires
+     */
+    public SeatHold(int id, String customerEmail, int[] seatIndexes, SeatTracker seatTracker, long deadlineNanos){
+        this(id, customerEmail, seatIndexes, seatTracker.getColumns(), seatTracker, deadlineNanos);
+    }
+
+    private SeatHold(int id, String customerEmail, int[] seatIndexes, int columns, SeatTracker seatTracker,
+                     long deadlineNanos){
+        this.seatHoldId = id;
+        this.customerEmail = customerEmail;
+        this.seatIndexes = seatIndexes;
+        this.columns = columns;
+        this.seatTracker = seatTracker;
+        this.createdMillis = System.currentTimeMillis();
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public int getSeatHoldId() {
+        return seatHoldId;
+    }
+
+    /**
+     * @return read only view of the held seats, each seat built when read, with the current status of the seat if
+     * the hold was made on a venue, held otherwise
+     */
+    public Collection<Seat> getHoldSeats() {
+        Collection<Seat> seats = holdSeats;
+        if(seats == null){
+            seats = new SeatView();
+            holdSeats = seats;
+        }
+        return seats;
+    }
+
+    /**
+     * @return number of seats held
+     */
+    public int getNumSeats() {
+        return seatIndexes.length;
+    }
+
+    /**
+     * @return number of columns the seat indexes of the hold are computed with, the venue's for a hold of a venue
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the index of a held seat in a venue.
+     * @param i position of the seat in the hold
+     * @param venueColumns number of columns of the venue
+     * @return seat index, row * venueColumns + column
+     */
+    public int getSeatIndex(int i, int venueColumns) {
+        int seatIndex = seatIndexes[i];
+        return venueColumns == columns ? seatIndex : seatIndex / columns * venueColumns + seatIndex % columns;
+    }
+
+    /**
+     * @param i position of the seat in the hold
+     * @return row number of the seat
+     */
+    public int getSeatRow(int i) {
+        return seatIndexes[i] / columns;
+    }
+
+    /**
+     * @param i position of the seat in the hold
+     * @return column number of the seat
+     */
+    public int getSeatColumn(int i) {
+        return seatIndexes[i] % columns;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public LocalDateTime getCreatedDateTime(){
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(createdMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which the hold expires
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Seat indexes of the hold, only to be read.
+     */
+    int[] seatIndexes(){
+        return seatIndexes;
+    }
+
+    int columns(){
+        return columns;
+    }
+
+    private static int columnsOf(List<Seat> seats){
+        int columns = 1;
+        for (Seat seat : seats) {
+            columns = Math.max(columns, seat.getColumnNum() + 1);
+        }
+        return columns;
+    }
+
+    private static int[] seatIndexes(List<Seat> seats, int columns){
+        int[] seatIndexes = new int[seats.size()];
+        int i = 0;
+        for (Seat seat : seats) {
+            seatIndexes[i++] = seat.getRowNum() * columns + seat.getColumnNum();
+        }
+        return seatIndexes;
+    }
+
+    private final class SeatView extends AbstractList<Seat> {
+
+        @Override
+        public Seat get(int index) {
+            int seatIndex = seatIndexes[index];
+            return new Seat(seatIndex / columns, seatIndex % columns,
+                    seatTracker == null ? SeatStatus.HOLD : seatTracker.statusAt(seatIndex));
+        }
+
+        @Override
+        public int size() {
+            return seatIndexes.length;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * Fixed set of locks striped over the seat indexes, for seat state stores which can't compare-and-set.
+ * Neighbour seats map to different locks, so the seats of a hold rarely share one.
+ */
+final class SeatLocks {
+
+    private static final int STRIPES = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+
+    SeatLocks(){
+        for(int i = 0; i < STRIPES; i++){
+            locks[i] = new Object();
+        }
+    }
+
+    Object of(int index){
+        return locks[index & (STRIPES - 1)];
+    }
+}
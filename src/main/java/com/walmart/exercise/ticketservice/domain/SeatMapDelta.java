@@ -0,0 +1,69 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SeatMapDelta is a batch of seat status changes of a venue, as ranges of consecutive seats (by seat index
+ * row * columns + column) now having the same status. The status is the one of the seat when the batch was made,
+ * not the change itself, so applying a delta again or over a newer snapshot is harmless.
+ * Encoded as [long version][int range count] followed by [int first seat index][int length][byte status code] per
+ * range.
+ */
+public final class SeatMapDelta {
+
+    private static final int HEADER_SIZE = 12;
+    private static final int RANGE_SIZE = 9;
+
+    private final ByteBuffer encoded;
+
+    private SeatMapDelta(ByteBuffer encoded){
+        this.encoded = encoded.asReadOnlyBuffer();
+    }
+
+    /**
+     * Encodes the ranges of a batch, once for all the subscribers.
+     */
+    static SeatMapDelta encode(long version, int[] firstSeats, int[] lengths, byte[] statusCodes, int rangeCount){
+        ByteBuffer encoded = ByteBuffer.allocate(HEADER_SIZE + rangeCount * RANGE_SIZE);
+        encoded.putLong(version).putInt(rangeCount);
+        for(int i = 0; i < rangeCount; i++){
+            encoded.putInt(firstSeats[i]).putInt(lengths[i]).put(statusCodes[i]);
+        }
+        encoded.flip();
+        return new SeatMapDelta(encoded);
+    }
+
+    /**
+     * @return version of the seat map once the delta is applied, one more than the previous delta
+     */
+    public long getVersion() {
+        return encoded.getLong(0);
+    }
+
+    public int getRangeCount() {
+        return encoded.getInt(8);
+    }
+
+    /**
+     * @param range range number
+     * @return seat index, row * columns + column, of the first seat of the range
+     */
+    public int getFirstSeat(int range) {
+        return encoded.getInt(HEADER_SIZE + range * RANGE_SIZE);
+    }
+
+    public int getLength(int range) {
+        return encoded.getInt(HEADER_SIZE + range * RANGE_SIZE + 4);
+    }
+
+    public SeatStatus getStatus(int range) {
+        return SeatStatus.fromCode(encoded.get(HEADER_SIZE + range * RANGE_SIZE + 8));
+    }
+
+    /**
+     * @return the encoded delta, read only, shared with the other subscribers
+     */
+    public ByteBuffer encoded(){
+        return encoded.duplicate();
+    }
+}
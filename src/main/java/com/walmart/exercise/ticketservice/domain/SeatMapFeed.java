@@ -0,0 +1,202 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SeatMapFeed streams the seat map of a venue to its subscribers: a subscriber gets a {@link SeatMapSnapshot} of the
+ * availability of every seat, then a {@link SeatMapDelta} per batch of changes made since.
+ *
+ * A status change only flags the seat in a bitmap of changed seats, a second bitmap flagging the words of the first
+ * one having a flag. Every coalescing interval the feed thread clears the flags, reads the current status of the
+ * flagged seats and encodes them as ranges in one delta pushed to all the subscribers, however many times the seats
+ * changed meanwhile. The snapshot is encoded once per version too, whatever the number of subscribers.
+ */
+public final class SeatMapFeed implements AutoCloseable {
+
+    private final SeatTracker seatTracker;
+    private final long coalesceNanos;
+    private final AtomicLongArray changedSeats;
+    private final AtomicLongArray changedWords;
+    private final List<SeatMapSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread publisher;
+    // taken by the publishing thread while it pushes a delta, so the deltas are pushed in version order
+    private final Object pushLock = new Object();
+    private volatile boolean running = true;
+
+    // guarded by this
+    private long version;
+    private SeatMapSnapshot snapshot;
+    private int[] firstSeats = new int[64];
+    private int[] lengths = new int[64];
+    private byte[] statusCodes = new byte[64];
+
+    SeatMapFeed(SeatTracker seatTracker, long coalesceMillis){
+        this.seatTracker = seatTracker;
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, coalesceMillis));
+        int words = (seatTracker.numSeatIndexes() + 63) >>> 6;
+        changedSeats = new AtomicLongArray(words);
+        changedWords = new AtomicLongArray((words + 63) >>> 6);
+        publisher = new Thread(this::run, "seat-map-feed");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    /**
+     * Subscribes to the changes made after the returned snapshot.
+     * @param subscriber subscriber pushed the deltas
+     * @return the seat map the deltas apply to
+     */
+    public synchronized SeatMapSnapshot subscribe(SeatMapSubscriber subscriber){
+        if(snapshot == null){
+            snapshot = encodeSnapshot();
+        }
+        subscribers.add(subscriber);
+        return snapshot;
+    }
+
+    public void unsubscribe(SeatMapSubscriber subscriber){
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return version of the last delta pushed
+     */
+    public synchronized long getVersion(){
+        return version;
+    }
+
+    /**
+     * Stops the feed thread and detaches the feed from the seat tracker. Waits for the feed thread to stop, unless
+     * interrupted.
+     */
+    @Override
+    public void close(){
+        running = false;
+        seatTracker.closeSeatMapFeed(this);
+        LockSupport.unpark(publisher);
+        try {
+            publisher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flags a seat whose status changed, called after the change by the thread making it.
+     * @param index seat index
+     */
+    void seatChanged(int index){
+        // a flag still set is cleared after this change by the feed thread, which then reads the new status
+        if(setBit(changedSeats, index >>> 6, 1L << index)){
+            setBit(changedWords, index >>> 12, 1L << (index >>> 6));
+        }
+    }
+
+    /**
+     * Pushes the changes flagged since the previous delta, if any. The subscribers are called outside of the lock of
+     * the feed, a slow subscriber doesn't hold back a subscription.
+     */
+    void publish(){
+        synchronized (pushLock) {
+            SeatMapDelta delta;
+            SeatMapSubscriber[] recipients;
+            synchronized (this) {
+                delta = collectDelta();
+                if(delta == null){
+                    return;
+                }
+                // a subscriber added from now on gets a snapshot including the delta
+                recipients = subscribers.toArray(new SeatMapSubscriber[0]);
+            }
+            for (SeatMapSubscriber subscriber : recipients) {
+                try {
+                    subscriber.onChange(delta);
+                } catch (RuntimeException e) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a delta of the changes flagged since the previous one, null if none
+     */
+    private SeatMapDelta collectDelta(){
+        int rangeCount = 0;
+        for(int summary = 0; summary < changedWords.length(); summary++){
+            long words = changedWords.getAndSet(summary, 0);
+            while(words != 0){
+                int word = (summary << 6) + Long.numberOfTrailingZeros(words);
+                words &= words - 1;
+                long seats = changedSeats.getAndSet(word, 0);
+                while(seats != 0){
+                    int index = (word << 6) + Long.numberOfTrailingZeros(seats);
+                    seats &= seats - 1;
+                    byte statusCode = seatTracker.statusAt(index).code();
+                    if(rangeCount > 0 && firstSeats[rangeCount - 1] + lengths[rangeCount - 1] == index
+                            && statusCodes[rangeCount - 1] == statusCode){
+                        lengths[rangeCount - 1]++;
+                        continue;
+                    }
+                    if(rangeCount == firstSeats.length){
+                        firstSeats = Arrays.copyOf(firstSeats, rangeCount * 2);
+                        lengths = Arrays.copyOf(lengths, rangeCount * 2);
+                        statusCodes = Arrays.copyOf(statusCodes, rangeCount * 2);
+                    }
+                    firstSeats[rangeCount] = index;
+                    lengths[rangeCount] = 1;
+                    statusCodes[rangeCount++] = statusCode;
+                }
+            }
+        }
+        if(rangeCount == 0){
+            return null;
+        }
+        snapshot = null;
+        return SeatMapDelta.encode(++version, firstSeats, lengths, statusCodes, rangeCount);
+    }
+
+    private SeatMapSnapshot encodeSnapshot(){
+        int numSeats = seatTracker.numSeatIndexes();
+        ByteBuffer encoded = ByteBuffer.allocate(SeatMapSnapshot.HEADER_SIZE + ((numSeats + 7) >>> 3));
+        encoded.putLong(version).putInt(seatTracker.getRows()).putInt(seatTracker.getColumns());
+        for(int index = 0; index < numSeats; index += 8){
+            int bits = 0;
+            for(int bit = 0; bit < 8 && index + bit < numSeats; bit++){
+                if(SeatStatus.AVAILABLE.equals(seatTracker.statusAt(index + bit))){
+                    bits |= 1 << bit;
+                }
+            }
+            encoded.put((byte) bits);
+        }
+        encoded.flip();
+        return new SeatMapSnapshot(encoded);
+    }
+
+    private void run(){
+        while(running){
+            LockSupport.parkNanos(coalesceNanos);
+            publish();
+        }
+    }
+
+    /**
+     * @return true if the bit was set by this call, false if it already was
+     */
+    private static boolean setBit(AtomicLongArray bitmap, int word, long bit){
+        long current;
+        do {
+            current = bitmap.get(word);
+            if((current & bit) != 0){
+                return false;
+            }
+        } while(!bitmap.compareAndSet(word, current, current | bit));
+        return true;
+    }
+}
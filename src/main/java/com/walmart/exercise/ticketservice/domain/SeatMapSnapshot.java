@@ -0,0 +1,48 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SeatMapSnapshot is the availability of every seat of a venue at a version of its {@link SeatMapFeed}, encoded as
+ * [long version][int rows][int columns] followed by a bitmap of one bit per seat, set for an available seat, seat
+ * index row * columns + column being bit index % 8 of byte index / 8.
+ */
+public final class SeatMapSnapshot {
+
+    static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer encoded;
+
+    SeatMapSnapshot(ByteBuffer encoded){
+        this.encoded = encoded.asReadOnlyBuffer();
+    }
+
+    public long getVersion() {
+        return encoded.getLong(0);
+    }
+
+    public int getRows() {
+        return encoded.getInt(8);
+    }
+
+    public int getColumns() {
+        return encoded.getInt(12);
+    }
+
+    /**
+     * @param rowNum row number
+     * @param columnNum column number
+     * @return true if the seat was available at the version of the snapshot
+     */
+    public boolean isAvailable(int rowNum, int columnNum){
+        int index = rowNum * getColumns() + columnNum;
+        return (encoded.get(HEADER_SIZE + (index >>> 3)) & (1 << (index & 7))) != 0;
+    }
+
+    /**
+     * @return the encoded snapshot, read only, shared with the other subscribers
+     */
+    public ByteBuffer encoded(){
+        return encoded.duplicate();
+    }
+}
@@ -0,0 +1,14 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * SeatMapSubscriber is pushed the changes of the seat map of a venue, see {@link SeatMapFeed}.
+ */
+public interface SeatMapSubscriber {
+
+    /**
+     * Called on the feed thread for every batch of changes, in version order. The delta is shared by all the
+     * subscribers and must not be held up: a subscriber throwing is unsubscribed.
+     * @param delta seats whose status changed since the previous version
+     */
+    void onChange(SeatMapDelta delta);
+}
@@ -0,0 +1,41 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SeatPartition is a range of rows of the venue with its own free seat index and available seat count,
+ * so the partitions of a venue can be searched and held from independently. The seats are laid out in the free seat
+ * index from best to worst: in row and column order, or in the rank order of the seat scorer of the venue.
+ */
+final class SeatPartition {
+
+    final int firstRow;
+    final int endRow;
+    final int firstIndex;
+    final FreeSeatIndex freeSeats;
+    // seat index of every free seat index position, in seat rank order; null for row and column order
+    final int[] seatOfPosition;
+    final LongAdder availableSeats = new LongAdder();
+
+    /**
+     * @param firstRow first row of the partition
+     * @param endRow row after the last row of the partition
+     * @param columns number of seats per row
+     * @param ranked true if the seats are laid out in the free seat index in seat rank order, filled by the caller
+     */
+    SeatPartition(int firstRow, int endRow, int columns, boolean ranked){
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+        this.firstIndex = firstRow * columns;
+        this.freeSeats = new FreeSeatIndex((endRow - firstRow) * columns);
+        this.seatOfPosition = ranked ? new int[(endRow - firstRow) * columns] : null;
+    }
+
+    /**
+     * @param position position in the free seat index
+     * @return seat index of the position
+     */
+    int seatIndex(int position){
+        return seatOfPosition == null ? firstIndex + position : seatOfPosition[position];
+    }
+}
@@ -0,0 +1,31 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * SeatScorer tells how good a seat is, the best available seats being the ones with the highest score.
+ * A venue scores its seats once, when the seat tracker is built, and keeps them ranked from then on, so the scoring
+ * may be as costly as needed. Seats with the same score are ranked in row and column order.
+ */
+public interface SeatScorer {
+
+    /**
+     * Ranks the seats in row and column order, from best (row 0, column 0) to worst (rowMax, columnMax).
+     */
+    SeatScorer ROW_MAJOR = (rowNum, columnNum, rows, columns) -> 0;
+
+    /**
+     * Ranks the seats by distance from the centre of the stage, in front of row 0 halfway along the row.
+     */
+    SeatScorer STAGE_CENTRE = (rowNum, columnNum, rows, columns) -> {
+        double offset = columnNum - (columns - 1) / 2.0;
+        return -Math.sqrt((rowNum + 1.0) * (rowNum + 1.0) + offset * offset);
+    };
+
+    /**
+     * @param rowNum row of the seat
+     * @param columnNum column of the seat
+     * @param rows number of rows of the venue
+     * @param columns number of seats per row
+     * @return score of the seat, higher is better
+     */
+    double score(int rowNum, int columnNum, int rows, int columns);
+}
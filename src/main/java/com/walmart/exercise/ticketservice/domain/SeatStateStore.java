@@ -0,0 +1,37 @@
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * SeatStateStore keeps the status of every seat of a venue in a dense primitive layout.
+ * A seat is addressed by its index (row * columns + column); no per seat object is kept by the store.
+ * Implementations are thread safe, a status change is only ever made atomically through {@link #compareAndSet}.
+ */
+public interface SeatStateStore {
+
+    /**
+     * @return number of seats the store can track
+     */
+    int size();
+
+    /**
+     * Gets the status of a seat.
+     * @param index seat index
+     * @return seat status
+     */
+    SeatStatus get(int index);
+
+    /**
+     * Sets the status of a seat.
+     * @param index seat index
+     * @param status new seat status
+     */
+    void set(int index, SeatStatus status);
+
+    /**
+     * Atomically sets the status of a seat if it currently has the expected status.
+     * @param index seat index
+     * @param expectedStatus status the seat is expected to have
+     * @param newStatus new seat status
+     * @return true if the status was changed, false if the seat didn't have the expected status
+     */
+    boolean compareAndSet(int index, SeatStatus expectedStatus, SeatStatus newStatus);
+}
@@ -1,11 +1,30 @@
-package com.walmart.exercise.ticketservice.domain;
-
-/**
- * Seat's status
- * - AVAILABLE: Available for reservation or hold.
- * - HOLD: Temporary hold, can go to available on expire or reserved on reservation.
- * - RESERVED: Reserved after maintaining a hold.
- */
-public enum SeatStatus {
-    AVAILABLE, HOLD, RESERVED
-}
+package com.walmart.exercise.ticketservice.domain;
+
+/**
+ * Seat's status
+ * - AVAILABLE: Available for reservation or hold.
+ * - HOLD: Temporary hold, can go to available on expire or reserved on reservation.
+ * - RESERVED: Reserved after maintaining a hold.
+ */
+public enum SeatStatus {
+    AVAILABLE, HOLD, RESERVED;
+
+    private static final SeatStatus[] CODES = values();
+
+    /**
+     * Compact code of the status as stored by a {@link SeatStateStore}. AVAILABLE is 0 so zeroed storage is a fresh venue.
+     * @return status code
+     */
+    public byte code(){
+        return (byte) ordinal();
+    }
+
+    /**
+     * Resolve a status from its compact code.
+     * @param code status code
+     * @return seat status
+     */
+    public static SeatStatus fromCode(int code){
+        return CODES[code];
+    }
+}
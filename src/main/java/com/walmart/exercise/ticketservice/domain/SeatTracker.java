@@ -1,92 +1,872 @@
-package com.walmart.exercise.ticketservice.domain;
-
-import java.util.*;
-import java.util.stream.Stream;
-
-import static java.util.stream.Collectors.toList;
-
-/**
- * Seat Tracker class manages the seats and their status.
- */
-public final class SeatTracker {
-
-    private final Map<String,Seat> seats;
-    private final int rows;
-    private final int columns;
-
-    /**
-     * Creates a seat tracker and initialize the seats
-     * @param rows
-     * @param columns
-     */
-    public SeatTracker(int rows,int columns){
-        this.rows = rows;
-        this.columns = columns;
-        // Future state: the seats capacity can be increased dynamically as we add more seats.
-        seats = new HashMap<>(rows*columns);
-        init();
-    }
-
-    /**
-     * Initialize the seats assuming(Important) every row has the same number of seats.
-     */
-    private void init(){
-        for(int i=0;i<rows;i++){
-            for(int j=0;j<columns;j++){
-                Seat seat = new Seat(i,j);
-                seats.put(seat.getId(),seat);
-            }
-        }
-    }
-
-    /**
-     * Gets seats(including status and location).
-     *
-     * @return collection of seats
-     */
-    private synchronized Collection<Seat> getSeats() {
-        return Collections.unmodifiableCollection(seats.values());
-    }
-
-    /**
-     * Change the status of a given seat to some status and update counters.
-     * @param seat  seat to change the status of the given seat
-     * @param status seat status to change to
-     */
-    public synchronized void updateSeatStatus(Seat seat, SeatStatus status) {
-        Seat seatTrackerSeat = seats.get(seat.getId());
-        if(status.equals(seatTrackerSeat.getStatus()) || SeatStatus.RESERVED.equals(seatTrackerSeat.getStatus())
-                || (SeatStatus.AVAILABLE.equals(seatTrackerSeat.getStatus()) && SeatStatus.RESERVED.equals(seat.getStatus()))){
-            // Possible race condition here // throw error
-            System.err.println("Possible Race Condition here");
-            return;
-        }
-        seatTrackerSeat.setStatus(status);
-    }
-
-    /**
-     * Get the list of seats with status as Available.
-     * @return list of available seats.
-     */
-    public List<Seat> availableSeats(){
-        return availableSeatStream()
-                .collect(toList());
-    }
-
-    /**
-     * Get the stream of available seats.
-     *
-     * @return stream of seats
-     */
-    public Stream<Seat> availableSeatStream(){
-        return getSeats().parallelStream().filter(seat -> SeatStatus.AVAILABLE.equals(seat.getStatus()));
-    }
-
-    public int numAvailableSeat(){
-        return (int)availableSeatStream().count();
-    }
-    public int numTotalSeats(){
-        return rows*columns;
-    }
-
-}
+package com.walmart.exercise.ticketservice.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Seat Tracker class manages the seats and their status.
+ * The status of every seat is kept in a {@link SeatStateStore} indexed by row * columns + column,
+ * {@link Seat} objects are only created as views when seats are handed out to callers.
+ * The available seats are also kept in a {@link FreeSeatIndex} ordered from best (row 0, column 0) to worst
+ * (rowMax, columnMax), updated in place on every status change. With a {@link SeatScorer}, the seats are scored
+ * once when the tracker is built and the index is ordered by their rank instead. The rows can be split in partitions having their
+ * own free seat index and available count, to be searched and held from independently.
+ * The number of seats in each status is counted as the status changes, so reading it never visits the seats.
+ * Runs of side by side available seats are tracked by a {@link FreeRunIndex}, built on first use.
+ * The changes of the seat map can be streamed to subscribers through a {@link SeatMapFeed}.
+ * A venue of sections of jagged rows is built from a {@link VenueLayout}: it is laid out on a grid as wide as its
+ * longest row, the grid cells past the end of a row being no seat, and the available seats are also counted per
+ * section and price tier.
+ *
+ * A status change is a compare-and-set on the seat state, it either happens or fails with no lock taken, so
+ * holds, reservations and expirations run in parallel. The indexes and counters follow each successful change.
+ */
+public final class SeatTracker {
+
+    private final SeatStateStore seatStates;
+    private volatile SeatPartition[] partitions;
+    // set by the first status change, the partitions are fixed from then on
+    private volatile boolean inUse;
+    private final LongAdder[] seatCounts; // one counter per seat status, indexed by the status code
+    private final LongAdder raceFailures = new LongAdder();
+    private volatile FreeRunIndex freeRuns;
+    private volatile SeatMapFeed seatMapFeed;
+    // rank of every seat index and its position in the free seat index of its partition, null in row and column order
+    private final int[] rankOfSeat;
+    private final int[] positionOfSeat;
+    private final int rows;
+    private final int columns;
+    private final int numSeats;
+    // venue layout, number of seats of every row and its section and tier counter, null for a rectangular venue
+    private final VenueLayout layout;
+    private final int[] rowLengths;
+    private final int[] layoutCellOfRow;
+    private final LongAdder[] availableByLayoutCell; // indexed by section * tiers + tier
+
+    /**
+     * Creates a seat tracker with all the seats available, the seat states are packed on the heap.
+     * @param rows
+     * @param columns
+     */
+    public SeatTracker(int rows,int columns){
+        this(rows, columns, new PackedSeatStateStore(gridSize(rows, columns)));
+    }
+
+    /**
+     * Creates a seat tracker handing out the best available seats by score, all the seats available, the seat
+     * states packed on the heap.
+     * @param rows
+     * @param columns
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     */
+    public SeatTracker(int rows,int columns,SeatScorer seatScorer){
+        this(rows, columns, new PackedSeatStateStore(gridSize(rows, columns)), seatScorer);
+    }
+
+    /**
+     * Creates a seat tracker on top of a given seat state store, e.g. a {@link DirectSeatStateStore} to keep the
+     * seat states off-heap. Every row is assumed(Important) to have the same number of seats.
+     * @param rows
+     * @param columns
+     * @param seatStates store large enough to hold rows * columns seats
+     */
+    public SeatTracker(int rows,int columns,SeatStateStore seatStates){
+        this(rows, columns, seatStates, SeatScorer.ROW_MAJOR);
+    }
+
+    /**
+     * Creates a seat tracker handing out the best available seats by score. The seats are scored and ranked once,
+     * here, the best available seats are then found without sorting.
+     * @param rows
+     * @param columns
+     * @param seatStates store large enough to hold rows * columns seats
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     */
+    public SeatTracker(int rows,int columns,SeatStateStore seatStates,SeatScorer seatScorer){
+        this(rows, columns, null, seatStates, seatScorer);
+    }
+
+    /**
+     * Creates a seat tracker for a venue of sections of rows of different lengths, all the seats available, the seat
+     * states packed on the heap.
+     * @param layout layout of the venue
+     */
+    public SeatTracker(VenueLayout layout){
+        this(layout, SeatScorer.ROW_MAJOR);
+    }
+
+    /**
+     * Creates a seat tracker for a venue of sections of rows of different lengths, handing out the best available
+     * seats by score, all the seats available, the seat states packed on the heap.
+     * @param layout layout of the venue
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     */
+    public SeatTracker(VenueLayout layout,SeatScorer seatScorer){
+        this(layout, new PackedSeatStateStore(gridSize(layout.getRows(), layout.getColumns())), seatScorer);
+    }
+
+    /**
+     * Creates a seat tracker for a venue of sections of rows of different lengths, handing out the best available
+     * seats by score.
+     * @param layout layout of the venue
+     * @param seatStates store large enough to hold rows * columns seats, columns being the length of the longest row
+     * @param seatScorer scorer of the seats, {@link SeatScorer#ROW_MAJOR} for row and column order
+     */
+    public SeatTracker(VenueLayout layout,SeatStateStore seatStates,SeatScorer seatScorer){
+        this(layout.getRows(), layout.getColumns(), layout, seatStates, seatScorer);
+    }
+
+    private SeatTracker(int rows,int columns,VenueLayout layout,SeatStateStore seatStates,SeatScorer seatScorer){
+        int gridSize = gridSize(rows, columns);
+        if(seatStates.size() < gridSize){
+            throw new IllegalArgumentException("Seat state store can't hold "+gridSize+" seats");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.seatStates = seatStates;
+        this.layout = layout;
+        this.seatCounts = new LongAdder[SeatStatus.values().length];
+        for(int code = 0; code < seatCounts.length; code++){
+            seatCounts[code] = new LongAdder();
+        }
+        if(layout == null){
+            numSeats = gridSize;
+            rowLengths = null;
+            layoutCellOfRow = null;
+            availableByLayoutCell = null;
+        }else{
+            numSeats = (int) layout.getNumSeats();
+            rowLengths = layout.rowLengths();
+            layoutCellOfRow = layout.rowSections();
+            int[] rowTiers = layout.rowTiers();
+            for(int rowNum = 0; rowNum < rows; rowNum++){
+                layoutCellOfRow[rowNum] = layoutCellOfRow[rowNum] * layout.numTiers() + rowTiers[rowNum];
+            }
+            availableByLayoutCell = new LongAdder[layout.numSections() * layout.numTiers()];
+            for(int cell = 0; cell < availableByLayoutCell.length; cell++){
+                availableByLayoutCell[cell] = new LongAdder();
+            }
+        }
+        for(int index = 0; index < gridSize; index++){
+            if(!isSeat(index)){
+                // never available, nor counted
+                seatStates.set(index, SeatStatus.RESERVED);
+                continue;
+            }
+            SeatStatus status = seatStates.get(index);
+            seatCounts[status.code()].increment();
+            if(availableByLayoutCell != null && SeatStatus.AVAILABLE.equals(status)){
+                availableByLayoutCell[layoutCellOfRow[index / columns]].increment();
+            }
+        }
+        if(seatScorer == SeatScorer.ROW_MAJOR){
+            rankOfSeat = null;
+            positionOfSeat = null;
+        }else{
+            rankOfSeat = rank(seatScorer);
+            positionOfSeat = new int[rows*columns];
+        }
+        partition(1);
+    }
+
+    /**
+     * Ranks the seats by score, best first, ties in seat index order. Every score is turned into a long ordered like
+     * the score, at full double precision, and the longs sorted, so no object is created per seat; a seat then takes
+     * the first rank of its score not taken by a seat of a lower index.
+     * @return rank of every seat index
+     */
+    private int[] rank(SeatScorer seatScorer){
+        long[] keys = new long[rows*columns]; // the grid size was checked to fit an int
+        for(int index = 0; index < keys.length; index++){
+            // adding 0.0 turns -0.0 into 0.0, the two scores tie
+            long bits = Double.doubleToLongBits(-seatScorer.score(index / columns, index % columns, rows, columns) + 0.0);
+            // negative doubles sort backwards as longs, flipping their magnitude bits orders them
+            keys[index] = bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+        }
+        long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        // seats already ranked per score, counted at the first rank of the score
+        int[] tied = new int[keys.length];
+        int[] ranks = new int[keys.length];
+        for(int index = 0; index < keys.length; index++){
+            int firstRank = firstIndexOf(sortedKeys, keys[index]);
+            ranks[index] = firstRank + tied[firstRank]++;
+        }
+        return ranks;
+    }
+
+    /**
+     * @return index of the first occurrence of a key in sorted keys holding it
+     */
+    private static int firstIndexOf(long[] sortedKeys, long key){
+        int low = 0;
+        int high = sortedKeys.length - 1;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(sortedKeys[middle] < key){
+                low = middle + 1;
+            }else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits the rows of the venue in partitions of consecutive rows, as even as possible.
+     * Meant to be called while setting up the venue, before the tracker is shared with other threads: the free seat
+     * indexes are rebuilt, a status change made meanwhile would be lost.
+     * @param numPartitions number of partitions, between 1 and the number of rows
+     * @throws IllegalStateException once a seat status was changed through the tracker
+     */
+    public synchronized void partition(int numPartitions){
+        if(numPartitions < 1 || (numPartitions > rows && rows > 0)){
+            throw new IllegalArgumentException("Can't split "+rows+" rows in "+numPartitions+" partitions");
+        }
+        if(inUse){
+            throw new IllegalStateException("Seats of the venue already changed, it can't be partitioned anymore");
+        }
+        SeatPartition[] newPartitions = new SeatPartition[numPartitions];
+        int[] partitionOfRow = new int[rows];
+        for(int p = 0; p < numPartitions; p++){
+            newPartitions[p] = new SeatPartition((int)((long)rows * p / numPartitions),
+                    (int)((long)rows * (p + 1) / numPartitions), columns, rankOfSeat != null);
+            Arrays.fill(partitionOfRow, newPartitions[p].firstRow, newPartitions[p].endRow, p);
+        }
+        if(rankOfSeat != null){
+            // lay the seats of every partition out in rank order
+            int[] seatOfRank = new int[rankOfSeat.length];
+            for(int index = 0; index < rankOfSeat.length; index++){
+                seatOfRank[rankOfSeat[index]] = index;
+            }
+            int[] positions = new int[numPartitions];
+            for(int index : seatOfRank){
+                int p = partitionOfRow[index / columns];
+                positionOfSeat[index] = positions[p];
+                newPartitions[p].seatOfPosition[positions[p]++] = index;
+            }
+        }
+        for(SeatPartition partition : newPartitions){
+            for(int position = 0; position < (partition.endRow - partition.firstRow) * columns; position++){
+                if(SeatStatus.AVAILABLE.equals(seatStates.get(partition.seatIndex(position)))){
+                    partition.freeSeats.add(position);
+                    partition.availableSeats.increment();
+                }
+            }
+        }
+        partitions = newPartitions;
+    }
+
+    /**
+     * @return number of partitions the rows are split in
+     */
+    public int numPartitions(){
+        return partitions.length;
+    }
+
+    /**
+     * Gets a view of the seat at a location, including its current status.
+     * @param rowNum row number
+     * @param columnNum column number
+     * @return seat
+     */
+    public Seat getSeat(int rowNum, int columnNum){
+        return seatAt(indexOf(rowNum,columnNum));
+    }
+
+    /**
+     * Change the status of a given seat to some status and update counters.
+     * The change is refused, and counted as a race failure, when the seat already has the status,
+     * is reserved, or changed meanwhile.
+     * @param seat  seat to change the status of the given seat
+     * @param status seat status to change to
+     * @return true if the status was changed
+     */
+    public boolean updateSeatStatus(Seat seat, SeatStatus status) {
+        int index = indexOf(seat.getRowNum(),seat.getColumnNum());
+        SeatStatus currentStatus = seatStates.get(index);
+        if(status.equals(currentStatus) || SeatStatus.RESERVED.equals(currentStatus)
+                || (SeatStatus.AVAILABLE.equals(currentStatus) && SeatStatus.RESERVED.equals(seat.getStatus()))
+                || !compareAndSetStatus(index, currentStatus, status)){
+            // Possible race condition here
+            raceFailures.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Atomically changes the status of a seat if it has the expected status,
+     * e.g. AVAILABLE to HOLD, HOLD to RESERVED or HOLD to AVAILABLE.
+     * @param seat seat to change the status of
+     * @param expectedStatus status the seat is expected to have
+     * @param status seat status to change to
+     * @return true if the status was changed, false if the seat didn't have the expected status
+     */
+    public boolean compareAndSetStatus(Seat seat, SeatStatus expectedStatus, SeatStatus status){
+        return compareAndSetStatus(indexOf(seat.getRowNum(),seat.getColumnNum()), expectedStatus, status);
+    }
+
+    /**
+     * Atomically changes the status of a group of seats having the expected status, all of them or none.
+     * The seats are changed one by one, when one of them doesn't have the expected status (e.g. another thread
+     * took it) the seats already changed are rolled back to the expected status.
+     * @param seats seats to change the status of
+     * @param expectedStatus status the seats are expected to have
+     * @param status seat status to change to
+     * @return true if the status of every seat was changed, false if none was
+     */
+    public boolean compareAndSetStatus(Collection<Seat> seats, SeatStatus expectedStatus, SeatStatus status){
+        int changed = 0;
+        for(Seat seat : seats){
+            if(!compareAndSetStatus(indexOf(seat.getRowNum(),seat.getColumnNum()), expectedStatus, status)){
+                raceFailures.increment();
+                for(Seat changedSeat : seats){
+                    if(changed-- == 0){
+                        break;
+                    }
+                    compareAndSetStatus(indexOf(changedSeat.getRowNum(),changedSeat.getColumnNum()), status, expectedStatus);
+                }
+                return false;
+            }
+            changed++;
+        }
+        return true;
+    }
+
+    /**
+     * Atomically changes the status of the seats at the given indexes, all of them or none, as
+     * {@link #compareAndSetStatus(Collection, SeatStatus, SeatStatus)}.
+     * @param seatIndexes seat indexes, row * columns + column
+     * @param expectedStatus status the seats are expected to have
+     * @param status seat status to change to
+     * @return true if the status of every seat was changed, false if none was
+     */
+    public boolean compareAndSetStatus(int[] seatIndexes, SeatStatus expectedStatus, SeatStatus status){
+        for(int i = 0; i < seatIndexes.length; i++){
+            if(!compareAndSetStatus(seatIndexes[i], expectedStatus, status)){
+                raceFailures.increment();
+                while(--i >= 0){
+                    compareAndSetStatus(seatIndexes[i], status, expectedStatus);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Atomically changes the status of the seats of a seat hold, all of them or none.
+     * @param seatHold seat hold of seats of the venue
+     * @param expectedStatus status the seats are expected to have
+     * @param status seat status to change to
+     * @return true if the status of every seat was changed, false if none was
+     */
+    public boolean compareAndSetStatus(SeatHold seatHold, SeatStatus expectedStatus, SeatStatus status){
+        if(seatHold.columns() == columns){
+            return compareAndSetStatus(seatHold.seatIndexes(), expectedStatus, status);
+        }
+        return compareAndSetStatus(seatHold.getHoldSeats(), expectedStatus, status);
+    }
+
+    /**
+     * Gets the best available seats, best being the highest ranked by the seat scorer, by default the lowest row
+     * and then the lowest column.
+     * Only the returned seats are visited, the venue is neither scanned nor sorted.
+     * The seats were available when looked at, another thread may take them before they are held.
+     *
+     * @param numSeats number of seats wanted
+     * @return up to numSeats available seats from best to worst, fewer if the venue has fewer seats available
+     */
+    public List<Seat> bestAvailableSeats(int numSeats){
+        return seatsAt(bestAvailableSeatIndexes(numSeats));
+    }
+
+    /**
+     * Gets the indexes of the best available seats, as {@link #bestAvailableSeats(int)} without a seat view per seat.
+     * @param numSeats number of seats wanted
+     * @return up to numSeats seat indexes, row * columns + column, from best to worst
+     */
+    public int[] bestAvailableSeatIndexes(int numSeats){
+        int[] seatIndexes = new int[numSeats];
+        int count = 0;
+        SeatPartition[] seatPartitions = partitions;
+        if(rankOfSeat != null && seatPartitions.length > 1){
+            count = mergeBestAvailableSeats(seatPartitions, seatIndexes);
+        } else {
+            for(SeatPartition partition : seatPartitions){
+                if(count == numSeats){
+                    break;
+                }
+                count = addBestAvailableSeats(partition, seatIndexes, count);
+            }
+        }
+        return count == numSeats ? seatIndexes : Arrays.copyOf(seatIndexes, count);
+    }
+
+    /**
+     * Gets the best available seats of a partition, best being the highest ranked by the seat scorer, by default
+     * the lowest row and then the lowest column.
+     * @param partition partition number
+     * @param numSeats number of seats wanted
+     * @return up to numSeats available seats of the partition from best to worst
+     */
+    public List<Seat> bestAvailableSeats(int partition, int numSeats){
+        return seatsAt(bestAvailableSeatIndexes(partition, numSeats));
+    }
+
+    /**
+     * Gets the indexes of the best available seats of a partition, without a seat view per seat.
+     * @param partition partition number
+     * @param numSeats number of seats wanted
+     * @return up to numSeats seat indexes of the partition, row * columns + column, from best to worst
+     */
+    public int[] bestAvailableSeatIndexes(int partition, int numSeats){
+        int[] seatIndexes = new int[numSeats];
+        int count = addBestAvailableSeats(partitions[partition], seatIndexes, 0);
+        return count == numSeats ? seatIndexes : Arrays.copyOf(seatIndexes, count);
+    }
+
+    /**
+     * Adds the best available seats of a partition after the first count seat indexes, until the array is full.
+     * @return number of seat indexes in the array
+     */
+    private int addBestAvailableSeats(SeatPartition partition, int[] seatIndexes, int count){
+        FreeSeatIndex freeSeats = partition.freeSeats;
+        for(int position = freeSeats.next(0); position >= 0 && count < seatIndexes.length;
+            position = freeSeats.next(position + 1)){
+            int index = partition.seatIndex(position);
+            if(SeatStatus.AVAILABLE.equals(seatStates.get(index))){
+                seatIndexes[count++] = index;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Merges the best available seats of the partitions by rank, the partitions don't hold consecutive ranks.
+     * @return number of seat indexes in the array
+     */
+    private int mergeBestAvailableSeats(SeatPartition[] seatPartitions, int[] seatIndexes){
+        int count = 0;
+        int[] next = new int[seatPartitions.length];
+        for(int p = 0; p < seatPartitions.length; p++){
+            next[p] = seatPartitions[p].freeSeats.next(0);
+        }
+        while(count < seatIndexes.length){
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+            for(int p = 0; p < seatPartitions.length; p++){
+                if(next[p] >= 0 && rankOfSeat[seatPartitions[p].seatIndex(next[p])] < bestRank){
+                    best = p;
+                    bestRank = rankOfSeat[seatPartitions[p].seatIndex(next[p])];
+                }
+            }
+            if(best < 0){
+                break;
+            }
+            int index = seatPartitions[best].seatIndex(next[best]);
+            if(SeatStatus.AVAILABLE.equals(seatStates.get(index))){
+                seatIndexes[count++] = index;
+            }
+            next[best] = seatPartitions[best].freeSeats.next(next[best] + 1);
+        }
+        return count;
+    }
+
+    private List<Seat> seatsAt(int[] seatIndexes){
+        List<Seat> seats = new ArrayList<>(seatIndexes.length);
+        for (int index : seatIndexes) {
+            seats.add(seatAt(index));
+        }
+        return seats;
+    }
+
+    /**
+     * Length of the longest run of side by side available seats in the venue.
+     * @return number of seats
+     */
+    public int longestFreeBlock(){
+        return freeRuns().longestRun();
+    }
+
+    /**
+     * Finds the best run of at least a given number of side by side available seats: the lowest row having one,
+     * then the lowest column. Rows are found through the free run index in O(log rows).
+     *
+     * @param numSeats number of side by side seats wanted
+     * @return the whole free run starting at the block, or null if no row has such a run
+     */
+    public SeatBlock firstFreeBlock(int numSeats){
+        FreeRunIndex runIndex = freeRuns();
+        int rowNum = runIndex.firstRowWithRun(numSeats);
+        if(rowNum < 0){
+            return null;
+        }
+        for(SeatBlock block : runIndex.runs(rowNum)){
+            if(block.getLength() >= numSeats){
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the best run of at least a given number of side by side available seats within a partition.
+     * @param partition partition number
+     * @param numSeats number of side by side seats wanted
+     * @return the whole free run starting at the block, or null if no row of the partition has such a run
+     */
+    public SeatBlock firstFreeBlock(int partition, int numSeats){
+        SeatPartition seatPartition = partitions[partition];
+        FreeRunIndex runIndex = freeRuns();
+        int rowNum = runIndex.firstRowWithRun(numSeats, seatPartition.firstRow, seatPartition.endRow);
+        if(rowNum < 0){
+            return null;
+        }
+        for(SeatBlock block : runIndex.runs(rowNum)){
+            if(block.getLength() >= numSeats){
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lists the runs of side by side available seats of a row, from the lowest column to the highest.
+     * @param rowNum row number
+     * @return free runs of the row
+     */
+    public List<SeatBlock> freeBlocks(int rowNum){
+        if(rowNum < 0 || rowNum >= rows){
+            throw new IllegalArgumentException("Row "+rowNum+" is not part of the venue");
+        }
+        return freeRuns().runs(rowNum);
+    }
+
+    /**
+     * Get the list of seats with status as Available.
+     * @return list of available seats.
+     */
+    public List<Seat> availableSeats(){
+        return availableSeatStream()
+                .collect(toList());
+    }
+
+    /**
+     * Opens the feed of the seat map changes of the venue, or gets the one already open.
+     * @param coalesceMillis time in milliseconds the changes are gathered for before being pushed as one delta
+     * @return the seat map feed, to be closed once there's no subscriber left
+     */
+    public synchronized SeatMapFeed openSeatMapFeed(long coalesceMillis){
+        if(seatMapFeed == null){
+            seatMapFeed = new SeatMapFeed(this, coalesceMillis);
+        }
+        return seatMapFeed;
+    }
+
+    synchronized void closeSeatMapFeed(SeatMapFeed feed){
+        if(seatMapFeed == feed){
+            seatMapFeed = null;
+        }
+    }
+
+    SeatStatus statusAt(int index){
+        return seatStates.get(index);
+    }
+
+    /**
+     * Get the stream of available seats.
+     *
+     * @return stream of seats
+     */
+    public Stream<Seat> availableSeatStream(){
+        return IntStream.range(0, numSeatIndexes()).parallel()
+                .filter(index -> SeatStatus.AVAILABLE.equals(seatStates.get(index)))
+                .mapToObj(this::seatAt);
+    }
+
+    /**
+     * Number of available seats, read from the status counters without locking or visiting the seats.
+     * @return number of available seats
+     */
+    public int numAvailableSeat(){
+        return (int)seatCounts[SeatStatus.AVAILABLE.code()].sum();
+    }
+
+    /**
+     * Number of available seats of a partition, read from its counter without locking or visiting the seats.
+     * @param partition partition number
+     * @return number of available seats
+     */
+    public int numAvailableSeat(int partition){
+        return (int)partitions[partition].availableSeats.sum();
+    }
+
+    /**
+     * Number of available seats of a section of the venue layout, read from its counters without visiting the seats.
+     * @param section name of the section
+     * @return number of available seats
+     * @throws IllegalArgumentException if the venue has no such section
+     */
+    public int numAvailableSeatInSection(String section){
+        return numAvailableSeatInSection(section, null);
+    }
+
+    /**
+     * Number of available seats of a section of the venue layout priced at most a given price, read from the counter
+     * of every price tier of the section without visiting the seats.
+     * @param section name of the section
+     * @param maxPrice highest price, null for any price
+     * @return number of available seats
+     * @throws IllegalArgumentException if the venue has no such section
+     */
+    public int numAvailableSeatInSection(String section, BigDecimal maxPrice){
+        VenueLayout venueLayout = requireLayout(section);
+        int numTiers = venueLayout.numTiers();
+        int firstCell = venueLayout.sectionIndex(section) * numTiers;
+        long available = 0;
+        for(int tier = 0; tier < numTiers; tier++){
+            if(maxPrice == null || venueLayout.price(tier).compareTo(maxPrice) <= 0){
+                available += availableByLayoutCell[firstCell + tier].sum();
+            }
+        }
+        return (int)available;
+    }
+
+    /**
+     * Number of available seats of a price tier of the venue layout, over all the sections, read from the counter of
+     * the tier in every section without visiting the seats.
+     * @param tier name of the price tier
+     * @return number of available seats
+     * @throws IllegalArgumentException if the venue has no such tier
+     */
+    public int numAvailableSeatInTier(String tier){
+        VenueLayout venueLayout = requireLayout(tier);
+        int numTiers = venueLayout.numTiers();
+        long available = 0;
+        for(int cell = venueLayout.tierIndex(tier); cell < availableByLayoutCell.length; cell += numTiers){
+            available += availableByLayoutCell[cell].sum();
+        }
+        return (int)available;
+    }
+
+    private VenueLayout requireLayout(String name){
+        if(layout == null){
+            throw new IllegalArgumentException("Venue has no layout, no section nor tier " + name);
+        }
+        return layout;
+    }
+
+    /**
+     * Number of seats in each status, read from the status counters without locking.
+     * Counters are read one after another, a status change happening meanwhile may show in one count and not yet
+     * in the other. Use {@link #auditSeatCounts()} when the counts have to add up.
+     *
+     * @return seat counts
+     */
+    public SeatCounts seatCounts(){
+        return new SeatCounts(seatCounts[SeatStatus.AVAILABLE.code()].sum(),
+                seatCounts[SeatStatus.HOLD.code()].sum(),
+                seatCounts[SeatStatus.RESERVED.code()].sum());
+    }
+
+    /**
+     * Exact number of seats in each status, counted seat by seat from the seat states. The counts always add up to
+     * the venue size, a status change made during the count is either counted or not.
+     * Meant for auditing, it visits every seat of the venue.
+     *
+     * @return seat counts
+     */
+    public SeatCounts auditSeatCounts(){
+        long[] counts = new long[seatCounts.length];
+        for(int index = 0; index < numSeatIndexes(); index++){
+            if(isSeat(index)){
+                counts[seatStates.get(index).code()]++;
+            }
+        }
+        return new SeatCounts(counts[SeatStatus.AVAILABLE.code()],
+                counts[SeatStatus.HOLD.code()],
+                counts[SeatStatus.RESERVED.code()]);
+    }
+
+    /**
+     * Number of status changes refused because the seat didn't have the expected status, e.g. a seat taken by
+     * another thread between being picked and being held.
+     * @return number of race failures since the venue was created
+     */
+    public long numRaceFailures(){
+        return raceFailures.sum();
+    }
+
+    public int numTotalSeats(){
+        return numSeats;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of seats per row, the length of the longest row for a venue layout
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return layout of the venue, null for a venue of rows of the same length
+     */
+    public VenueLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Number of seat indexes of the grid the venue is laid out on, rows * columns, including the cells past the end
+     * of the rows shorter than the longest one.
+     */
+    int numSeatIndexes(){
+        return rows*columns;
+    }
+
+    /**
+     * Whether a seat index of the grid is a seat of the venue, rather than a cell past the end of a shorter row.
+     */
+    boolean isSeat(int index){
+        return rowLengths == null || index % columns < rowLengths[index / columns];
+    }
+
+    /**
+     * Number of cells of a grid of rows and columns.
+     * @throws IllegalArgumentException if a dimension is negative or the grid has more than Integer.MAX_VALUE cells
+     */
+    private static int gridSize(int rows, int columns){
+        if(rows < 0 || columns < 0 || (long) rows * columns > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Venue of "+rows+" rows of "+columns+" seats is too large");
+        }
+        return rows*columns;
+    }
+
+    private boolean compareAndSetStatus(int index, SeatStatus expectedStatus, SeatStatus status){
+        if(!inUse){
+            inUse = true; // written once, only read afterwards
+        }
+        if(!seatStates.compareAndSet(index, expectedStatus, status)){
+            return false;
+        }
+        seatCounts[expectedStatus.code()].decrement();
+        seatCounts[status.code()].increment();
+        if(SeatStatus.AVAILABLE.equals(status) || SeatStatus.AVAILABLE.equals(expectedStatus)){
+            SeatPartition partition = partitionOf(index);
+            partition.availableSeats.add(SeatStatus.AVAILABLE.equals(status) ? 1 : -1);
+            if(availableByLayoutCell != null){
+                availableByLayoutCell[layoutCellOfRow[index / columns]].add(SeatStatus.AVAILABLE.equals(status) ? 1 : -1);
+            }
+            refreshFreeIndexes(partition, index);
+        }
+        SeatMapFeed feed = seatMapFeed;
+        if(feed != null){
+            feed.seatChanged(index);
+        }
+        return true;
+    }
+
+    private SeatPartition partitionOf(int index){
+        SeatPartition[] seatPartitions = partitions;
+        int rowNum = index / columns;
+        int low = 0;
+        int high = seatPartitions.length - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(seatPartitions[mid].firstRow <= rowNum){
+                low = mid;
+            }else{
+                high = mid - 1;
+            }
+        }
+        return seatPartitions[low];
+    }
+
+    /**
+     * Brings the free seat indexes in line with the seat state. The state is read again after a seat is marked
+     * taken: a thread freeing the seat right after may have marked it free first and been overwritten.
+     */
+    private void refreshFreeIndexes(SeatPartition partition, int index){
+        FreeRunIndex runIndex = freeRuns;
+        FreeSeatIndex freeSeats = partition.freeSeats;
+        int position = positionOfSeat == null ? index - partition.firstIndex : positionOfSeat[index];
+        if(SeatStatus.AVAILABLE.equals(seatStates.get(index))){
+            freeSeats.add(position);
+        }else{
+            freeSeats.remove(position);
+            if(SeatStatus.AVAILABLE.equals(seatStates.get(index))){
+                freeSeats.add(position);
+            }
+        }
+        if(runIndex != null){
+            synchronized (runIndex){ // the state is read under the index lock, the last update sees the last state
+                runIndex.setFree(index/columns, index%columns, SeatStatus.AVAILABLE.equals(seatStates.get(index)));
+            }
+        }
+    }
+
+    private FreeRunIndex freeRuns(){
+        FreeRunIndex runIndex = freeRuns;
+        if(runIndex == null){
+            synchronized (this){
+                if(freeRuns == null){
+                    // publish before loading: status changes made from now on wait for the load and apply after it,
+                    // the ones made before are already in the seat states the load reads.
+                    runIndex = new FreeRunIndex(rows, columns);
+                    synchronized (runIndex){
+                        freeRuns = runIndex;
+                        runIndex.load(seatStates);
+                    }
+                }
+                runIndex = freeRuns;
+            }
+        }
+        return runIndex;
+    }
+
+    /**
+     * Gets the indexes of seats of the venue.
+     * @param seats seats of the venue
+     * @return seat indexes, row * columns + column, in the order of the seats
+     */
+    public int[] indexesOf(Collection<Seat> seats){
+        int[] seatIndexes = new int[seats.size()];
+        int i = 0;
+        for (Seat seat : seats) {
+            seatIndexes[i++] = indexOf(seat.getRowNum(), seat.getColumnNum());
+        }
+        return seatIndexes;
+    }
+
+    /**
+     * Index of a seat location in the seat state store.
+     */
+    int indexOf(int rowNum, int columnNum){
+        if(rowNum < 0 || rowNum >= rows || columnNum < 0 || columnNum >= columns
+                || (rowLengths != null && columnNum >= rowLengths[rowNum])){
+            throw new IllegalArgumentException("Seat "+rowNum+"-"+columnNum+" is not part of the venue");
+        }
+        return rowNum*columns + columnNum;
+    }
+
+    /**
+     * Creates the seat view for a seat index.
+     */
+    Seat seatAt(int index){
+        return new Seat(index/columns, index%columns, seatStates.get(index));
+    }
+
+}
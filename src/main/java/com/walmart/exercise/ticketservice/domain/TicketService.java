@@ -1,29 +1,79 @@
-package com.walmart.exercise.ticketservice.domain;
-
-public interface TicketService {
-
-    /**
-     * The number of seats in the venue that are neither held nor reserved
-     *
-     * @return the number of tickets available in the venue
-     */
-    int numSeatsAvailable();
-    /**
-     * Find and hold the best available seats for a customer
-     *
-     * @param numSeats the number of seats to find and hold
-     * @param customerEmail unique identifier for the customer
-     * @return a SeatHold object identifying the specific seats and related
-    information
-     */
-    SeatHold findAndHoldSeats(int numSeats, String customerEmail);
-    /**
-     * Commit seats held for a specific customer
-     *
-     * @param seatHoldId the seat hold identifier
-     * @param customerEmail the email address of the customer to which the
-    seat hold is assigned
-     * @return a reservation confirmation code
-     */
-    String reserveSeats(int seatHoldId, String customerEmail);
-}
+package com.walmart.exercise.ticketservice.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public interface TicketService {
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved
+     *
+     * @return the number of tickets available in the venue
+     */
+    int numSeatsAvailable();
+    /**
+     * Find and hold the best available seats for a customer
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related
+    information
+     */
+    SeatHold findAndHoldSeats(int numSeats, String customerEmail);
+    /**
+     * Commit seats held for a specific customer
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+    seat hold is assigned
+     * @return a reservation confirmation code
+     */
+    String reserveSeats(int seatHoldId, String customerEmail);
+    /**
+     * Release the seats held for a customer before the hold expires
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the
+    seat hold is assigned
+     * @return true if the seats are available again, false if the hold was
+    already reserved, expired or released
+     */
+    boolean releaseHold(int seatHoldId, String customerEmail);
+    /**
+     * Cancel the reservation of a customer
+     *
+     * @param reservationId the reservation confirmation code
+     * @param customerEmail the email address of the customer who made the
+    reservation
+     * @return true if the seats are available again, false if there's no such
+    reservation for the customer
+     */
+    boolean cancelReservation(String reservationId, String customerEmail);
+    /**
+     * Find and hold the best available seats for a batch of customers, requests are served in order
+     *
+     * @param holdRequests the number of seats and the customer of each request
+     * @return a SeatHold per request, in the order of the requests, null for a request that couldn't be served
+     */
+    default List<SeatHold> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+        List<SeatHold> seatHolds = new ArrayList<>(holdRequests.size());
+        for (HoldRequest holdRequest : holdRequests) {
+            seatHolds.add(findAndHoldSeats(holdRequest.getNumSeats(), holdRequest.getCustomerEmail()));
+        }
+        return seatHolds;
+    }
+    /**
+     * Commit the seats held for a batch of customers
+     *
+     * @param reserveRequests the seat hold identifier and the customer email of each request
+     * @return a reservation confirmation code per request, in the order of the requests, null for a request that
+    couldn't be served
+     */
+    default List<String> reserveSeatsBatch(List<ReserveRequest> reserveRequests) {
+        List<String> reservationIds = new ArrayList<>(reserveRequests.size());
+        for (ReserveRequest reserveRequest : reserveRequests) {
+            reservationIds.add(reserveSeats(reserveRequest.getSeatHoldId(), reserveRequest.getCustomerEmail()));
+        }
+        return reservationIds;
+    }
+}
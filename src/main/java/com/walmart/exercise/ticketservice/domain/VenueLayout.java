@@ -0,0 +1,322 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * VenueLayout describes a venue made of sections of rows of different lengths, every row priced at one of a few
+ * price tiers. Rows are numbered across the venue in the order they are added, section after section, and the seats
+ * of a row from column 0; a {@link SeatTracker} built from the layout lays it out on a grid as wide as the longest row
+ * and tells the available seats per section and per tier without visiting them.
+ *
+ * A layout file lists the tiers, then the sections and their rows, one line each, # starting a comment:
+ * <pre>
+ * tier floor 250.00
+ * tier lower 149.50
+ * section 112
+ * 10 x 24 floor
+ * 6 x 28 lower
+ * </pre>
+ * The rows line adds 10 rows of 24 seats priced at the floor tier to section 112, then 6 rows of 28 seats.
+ * The layout is not to change once a seat tracker is built from it. Two layouts are equal if they have the same tiers,
+ * sections and rows, in the same order.
+ */
+public final class VenueLayout {
+
+    private static final Pattern NAME = Pattern.compile("[^\\s#]+");
+
+    private final List<String> tiers = new ArrayList<>();
+    private final List<BigDecimal> prices = new ArrayList<>();
+    private final List<String> sections = new ArrayList<>();
+    private final Map<String, Integer> tierIndexes = new HashMap<>();
+    private final Map<String, Integer> sectionIndexes = new HashMap<>();
+    private int[] rowLengths = new int[16];
+    private int[] rowSections = new int[16];
+    private int[] rowTiers = new int[16];
+    private int rows;
+    private int columns;
+    private long numSeats;
+
+    /**
+     * Adds a price tier.
+     * @param name name of the tier, unique within the layout, a single word without #
+     * @param price price of a seat of the tier
+     * @return this layout
+     */
+    public VenueLayout addTier(String name, BigDecimal price){
+        if(name == null || price == null || tierIndexes.containsKey(name) || !NAME.matcher(name).matches()){
+            throw new IllegalArgumentException("Tier " + name + " is a duplicate, has no price or isn't a single word");
+        }
+        tierIndexes.put(name, tiers.size());
+        tiers.add(name);
+        prices.add(price);
+        return this;
+    }
+
+    /**
+     * Adds a section, the rows added next are part of it.
+     * @param name name of the section, unique within the layout, a single word without #
+     * @return this layout
+     */
+    public VenueLayout addSection(String name){
+        if(name == null || sectionIndexes.containsKey(name) || !NAME.matcher(name).matches()){
+            throw new IllegalArgumentException("Section " + name + " is a duplicate or isn't a single word");
+        }
+        sectionIndexes.put(name, sections.size());
+        sections.add(name);
+        return this;
+    }
+
+    /**
+     * Adds rows of the same length to the last section added.
+     * @param count number of rows
+     * @param length number of seats of every row
+     * @param tier price tier of the seats of the rows
+     * @return this layout
+     */
+    public VenueLayout addRows(int count, int length, String tier){
+        if(sections.isEmpty()){
+            throw new IllegalArgumentException("Rows are added to a section, none was added");
+        }
+        if(count < 1 || length < 1){
+            throw new IllegalArgumentException("Can't add " + count + " rows of " + length + " seats");
+        }
+        Integer tierIndex = tierIndexes.get(tier);
+        if(tierIndex == null){
+            throw new IllegalArgumentException("No tier " + tier);
+        }
+        if((long) rows + count > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Too many rows");
+        }
+        if(rows + count > rowLengths.length){
+            int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(2L * rowLengths.length, rows + count));
+            rowLengths = Arrays.copyOf(rowLengths, capacity);
+            rowSections = Arrays.copyOf(rowSections, capacity);
+            rowTiers = Arrays.copyOf(rowTiers, capacity);
+        }
+        Arrays.fill(rowLengths, rows, rows + count, length);
+        Arrays.fill(rowSections, rows, rows + count, sections.size() - 1);
+        Arrays.fill(rowTiers, rows, rows + count, tierIndex);
+        rows += count;
+        columns = Math.max(columns, length);
+        numSeats += (long) count * length;
+        return this;
+    }
+
+    /**
+     * Reads a layout file.
+     * @param layoutFile layout file, UTF-8 encoded
+     * @return the layout
+     * @throws IOException if the file can't be read or a line is malformed
+     */
+    public static VenueLayout load(Path layoutFile) throws IOException{
+        try (Reader reader = Files.newBufferedReader(layoutFile, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Reads a layout in the format of a layout file.
+     * @param reader layout lines
+     * @return the layout
+     * @throws IOException if the lines can't be read or a line is malformed
+     */
+    public static VenueLayout parse(Reader reader) throws IOException{
+        VenueLayout layout = new VenueLayout();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNum = 0;
+        while((line = lines.readLine()) != null){
+            lineNum++;
+            int comment = line.indexOf('#');
+            String[] words = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+            try {
+                if(words.length == 1 && words[0].isEmpty()){
+                    continue;
+                } else if(words.length == 3 && words[0].equals("tier")){
+                    layout.addTier(words[1], new BigDecimal(words[2]));
+                } else if(words.length == 2 && words[0].equals("section")){
+                    layout.addSection(words[1]);
+                } else if(words.length == 4 && words[1].equals("x")){
+                    layout.addRows(Integer.parseInt(words[0]), Integer.parseInt(words[2]), words[3]);
+                } else {
+                    throw new IllegalArgumentException("Expected tier, section or rows");
+                }
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException included
+                throw new IOException("Malformed layout line " + lineNum + " '" + line + "': " + e.getMessage());
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Writes the layout in the format of a layout file, the consecutive rows of the same length and tier of a section
+     * on a single line.
+     * @param writer layout lines
+     * @throws IOException if the lines can't be written
+     */
+    public void write(Writer writer) throws IOException{
+        for(int tier = 0; tier < tiers.size(); tier++){
+            writer.write("tier " + tiers.get(tier) + " " + prices.get(tier).toPlainString() + "\n");
+        }
+        int rowNum = 0;
+        for(int section = 0; section < sections.size(); section++){
+            writer.write("section " + sections.get(section) + "\n");
+            while(rowNum < rows && rowSections[rowNum] == section){
+                int first = rowNum;
+                while(rowNum < rows && rowSections[rowNum] == section && rowLengths[rowNum] == rowLengths[first]
+                        && rowTiers[rowNum] == rowTiers[first]){
+                    rowNum++;
+                }
+                writer.write((rowNum - first) + " x " + rowLengths[first] + " " + tiers.get(rowTiers[first]) + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return number of rows of the venue
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return number of seats of the longest row
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of seats of the venue, over all the sections
+     */
+    public long getNumSeats() {
+        return numSeats;
+    }
+
+    /**
+     * @param rowNum row number
+     * @return number of seats of the row
+     */
+    public int getRowLength(int rowNum){
+        checkRow(rowNum);
+        return rowLengths[rowNum];
+    }
+
+    /**
+     * @param rowNum row number
+     * @return name of the section of the row
+     */
+    public String getSection(int rowNum){
+        checkRow(rowNum);
+        return sections.get(rowSections[rowNum]);
+    }
+
+    /**
+     * @param rowNum row number
+     * @return name of the price tier of the row
+     */
+    public String getTier(int rowNum){
+        checkRow(rowNum);
+        return tiers.get(rowTiers[rowNum]);
+    }
+
+    /**
+     * @return names of the sections, in the order they were added
+     */
+    public List<String> getSections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    /**
+     * @return names of the price tiers, in the order they were added
+     */
+    public List<String> getTiers() {
+        return Collections.unmodifiableList(tiers);
+    }
+
+    /**
+     * @param tier name of a price tier
+     * @return price of a seat of the tier
+     */
+    public BigDecimal getPrice(String tier){
+        return prices.get(tierIndex(tier));
+    }
+
+    int sectionIndex(String section){
+        Integer index = sectionIndexes.get(section);
+        if(index == null){
+            throw new IllegalArgumentException("Venue has no section " + section);
+        }
+        return index;
+    }
+
+    int tierIndex(String tier){
+        Integer index = tierIndexes.get(tier);
+        if(index == null){
+            throw new IllegalArgumentException("Venue has no tier " + tier);
+        }
+        return index;
+    }
+
+    BigDecimal price(int tierIndex){
+        return prices.get(tierIndex);
+    }
+
+    int numSections(){
+        return sections.size();
+    }
+
+    int numTiers(){
+        return tiers.size();
+    }
+
+    int[] rowLengths(){
+        return Arrays.copyOf(rowLengths, rows);
+    }
+
+    int[] rowSections(){
+        return Arrays.copyOf(rowSections, rows);
+    }
+
+    int[] rowTiers(){
+        return Arrays.copyOf(rowTiers, rows);
+    }
+
+    private void checkRow(int rowNum){
+        if(rowNum < 0 || rowNum >= rows){
+            throw new IllegalArgumentException("Row " + rowNum + " is not part of the venue");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VenueLayout that = (VenueLayout) o;
+        return rows == that.rows && tiers.equals(that.tiers) && prices.equals(that.prices)
+                && sections.equals(that.sections) && Arrays.equals(rowLengths(), that.rowLengths())
+                && Arrays.equals(rowSections(), that.rowSections()) && Arrays.equals(rowTiers(), that.rowTiers());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tiers, sections, rows, columns, numSeats);
+    }
+}
@@ -0,0 +1,44 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class FreeSeatIndexTest {
+
+    @Test
+    public void next_emptyIndex_returnsNoSeat(){
+        FreeSeatIndex freeSeatIndex = new FreeSeatIndex(100);
+        assertEquals(-1, freeSeatIndex.next(0));
+        freeSeatIndex.add(99);
+        assertEquals(99, freeSeatIndex.next(0));
+        assertEquals(-1, freeSeatIndex.next(100));
+    }
+
+    @Test
+    public void addAndRemove_randomOperations_matchesOrderedSet(){
+        int size = 300_000;
+        FreeSeatIndex freeSeatIndex = new FreeSeatIndex(size);
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for(int i = 0; i < 200_000; i++){
+            int position = random.nextInt(size);
+            if(random.nextBoolean()){
+                freeSeatIndex.add(position);
+                expected.add(position);
+            }else{
+                freeSeatIndex.remove(position);
+                expected.remove(position);
+            }
+            int from = random.nextInt(size);
+            Integer next = expected.ceiling(from);
+            assertEquals(next == null ? -1 : next.intValue(), freeSeatIndex.next(from));
+        }
+        for(int position = 0; position < size; position++){
+            assertEquals(expected.contains(position), freeSeatIndex.contains(position));
+        }
+    }
+}
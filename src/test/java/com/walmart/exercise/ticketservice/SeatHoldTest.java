@@ -1,25 +1,62 @@
-package com.walmart.exercise.ticketservice.domain;
-
-import org.junit.Test;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
-
-public class SeatHoldTest {
-
-    @Test
-    public void seatHoldTest(){
-        List<Seat> seats = new ArrayList<>(Arrays.asList(new Seat(1,1),
-                new Seat(1,2), new Seat(1,3)));
-        SeatHold seatHold = new SeatHold(0, "abc@test.com", seats);
-        assertEquals(0, seatHold.getSeatHoldId());
-        assertEquals("abc@test.com", seatHold.getCustomerEmail());
-        assertEquals(seatHold.getHoldSeats().size(),seats.size());
-        assertTrue(seats.containsAll(seatHold.getHoldSeats()));
-    }
-
-}
+package com.walmart.exercise.ticketservice.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeatHoldTest {
+
+    @Test
+    public void seatHoldTest(){
+        List<Seat> seats = new ArrayList<>(Arrays.asList(new Seat(1,1),
+                new Seat(1,2), new Seat(1,3)));
+        SeatHold seatHold = new SeatHold(0, "abc@test.com", seats);
+        assertEquals(0, seatHold.getSeatHoldId());
+        assertEquals("abc@test.com", seatHold.getCustomerEmail());
+        assertEquals(seatHold.getHoldSeats().size(),seats.size());
+        assertTrue(seats.containsAll(seatHold.getHoldSeats()));
+    }
+
+    @Test
+    public void seatHold_seatIndexes_seatsReadThroughVenue(){
+        SeatTracker seatTracker = new SeatTracker(4, 5);
+        SeatHold seatHold = new SeatHold(7, "abc@test.com", new int[]{6, 7, 13}, 5, System.nanoTime());
+        assertEquals(3, seatHold.getNumSeats());
+        assertEquals(Arrays.asList(new Seat(1,1), new Seat(1,2), new Seat(2,3)), new ArrayList<>(seatHold.getHoldSeats()));
+        assertEquals(SeatStatus.HOLD, seatHold.getHoldSeats().iterator().next().getStatus());
+
+        assertTrue(seatTracker.compareAndSetStatus(seatHold, SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertEquals(SeatStatus.HOLD, seatTracker.getSeat(2, 3).getStatus());
+        // a seat taken meanwhile, none of the seats change
+        seatTracker.compareAndSetStatus(new Seat(1, 2), SeatStatus.HOLD, SeatStatus.RESERVED);
+        assertFalse(seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.AVAILABLE));
+        assertEquals(SeatStatus.HOLD, seatTracker.getSeat(1, 1).getStatus());
+
+        // a hold listing seats by location maps them onto the venue columns
+        SeatHold listed = new SeatHold(8, "abc@test.com", Arrays.asList(new Seat(3,0), new Seat(3,1)));
+        assertEquals(3 * 5 + 1, listed.getSeatIndex(1, 5));
+        assertTrue(seatTracker.compareAndSetStatus(listed, SeatStatus.AVAILABLE, SeatStatus.RESERVED));
+        assertEquals(SeatStatus.RESERVED, seatTracker.getSeat(3, 1).getStatus());
+        SeatHold listedOnVenue = new SeatHold(9, "abc@test.com", Arrays.asList(new Seat(3,0), new Seat(3,1)), 5,
+                System.nanoTime());
+        assertEquals(5, listedOnVenue.getColumns());
+        assertEquals(3 * 5 + 1, listedOnVenue.getSeatIndex(1, 5));
+    }
+
+    @Test
+    public void seatHold_ofVenue_seatsReportCurrentStatus(){
+        SeatTracker seatTracker = new SeatTracker(4, 5);
+        SeatHold seatHold = new SeatHold(7, "abc@test.com", new int[]{6, 7}, seatTracker, System.nanoTime());
+        assertEquals(5, seatHold.getColumns());
+        assertTrue(seatTracker.compareAndSetStatus(seatHold, SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertEquals(SeatStatus.HOLD, seatHold.getHoldSeats().iterator().next().getStatus());
+        assertTrue(seatTracker.compareAndSetStatus(seatHold, SeatStatus.HOLD, SeatStatus.RESERVED));
+        assertEquals(SeatStatus.RESERVED, seatHold.getHoldSeats().iterator().next().getStatus());
+    }
+}
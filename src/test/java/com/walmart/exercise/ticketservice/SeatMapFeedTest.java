@@ -0,0 +1,78 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class SeatMapFeedTest {
+
+    @Test
+    public void publish_changesSinceSnapshot_coalescedInRanges() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(3, 4);
+        seatTracker.compareAndSetStatus(seatTracker.getSeat(2, 3), SeatStatus.AVAILABLE, SeatStatus.RESERVED);
+        // never published on its own, the test publishes
+        SeatMapFeed feed = seatTracker.openSeatMapFeed(3_600_000);
+        assertSame(feed, seatTracker.openSeatMapFeed(10));
+        List<SeatMapDelta> deltas = new ArrayList<>();
+        SeatMapSnapshot snapshot = feed.subscribe(deltas::add);
+        assertEquals(0, snapshot.getVersion());
+        assertTrue(snapshot.isAvailable(0, 0));
+        assertFalse(snapshot.isAvailable(2, 3));
+        assertSame(snapshot, feed.subscribe(delta -> { throw new IllegalStateException(); }));
+
+        List<Seat> seats = Arrays.asList(seatTracker.getSeat(0, 1), seatTracker.getSeat(0, 2), seatTracker.getSeat(0, 3),
+                seatTracker.getSeat(1, 0), seatTracker.getSeat(1, 2));
+        seatTracker.compareAndSetStatus(seats, SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        seatTracker.compareAndSetStatus(seats.subList(0, 2), SeatStatus.HOLD, SeatStatus.RESERVED);
+        seatTracker.compareAndSetStatus(seats.get(4), SeatStatus.HOLD, SeatStatus.AVAILABLE);
+        feed.publish();
+        feed.publish();
+
+        assertEquals(1, deltas.size());
+        SeatMapDelta delta = deltas.get(0);
+        assertEquals(1, delta.getVersion());
+        assertEquals(3, delta.getRangeCount());
+        assertEquals(1, delta.getFirstSeat(0));
+        assertEquals(2, delta.getLength(0));
+        assertEquals(SeatStatus.RESERVED, delta.getStatus(0));
+        assertEquals(3, delta.getFirstSeat(1));
+        assertEquals(2, delta.getLength(1));
+        assertEquals(SeatStatus.HOLD, delta.getStatus(1));
+        assertEquals(6, delta.getFirstSeat(2));
+        assertEquals(SeatStatus.AVAILABLE, delta.getStatus(2));
+
+        SeatMapSnapshot next = feed.subscribe(deltas::add);
+        assertEquals(1, next.getVersion());
+        assertFalse(next.isAvailable(0, 3));
+        assertTrue(next.isAvailable(1, 2));
+        seatTracker.compareAndSetStatus(seatTracker.getSeat(2, 0), SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        feed.publish();
+        // the throwing subscriber was dropped, the two others get the same delta
+        assertEquals(3, deltas.size());
+        assertSame(deltas.get(1), deltas.get(2));
+        feed.close();
+        SeatMapFeed reopened = seatTracker.openSeatMapFeed(10);
+        assertNotSame(feed, reopened);
+        reopened.close();
+    }
+
+    @Test
+    public void publish_subscriberWaitingOnAnotherThread_feedNotLocked() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(3, 4);
+        SeatMapFeed feed = seatTracker.openSeatMapFeed(3_600_000);
+        List<SeatMapSnapshot> snapshots = new ArrayList<>();
+        feed.subscribe(delta -> snapshots.add(CompletableFuture.supplyAsync(() -> feed.subscribe(next -> { })).join()));
+        seatTracker.compareAndSetStatus(seatTracker.getSeat(1, 1), SeatStatus.AVAILABLE, SeatStatus.HOLD);
+        feed.publish();
+        assertEquals(1, snapshots.size());
+        // subscribed after the delta, its snapshot includes it
+        assertEquals(1, snapshots.get(0).getVersion());
+        assertFalse(snapshots.get(0).isAvailable(1, 1));
+        feed.close();
+    }
+}
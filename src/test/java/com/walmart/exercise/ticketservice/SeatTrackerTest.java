@@ -0,0 +1,171 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SeatTrackerTest {
+
+    @Test
+    public void updateSeatStatus_heapStore_tracksSeatState(){
+        SeatTracker seatTracker = new SeatTracker(3,4);
+        assertEquals(12, seatTracker.numAvailableSeat());
+        seatTracker.updateSeatStatus(new Seat(2,3), SeatStatus.HOLD);
+        assertEquals(SeatStatus.HOLD, seatTracker.getSeat(2,3).getStatus());
+        assertEquals(11, seatTracker.numAvailableSeat());
+        assertEquals("0-0", seatTracker.availableSeats().get(0).getId());
+    }
+
+    @Test
+    public void updateSeatStatus_directStore_tracksSeatState(){
+        SeatTracker seatTracker = new SeatTracker(3,4, new DirectSeatStateStore(12));
+        seatTracker.updateSeatStatus(new Seat(0,0), SeatStatus.HOLD);
+        seatTracker.updateSeatStatus(new Seat(0,0), SeatStatus.RESERVED);
+        assertEquals(SeatStatus.RESERVED, seatTracker.getSeat(0,0).getStatus());
+        assertEquals(11, seatTracker.numAvailableSeat());
+    }
+
+    @Test
+    public void seatCounts_statusChanges_countsMatchAudit(){
+        SeatTracker seatTracker = new SeatTracker(10,10);
+        seatTracker.updateSeatStatus(new Seat(0,0), SeatStatus.HOLD);
+        seatTracker.updateSeatStatus(new Seat(0,1), SeatStatus.HOLD);
+        seatTracker.updateSeatStatus(new Seat(0,1), SeatStatus.RESERVED);
+        seatTracker.updateSeatStatus(new Seat(0,2), SeatStatus.HOLD);
+        seatTracker.updateSeatStatus(new Seat(0,2), SeatStatus.AVAILABLE);
+        assertEquals(new SeatCounts(98,1,1), seatTracker.seatCounts());
+        assertEquals(seatTracker.auditSeatCounts(), seatTracker.seatCounts());
+        assertEquals(98, seatTracker.numAvailableSeat());
+    }
+
+    @Test
+    public void compareAndSetStatus_seatTaken_rollsBackGroup(){
+        SeatTracker seatTracker = new SeatTracker(2,3);
+        assertTrue(seatTracker.compareAndSetStatus(new Seat(0,1), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        List<Seat> group = Arrays.asList(new Seat(0,0), new Seat(0,1), new Seat(0,2));
+        assertFalse(seatTracker.compareAndSetStatus(group, SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertEquals(SeatStatus.AVAILABLE, seatTracker.getSeat(0,0).getStatus());
+        assertEquals(new SeatCounts(5,1,0), seatTracker.seatCounts());
+        assertEquals("0-0", seatTracker.bestAvailableSeats(1).get(0).getId());
+    }
+
+    @Test
+    public void compareAndSetStatus_concurrentHolds_everySeatHeldOnce() throws InterruptedException{
+        SeatTracker seatTracker = new SeatTracker(50,50);
+        AtomicInteger held = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for(int thread = 0; thread < 8; thread++){
+            executorService.execute(() -> {
+                for(int row = 0; row < 50; row++){
+                    for(int column = 0; column < 50; column++){
+                        if(seatTracker.compareAndSetStatus(new Seat(row,column), SeatStatus.AVAILABLE, SeatStatus.HOLD)){
+                            held.incrementAndGet();
+                            seatTracker.compareAndSetStatus(new Seat(row,column), SeatStatus.HOLD, SeatStatus.AVAILABLE);
+                            seatTracker.compareAndSetStatus(new Seat(row,column), SeatStatus.AVAILABLE, SeatStatus.HOLD);
+                        }
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(new SeatCounts(0,2500,0), seatTracker.seatCounts());
+        assertEquals(seatTracker.auditSeatCounts(), seatTracker.seatCounts());
+        assertTrue(seatTracker.bestAvailableSeats(1).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getSeat_outsideVenue_throwsException(){
+        new SeatTracker(3,4).getSeat(0,4);
+    }
+
+    @Test
+    public void bestAvailableSeats_stageCentreScorer_seatsInRankOrder(){
+        SeatTracker seatTracker = new SeatTracker(3,5, new PackedSeatStateStore(15), SeatScorer.STAGE_CENTRE);
+        seatTracker.partition(2);
+        assertEquals(Arrays.asList("0-2", "0-1", "0-3", "1-2", "0-0", "0-4", "1-1", "1-3"),
+                seatTracker.bestAvailableSeats(8).stream().map(Seat::getId).collect(toList()));
+
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(0,2), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(1,2), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertEquals(Arrays.asList("0-1", "0-3", "0-0"),
+                seatTracker.bestAvailableSeats(3).stream().map(Seat::getId).collect(toList()));
+        assertEquals(Arrays.asList("1-1", "1-3"),
+                seatTracker.bestAvailableSeats(1, 2).stream().map(Seat::getId).collect(toList()));
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(0,2), SeatStatus.HOLD, SeatStatus.AVAILABLE));
+        assertEquals("0-2", seatTracker.bestAvailableSeats(1).get(0).getId());
+        assertEquals(14, seatTracker.bestAvailableSeats(15).size());
+    }
+
+    @Test
+    public void partition_seatsAlreadyChanged_refused(){
+        SeatTracker seatTracker = new SeatTracker(4,5);
+        seatTracker.partition(2);
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(0,0), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        try {
+            seatTracker.partition(4);
+            fail("The free seat indexes are in use");
+        } catch (IllegalStateException e) {
+            assertEquals(2, seatTracker.numPartitions());
+        }
+        assertEquals(19, seatTracker.numAvailableSeat());
+    }
+
+    @Test
+    public void bestAvailableSeats_scoresCloserThanFloatPrecision_seatsInRankOrder(){
+        SeatTracker seatTracker = new SeatTracker(2,3, (rowNum, columnNum, rows, columns) -> 1 + columnNum * 1e-12);
+        assertEquals(Arrays.asList("0-2", "1-2", "0-1", "1-1", "0-0", "1-0"),
+                seatTracker.bestAvailableSeats(6).stream().map(Seat::getId).collect(toList()));
+    }
+
+    @Test
+    public void numAvailableSeatInSection_jaggedLayout_countsFollowStatusChanges(){
+        VenueLayout layout = new VenueLayout()
+                .addTier("floor", new BigDecimal("250")).addTier("lower", new BigDecimal("149.50"))
+                .addSection("112").addRows(2, 3, "floor").addRows(1, 5, "lower")
+                .addSection("113").addRows(1, 4, "lower");
+        SeatTracker seatTracker = new SeatTracker(layout);
+        assertEquals(15, seatTracker.numTotalSeats());
+        assertEquals(5, seatTracker.getColumns());
+        assertEquals(new SeatCounts(15,0,0), seatTracker.auditSeatCounts());
+        assertEquals(Arrays.asList("0-0", "0-1", "0-2", "1-0"),
+                seatTracker.bestAvailableSeats(4).stream().map(Seat::getId).collect(toList()));
+
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(0,1), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(2,4), SeatStatus.AVAILABLE, SeatStatus.HOLD));
+        assertTrue(seatTracker.compareAndSetStatus(seatTracker.getSeat(2,4), SeatStatus.HOLD, SeatStatus.RESERVED));
+        assertEquals(9, seatTracker.numAvailableSeatInSection("112"));
+        assertEquals(4, seatTracker.numAvailableSeatInSection("112", new BigDecimal("150")));
+        assertEquals(0, seatTracker.numAvailableSeatInSection("113", new BigDecimal("100")));
+        assertEquals(5, seatTracker.numAvailableSeatInTier("floor"));
+        assertEquals(8, seatTracker.numAvailableSeatInTier("lower"));
+        assertEquals(new SeatCounts(13,1,1), seatTracker.seatCounts());
+        assertEquals(seatTracker.auditSeatCounts(), seatTracker.seatCounts());
+        assertEquals(13, seatTracker.availableSeats().size());
+        assertEquals(4, seatTracker.longestFreeBlock());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getSeat_pastEndOfJaggedRow_throwsException(){
+        VenueLayout layout = new VenueLayout().addTier("floor", BigDecimal.TEN)
+                .addSection("A").addRows(1, 2, "floor").addRows(1, 4, "floor");
+        new SeatTracker(layout).getSeat(0,2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void seatTracker_gridOverflowingInt_throwsException(){
+        new SeatTracker(100_000, 100_000);
+    }
+}
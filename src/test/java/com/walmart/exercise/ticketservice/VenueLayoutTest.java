@@ -0,0 +1,71 @@
+package com.walmart.exercise.ticketservice.domain;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class VenueLayoutTest {
+
+    @Test
+    public void parse_layoutFile_sectionsOfJaggedRows() throws IOException{
+        VenueLayout layout = VenueLayout.parse(new StringReader(
+                "# arena\n" +
+                "tier floor 250.00\n" +
+                "tier lower 149.50   # behind the floor\n" +
+                "\n" +
+                "section 112\n" +
+                "10 x 24 floor\n" +
+                "6 x 28 lower\n" +
+                "section 113\n" +
+                "  4 x 20 lower\n"));
+        assertEquals(20, layout.getRows());
+        assertEquals(28, layout.getColumns());
+        assertEquals(10 * 24 + 6 * 28 + 4 * 20, layout.getNumSeats());
+        assertEquals(Arrays.asList("112", "113"), layout.getSections());
+        assertEquals(Arrays.asList("floor", "lower"), layout.getTiers());
+        assertEquals(new BigDecimal("149.50"), layout.getPrice("lower"));
+        assertEquals(24, layout.getRowLength(9));
+        assertEquals(28, layout.getRowLength(10));
+        assertEquals("lower", layout.getTier(15));
+        assertEquals("113", layout.getSection(16));
+    }
+
+    @Test
+    public void write_parsedBack_equalLayout() throws IOException{
+        VenueLayout layout = new VenueLayout().addTier("floor", new BigDecimal("250.00")).addTier("lower", BigDecimal.TEN)
+                .addSection("112").addRows(2, 24, "floor").addRows(3, 24, "floor").addRows(1, 20, "lower")
+                .addSection("empty").addSection("113").addRows(4, 28, "lower");
+        StringWriter writer = new StringWriter();
+        layout.write(writer);
+        assertEquals("tier floor 250.00\ntier lower 10\nsection 112\n5 x 24 floor\n1 x 20 lower\nsection empty\n"
+                + "section 113\n4 x 28 lower\n", writer.toString());
+        VenueLayout parsed = VenueLayout.parse(new StringReader(writer.toString()));
+        assertEquals(layout, parsed);
+        assertEquals(layout.hashCode(), parsed.hashCode());
+        assertNotEquals(layout, VenueLayout.parse(new StringReader(writer.toString().replace("1 x 20", "1 x 21"))));
+    }
+
+    @Test
+    public void parse_unknownTier_reportsLine(){
+        try {
+            VenueLayout.parse(new StringReader("tier floor 250\nsection A\n2 x 10 balcony\n"));
+            fail("The tier is unknown");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Malformed layout line 3"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRows_noSection_throwsException(){
+        new VenueLayout().addTier("floor", BigDecimal.ONE).addRows(1, 10, "floor");
+    }
+}
@@ -0,0 +1,40 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import com.walmart.exercise.ticketservice.adapter.service.SeatAssignmentConfig;
+import com.walmart.exercise.ticketservice.adapter.service.TicketServiceImpl;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static junit.framework.TestCase.*;
+
+public class JmxMetricsRegistryTest {
+
+    @Test
+    public void ticketService_jmxRegistry_publishesLatenciesAndGauges() throws Exception {
+        JmxMetricsRegistry metrics = new JmxMetricsRegistry("ticketservice.test");
+        TicketServiceImpl ticketService = new TicketServiceImpl(new SeatTracker(5, 5),
+                new SeatAssignmentConfig().setHoldTime(100).setMetricsRegistry(metrics));
+        SeatHold seatHold = ticketService.findAndHoldSeats(3, "test@test.com");
+        ticketService.findAndHoldSeats(2, "test@test.com");
+        ticketService.reserveSeats(seatHold.getSeatHoldId(), "test@test.com");
+        ticketService.numSeatsAvailable();
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(2L, mBeanServer.getAttribute(
+                new ObjectName("ticketservice.test:type=Latency,name=\"hold.latency\""), "Count"));
+        assertTrue((Long) mBeanServer.getAttribute(
+                new ObjectName("ticketservice.test:type=Latency,name=\"reserve.latency\""), "P99") > 0);
+        assertEquals(1L, mBeanServer.getAttribute(
+                new ObjectName("ticketservice.test:type=Gauge,name=\"seatHolds.live\""), "Value"));
+        assertEquals(1L, mBeanServer.getAttribute(
+                new ObjectName("ticketservice.test:type=Gauge,name=\"reservations\""), "Value"));
+        assertEquals(0L, mBeanServer.getAttribute(
+                new ObjectName("ticketservice.test:type=Counter,name=\"hold.lostSeatRaces\""), "Value"));
+        assertEquals(1, metrics.getLatencyRecorders().get("availability.latency").count());
+    }
+}
@@ -0,0 +1,33 @@
+package com.walmart.exercise.ticketservice.adapter.metrics;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.*;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void bucketOf_anyValue_withinBucketBounds() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyRecorder.bucketOf(value);
+            assertTrue(value <= LatencyRecorder.highestValueOf(bucket));
+            assertTrue(bucket == 0 || value > LatencyRecorder.highestValueOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void valueAtPercentile_recordedValues_withinThreePercent() {
+        LatencyRecorder subject = new LatencyRecorder();
+        for (long value = 1; value <= 100_000; value++) {
+            subject.record(value * 10);
+        }
+        assertEquals(100_000, subject.count());
+        assertEquals(1_000_000, subject.max());
+        assertEquals(500_005, subject.mean());
+        assertEquals(500_000, subject.valueAtPercentile(50), 500_000 * 0.03);
+        assertEquals(990_000, subject.valueAtPercentile(99), 990_000 * 0.03);
+        assertEquals(1_000_000, subject.valueAtPercentile(100));
+        assertEquals(0, new LatencyRecorder().valueAtPercentile(99));
+    }
+}
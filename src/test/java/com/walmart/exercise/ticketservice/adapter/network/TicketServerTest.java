@@ -0,0 +1,199 @@
+package com.walmart.exercise.ticketservice.adapter.network;
+
+import com.walmart.exercise.ticketservice.adapter.service.TicketServiceImpl;
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.*;
+
+public class TicketServerTest {
+
+    private SeatTracker seatTracker;
+    private TicketServiceImpl ticketService;
+    private TicketServer server;
+    private TicketClient client;
+
+    @Before
+    public void setUp() throws Exception{
+        seatTracker = new SeatTracker(50, 40);
+        ticketService = new TicketServiceImpl(seatTracker, 60);
+        server = new TicketServer(ticketService, new TicketServerConfig().setBufferSize(4096));
+        client = new TicketClient(address());
+    }
+
+    @After
+    public void tearDown(){
+        client.close();
+        server.close();
+        ticketService.shutdown();
+    }
+
+    private InetSocketAddress address(){
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+
+    @Test
+    public void requests_roundTrip_servedByTicketService() throws Exception{
+        SeatHold seatHold = client.findAndHoldSeats(3, "a@test.com").get();
+        assertEquals(1997, client.numSeatsAvailable());
+        assertEquals(3, seatHold.getNumSeats());
+        assertEquals(40, seatHold.getColumns());
+        assertEquals("a@test.com", seatHold.getCustomerEmail());
+        for(Seat seat : seatHold.getHoldSeats()){
+            assertEquals(SeatStatus.HOLD, seatTracker.getSeat(seat.getRowNum(), seat.getColumnNum()).getStatus());
+        }
+        assertTrue(seatHold.getDeadlineNanos() > System.nanoTime());
+
+        assertNull(client.reserveSeats(seatHold.getSeatHoldId(), "b@test.com").get());
+        String reservationId = client.reserveSeats(seatHold.getSeatHoldId(), "a@test.com").get();
+        assertNotNull(reservationId);
+        assertFalse(client.cancelReservation(reservationId, "b@test.com").get());
+        assertTrue(client.cancelReservation(reservationId, "a@test.com").get());
+
+        SeatHold released = client.findAndHoldSeats(5, "c@test.com").get();
+        assertEquals(1995, client.numSeatsAvailable());
+        assertTrue(client.releaseHold(released.getSeatHoldId(), "c@test.com").get());
+        assertFalse(client.releaseHold(released.getSeatHoldId(), "c@test.com").get());
+        assertEquals(2000, client.numSeatsAvailable());
+    }
+
+    @Test
+    public void findAndHoldSeats_pipelined_eachSeatHeldOnce() throws Exception{
+        List<CompletableFuture<SeatHold>> seatHolds = new ArrayList<>();
+        for(int i = 0; i < 1000; i++){
+            seatHolds.add(client.findAndHoldSeats(2, "customer" + i + "@test.com"));
+        }
+        Set<Seat> seats = new HashSet<>();
+        for(int i = 0; i < seatHolds.size(); i++){
+            SeatHold seatHold = seatHolds.get(i).get();
+            assertEquals("customer" + i + "@test.com", seatHold.getCustomerEmail());
+            seats.addAll(seatHold.getHoldSeats());
+        }
+        assertEquals(2000, seats.size());
+        assertEquals(0, client.numSeatsAvailable());
+        assertNull(client.findAndHoldSeats(1, "late@test.com").get());
+    }
+
+    @Test
+    public void findAndHoldSeats_noWorkers_servedOnSelectorThreads() throws Exception{
+        try (TicketServer inline = new TicketServer(ticketService, new TicketServerConfig().setWorkerThreads(0));
+             TicketClient inlineClient = new TicketClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                     inline.getPort()))) {
+            List<CompletableFuture<SeatHold>> seatHolds = new ArrayList<>();
+            for(int i = 0; i < 100; i++){
+                seatHolds.add(inlineClient.findAndHoldSeats(3, "customer" + i + "@test.com"));
+            }
+            for(int i = 0; i < seatHolds.size(); i++){
+                assertEquals("customer" + i + "@test.com", seatHolds.get(i).get().getCustomerEmail());
+            }
+            assertEquals(1700, inlineClient.numSeatsAvailable());
+        }
+    }
+
+    @Test
+    public void findAndHoldSeats_ticketServiceWaiting_otherConnectionsServed() throws Exception{
+        CountDownLatch admitted = new CountDownLatch(1);
+        TicketService waiting = new TicketService() {
+            @Override
+            public int numSeatsAvailable() {
+                return ticketService.numSeatsAvailable();
+            }
+
+            @Override
+            public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+                try {
+                    // parked, e.g. on an admission queue
+                    admitted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ticketService.findAndHoldSeats(numSeats, customerEmail);
+            }
+
+            @Override
+            public String reserveSeats(int seatHoldId, String customerEmail) {
+                return ticketService.reserveSeats(seatHoldId, customerEmail);
+            }
+
+            @Override
+            public boolean releaseHold(int seatHoldId, String customerEmail) {
+                return ticketService.releaseHold(seatHoldId, customerEmail);
+            }
+
+            @Override
+            public boolean cancelReservation(String reservationId, String customerEmail) {
+                return ticketService.cancelReservation(reservationId, customerEmail);
+            }
+        };
+        try (TicketServer oneSelector = new TicketServer(waiting, new TicketServerConfig().setIoThreads(1)
+                .setWorkerThreads(2));
+             TicketClient parked = new TicketClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                     oneSelector.getPort()));
+             TicketClient other = new TicketClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                     oneSelector.getPort()))) {
+            CompletableFuture<SeatHold> seatHold = parked.findAndHoldSeats(2, "a@test.com");
+            CompletableFuture<Integer> available = parked.numSeatsAvailableAsync();
+            assertEquals(2000, (int) other.numSeatsAvailableAsync().get(5, TimeUnit.SECONDS));
+            assertFalse(seatHold.isDone());
+            admitted.countDown();
+            assertEquals(2, seatHold.get(5, TimeUnit.SECONDS).getNumSeats());
+            // answered in order, after the hold
+            assertEquals(1998, (int) available.get());
+        }
+    }
+
+    @Test
+    public void findAndHoldSeats_responseLargerThanBuffer_failsAlone() throws Exception{
+        // 4096 bytes hold about 500 seats
+        CompletableFuture<SeatHold> tooLarge = client.findAndHoldSeats(1000, "a@test.com");
+        CompletableFuture<SeatHold> seatHold = client.findAndHoldSeats(400, "b@test.com");
+        try {
+            tooLarge.get();
+            fail("The hold can't be answered");
+        } catch (Exception e) {
+            assertTrue(e.getMessage().contains("malformed"));
+        }
+        assertEquals(400, seatHold.get().getNumSeats());
+        assertEquals(1600, client.numSeatsAvailable());
+    }
+
+    @Test
+    public void serve_splitAndUnknownRequests_framedByLength() throws Exception{
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            // an unknown operation then an availability query sent in two pieces
+            out.write(new byte[]{0, 0, 0, 7, 0, 0, 0, 1, 42, 1, 2, 0, 0, 0});
+            out.flush();
+            Thread.sleep(50);
+            out.write(new byte[]{5, 0, 0, 0, 2, TicketProtocol.AVAILABLE});
+            out.flush();
+            assertEquals(5, in.readInt());
+            assertEquals(1, in.readInt());
+            assertEquals(TicketProtocol.MALFORMED, in.readByte());
+            assertEquals(9, in.readInt());
+            assertEquals(2, in.readInt());
+            assertEquals(TicketProtocol.OK, in.readByte());
+            assertEquals(2000, in.readInt());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.SimpleMetricsRegistry;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Thread.sleep;
+import static junit.framework.TestCase.*;
+
+public class AdmissionControlledTicketServiceTest {
+
+    @Test
+    public void findAndHoldSeats_soldOutOrThrottled_turnedAwayRightAway() throws Exception{
+        SimpleMetricsRegistry metrics = new SimpleMetricsRegistry();
+        TicketServiceImpl ticketService = new TicketServiceImpl(new SeatTracker(2, 5), 100);
+        AdmissionControlledTicketService subject = new AdmissionControlledTicketService(ticketService,
+                new AdmissionConfig().setCustomerIntervalMillis(60_000).setMetricsRegistry(metrics));
+
+        SeatHold seatHold = subject.findAndHoldSeats(6, "a@test.com");
+        assertNotNull(seatHold);
+        assertNull(subject.findAndHoldSeats(1, "A@test.com"));
+        assertNull(subject.findAndHoldSeats(5, "b@test.com"));
+        assertEquals(1, metrics.getCounters().get("admission.rejected.customerInterval").count());
+        assertEquals(1, metrics.getCounters().get("admission.rejected.soldOut").count());
+        assertEquals(4, subject.findAndHoldSeats(4, "b@test.com").getHoldSeats().size());
+        assertNotNull(subject.reserveSeats(seatHold.getSeatHoldId(), "a@test.com"));
+        ticketService.shutdown();
+    }
+
+    @Test
+    public void findAndHoldSeats_overRate_turnedAway() throws Exception{
+        TicketServiceImpl ticketService = new TicketServiceImpl(new SeatTracker(10, 10), 100);
+        AdmissionControlledTicketService subject = new AdmissionControlledTicketService(ticketService,
+                new AdmissionConfig().setHoldsPerSecond(10).setHoldBurst(3));
+        int admitted = 0;
+        for(int i = 0; i < 10; i++){
+            if(subject.findAndHoldSeats(1, i + "@test.com") != null){
+                admitted++;
+            }
+        }
+        assertEquals(3, admitted);
+        sleep(250);
+        assertNotNull(subject.findAndHoldSeats(1, "late@test.com"));
+        ticketService.shutdown();
+    }
+
+    @Test
+    public void findAndHoldSeats_queueFull_turnedAwayAndQueuedTimeOutKeepingTheirTurn() throws Exception{
+        CountDownLatch serving = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        TicketService blocked = new TicketService() {
+            @Override
+            public int numSeatsAvailable() {
+                return 100;
+            }
+
+            @Override
+            public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
+                serving.countDown();
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new SeatHold(1, customerEmail, Collections.emptyList());
+            }
+
+            @Override
+            public String reserveSeats(int seatHoldId, String customerEmail) {
+                return null;
+            }
+
+            @Override
+            public boolean releaseHold(int seatHoldId, String customerEmail) {
+                return false;
+            }
+
+            @Override
+            public boolean cancelReservation(String reservationId, String customerEmail) {
+                return false;
+            }
+        };
+        AdmissionControlledTicketService subject = new AdmissionControlledTicketService(blocked,
+                new AdmissionConfig().setMaxConcurrentHolds(1).setMaxQueueLength(1).setMaxWaitMillis(200)
+                        .setCustomerIntervalMillis(60_000));
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<SeatHold> served = executorService.submit(() -> subject.findAndHoldSeats(1, "a@test.com"));
+        assertTrue(serving.await(1, TimeUnit.SECONDS));
+        Future<SeatHold> queued = executorService.submit(() -> subject.findAndHoldSeats(1, "b@test.com"));
+        while(subject.getQueueDepth() == 0){
+            sleep(1);
+        }
+        assertNull(subject.findAndHoldSeats(1, "c@test.com"));
+        assertNull(queued.get());
+        assertEquals(0, subject.getQueueDepth());
+        done.countDown();
+        assertNotNull(served.get());
+        // neither was admitted, so neither was throttled
+        assertNotNull(subject.findAndHoldSeats(1, "b@test.com"));
+        assertNotNull(subject.findAndHoldSeats(1, "c@test.com"));
+        assertNull(subject.findAndHoldSeats(1, "a@test.com"));
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,85 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContiguousBlockStrategyTest {
+
+    private final ContiguousBlockStrategy subject = new ContiguousBlockStrategy();
+
+    @Test
+    public void selectSeats_rowHasRoom_seatsGroupSideBySide(){
+        SeatTracker seatTracker = new SeatTracker(3,6);
+        take(seatTracker, 0, 2);
+        take(seatTracker, 1, 3);
+        // row 0 has runs of 2 and 3, row 1 has runs of 3 and 2, row 2 is empty
+        List<Seat> seats = subject.selectSeats(seatTracker, 3);
+        assertSeats(seats, "0-3", "0-4", "0-5");
+        seats = subject.selectSeats(seatTracker, 4);
+        assertSeats(seats, "2-0", "2-1", "2-2", "2-3");
+    }
+
+    @Test
+    public void selectSeats_noRowHasRoom_seatsGroupOnAdjacentRows(){
+        SeatTracker seatTracker = new SeatTracker(4,4);
+        for(int row = 0; row < 4; row++){
+            take(seatTracker, row, row == 2 ? 0 : 1);
+        }
+        take(seatTracker, 0, 2);
+        // longest run is row 2 (columns 1-3), rows 1 and 3 both have a run of 2 next to it, the lowest one wins
+        List<Seat> seats = subject.selectSeats(seatTracker, 5);
+        assertSeats(seats, "2-1", "2-2", "2-3", "1-2", "1-3");
+    }
+
+    @Test
+    public void selectSeats_longestRunAmongSingleSeats_seatsGroupInFewestBlocks(){
+        SeatTracker seatTracker = new SeatTracker(4,12);
+        take(seatTracker, 0, 1);
+        take(seatTracker, 0, 11);
+        for(int column = 1; column < 12; column += 2){
+            take(seatTracker, 1, column);
+        }
+        take(seatTracker, 2, 6);
+        take(seatTracker, 3, 6);
+        // row 0 has a run of 9 next to single seats, rows 2 and 3 have runs of 6 and 5
+        List<Seat> seats = subject.selectSeats(seatTracker, 12);
+        assertSeats(seats, "2-0", "2-1", "2-2", "2-3", "2-4", "2-5", "3-0", "3-1", "3-2", "3-3", "3-4", "3-5");
+    }
+
+    @Test
+    public void selectSeats_notEnoughSeats_returnsNull(){
+        SeatTracker seatTracker = new SeatTracker(2,2);
+        take(seatTracker, 0, 0);
+        assertNull(subject.selectSeats(seatTracker, 4));
+    }
+
+    @Test
+    public void findAndHold_contiguousStrategy_keepsIndexInSyncWithHolds() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(5,5);
+        TicketServiceImpl ticketService = new TicketServiceImpl(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setAllocationStrategy(subject));
+        ticketService.findAndHoldSeats(3, "a@test.com");
+        ticketService.findAndHoldSeats(3, "b@test.com");
+        assertEquals(5, seatTracker.longestFreeBlock());
+        assertSeats(ticketService.findAndHoldSeats(2, "c@test.com").getHoldSeats(), "0-3", "0-4");
+    }
+
+    private static void take(SeatTracker seatTracker, int row, int column){
+        seatTracker.updateSeatStatus(new Seat(row, column), SeatStatus.HOLD);
+    }
+
+    private static void assertSeats(Iterable<Seat> seats, String... ids){
+        int i = 0;
+        for(Seat seat : seats){
+            assertEquals(ids[i++], seat.getId());
+        }
+        assertEquals(ids.length, i);
+    }
+}
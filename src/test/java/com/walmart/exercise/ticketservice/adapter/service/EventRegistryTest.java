@@ -0,0 +1,109 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.lang.Thread.sleep;
+import static junit.framework.TestCase.*;
+
+public class EventRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void findAndHoldSeats_twoEvents_venuesKeptApart() throws Exception{
+        EventRegistry subject = new EventRegistry(new EventRegistryConfig().setExpiryThreads(1)
+                .setEventConfig(new SeatAssignmentConfig().setHoldTime(1)));
+        assertTrue(subject.register("opera", 3, 4));
+        assertTrue(subject.register("ballet", 2, 5));
+        assertFalse(subject.register("opera", 1, 1));
+
+        SeatHold seatHold = subject.findAndHoldSeats("opera", 5, "a@test.com");
+        assertEquals(1, seatHold.getSeatHoldId());
+        assertEquals(1, subject.findAndHoldSeats("ballet", 2, "b@test.com").getSeatHoldId());
+        assertEquals(7, subject.numSeatsAvailable("opera"));
+        assertEquals(8, subject.numSeatsAvailable("ballet"));
+        assertNull(subject.reserveSeats("ballet", seatHold.getSeatHoldId(), "a@test.com"));
+        assertEquals("1", subject.reserveSeats("opera", seatHold.getSeatHoldId(), "a@test.com"));
+        assertEquals(0, subject.numSeatsAvailable("concert"));
+        assertNull(subject.findAndHoldSeats("concert", 1, "a@test.com"));
+
+        // both events expire on the one shared thread
+        awaitUntil(() -> subject.numSeatsAvailable("opera") == 7 && subject.numSeatsAvailable("ballet") == 10);
+        subject.close();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException{
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(!condition.getAsBoolean()){
+            assertTrue("Timed out", System.nanoTime() - deadline < 0);
+            sleep(10);
+        }
+    }
+
+    @Test
+    public void evict_storedEvent_reloadedWithHoldsAndReservations() throws Exception{
+        EventRegistry subject = new EventRegistry(new EventRegistryConfig()
+                .setStorageDirectory(folder.getRoot().toPath())
+                .setEventConfig(new SeatAssignmentConfig().setHoldTime(100)));
+        subject.register("opera", 5, 4);
+        subject.register("ballet", 5, 4);
+        SeatHold reserved = subject.findAndHoldSeats("opera", 3, "a@test.com");
+        SeatHold held = subject.findAndHoldSeats("opera", 4, "b@test.com");
+        assertEquals("1", subject.reserveSeats("opera", reserved.getSeatHoldId(), "a@test.com"));
+        assertTrue(subject.pin("ballet"));
+        assertEquals(2, subject.numLiveEvents());
+
+        assertEquals(1, subject.evictIdle(0));
+        assertFalse(subject.evict("opera"));
+        assertEquals(1, subject.numLiveEvents());
+
+        assertEquals(13, subject.numSeatsAvailable("opera"));
+        assertEquals("2", subject.reserveSeats("opera", held.getSeatHoldId(), "b@test.com"));
+        assertEquals(3, subject.findAndHoldSeats("opera", 1, "c@test.com").getSeatHoldId());
+        assertTrue(subject.unpin("ballet"));
+        assertEquals(2, subject.evictIdle(0));
+        subject.close();
+
+        EventRegistry restarted = new EventRegistry(new EventRegistryConfig()
+                .setStorageDirectory(folder.getRoot().toPath()));
+        restarted.register("opera", 5, 4);
+        assertEquals(12, restarted.numSeatsAvailable("opera"));
+        restarted.close();
+    }
+
+    @Test
+    public void evict_venueLayoutEvent_reloadedWithoutPhantomSeats() throws Exception{
+        VenueLayout layout = new VenueLayout().addTier("floor", BigDecimal.TEN).addSection("112")
+                .addRows(2, 4, "floor").addRows(2, 2, "floor");
+        EventRegistry subject = new EventRegistry(new EventRegistryConfig()
+                .setStorageDirectory(folder.getRoot().toPath()));
+        subject.register("recital", layout);
+        assertEquals(12, subject.numSeatsAvailable("recital"));
+        subject.findAndHoldSeats("recital", 5, "a@test.com");
+        assertTrue(subject.evict("recital"));
+        assertEquals(7, subject.numSeatsAvailable("recital"));
+        assertNull(subject.findAndHoldSeats("recital", 8, "b@test.com"));
+        subject.close();
+    }
+
+    @Test
+    public void evictIdle_idleEvictionConfigured_unusedEventEvicted() throws Exception{
+        EventRegistry subject = new EventRegistry(new EventRegistryConfig()
+                .setStorageDirectory(folder.getRoot().toPath()).setIdleEvictionMillis(50));
+        subject.register("opera", 5, 4);
+        subject.findAndHoldSeats("opera", 3, "a@test.com");
+        assertEquals(1, subject.numLiveEvents());
+        awaitUntil(() -> subject.numLiveEvents() == 0);
+        assertEquals(17, subject.numSeatsAvailable("opera"));
+        subject.close();
+    }
+}
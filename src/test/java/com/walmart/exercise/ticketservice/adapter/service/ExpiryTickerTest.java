@@ -0,0 +1,39 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Thread.sleep;
+import static junit.framework.TestCase.*;
+
+public class ExpiryTickerTest {
+
+    @Test
+    public void tick_venuesSharingTicker_onlyVenuesWithHoldsVisited() throws Exception{
+        ExpiryTicker ticker = new ExpiryTicker(Executors.newScheduledThreadPool(2), 10, true);
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setHoldTime(1).setExpiryTicker(ticker);
+        SeatTracker opera = new SeatTracker(3, 4);
+        SeatAssignmentManager held = new SeatAssignmentManager(opera, config);
+        SeatAssignmentManager idle = new SeatAssignmentManager(new SeatTracker(3, 4), config);
+        assertEquals(0, ticker.numArmed());
+
+        held.findAndHold(5, "a@test.com");
+        assertEquals(1, ticker.numArmed());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(ticker.numArmed() > 0 && System.nanoTime() - deadline < 0){
+            sleep(10);
+        }
+        assertEquals(0, ticker.numArmed());
+        assertEquals(12, opera.numAvailableSeat());
+
+        held.findAndHold(2, "b@test.com");
+        assertEquals(1, ticker.numArmed());
+        held.shutdown();
+        idle.shutdown();
+        assertEquals(0, ticker.numArmed());
+        ticker.close();
+    }
+}
@@ -0,0 +1,56 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HoldExpiryWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    public void advance_deadlinesDue_expiresOnlyDueHolds(){
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 8, 0);
+        wheel.schedule(1, 25);
+        wheel.schedule(2, 40);
+        wheel.schedule(3, 40 + 8 * TICK); // same bucket as hold 2, one round later
+        List<Integer> expired = new ArrayList<>();
+
+        wheel.advance(20, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(30, expired::add);
+        assertEquals(Arrays.asList(1), expired);
+        wheel.advance(45, expired::add);
+        assertEquals(Arrays.asList(1, 2), expired);
+        assertEquals(5, wheel.lastLagNanos());
+        wheel.advance(120, expired::add);
+        assertEquals(Arrays.asList(1, 2, 3), expired);
+        assertEquals(5, wheel.maxLagNanos());
+    }
+
+    @Test
+    public void advance_expiryThreadBehindMoreThanARound_expiresEveryDueHold(){
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 4, 0);
+        for(int id = 0; id < 20; id++){
+            wheel.schedule(id, id * TICK);
+        }
+        List<Integer> expired = new ArrayList<>();
+        wheel.advance(1000, expired::add);
+        assertEquals(20, expired.size());
+    }
+
+    @Test
+    public void schedule_deadlineAlreadyPassed_expiresOnNextAdvance(){
+        HoldExpiryWheel wheel = new HoldExpiryWheel(TICK, 8, 0);
+        wheel.advance(100, id -> {});
+        wheel.schedule(7, 50);
+        List<Integer> expired = new ArrayList<>();
+        wheel.advance(101, expired::add);
+        assertEquals(Arrays.asList(7), expired);
+    }
+}
@@ -0,0 +1,104 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.TestCase.*;
+
+public class LeasedIdGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void generateLong_concurrentThreads_idsUnique() throws Exception{
+        LeasedIdGenerator subject = new LeasedIdGenerator(1L << 40, 100);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for(int task = 0; task < 8; task++){
+            executor.execute(() -> {
+                for(int i = 0; i < 10_000; i++){
+                    ids.add(subject.generateLong());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(80_000, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id >= 1L << 40));
+    }
+
+    @Test
+    public void generate_restarted_startsPastLeasedBlocks() throws Exception{
+        Path leaseFile = folder.getRoot().toPath().resolve("reservations.lease");
+        LeasedIdGenerator subject = new LeasedIdGenerator(leaseFile, 10);
+        assertEquals(1, subject.generate());
+        assertEquals(2, subject.generate());
+        subject.close();
+        assertEquals(12, Files.size(leaseFile));
+
+        LeasedIdGenerator restarted = new LeasedIdGenerator(leaseFile, 10);
+        assertEquals(11, restarted.generate());
+        restarted.advancePast(100);
+        assertEquals(101, restarted.generate());
+        restarted.close();
+        assertEquals(111, new LeasedIdGenerator(leaseFile, 10).getHighWater());
+    }
+
+    @Test
+    public void reserveSeat_leasedIdsRestartedWithoutJournal_codesNotReused() throws Exception{
+        Path leaseFile = folder.getRoot().toPath().resolve("reservations.lease");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setIdLeasePath(leaseFile).setIdLeaseBlockSize(16);
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(4,5), config);
+        SeatHold seatHold = subject.findAndHold(2, "a@test.com");
+        assertEquals("1", subject.reserveSeat(seatHold.getSeatHoldId(), "a@test.com"));
+        subject.shutdown();
+
+        SeatAssignmentManager restarted = new SeatAssignmentManager(new SeatTracker(4,5), config);
+        seatHold = restarted.findAndHold(2, "b@test.com");
+        assertEquals("17", restarted.reserveSeat(seatHold.getSeatHoldId(), "b@test.com"));
+        assertFalse(restarted.cancelReservation("not a code", "b@test.com"));
+        assertFalse(restarted.cancelReservation("99999999999999999999", "b@test.com"));
+        assertTrue(restarted.cancelReservation("17", "b@test.com"));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void reserveSeat_idsPastIntRange_holdKept() throws Exception{
+        Path leaseFile = folder.getRoot().toPath().resolve("reservations.lease");
+        Files.write(leaseFile, ByteBuffer.allocate(12).putInt(LeasedIdGenerator.MAGIC)
+                .putLong(Integer.MAX_VALUE + 1L).array());
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(4,5),
+                new SeatAssignmentConfig().setIdLeasePath(leaseFile));
+        SeatHold seatHold = subject.findAndHold(2, "a@test.com");
+        assertNull(subject.reserveSeat(seatHold.getSeatHoldId(), "a@test.com"));
+        assertEquals(1, subject.findSeatHolds("a@test.com").size());
+        assertTrue(subject.releaseHold(seatHold.getSeatHoldId(), "a@test.com"));
+        assertEquals(20, subject.findAndHold(20, "b@test.com").getNumSeats());
+        subject.shutdown();
+    }
+
+    @Test
+    public void decode_notCodeOfReservationId_minusOne(){
+        assertEquals(Long.MAX_VALUE, ReservationCodes.decode(ReservationCodes.encode(Long.MAX_VALUE)));
+        assertEquals(0, ReservationCodes.decode("0"));
+        assertEquals(-1, ReservationCodes.decode("9223372036854775808"));
+        assertEquals(-1, ReservationCodes.decode("9223372036854775809"));
+        assertEquals(-1, ReservationCodes.decode("017"));
+        assertEquals(-1, ReservationCodes.decode("-17"));
+        assertEquals(-1, ReservationCodes.decodeInt("2147483648"));
+        assertEquals(Integer.MAX_VALUE, ReservationCodes.decodeInt("2147483647"));
+    }
+}
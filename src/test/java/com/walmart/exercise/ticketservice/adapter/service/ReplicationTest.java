@@ -0,0 +1,172 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Thread.sleep;
+import static junit.framework.TestCase.*;
+
+public class ReplicationTest {
+
+    private static TicketServiceImpl leader(ReplicationConfig.Acknowledgement acknowledgement) throws Exception{
+        return new TicketServiceImpl(new SeatTracker(10, 10), new SeatAssignmentConfig().setHoldTime(100)
+                .setReplicationConfig(new ReplicationConfig().setAcknowledgement(acknowledgement).setAckTimeoutMillis(2000)));
+    }
+
+    private static InetSocketAddress address(TicketServiceImpl leader){
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                leader.seatAssignmentManager().replication().getPort());
+    }
+
+    private static void awaitFollowers(TicketServiceImpl leader, int followers) throws InterruptedException{
+        for(int i = 0; i < 500 && leader.seatAssignmentManager().replication().numFollowers() != followers; i++){
+            sleep(10);
+        }
+        assertEquals(followers, leader.seatAssignmentManager().replication().numFollowers());
+    }
+
+    @Test
+    public void promote_semiSyncLeaderLost_followerTakesOver() throws Exception{
+        TicketServiceImpl leader = leader(ReplicationConfig.Acknowledgement.SEMI_SYNC);
+        ReplicationFollower follower = new ReplicationFollower(address(leader));
+        awaitFollowers(leader, 1);
+
+        SeatHold reserved = leader.findAndHoldSeats(4, "a@test.com");
+        SeatHold held = leader.findAndHoldSeats(3, "b@test.com");
+        SeatHold released = leader.findAndHoldSeats(2, "c@test.com");
+        // a semi-synchronous request returns once the follower applied it
+        assertEquals(3, follower.numSeatHolds());
+        assertEquals("1", leader.reserveSeats(reserved.getSeatHoldId(), "a@test.com"));
+        assertTrue(leader.releaseHold(released.getSeatHoldId(), "c@test.com"));
+        assertEquals(1, follower.numSeatHolds());
+        assertEquals(1, follower.numReservations());
+        assertEquals(5, follower.getAppliedSequence());
+
+        leader.shutdown();
+        assertTrue(follower.awaitDisconnect(1000));
+        TicketServiceImpl promoted = follower.promote(new SeatTracker(10, 10), new SeatAssignmentConfig());
+        assertEquals(93, promoted.numSeatsAvailable());
+        assertEquals("2", promoted.reserveSeats(held.getSeatHoldId(), "b@test.com"));
+        assertEquals(4, promoted.findAndHoldSeats(1, "d@test.com").getSeatHoldId());
+        assertTrue(promoted.cancelReservation("1", "a@test.com"));
+        assertEquals(96, promoted.numSeatsAvailable());
+        promoted.shutdown();
+    }
+
+    @Test
+    public void promote_venueLayout_sentInHeader() throws Exception{
+        VenueLayout layout = new VenueLayout().addTier("floor", BigDecimal.TEN).addSection("112")
+                .addRows(2, 4, "floor").addRows(2, 2, "floor");
+        TicketServiceImpl leader = new TicketServiceImpl(new SeatTracker(layout), new SeatAssignmentConfig()
+                .setReplicationConfig(new ReplicationConfig().setAcknowledgement(ReplicationConfig.Acknowledgement.SEMI_SYNC)));
+        ReplicationFollower follower = new ReplicationFollower(address(leader));
+        awaitFollowers(leader, 1);
+        SeatHold held = leader.findAndHoldSeats(9, "a@test.com");
+        assertEquals(1, follower.numSeatHolds());
+        assertEquals(layout, follower.getLayout());
+        leader.shutdown();
+        assertTrue(follower.awaitDisconnect(1000));
+
+        try {
+            follower.promote(new SeatTracker(4, 4), new SeatAssignmentConfig());
+            fail("The venue of the leader has jagged rows");
+        } catch (TicketServiceException e) {
+            assertTrue(e.getMessage().contains("layout"));
+        }
+        TicketServiceImpl promoted = follower.promote(new SeatTracker(follower.getLayout()), new SeatAssignmentConfig());
+        assertEquals(3, promoted.numSeatsAvailable());
+        assertNull(promoted.findAndHoldSeats(4, "b@test.com"));
+        assertNotNull(promoted.reserveSeats(held.getSeatHoldId(), "a@test.com"));
+        promoted.shutdown();
+    }
+
+    @Test
+    public void follow_asyncLeaderWithHolds_stateSentFirst() throws Exception{
+        TicketServiceImpl leader = leader(ReplicationConfig.Acknowledgement.ASYNC);
+        SeatHold first = leader.findAndHoldSeats(5, "a@test.com");
+        leader.findAndHoldSeats(5, "b@test.com");
+        leader.reserveSeats(first.getSeatHoldId(), "a@test.com");
+
+        ReplicationFollower follower = new ReplicationFollower(address(leader));
+        awaitFollowers(leader, 1);
+        leader.findAndHoldSeats(5, "c@test.com");
+        for(int i = 0; i < 500 && follower.numSeatHolds() != 2; i++){
+            sleep(10);
+        }
+        assertEquals(2, follower.numSeatHolds());
+        assertEquals(1, follower.numReservations());
+        follower.close();
+        awaitFollowers(leader, 0);
+        // nobody to wait for, the request goes on
+        assertNotNull(leader.findAndHoldSeats(1, "d@test.com"));
+        leader.shutdown();
+    }
+
+    @Test
+    public void follow_followersResetOnConnect_leaderKeepsReplicating() throws Exception{
+        TicketServiceImpl leader = leader(ReplicationConfig.Acknowledgement.SEMI_SYNC);
+        for(int i = 0; i < 20; i++){
+            try (Socket socket = new Socket(address(leader).getAddress(), address(leader).getPort())) {
+                socket.setSoLinger(true, 0); // closed with a reset
+            }
+        }
+        ReplicationFollower follower = new ReplicationFollower(address(leader));
+        awaitFollowers(leader, 1);
+        leader.findAndHoldSeats(2, "a@test.com");
+        assertEquals(1, follower.numSeatHolds());
+        follower.close();
+        leader.shutdown();
+    }
+
+    @Test
+    public void append_pendingBoundExceeded_followersDisconnected() throws Exception{
+        TicketServiceImpl leader = new TicketServiceImpl(new SeatTracker(10, 10), new SeatAssignmentConfig()
+                .setReplicationConfig(new ReplicationConfig().setAcknowledgement(ReplicationConfig.Acknowledgement.SEMI_SYNC)
+                        .setAckTimeoutMillis(10_000).setMaxPendingBytes(16)));
+        ReplicationFollower follower = new ReplicationFollower(address(leader));
+        awaitFollowers(leader, 1);
+        long start = System.nanoTime();
+        assertNotNull(leader.findAndHoldSeats(2, "a@test.com"));
+        assertTrue(follower.awaitDisconnect(1000));
+        assertNotNull(leader.findAndHoldSeats(2, "b@test.com"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, follower.numSeatHolds());
+        leader.shutdown();
+    }
+
+    @Test
+    public void promote_followerProcess_takesOverOnLoopback() throws Exception{
+        TicketServiceImpl leader = leader(ReplicationConfig.Acknowledgement.SEMI_SYNC);
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ReplicationFollower.class.getName(), "127.0.0.1",
+                String.valueOf(leader.seatAssignmentManager().replication().getPort()))
+                .redirectErrorStream(true).start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("following 127.0.0.1:" + address(leader).getPort() + ", venue of 10 rows of 10 seats",
+                    output.readLine());
+            awaitFollowers(leader, 1);
+            SeatHold seatHold = leader.findAndHoldSeats(6, "a@test.com");
+            leader.findAndHoldSeats(2, "b@test.com");
+            leader.reserveSeats(seatHold.getSeatHoldId(), "a@test.com");
+            leader.shutdown();
+            assertEquals("promoted at record 3: 92 seats available, 1 seat holds, 1 reservations", output.readLine());
+            assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        } finally {
+            process.destroy();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatCounts;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.HoldRequest;
+import com.walmart.exercise.ticketservice.domain.ReserveRequest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SeatAssignmentManagerTest {
+
+    @Test
+    public void findAndHold_shardedVenue_holdsInShardsAndReserves(){
+        SeatTracker seatTracker = new SeatTracker(4,5);
+        SeatAssignmentManager subject = new SeatAssignmentManager(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setShards(2));
+        assertEquals(2, seatTracker.numPartitions());
+
+        SeatHold first = subject.findAndHold(10, "a@test.com");
+        SeatHold second = subject.findAndHold(8, "b@test.com");
+        assertEquals("0-0", first.getHoldSeats().iterator().next().getId());
+        assertEquals("2-0", second.getHoldSeats().iterator().next().getId());
+        // only 2 seats are left
+        assertNull(subject.findAndHold(3, "c@test.com"));
+        assertNotNull(subject.reserveSeat(second.getSeatHoldId(), "b@test.com"));
+        assertNotNull(subject.reserveSeat(first.getSeatHoldId(), "a@test.com"));
+        assertEquals(new SeatCounts(2,0,18), seatTracker.seatCounts());
+    }
+
+    @Test
+    public void findAndHold_holdSpanningShards_reservesFromFirstShard(){
+        SeatTracker seatTracker = new SeatTracker(4,5);
+        SeatAssignmentManager subject = new SeatAssignmentManager(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setShards(4));
+        SeatHold seatHold = subject.findAndHold(12, "a@test.com");
+        assertEquals(12, seatHold.getHoldSeats().size());
+        assertNotNull(subject.reserveSeat(seatHold.getSeatHoldId(), "a@test.com"));
+        assertEquals(8, seatTracker.numAvailableSeat());
+    }
+
+    @Test
+    public void findAndHold_concurrentHoldsOnShards_noSeatHeldTwice() throws InterruptedException{
+        SeatTracker seatTracker = new SeatTracker(40,50);
+        SeatAssignmentManager subject = new SeatAssignmentManager(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setShards(8));
+        Set<String> seatIds = ConcurrentHashMap.newKeySet();
+        Set<Integer> seatHoldIds = ConcurrentHashMap.newKeySet();
+        AtomicBoolean duplicate = new AtomicBoolean();
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        for(int thread = 0; thread < 16; thread++){
+            executorService.execute(() -> {
+                for(int i = 0; i < 25; i++){
+                    SeatHold seatHold = subject.findAndHold(5, "test@test.com");
+                    duplicate.compareAndSet(false, !seatHoldIds.add(seatHold.getSeatHoldId()));
+                    for(Seat seat : seatHold.getHoldSeats()){
+                        duplicate.compareAndSet(false, !seatIds.add(seat.getId()));
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(duplicate.get());
+        assertEquals(2000, seatIds.size());
+        assertEquals(0, seatTracker.numAvailableSeat());
+    }
+
+    @Test
+    public void findAndHoldSeatsBatch_batchOfRequests_servedInOrderFromOnePass() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(3,4);
+        TicketServiceImpl ticketService = new TicketServiceImpl(seatTracker, new SeatAssignmentConfig().setHoldTime(100));
+        List<SeatHold> seatHolds = ticketService.findAndHoldSeatsBatch(Arrays.asList(
+                new HoldRequest(5, "a@test.com"), new HoldRequest(0, "b@test.com"), new HoldRequest(6, "c@test.com"),
+                new HoldRequest(4, null), new HoldRequest(2, "d@test.com"), new HoldRequest(1, "e@test.com")));
+        assertEquals(6, seatHolds.size());
+        assertEquals("0-0", seatHolds.get(0).getHoldSeats().iterator().next().getId());
+        assertNull(seatHolds.get(1));
+        assertEquals("1-1", seatHolds.get(2).getHoldSeats().iterator().next().getId());
+        assertNull(seatHolds.get(3));
+        assertNull(seatHolds.get(4));
+        assertEquals("2-3", seatHolds.get(5).getHoldSeats().iterator().next().getId());
+        assertEquals(0, seatTracker.numAvailableSeat());
+
+        List<String> reservationIds = ticketService.reserveSeatsBatch(Arrays.asList(
+                new ReserveRequest(seatHolds.get(0).getSeatHoldId(), "a@test.com"),
+                new ReserveRequest(seatHolds.get(2).getSeatHoldId(), "wrong@test.com")));
+        assertEquals(Arrays.asList("1", null), reservationIds);
+    }
+
+    @Test
+    public void findAndHoldSeats_batchingWindow_coalescesConcurrentRequests() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(20,50);
+        TicketServiceImpl ticketService = new TicketServiceImpl(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setShards(4).setBatchWindowMicros(200).setMaxBatchSize(32));
+        Set<String> seatIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(20);
+        for(int thread = 0; thread < 20; thread++){
+            executorService.execute(() -> {
+                for(int i = 0; i < 10; i++){
+                    ticketService.findAndHoldSeats(5, "test@test.com").getHoldSeats()
+                            .forEach(seat -> seatIds.add(seat.getId()));
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1000, seatIds.size());
+        assertNull(ticketService.findAndHoldSeats(1, "test@test.com"));
+    }
+}
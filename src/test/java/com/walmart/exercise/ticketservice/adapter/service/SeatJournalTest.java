@@ -0,0 +1,196 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.TestCase.*;
+
+public class SeatJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void seatAssignmentManager_restarted_restoresHoldsReservationsAndIds() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setHoldTime(100).setShards(2).setJournalPath(journalPath);
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(4,5), config);
+        SeatHold reserved = subject.findAndHold(3, "a@test.com");
+        SeatHold held = subject.findAndHold(4, "b@test.com");
+        assertEquals("1", subject.reserveSeat(reserved.getSeatHoldId(), "a@test.com"));
+        subject.shutdown();
+
+        SeatTracker seatTracker = new SeatTracker(4,5);
+        SeatAssignmentManager restarted = new SeatAssignmentManager(seatTracker, config);
+        assertEquals(13, seatTracker.numAvailableSeat());
+        assertEquals(3, seatTracker.seatCounts().getReserved());
+        assertEquals(1, restarted.numSeatHolds());
+        assertNull(restarted.reserveSeat(reserved.getSeatHoldId(), "a@test.com"));
+        assertTrue(restarted.findAndHold(1, "c@test.com").getSeatHoldId() > held.getSeatHoldId());
+        assertEquals("2", restarted.reserveSeat(held.getSeatHoldId(), "b@test.com"));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void seatAssignmentManager_restartedAfterHoldTime_releasesExpiredHolds() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setHoldTime(1).setJournalPath(journalPath);
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(2,5), config);
+        subject.findAndHold(4, "a@test.com");
+        subject.shutdown();
+
+        Thread.sleep(1100);
+        SeatTracker seatTracker = new SeatTracker(2,5);
+        SeatAssignmentManager restarted = new SeatAssignmentManager(seatTracker, config);
+        Thread.sleep(100);
+        assertEquals(10, seatTracker.numAvailableSeat());
+        restarted.shutdown();
+    }
+
+    @Test
+    public void seatAssignmentManager_releasedAndCancelled_restartedWithSeatsAvailable() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setHoldTime(100).setJournalPath(journalPath);
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(2,5), config);
+        SeatHold released = subject.findAndHold(2, "a@test.com");
+        SeatHold cancelled = subject.findAndHold(3, "b@test.com");
+        SeatHold reserved = subject.findAndHold(4, "c@test.com");
+        String reservationId = subject.reserveSeat(cancelled.getSeatHoldId(), "b@test.com");
+        subject.reserveSeat(reserved.getSeatHoldId(), "c@test.com");
+        assertTrue(subject.releaseHold(released.getSeatHoldId(), "a@test.com"));
+        assertTrue(subject.cancelReservation(reservationId, "b@test.com"));
+        subject.shutdown();
+
+        SeatTracker seatTracker = new SeatTracker(2,5);
+        SeatAssignmentManager restarted = new SeatAssignmentManager(seatTracker, config);
+        assertEquals(6, seatTracker.numAvailableSeat());
+        assertEquals(0, restarted.numSeatHolds());
+        assertFalse(restarted.cancelReservation(reservationId, "b@test.com"));
+        restarted.shutdown();
+    }
+
+    @Test
+    public void replay_tornLastRecord_stopsAtLastValidRecordAcrossChunks() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatTracker seatTracker = new SeatTracker(10,10);
+        SeatJournal journal = new SeatJournal(journalPath, 10, 0, 128);
+        for(int id = 1; id <= 20; id++){
+            journal.onHold(new SeatHold(id, "test@test.com",
+                    Collections.singletonList(seatTracker.getSeat(id / 10, id % 10))), Long.MAX_VALUE);
+        }
+        journal.onReserve(new SeatHold(3, "test@test.com", Collections.emptyList()), "1");
+        journal.onExpire(new SeatHold(4, "test@test.com", Collections.emptyList()));
+        journal.onExpire(new SeatHold(5, "test@test.com", Collections.emptyList()));
+        journal.close();
+
+        // tear the last record, the expiration of hold 5
+        try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+            byte[] content = new byte[(int) file.length()];
+            file.readFully(content);
+            int end = content.length - 1;
+            while(content[end] == 0){
+                end--;
+            }
+            file.seek(end);
+            file.write(content[end] ^ 0xFF);
+        }
+
+        journal = new SeatJournal(journalPath, 10, 0, 128);
+        JournalRecovery recovery = new JournalRecovery();
+        journal.replay(recovery, 0, 0);
+        assertEquals(18, recovery.seatHolds().size());
+        assertEquals(Collections.singleton("1"), recovery.reservations().keySet());
+        assertTrue(Arrays.equals(new int[]{3}, recovery.reservations().get("1").seatIndexes));
+        assertEquals(20, recovery.maxSeatHoldId());
+        journal.onExpire(new SeatHold(6, "test@test.com", Collections.emptyList()));
+        journal.close();
+
+        journal = new SeatJournal(journalPath, 10, 0, 128);
+        recovery = new JournalRecovery();
+        journal.replay(recovery, 0, 0);
+        assertEquals(17, recovery.seatHolds().size());
+        journal.close();
+    }
+
+    @Test
+    public void append_concurrentAcrossChunks_everyRecordReplayed() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatTracker seatTracker = new SeatTracker(40,10);
+        SeatJournal journal = new SeatJournal(journalPath, 10, 1, 256);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for(int t = 0; t < threads.length; t++){
+            int first = t * 100;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for(int id = first; id < first + 100; id++){
+                    journal.onHold(new SeatHold(id + 1, "test@test.com",
+                            Collections.singletonList(seatTracker.getSeat(id / 10, id % 10))), Long.MAX_VALUE);
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long position = journal.position();
+        journal.close();
+
+        SeatJournal replayed = new SeatJournal(journalPath, 10, 0, 256);
+        JournalRecovery recovery = new JournalRecovery();
+        replayed.replay(recovery, 0, 0);
+        assertEquals(400, recovery.seatHolds().size());
+        assertEquals(position, replayed.position());
+        replayed.close();
+    }
+
+    @Test
+    public void replay_rotationCutShort_previousJournalReplayedFirst() throws Exception{
+        Path journalPath = folder.getRoot().toPath().resolve("seats.journal");
+        SeatTracker seatTracker = new SeatTracker(10,10);
+        SeatJournal journal = new SeatJournal(journalPath, 10, 0, 128);
+        journal.onHold(new SeatHold(1, "test@test.com", Collections.singletonList(seatTracker.getSeat(0, 1))),
+                Long.MAX_VALUE);
+        long position = journal.position();
+        journal.onHold(new SeatHold(2, "test@test.com", Collections.singletonList(seatTracker.getSeat(0, 2))),
+                Long.MAX_VALUE);
+        assertEquals(1, journal.rotate());
+        journal.onReserve(new SeatHold(2, "test@test.com", Collections.emptyList()), "1");
+        // goes down before the snapshot of journal 1 is written
+        journal.close();
+
+        journal = new SeatJournal(journalPath, 10, 0, 128);
+        assertTrue(journal.hasPrevious());
+        JournalRecovery recovery = new JournalRecovery();
+        journal.replay(recovery, 0, position);
+        assertTrue(recovery.seatHolds().isEmpty());
+        assertTrue(Arrays.equals(new int[]{2}, recovery.reservations().get("1").seatIndexes));
+        journal.dropPrevious();
+        journal.close();
+
+        journal = new SeatJournal(journalPath, 10, 0, 128);
+        assertFalse(journal.hasPrevious());
+        assertEquals(1, journal.generation());
+        try {
+            journal.replay(new JournalRecovery(), 0, position);
+            fail("Journal 0 is gone");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("gone"));
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,118 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Thread.sleep;
+import static junit.framework.TestCase.*;
+
+public class SingleWriterTicketServiceTest {
+
+    @Test
+    public void findAndHoldSeats_holdAndReserve_completedInOrder() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(3,4);
+        SingleWriterTicketService subject = new SingleWriterTicketService(seatTracker, 100);
+
+        CompletableFuture<SeatHold> first = subject.findAndHoldSeats(5, "a@test.com");
+        CompletableFuture<SeatHold> second = subject.findAndHoldSeats(6, "b@test.com");
+        assertNull(subject.findAndHoldSeats(0, "c@test.com").get());
+        assertNull(subject.findAndHoldSeats(2, null).get());
+        assertEquals(1, first.get().getSeatHoldId());
+        assertEquals("0-0", first.get().getHoldSeats().iterator().next().getId());
+        assertEquals("1-1", second.get().getHoldSeats().iterator().next().getId());
+        assertNull(subject.findAndHoldSeats(2, "c@test.com").get());
+        assertEquals(1, subject.numSeatsAvailable());
+
+        assertNull(subject.reserveSeats(1, "b@test.com").get());
+        assertEquals("1", subject.reserveSeats(1, "A@test.com").get());
+        assertNull(subject.reserveSeats(1, "a@test.com").get());
+        subject.close();
+    }
+
+    @Test
+    public void findAndHoldSeats_holdTimeGoneBy_seatsReleased() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(2,5);
+        SingleWriterTicketService subject = new SingleWriterTicketService(seatTracker, 1);
+
+        SeatHold reserved = subject.findAndHoldSeats(4, "a@test.com").get();
+        subject.findAndHoldSeats(6, "b@test.com").get();
+        assertEquals(0, subject.numSeatsAvailable());
+        assertEquals("1", subject.reserveSeats(reserved.getSeatHoldId(), "a@test.com").get());
+        sleep(1500);
+        assertEquals(6, subject.numSeatsAvailable());
+        subject.close();
+    }
+
+    @Test
+    public void releaseHold_cancelReservation_seatsAvailableRightAway() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(2,5);
+        SingleWriterTicketService subject = new SingleWriterTicketService(seatTracker, 100);
+
+        SeatHold released = subject.findAndHoldSeats(3, "a@test.com").get();
+        SeatHold reserved = subject.findAndHoldSeats(4, "b@test.com").get();
+        String reservationId = subject.reserveSeats(reserved.getSeatHoldId(), "b@test.com").get();
+        assertFalse(subject.releaseHold(released.getSeatHoldId(), "b@test.com").get());
+        assertTrue(subject.releaseHold(released.getSeatHoldId(), "a@test.com").get());
+        assertFalse(subject.cancelReservation(reservationId, "a@test.com").get());
+        assertTrue(subject.cancelReservation(reservationId, "B@test.com").get());
+        assertFalse(subject.cancelReservation(reservationId, "b@test.com").get());
+        assertEquals(10, subject.numSeatsAvailable());
+        subject.close();
+    }
+
+    @Test
+    public void findAndHoldSeats_concurrentCallers_noSeatHeldTwice() throws Exception{
+        SeatTracker seatTracker = new SeatTracker(20,50);
+        SingleWriterTicketService subject = new SingleWriterTicketService(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(100).setCommandBufferSize(16));
+        Set<String> seatIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for(int thread = 0; thread < 8; thread++){
+            executorService.execute(() -> {
+                List<CompletableFuture<SeatHold>> seatHolds = new ArrayList<>();
+                for(int i = 0; i < 25; i++){
+                    seatHolds.add(subject.findAndHoldSeats(5, "test@test.com"));
+                }
+                seatHolds.forEach(seatHold -> seatHold.join().getHoldSeats().forEach(seat -> seatIds.add(seat.getId())));
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1000, seatIds.size());
+        assertNull(subject.findAndHoldSeats(1, "test@test.com").get());
+        subject.close();
+        assertTrue(subject.findAndHoldSeats(1, "test@test.com").isCompletedExceptionally());
+    }
+
+    @Test
+    public void close_racingCallers_everyRequestAnsweredOrFailed() throws Exception{
+        SingleWriterTicketService subject = new SingleWriterTicketService(new SeatTracker(20,50),
+                new SeatAssignmentConfig().setHoldTime(100).setCommandBufferSize(4));
+        List<CompletableFuture<SeatHold>> seatHolds = new CopyOnWriteArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for(int thread = 0; thread < 4; thread++){
+            executorService.execute(() -> {
+                for(int i = 0; i < 500; i++){
+                    seatHolds.add(subject.findAndHoldSeats(1, "test@test.com"));
+                }
+            });
+        }
+        subject.close();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        for(CompletableFuture<SeatHold> seatHold : seatHolds){
+            assertTrue(seatHold.isDone());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.adapter.metrics.LatencyRecorder;
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatStatus;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.TicketService;
+import com.walmart.exercise.ticketservice.domain.TicketServiceException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * StressHarness drives a ticket service from many threads with a mix of find and hold, reserve, release and
+ * availability requests, the seat holds left alone expiring meanwhile. Every request is recorded with its
+ * invocation and response time, then the history is checked against the venue once the last seat holds expired:
+ * no seat sold twice nor held twice at once, no expiration lost, seat counts adding up.
+ *
+ * Run as a program to load a venue for longer: StressHarness [threads] [seconds].
+ */
+public class StressHarness {
+
+    private static final int HOLD = 0;
+    private static final int RESERVE = 1;
+    private static final int RELEASE = 2;
+    private static final int AVAILABILITY = 3;
+    private static final String[] OPERATIONS = {"hold", "reserve", "release", "availability"};
+
+    private int rows = 50;
+    private int columns = 40;
+    private int threads = 8;
+    private long durationMillis = 1000;
+    private int holdTime = 1;
+    private int maxSeatsPerHold = 6;
+    private int[] mix = {50, 25, 10, 15};
+
+    public StressHarness setVenue(int rows, int columns){
+        this.rows = rows;
+        this.columns = columns;
+        return this;
+    }
+
+    public StressHarness setThreads(int threads){
+        this.threads = threads;
+        return this;
+    }
+
+    public StressHarness setDurationMillis(long durationMillis){
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    /**
+     * @param holdTime hold time in seconds of the ticket services, the run waits for it once done
+     */
+    public StressHarness setHoldTime(int holdTime){
+        this.holdTime = holdTime;
+        return this;
+    }
+
+    public StressHarness setMaxSeatsPerHold(int maxSeatsPerHold){
+        this.maxSeatsPerHold = maxSeatsPerHold;
+        return this;
+    }
+
+    /**
+     * Sets the relative weights of the requests, reserving and releasing one of the seat holds of the thread.
+     */
+    public StressHarness setMix(int hold, int reserve, int release, int availability){
+        this.mix = new int[]{hold, reserve, release, availability};
+        return this;
+    }
+
+    /**
+     * Runs a scenario on a fresh venue.
+     * @param name scenario name
+     * @param ticketServices creates the ticket service of a venue with a given hold time
+     * @return the throughput, latencies and invariant violations of the run
+     */
+    public Report run(String name, BiFunction<SeatTracker, Integer, TicketService> ticketServices)
+            throws InterruptedException{
+        SeatTracker seatTracker = new SeatTracker(rows, columns);
+        TicketService ticketService = ticketServices.apply(seatTracker, holdTime);
+        List<List<Event>> histories = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] deadline = new long[1];
+        for(int t = 0; t < threads; t++){
+            List<Event> history = new ArrayList<>();
+            histories.add(history);
+            String customerEmail = "customer" + t + "@test.com";
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                drive(ticketService, customerEmail, deadline[0], history);
+            }, "stress-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        // every seat hold left alone expires, plus a margin for the expiration to run
+        Thread.sleep(TimeUnit.SECONDS.toMillis(holdTime) + 500);
+        Report report = new Report(name, elapsed, histories);
+        check(seatTracker, histories, report);
+        if(ticketService instanceof TicketServiceImpl){
+            ((TicketServiceImpl) ticketService).shutdown();
+        }
+        return report;
+    }
+
+    private void drive(TicketService ticketService, String customerEmail, long deadline, List<Event> history){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Event> liveHolds = new ArrayList<>();
+        int totalWeight = mix[0] + mix[1] + mix[2] + mix[3];
+        while(System.nanoTime() - deadline < 0){
+            int pick = random.nextInt(totalWeight);
+            int operation = 0;
+            while(pick >= mix[operation]){
+                pick -= mix[operation++];
+            }
+            if((operation == RESERVE || operation == RELEASE) && liveHolds.isEmpty()){
+                operation = HOLD;
+            }
+            Event event = new Event(operation, System.nanoTime());
+            if(operation == HOLD){
+                event.seatHold = ticketService.findAndHoldSeats(random.nextInt(maxSeatsPerHold) + 1, customerEmail);
+                if(event.seatHold != null){
+                    liveHolds.add(event);
+                }
+            } else if(operation == AVAILABILITY){
+                event.available = ticketService.numSeatsAvailable();
+            } else {
+                Event hold = liveHolds.remove(random.nextInt(liveHolds.size()));
+                event.seatHold = hold.seatHold;
+                if(operation == RESERVE){
+                    event.reservationId = ticketService.reserveSeats(hold.seatHold.getSeatHoldId(), customerEmail);
+                    event.succeeded = event.reservationId != null;
+                } else {
+                    event.succeeded = ticketService.releaseHold(hold.seatHold.getSeatHoldId(), customerEmail);
+                }
+            }
+            event.response = System.nanoTime();
+            history.add(event);
+        }
+    }
+
+    private void check(SeatTracker seatTracker, List<List<Event>> histories, Report report){
+        long holdTimeNanos = TimeUnit.SECONDS.toNanos(holdTime);
+        Map<String, List<Event>> holdsBySeat = new HashMap<>();
+        Map<Integer, Event> endOfHold = new HashMap<>();
+        Set<String> reservationIds = new HashSet<>();
+        Set<String> reservedSeats = new HashSet<>();
+        for (List<Event> history : histories) {
+            for (Event event : history) {
+                if(event.operation == HOLD && event.seatHold != null){
+                    for (Seat seat : event.seatHold.getHoldSeats()) {
+                        holdsBySeat.computeIfAbsent(seat.getId(), id -> new ArrayList<>()).add(event);
+                    }
+                } else if(event.operation == AVAILABILITY && (event.available < 0 || event.available > rows * columns)){
+                    report.violation("availability out of range: " + event.available);
+                } else if((event.operation == RESERVE || event.operation == RELEASE) && event.succeeded){
+                    endOfHold.put(event.seatHold.getSeatHoldId(), event);
+                    if(event.operation == RESERVE){
+                        if(!reservationIds.add(event.reservationId)){
+                            report.violation("reservation ID handed out twice: " + event.reservationId);
+                        }
+                        for (Seat seat : event.seatHold.getHoldSeats()) {
+                            if(!reservedSeats.add(seat.getId())){
+                                report.violation("seat sold twice: " + seat.getId());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // a seat is held again only once the previous hold of it was released, or could have expired. Holds sorted
+        // by invocation may have taken effect the other way round when their calls overlapped.
+        for (Map.Entry<String, List<Event>> seatHolds : holdsBySeat.entrySet()) {
+            List<Event> holds = seatHolds.getValue();
+            holds.sort((a, b) -> Long.compare(a.invocation, b.invocation));
+            for(int i = 1; i < holds.size(); i++){
+                Event previous = holds.get(i - 1);
+                Event next = holds.get(i);
+                if(!heldAfter(previous, next, endOfHold, holdTimeNanos) && !heldAfter(next, previous, endOfHold, holdTimeNanos)){
+                    report.violation("seat " + seatHolds.getKey() + " held by seat holds " + previous.seatHold.getSeatHoldId()
+                            + " and " + next.seatHold.getSeatHoldId() + " at once");
+                }
+            }
+        }
+        // every seat hold expired by now, the seats are either reserved or available again
+        for(int row = 0; row < rows; row++){
+            for(int column = 0; column < columns; column++){
+                Seat seat = seatTracker.getSeat(row, column);
+                SeatStatus expected = reservedSeats.contains(seat.getId()) ? SeatStatus.RESERVED : SeatStatus.AVAILABLE;
+                if(seat.getStatus() != expected){
+                    report.violation("seat " + seat.getId() + " is " + seat.getStatus() + " instead of " + expected
+                            + (expected == SeatStatus.AVAILABLE ? ", expiration lost" : ""));
+                }
+            }
+        }
+        if(!seatTracker.seatCounts().equals(seatTracker.auditSeatCounts())){
+            report.violation("seat counts " + seatTracker.seatCounts() + " don't add up to " + seatTracker.auditSeatCounts());
+        }
+    }
+
+    /**
+     * @return true if the seats of a first hold could be held again by a second one: the first hold was released
+     * before the second one returned, or expired by then
+     */
+    private static boolean heldAfter(Event first, Event second, Map<Integer, Event> endOfHold, long holdTimeNanos){
+        Event end = endOfHold.get(first.seatHold.getSeatHoldId());
+        if(end != null && end.operation == RESERVE){
+            return false;
+        }
+        return (end != null && end.invocation - second.response < 0) || second.response - first.invocation >= holdTimeNanos;
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        StressHarness harness = new StressHarness()
+                .setThreads(args.length > 0 ? Integer.parseInt(args[0]) : 16)
+                .setDurationMillis(TimeUnit.SECONDS.toMillis(args.length > 1 ? Long.parseLong(args[1]) : 10))
+                .setVenue(200, 100);
+        System.out.println(harness.run("default", StressHarness::ticketService));
+        System.out.println(harness.run("sharded", (seatTracker, holdTime) -> ticketService(seatTracker,
+                new SeatAssignmentConfig().setHoldTime(holdTime).setShards(8))));
+        System.out.println(harness.setMix(80, 10, 0, 10).run("hold heavy", StressHarness::ticketService));
+    }
+
+    static TicketService ticketService(SeatTracker seatTracker, int holdTime){
+        return ticketService(seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime));
+    }
+
+    static TicketService ticketService(SeatTracker seatTracker, SeatAssignmentConfig config){
+        try {
+            return new TicketServiceImpl(seatTracker, config);
+        } catch (TicketServiceException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Event {
+        private final int operation;
+        private final long invocation;
+        private long response;
+        private SeatHold seatHold;
+        private String reservationId;
+        private boolean succeeded;
+        private int available;
+
+        private Event(int operation, long invocation){
+            this.operation = operation;
+            this.invocation = invocation;
+        }
+    }
+
+    /**
+     * Throughput and latency percentiles per request type of a run, and the invariant violations found.
+     */
+    public static final class Report {
+        private final String name;
+        private final Map<String, LatencyRecorder> latencies = new LinkedHashMap<>();
+        private final long elapsedNanos;
+        private final List<String> violations = new ArrayList<>();
+
+        private Report(String name, long elapsedNanos, List<List<Event>> histories){
+            this.name = name;
+            this.elapsedNanos = elapsedNanos;
+            for (String operation : OPERATIONS) {
+                latencies.put(operation, new LatencyRecorder());
+            }
+            for (List<Event> history : histories) {
+                for (Event event : history) {
+                    latencies.get(OPERATIONS[event.operation]).record(event.response - event.invocation);
+                }
+            }
+        }
+
+        private void violation(String violation){
+            violations.add(violation);
+        }
+
+        public List<String> getViolations() {
+            return violations;
+        }
+
+        /**
+         * @return requests of all types served per second
+         */
+        public double throughput(){
+            long requests = 0;
+            for (LatencyRecorder latency : latencies.values()) {
+                requests += latency.count();
+            }
+            return requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder(String.format("%s: %.0f requests/s, %d violations%n",
+                    name, throughput(), violations.size()));
+            for (Map.Entry<String, LatencyRecorder> latency : latencies.entrySet()) {
+                LatencyRecorder recorder = latency.getValue();
+                report.append(String.format("  %-12s %9d requests %8.0f/s  p50 %7dns  p99 %8dns  p99.9 %9dns  max %10dns%n",
+                        latency.getKey(), recorder.count(),
+                        recorder.count() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos,
+                        recorder.valueAtPercentile(50), recorder.valueAtPercentile(99),
+                        recorder.valueAtPercentile(99.9), recorder.max()));
+            }
+            for (String violation : violations.subList(0, Math.min(10, violations.size()))) {
+                report.append("  ").append(violation).append(System.lineSeparator());
+            }
+            return report.toString();
+        }
+    }
+}
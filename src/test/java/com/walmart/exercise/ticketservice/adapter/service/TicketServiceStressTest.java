@@ -0,0 +1,32 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.*;
+
+public class TicketServiceStressTest {
+
+    private final StressHarness harness = new StressHarness().setThreads(8).setDurationMillis(1500).setVenue(20, 20);
+
+    @Test
+    public void run_defaultService_historyConsistent() throws Exception{
+        StressHarness.Report report = harness.run("default", StressHarness::ticketService);
+        assertTrue(report.toString(), report.getViolations().isEmpty());
+        assertTrue(report.throughput() > 0);
+    }
+
+    @Test
+    public void run_shardedService_historyConsistent() throws Exception{
+        StressHarness.Report report = harness.run("sharded", (seatTracker, holdTime) -> StressHarness.ticketService(
+                seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime).setShards(4)));
+        assertTrue(report.toString(), report.getViolations().isEmpty());
+    }
+
+    @Test
+    public void run_batchedService_historyConsistent() throws Exception{
+        StressHarness.Report report = harness.setMix(60, 20, 20, 0).run("batched", (seatTracker, holdTime) ->
+                StressHarness.ticketService(seatTracker, new SeatAssignmentConfig().setHoldTime(holdTime)
+                        .setBatchWindowMicros(100)));
+        assertTrue(report.toString(), report.getViolations().isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package com.walmart.exercise.ticketservice.adapter.service;
+
+import com.walmart.exercise.ticketservice.domain.Seat;
+import com.walmart.exercise.ticketservice.domain.SeatCounts;
+import com.walmart.exercise.ticketservice.domain.SeatHold;
+import com.walmart.exercise.ticketservice.domain.SeatScorer;
+import com.walmart.exercise.ticketservice.domain.SeatTracker;
+import com.walmart.exercise.ticketservice.domain.VenueLayout;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.util.stream.Collectors.toList;
+import static junit.framework.TestCase.*;
+
+public class VenueSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadSeatTracker_snapshotAndJournalTail_restoresVenue() throws Exception{
+        Path snapshotPath = folder.getRoot().toPath().resolve("venue.snapshot");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setHoldTime(100).setSnapshotIntervalMillis(0)
+                .setJournalPath(folder.getRoot().toPath().resolve("seats.journal")).setSnapshotPath(snapshotPath);
+        SeatAssignmentManager subject = new SeatAssignmentManager(VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4), config);
+        SeatHold reserved = subject.findAndHold(3, "a@test.com");
+        SeatHold reservedAfterSnapshot = subject.findAndHold(2, "b@test.com");
+        SeatHold held = subject.findAndHold(4, "c@test.com");
+        assertEquals("1", subject.reserveSeat(reserved.getSeatHoldId(), "a@test.com"));
+        subject.takeSnapshot();
+        // the journal rotated out is in the snapshot, deleted
+        assertFalse(Files.exists(folder.getRoot().toPath().resolve("seats.journal.prev")));
+        assertEquals("2", subject.reserveSeat(reservedAfterSnapshot.getSeatHoldId(), "b@test.com"));
+        subject.expire(held.getSeatHoldId());
+        SeatHold heldAfterSnapshot = subject.findAndHold(1, "d@test.com");
+        // the process goes down without a last snapshot
+
+        SeatTracker seatTracker = VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4);
+        assertEquals(new SeatCounts(11, 6, 3), seatTracker.seatCounts());
+        SeatAssignmentManager restarted = new SeatAssignmentManager(seatTracker, config);
+        assertEquals(new SeatCounts(14, 1, 5), seatTracker.seatCounts());
+        assertEquals(seatTracker.auditSeatCounts(), seatTracker.seatCounts());
+        assertEquals(1, restarted.numSeatHolds());
+        assertEquals("3", restarted.reserveSeat(heldAfterSnapshot.getSeatHoldId(), "d@test.com"));
+        restarted.shutdown();
+
+        seatTracker = VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4);
+        assertEquals(new SeatCounts(14, 0, 6), seatTracker.seatCounts());
+        subject.shutdown();
+    }
+
+    @Test
+    public void loadSeatTracker_noSnapshotOrOtherVenue_allSeatsAvailableOrRefused() throws Exception{
+        Path snapshotPath = folder.getRoot().toPath().resolve("venue.snapshot");
+        assertEquals(20, VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4).numAvailableSeat());
+        SeatAssignmentManager subject = new SeatAssignmentManager(new SeatTracker(5, 4), new SeatAssignmentConfig()
+                .setJournalPath(folder.getRoot().toPath().resolve("seats.journal")).setSnapshotPath(snapshotPath));
+        subject.findAndHold(2, "a@test.com");
+        subject.shutdown();
+        assertEquals(18, VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4).numAvailableSeat());
+        // 0-0 and 0-1 held, the best available seats next to them by the scorer the venue is loaded with
+        assertEquals(Arrays.asList("0-2", "0-3"), VenueSnapshot.loadSeatTracker(snapshotPath, 5, 4,
+                SeatScorer.STAGE_CENTRE).bestAvailableSeats(2).stream().map(Seat::getId).collect(toList()));
+        try {
+            VenueSnapshot.loadSeatTracker(snapshotPath, 4, 6);
+            fail("The snapshot is of another venue");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("20 seats"));
+        }
+    }
+
+    @Test
+    public void loadSeatTracker_venueLayout_snapshotOfSameRowsOnly() throws Exception{
+        Path snapshotPath = folder.getRoot().toPath().resolve("venue.snapshot");
+        VenueLayout layout = new VenueLayout().addTier("floor", BigDecimal.TEN).addSection("112")
+                .addRows(2, 4, "floor").addRows(2, 2, "floor");
+        SeatAssignmentConfig config = new SeatAssignmentConfig().setSnapshotPath(snapshotPath)
+                .setJournalPath(folder.getRoot().toPath().resolve("seats.journal"));
+        SeatAssignmentManager subject = new SeatAssignmentManager(VenueSnapshot.loadSeatTracker(snapshotPath, layout),
+                config);
+        subject.findAndHold(9, "a@test.com");
+        subject.shutdown();
+
+        SeatTracker seatTracker = VenueSnapshot.loadSeatTracker(snapshotPath, layout);
+        assertEquals(new SeatCounts(3, 9, 0), seatTracker.seatCounts());
+        assertEquals(seatTracker.auditSeatCounts(), seatTracker.seatCounts());
+        SeatAssignmentManager restarted = new SeatAssignmentManager(seatTracker, config);
+        assertEquals(1, restarted.numSeatHolds());
+        assertNull(restarted.findAndHold(4, "b@test.com"));
+        restarted.shutdown();
+
+        // same grid, but no gap past the short rows
+        try {
+            VenueSnapshot.loadSeatTracker(snapshotPath, 4, 4);
+            fail("The snapshot is of another venue");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("12 seats"));
+        }
+        try {
+            new SeatAssignmentManager(new SeatTracker(4, 4), config);
+            fail("The snapshot is of another venue");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("12 seats"));
+        }
+    }
+}